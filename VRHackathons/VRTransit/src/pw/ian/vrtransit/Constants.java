@@ -2,6 +2,8 @@ package pw.ian.vrtransit;
 
 public class Constants {
 	public static final int MAX_OBJECTS = 1000;
+
+	public static final int MAX_UPDATES_PER_FRAME = 200;
 	
 	public static final float ZOOM_FACTOR = 0.9f;
 	
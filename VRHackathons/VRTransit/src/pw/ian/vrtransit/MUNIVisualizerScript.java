@@ -1,12 +1,10 @@
 package pw.ian.vrtransit;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Queue;
 
 import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRBitmapTexture;
@@ -22,7 +20,10 @@ import com.samsungxr.animation.SXRPositionAnimation;
 import com.samsungxr.nodes.SXRTextViewNode;
 
 import pw.ian.vrtransit.data.BusUpdate;
+import pw.ian.vrtransit.data.ReplayTransitFeed;
 import pw.ian.vrtransit.data.TransitDataAccessor;
+import pw.ian.vrtransit.data.TransitFeed;
+import pw.ian.vrtransit.data.TransitFeedRecorder;
 import android.graphics.Color;
 import android.util.Log;
 
@@ -46,12 +47,62 @@ public class MUNIVisualizerScript extends SXRScript {
 
 	private SXRNode map;
 
-	private Map<String, SXRNode> vehicles = new HashMap<>();
+	private VehicleStore vehicles;
+
+	// pooled vehicle nodes, indexed by VehicleStore slot
+	private SXRNode[] buses;
+
+	private int[] moved;
+
+	private long lastStep = 0;
+
+	private List<BusUpdate> frameUpdates = new ArrayList<>(
+			Constants.MAX_UPDATES_PER_FRAME);
+
+	private File replayFile;
+
+	private float replaySpeed = 1f;
+
+	private int replayFanOut = 1;
+
+	private TransitFeedRecorder recorder;
 
 	public MUNIVisualizerScript(MainActivity core) {
 		this.core = core;
 	}
 
+	/**
+	 * Plays back a recording instead of the live feed.
+	 */
+	public void setReplay(File file, float speed, int fanOut) {
+		replayFile = file;
+		replaySpeed = speed;
+		replayFanOut = fanOut;
+	}
+
+	public void startRecording(File file) {
+		try {
+			recorder = new TransitFeedRecorder(file);
+			Log.i("VRTransit", "Recording feed to " + file);
+		} catch (IOException e) {
+			Log.e("VRTransit", "Cannot record to " + file, e);
+		}
+	}
+
+	public void close() {
+		if (tda != null) {
+			tda.close();
+		}
+		if (recorder != null) {
+			try {
+				recorder.close();
+			} catch (IOException e) {
+				Log.e("VRTransit", "Closing recording failed", e);
+			}
+			recorder = null;
+		}
+	}
+
 	@Override
 	public void onInit(SXRContext ctx) throws Throwable {
 
@@ -94,49 +145,55 @@ public class MUNIVisualizerScript extends SXRScript {
 
 	@Override
 	public void onStep() {
-		List<BusUpdate> bs = tda.nextUpdates();
-		for (BusUpdate bu : bs) {
-			if (bu.getRoute().equals("25"))
+		long now = System.nanoTime();
+		float dt = lastStep == 0 ? 0f : (now - lastStep) / 1e9f;
+		lastStep = now;
+
+		frameUpdates.clear();
+		tda.drainUpdates(frameUpdates, Constants.MAX_UPDATES_PER_FRAME);
+		for (BusUpdate bu : frameUpdates) {
+			if ("25".equals(bu.getRoute()))
 				continue;
-			if (vehicles.containsKey(bu.getId())) {
-
-				if (bu.remove) {
-					SXRNode bus = vehicles.remove(bu.getId());
-				} else {
-					SXRNode bus = vehicles.get(bu.getId());
-					smoothSetBusPos(bus, bu.getLat(), bu.getLon());
+			if (bu.remove) {
+				int slot = vehicles.release(bu.getId());
+				if (slot >= 0) {
+					resetPos(buses[slot]);
 				}
-
+				continue;
+			}
+			float x = scaleCoordX((float) bu.getLat(), 5f);
+			float y = scaleCoordY((float) bu.getLon(), 5f);
+			int slot = vehicles.find(bu.getId());
+			if (slot >= 0) {
+				vehicles.moveTo(slot, x, y);
 			} else {
-				SXRNode bus = setBusPos(nextBus(), bu.getLat(),
-						bu.getLon());
-				if (vehicles.containsValue(bus)) {
-					String key = null;
-					for (Entry<String, SXRNode> e : vehicles.entrySet()) {
-						if (e.getValue().equals(bus)) {
-							key = e.getKey();
-							break;
-						}
-					}
-					vehicles.remove(key);
-				}
-				if (bu.getType().equals("train")) {
+				slot = vehicles.acquire(bu.getId(), x, y);
+				SXRNode bus = buses[slot];
+				bus.getTransform().setPosition(x, y, -5f);
+				if ("train".equals(bu.getType())) {
 					bus.getTransform().setScale(0.15f, 0.05f, 0.05f);
 					bus.getRenderData().getMaterial().setMainTexture(trainTex);
 				} else {
 					bus.getTransform().setScale(0.05f, 0.05f, 0.05f);
 					bus.getRenderData().getMaterial().setMainTexture(busTex);
 				}
-				vehicles.put(bu.getId(), bus);
 			}
 		}
-	}
 
-	private Queue<SXRNode> busPool = new LinkedList<>();
+		int n = vehicles.update(dt, moved);
+		for (int i = 0; i < n; i++) {
+			int slot = moved[i];
+			buses[slot].getTransform().setPosition(vehicles.getX(slot),
+					vehicles.getY(slot), -5f);
+		}
+	}
 
 	private void initBusObjectPool(int amt) {
+		buses = new SXRNode[amt];
+		moved = new int[amt];
+		vehicles = new VehicleStore(amt, 1.0f);
 		for (int i = 0; i < amt; i++) {
-			busPool.add(resetPos(constructBus(mCtx)));
+			buses[i] = resetPos(constructBus(mCtx));
 		}
 	}
 
@@ -145,35 +202,12 @@ public class MUNIVisualizerScript extends SXRScript {
 		return bus;
 	}
 
-	private SXRNode nextBus() {
-		SXRNode bus = busPool.poll();
-		busPool.add(bus);
-		return bus;
-	}
-
 	private SXRNode constructBus(SXRContext ctx) {
 		SXRNode bus = new SXRNode(ctx, busMesh, busTex);
 		root.addChildObject(bus);
 		return bus;
 	}
 
-	public SXRNode smoothSetBusPos(SXRNode bus, double lat,
-			double lon) {
-
-		// 37.809607, -122.387515
-		// 37.734027, -122.514716
-
-		float dx = scaleCoordX((float) lat, 5f)
-				- bus.getTransform().getPositionX();
-		float dy = scaleCoordY((float) lon, 5f)
-				- bus.getTransform().getPositionY();
-
-		SXRAnimation anim = new SXRPositionAnimation(bus, 1.0f, dx, dy,
-				0f);
-		anim.start(mCtx.getAnimationEngine());
-		return bus;
-	}
-
 	public SXRNode setBusPos(SXRNode bus, double lat, double lon) {
 
 		// 37.809607, -122.387515
@@ -267,19 +301,39 @@ public class MUNIVisualizerScript extends SXRScript {
 	String type = "bus";
 
 	public void handleLongPress() {
-		if (type.equals("bus")) {
-			type = "train";
-		} else {
-			type = "bus";
+		if (mCtx == null) {
+			return;
 		}
-		initVehicles();
+		// Called from the UI thread, but the vehicle store is only touched from the GL thread
+		mCtx.runOnGlThread(new Runnable() {
+			@Override
+			public void run() {
+				if (type.equals("bus")) {
+					type = "train";
+				} else {
+					type = "bus";
+				}
+				initVehicles();
+			}
+		});
 	}
 
 	public void initVehicles() {
-		for (Entry<String, SXRNode> e : vehicles.entrySet()) {
-			resetPos(e.getValue());
+		for (int i = 0; i < vehicles.capacity(); i++) {
+			if (vehicles.idAt(i) != null) {
+				resetPos(buses[i]);
+			}
 		}
 		vehicles.clear();
-		tda = new TransitDataAccessor(type);
+		if (tda != null) {
+			tda.close();
+		}
+		if (replayFile != null) {
+			TransitFeed feed = new ReplayTransitFeed(replayFile, replaySpeed,
+					replayFanOut, true);
+			tda = new TransitDataAccessor(type, feed, recorder);
+		} else {
+			tda = new TransitDataAccessor(type, recorder);
+		}
 	}
 }
@@ -18,6 +18,9 @@ package pw.ian.vrtransit;
 
 import com.samsungxr.SXRActivity;
 
+import java.io.File;
+
+import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.MotionEvent;
@@ -33,10 +36,31 @@ public class MainActivity extends SXRActivity {
         super.onCreate(bundle);
         Firebase.setAndroidContext(this);
         s = new MUNIVisualizerScript(this);
+
+        // adb shell am start -n pw.ian.vrtransit/.MainActivity --es record feed.bin
+        // adb shell am start ... --es replay feed.bin --ef speed 10 --ei fanout 20
+        Intent intent = getIntent();
+        String replay = intent.getStringExtra("replay");
+        if (replay != null) {
+            s.setReplay(new File(getExternalFilesDir(null), replay),
+                    intent.getFloatExtra("speed", 1f),
+                    intent.getIntExtra("fanout", 1));
+        }
+        String record = intent.getStringExtra("record");
+        if (record != null) {
+            s.startRecording(new File(getExternalFilesDir(null), record));
+        }
+
         setScript(s, "sxr.xml");
         Log.i("VRTransit", "Init application");
     }
     
+    @Override
+    protected void onDestroy() {
+        s.close();
+        super.onDestroy();
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         Log.i("VRTransit", "Touch received");
@@ -0,0 +1,255 @@
+package pw.ian.vrtransit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-capacity store mapping vehicle ids to node slots.
+ * 
+ * Lookups go through an id to slot map and a slot to id array, so both
+ * directions are O(1). Released slots go on a free list. When the store is
+ * full the least recently updated vehicle is evicted, tracked by an intrusive
+ * LRU list over the slot indices. Position changes are interpolated here for
+ * all slots at once in {@link #update(float, int[])} rather than by one
+ * animation object per update.
+ * 
+ * Not thread safe; only touched from the GL thread.
+ */
+public class VehicleStore {
+	private static final int NONE = -1;
+
+	private final int capacity;
+
+	private final Map<String, Integer> slotById;
+
+	private final String[] ids;
+
+	private final int[] free;
+
+	private int freeCount;
+
+	// LRU list, head = most recently updated
+	private final int[] prev;
+
+	private final int[] next;
+
+	private int head = NONE;
+
+	private int tail = NONE;
+
+	// displayed position and interpolation state per slot
+	private final float[] x;
+
+	private final float[] y;
+
+	private final float[] fromX;
+
+	private final float[] fromY;
+
+	private final float[] toX;
+
+	private final float[] toY;
+
+	private final float[] elapsed;
+
+	private final float duration;
+
+	// slots currently interpolating, activeIndex[slot] = position in active
+	private final int[] active;
+
+	private final int[] activeIndex;
+
+	private int activeCount;
+
+	private int evictions;
+
+	public VehicleStore(int capacity, float duration) {
+		this.capacity = capacity;
+		this.duration = duration;
+		slotById = new HashMap<>(capacity * 2);
+		ids = new String[capacity];
+		free = new int[capacity];
+		prev = new int[capacity];
+		next = new int[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		fromX = new float[capacity];
+		fromY = new float[capacity];
+		toX = new float[capacity];
+		toY = new float[capacity];
+		elapsed = new float[capacity];
+		active = new int[capacity];
+		activeIndex = new int[capacity];
+		Arrays.fill(activeIndex, NONE);
+		for (int i = 0; i < capacity; i++) {
+			free[i] = capacity - 1 - i;
+		}
+		freeCount = capacity;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int size() {
+		return slotById.size();
+	}
+
+	public int evictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the slot of the vehicle, or -1 if it is not in the store
+	 */
+	public int find(String id) {
+		Integer slot = slotById.get(id);
+		return slot == null ? NONE : slot;
+	}
+
+	public String idAt(int slot) {
+		return ids[slot];
+	}
+
+	/**
+	 * Assigns a slot to a new vehicle, evicting the least recently updated one
+	 * when the store is full, and places it at (px, py) without interpolation.
+	 */
+	public int acquire(String id, float px, float py) {
+		int slot;
+		if (freeCount > 0) {
+			slot = free[--freeCount];
+		} else {
+			slot = tail;
+			slotById.remove(ids[slot]);
+			unlink(slot);
+			stopInterpolation(slot);
+			evictions++;
+		}
+		ids[slot] = id;
+		slotById.put(id, slot);
+		linkFirst(slot);
+		x[slot] = px;
+		y[slot] = py;
+		return slot;
+	}
+
+	/**
+	 * Starts interpolating the vehicle from where it is shown now to (px, py)
+	 * and marks it as most recently updated.
+	 */
+	public void moveTo(int slot, float px, float py) {
+		fromX[slot] = x[slot];
+		fromY[slot] = y[slot];
+		toX[slot] = px;
+		toY[slot] = py;
+		elapsed[slot] = 0f;
+		if (activeIndex[slot] == NONE) {
+			activeIndex[slot] = activeCount;
+			active[activeCount++] = slot;
+		}
+		unlink(slot);
+		linkFirst(slot);
+	}
+
+	/**
+	 * Removes the vehicle and returns its slot to the free list.
+	 * 
+	 * @return the released slot, or -1 if the vehicle was not in the store
+	 */
+	public int release(String id) {
+		Integer slot = slotById.remove(id);
+		if (slot == null)
+			return NONE;
+		ids[slot] = null;
+		unlink(slot);
+		stopInterpolation(slot);
+		free[freeCount++] = slot;
+		return slot;
+	}
+
+	public void clear() {
+		for (int i = 0; i < capacity; i++) {
+			ids[i] = null;
+			activeIndex[i] = NONE;
+			free[i] = capacity - 1 - i;
+		}
+		slotById.clear();
+		freeCount = capacity;
+		activeCount = 0;
+		head = tail = NONE;
+	}
+
+	/**
+	 * Advances every running interpolation by dt seconds.
+	 * 
+	 * @param moved
+	 *            receives the slots whose position changed, at least
+	 *            {@link #capacity()} long
+	 * @return the number of slots written to moved
+	 */
+	public int update(float dt, int[] moved) {
+		int n = 0;
+		for (int i = 0; i < activeCount;) {
+			int slot = active[i];
+			float t = elapsed[slot] + dt;
+			moved[n++] = slot;
+			if (t >= duration) {
+				x[slot] = toX[slot];
+				y[slot] = toY[slot];
+				stopInterpolation(slot);
+				// the last active slot was swapped into i, look at it next
+				continue;
+			}
+			elapsed[slot] = t;
+			float f = t / duration;
+			x[slot] = fromX[slot] + (toX[slot] - fromX[slot]) * f;
+			y[slot] = fromY[slot] + (toY[slot] - fromY[slot]) * f;
+			i++;
+		}
+		return n;
+	}
+
+	public float getX(int slot) {
+		return x[slot];
+	}
+
+	public float getY(int slot) {
+		return y[slot];
+	}
+
+	private void stopInterpolation(int slot) {
+		int i = activeIndex[slot];
+		if (i == NONE)
+			return;
+		int last = active[--activeCount];
+		active[i] = last;
+		activeIndex[last] = i;
+		activeIndex[slot] = NONE;
+	}
+
+	private void linkFirst(int slot) {
+		prev[slot] = NONE;
+		next[slot] = head;
+		if (head != NONE)
+			prev[head] = slot;
+		head = slot;
+		if (tail == NONE)
+			tail = slot;
+	}
+
+	private void unlink(int slot) {
+		int p = prev[slot];
+		int n = next[slot];
+		if (p != NONE)
+			next[p] = n;
+		else
+			head = n;
+		if (n != NONE)
+			prev[n] = p;
+		else
+			tail = p;
+		prev[slot] = next[slot] = NONE;
+	}
+}
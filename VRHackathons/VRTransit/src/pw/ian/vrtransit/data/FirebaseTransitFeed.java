@@ -0,0 +1,75 @@
+package pw.ian.vrtransit.data;
+
+import pw.ian.vrtransit.Constants;
+
+import android.util.Log;
+
+import com.firebase.client.ChildEventListener;
+import com.firebase.client.DataSnapshot;
+import com.firebase.client.Firebase;
+import com.firebase.client.FirebaseError;
+import com.firebase.client.Query;
+
+/**
+ * Live feed backed by the public SF MUNI Firebase dataset.
+ */
+public class FirebaseTransitFeed implements TransitFeed {
+	private Query ref = new Firebase(
+			"https://publicdata-transit.firebaseio.com/sf-muni/vehicles")
+			.limitToLast(Constants.MAX_OBJECTS);
+
+	private ChildEventListener listener;
+
+	@Override
+	public void start(final TransitDataAccessor sink) {
+		listener = new ChildEventListener() {
+
+			@Override
+			public void onCancelled(FirebaseError error) {
+				// The listener is removed by Firebase, so no more updates arrive
+				Log.e("VRTransit", "Transit feed cancelled: " + error.getMessage(),
+						error.toException());
+			}
+
+			@Override
+			public void onChildAdded(DataSnapshot ds, String key) {
+				sink.push(toUpdate(ds, false));
+			}
+
+			@Override
+			public void onChildChanged(DataSnapshot ds, String prevKey) {
+				sink.push(toUpdate(ds, false));
+			}
+
+			@Override
+			public void onChildMoved(DataSnapshot ds, String prevKey) {
+				// the order of the vehicles doesn't matter
+			}
+
+			@Override
+			public void onChildRemoved(DataSnapshot ds) {
+				sink.push(toUpdate(ds, true));
+			}
+		};
+		ref.addChildEventListener(listener);
+	}
+
+	@Override
+	public void stop() {
+		if (listener != null) {
+			ref.removeEventListener(listener);
+			listener = null;
+		}
+	}
+
+	private static BusUpdate toUpdate(DataSnapshot ds, boolean remove) {
+		String id = ds.child("id").getValue(String.class);
+		String route = ds.child("routeTag").getValue(String.class);
+		double lat = ds.child("lat").getValue(Double.class);
+		double lon = ds.child("lon").getValue(Double.class);
+		String type = ds.child("vtype").getValue(String.class);
+		BusUpdate bu = new BusUpdate(id, route, lat, lon, type);
+		bu.remove = remove;
+		return bu;
+	}
+}
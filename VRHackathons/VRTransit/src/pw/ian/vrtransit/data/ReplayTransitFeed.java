@@ -0,0 +1,130 @@
+package pw.ian.vrtransit.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.util.Log;
+
+/**
+ * Local stand-in for the live feed that plays back a file written by
+ * {@link TransitFeedRecorder}. Timing is compressed by the speed factor, and
+ * each recorded vehicle can be fanned out into several synthetic copies with
+ * their own ids and slightly offset positions, so a few hundred real vehicles
+ * become a 10k+ load test without the live service.
+ */
+public class ReplayTransitFeed implements TransitFeed {
+	// ~200 m between fanned-out copies
+	private static final double FAN_OUT_SPACING = 0.002;
+
+	private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+	private final File file;
+
+	private final float speed;
+
+	private final int fanOut;
+
+	private final boolean loop;
+
+	private volatile Thread thread;
+
+	public ReplayTransitFeed(File file, float speed, int fanOut, boolean loop) {
+		if (speed <= 0)
+			throw new IllegalArgumentException("speed must be > 0");
+		if (fanOut < 1)
+			throw new IllegalArgumentException("fanOut must be >= 1");
+		this.file = file;
+		this.speed = speed;
+		this.fanOut = fanOut;
+		this.loop = loop;
+	}
+
+	@Override
+	public void start(final TransitDataAccessor sink) {
+		Thread t = new Thread("VRTransit replay") {
+			@Override
+			public void run() {
+				try {
+					do {
+						replay(sink);
+					} while (loop && thread == this);
+				} catch (InterruptedException e) {
+					// stopped
+				} catch (IOException e) {
+					Log.e("VRTransit", "Replay of " + file + " failed", e);
+				}
+			}
+		};
+		t.setDaemon(true);
+		thread = t;
+		t.start();
+	}
+
+	@Override
+	public void stop() {
+		Thread t = thread;
+		thread = null;
+		if (t != null)
+			t.interrupt();
+	}
+
+	private void replay(TransitDataAccessor sink) throws IOException,
+			InterruptedException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try {
+			if (in.readInt() != TransitFeedRecorder.MAGIC)
+				throw new IOException("Not a transit recording");
+			int version = in.readUnsignedByte();
+			if (version != TransitFeedRecorder.VERSION)
+				throw new IOException("Unsupported recording version "
+						+ version);
+			in.readLong();
+
+			List<String> strings = new ArrayList<>();
+			long start = System.currentTimeMillis();
+			long recorded = 0;
+			while (thread == Thread.currentThread()) {
+				int delta;
+				try {
+					delta = TransitFeedRecorder.readVarint(in);
+				} catch (EOFException e) {
+					return;
+				}
+				recorded += delta;
+				long wait = start + (long) (recorded / speed)
+						- System.currentTimeMillis();
+				if (wait > 0)
+					Thread.sleep(wait);
+
+				boolean remove = (in.readUnsignedByte() & TransitFeedRecorder.FLAG_REMOVE) != 0;
+				String id = TransitFeedRecorder.readString(in, strings);
+				String route = TransitFeedRecorder.readString(in, strings);
+				String type = TransitFeedRecorder.readString(in, strings);
+				double lat = in.readFloat();
+				double lon = in.readFloat();
+				for (int k = 0; k < fanOut; k++) {
+					BusUpdate bu;
+					if (k == 0) {
+						bu = new BusUpdate(id, route, lat, lon, type);
+					} else {
+						double r = FAN_OUT_SPACING * Math.sqrt(k);
+						double a = k * GOLDEN_ANGLE;
+						bu = new BusUpdate(id + "#" + k, route, lat + r
+								* Math.cos(a), lon + r * Math.sin(a), type);
+					}
+					bu.remove = remove;
+					sink.push(bu);
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
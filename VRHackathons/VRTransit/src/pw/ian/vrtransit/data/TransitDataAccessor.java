@@ -1,88 +1,100 @@
 package pw.ian.vrtransit.data;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-
-import pw.ian.vrtransit.Constants;
-
-import com.firebase.client.ChildEventListener;
-import com.firebase.client.DataSnapshot;
-import com.firebase.client.Firebase;
-import com.firebase.client.FirebaseError;
-import com.firebase.client.Query;
-
+import java.util.Map;
+
+/**
+ * Coalesces raw feed updates into the latest pending state per vehicle id.
+ * A newer update replaces an older one that has not been drained yet (last
+ * write wins, removals included) but keeps its place in line, so vehicles
+ * that update constantly cannot starve the others when the frame only drains
+ * a bounded slice.
+ */
 public class TransitDataAccessor {
-	private Query ref = new Firebase(
-			"https://publicdata-transit.firebaseio.com/sf-muni/vehicles")
-			.limitToLast(Constants.MAX_OBJECTS);
+	private final Map<String, BusUpdate> pendingUpdates = new LinkedHashMap<>();
 
-	private ArrayBlockingQueue<BusUpdate> pendingUpdates = new ArrayBlockingQueue<>(
-			10000);
+	private final String type;
 
-	private String type;
+	private final TransitFeed feed;
 
-	public TransitDataAccessor(String type) {
-		this.type = type;
-
-		ref.addChildEventListener(new ChildEventListener() {
+	private volatile TransitFeedRecorder recorder;
 
-			@Override
-			public void onCancelled(FirebaseError arg0) {
-				// TODO Auto-generated method stub
+	private int coalesced = 0;
 
-			}
-
-			@Override
-			public void onChildAdded(DataSnapshot ds, String key) {
-				String id = ds.child("id").getValue(String.class);
-				String route = ds.child("routeTag").getValue(String.class);
-				double lat = ds.child("lat").getValue(Double.class);
-				double lon = ds.child("lon").getValue(Double.class);
-				String type = ds.child("vtype").getValue(String.class);
-				if (!type.equals(TransitDataAccessor.this.type))
-					return;
-				pendingUpdates.add(new BusUpdate(id, route, lat, lon, type));
-			}
-
-			@Override
-			public void onChildChanged(DataSnapshot ds, String prevKey) {
-				String id = ds.child("id").getValue(String.class);
-				String route = ds.child("routeTag").getValue(String.class);
-				double lat = ds.child("lat").getValue(Double.class);
-				double lon = ds.child("lon").getValue(Double.class);
-				String type = ds.child("vtype").getValue(String.class);
-				if (!type.equals(TransitDataAccessor.this.type))
-					return;
-				pendingUpdates.add(new BusUpdate(id, route, lat, lon, type));
-			}
+	public TransitDataAccessor(String type, TransitFeedRecorder recorder) {
+		this(type, new FirebaseTransitFeed(), recorder);
+	}
 
-			@Override
-			public void onChildMoved(DataSnapshot arg0, String arg1) {
-				// TODO Auto-generated method stub
+	/**
+	 * The recorder, if any, is set before the feed starts so the first
+	 * updates are recorded too. It gets every update the feed delivers, before
+	 * the vehicle type filter is applied, so one recording serves both the bus
+	 * and the train view.
+	 */
+	public TransitDataAccessor(String type, TransitFeed feed,
+			TransitFeedRecorder recorder) {
+		this.type = type;
+		this.feed = feed;
+		this.recorder = recorder;
+		feed.start(this);
+	}
 
-			}
+	public void push(BusUpdate bu) {
+		TransitFeedRecorder r = recorder;
+		if (r != null)
+			r.record(bu);
+		if (!type.equals(bu.getType()))
+			return;
+		synchronized (pendingUpdates) {
+			if (pendingUpdates.put(bu.getId(), bu) != null)
+				coalesced++;
+		}
+	}
 
-			@Override
-			public void onChildRemoved(DataSnapshot ds) {
-				String id = ds.child("id").getValue(String.class);
-				String route = ds.child("routeTag").getValue(String.class);
-				double lat = ds.child("lat").getValue(Double.class);
-				double lon = ds.child("lon").getValue(Double.class);
-				String type = ds.child("vtype").getValue(String.class);
-				if (!type.equals(TransitDataAccessor.this.type))
-					return;
-				BusUpdate bu = new BusUpdate(id, route, lat, lon, type);
-				bu.remove = true;
-				pendingUpdates.add(bu);
+	/**
+	 * Moves at most max pending updates, oldest vehicle first, into out.
+	 * 
+	 * @return the number of updates drained
+	 */
+	public int drainUpdates(List<BusUpdate> out, int max) {
+		int n = 0;
+		synchronized (pendingUpdates) {
+			Iterator<BusUpdate> it = pendingUpdates.values().iterator();
+			while (n < max && it.hasNext()) {
+				out.add(it.next());
+				it.remove();
+				n++;
 			}
-		});
-
+		}
+		return n;
 	}
 
 	public List<BusUpdate> nextUpdates() {
 		List<BusUpdate> ret = new ArrayList<>();
-		pendingUpdates.drainTo(ret);
+		drainUpdates(ret, Integer.MAX_VALUE);
 		return ret;
 	}
+
+	public int pendingCount() {
+		synchronized (pendingUpdates) {
+			return pendingUpdates.size();
+		}
+	}
+
+	/**
+	 * @return how many updates were replaced before the frame applied them
+	 */
+	public int coalescedCount() {
+		synchronized (pendingUpdates) {
+			return coalesced;
+		}
+	}
+
+	public void close() {
+		feed.stop();
+		recorder = null;
+	}
 }
@@ -0,0 +1,12 @@
+package pw.ian.vrtransit.data;
+
+/**
+ * A source of raw vehicle updates. Implementations push every update they
+ * receive into the accessor, which coalesces them per vehicle.
+ */
+public interface TransitFeed {
+
+	void start(TransitDataAccessor sink);
+
+	void stop();
+}
@@ -0,0 +1,126 @@
+package pw.ian.vrtransit.data;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import android.util.Log;
+
+/**
+ * Writes the raw feed to a compact binary file for {@link ReplayTransitFeed}.
+ * 
+ * Layout: magic, version, start time in ms, then one record per update:
+ * varint ms since the previous record, a flags byte, the id, route and type
+ * as string table references, and lat/lon as floats. A string reference is a
+ * varint index; an index equal to the current table size introduces a new
+ * string, written inline as UTF. A typical record is around a dozen bytes.
+ */
+public class TransitFeedRecorder implements Closeable {
+	static final int MAGIC = 0x56525446; // "VRTF"
+
+	static final int VERSION = 1;
+
+	static final int FLAG_REMOVE = 1;
+
+	private static final long FLUSH_INTERVAL_MS = 1000;
+
+	private final DataOutputStream out;
+
+	private final Map<String, Integer> strings = new HashMap<>();
+
+	private long lastTime;
+
+	private long lastFlush;
+
+	private boolean failed = false;
+
+	public TransitFeedRecorder(File file) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		lastTime = lastFlush = System.currentTimeMillis();
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeLong(lastTime);
+	}
+
+	public synchronized void record(BusUpdate bu) {
+		if (failed)
+			return;
+		try {
+			long now = System.currentTimeMillis();
+			writeVarint(out, (int) Math.max(0, now - lastTime));
+			lastTime = now;
+			out.writeByte(bu.remove ? FLAG_REMOVE : 0);
+			writeString(bu.getId());
+			writeString(bu.getRoute());
+			writeString(bu.getType());
+			out.writeFloat((float) bu.getLat());
+			out.writeFloat((float) bu.getLon());
+			if (now - lastFlush >= FLUSH_INTERVAL_MS) {
+				out.flush();
+				lastFlush = now;
+			}
+		} catch (IOException e) {
+			Log.e("VRTransit", "Recording failed, stopping", e);
+			failed = true;
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		failed = true;
+		out.close();
+	}
+
+	private void writeString(String s) throws IOException {
+		if (s == null)
+			s = "";
+		Integer idx = strings.get(s);
+		if (idx != null) {
+			writeVarint(out, idx);
+			return;
+		}
+		writeVarint(out, strings.size());
+		out.writeUTF(s);
+		strings.put(s, strings.size());
+	}
+
+	static void writeVarint(DataOutput out, int v) throws IOException {
+		while ((v & ~0x7f) != 0) {
+			out.writeByte((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		out.writeByte(v);
+	}
+
+	static int readVarint(DataInput in) throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			v |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return v;
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	static String readString(DataInput in, List<String> strings)
+			throws IOException {
+		int idx = readVarint(in);
+		if (idx < strings.size())
+			return strings.get(idx);
+		if (idx != strings.size())
+			throw new IOException("Bad string reference " + idx);
+		String s = in.readUTF();
+		strings.add(s);
+		return s;
+	}
+}
@@ -0,0 +1,143 @@
+package pw.ian.vrtransit;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * Drives {@link VehicleStore} with 1k-20k synthetic vehicles off-device and
+ * compares it with the old round-robin pool plus reverse map scan. It is kept
+ * out of the app sources and has no Android or SXR dependencies, so run it with
+ * plain java:
+ * 
+ * <pre>
+ * javac -d out src/pw/ian/vrtransit/VehicleStore.java tests/src/pw/ian/vrtransit/VehicleStoreBenchmark.java
+ * java -cp out pw.ian.vrtransit.VehicleStoreBenchmark
+ * </pre>
+ * 
+ * Each size is measured as a cold start (every vehicle new) followed by a
+ * number of frames that update 10% of the vehicles, bring in 1% new ones and
+ * step the interpolation.
+ */
+public class VehicleStoreBenchmark {
+	private static final int[] SIZES = { 1000, 2000, 5000, 10000, 20000 };
+
+	private static final int FRAMES = 600;
+
+	// the old pool is quadratic, don't wait minutes for it
+	private static final int LEGACY_LIMIT = 10000;
+
+	public static void main(String[] args) {
+		System.out.println("vehicles,store_cold_ms,store_frame_us,legacy_cold_ms,legacy_frame_us");
+		for (int warmup = 0; warmup < 2; warmup++) {
+			runStore(1000);
+			runLegacy(1000);
+		}
+		for (int n : SIZES) {
+			long[] store = runStore(n);
+			long[] legacy = n <= LEGACY_LIMIT ? runLegacy(n) : null;
+			System.out.println(n + "," + store[0] / 1000000.0 + ","
+					+ store[1] / 1000.0 / FRAMES + ","
+					+ (legacy == null ? "" : legacy[0] / 1000000.0) + ","
+					+ (legacy == null ? "" : legacy[1] / 1000.0 / FRAMES));
+		}
+	}
+
+	private static String[] ids(int n, int offset) {
+		String[] ids = new String[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = Integer.toString(offset + i);
+		}
+		return ids;
+	}
+
+	private static long[] runStore(int n) {
+		Random rnd = new Random(42);
+		String[] ids = ids(n, 0);
+		VehicleStore store = new VehicleStore(n, 1.0f);
+		int[] moved = new int[n];
+
+		long t0 = System.nanoTime();
+		for (String id : ids) {
+			store.acquire(id, rnd.nextFloat(), rnd.nextFloat());
+		}
+		long cold = System.nanoTime() - t0;
+
+		int nextId = n;
+		t0 = System.nanoTime();
+		for (int f = 0; f < FRAMES; f++) {
+			for (int i = 0; i < n / 10; i++) {
+				int slot = store.find(ids[rnd.nextInt(n)]);
+				if (slot >= 0)
+					store.moveTo(slot, rnd.nextFloat(), rnd.nextFloat());
+			}
+			for (int i = 0; i < n / 100; i++) {
+				String id = Integer.toString(nextId++);
+				ids[rnd.nextInt(n)] = id;
+				store.acquire(id, rnd.nextFloat(), rnd.nextFloat());
+			}
+			store.update(1f / 60f, moved);
+		}
+		return new long[] { cold, System.nanoTime() - t0 };
+	}
+
+	/**
+	 * The pre-VehicleStore logic, with a plain float pair standing in for a
+	 * node and a jump instead of an animation.
+	 */
+	private static long[] runLegacy(int n) {
+		Random rnd = new Random(42);
+		String[] ids = ids(n, 0);
+		Queue<float[]> pool = new LinkedList<>();
+		for (int i = 0; i < n; i++) {
+			pool.add(new float[2]);
+		}
+		Map<String, float[]> vehicles = new HashMap<>();
+
+		long t0 = System.nanoTime();
+		for (String id : ids) {
+			legacyAdd(pool, vehicles, id, rnd.nextFloat(), rnd.nextFloat());
+		}
+		long cold = System.nanoTime() - t0;
+
+		int nextId = n;
+		t0 = System.nanoTime();
+		for (int f = 0; f < FRAMES; f++) {
+			for (int i = 0; i < n / 10; i++) {
+				float[] bus = vehicles.get(ids[rnd.nextInt(n)]);
+				if (bus != null) {
+					bus[0] = rnd.nextFloat();
+					bus[1] = rnd.nextFloat();
+				}
+			}
+			for (int i = 0; i < n / 100; i++) {
+				String id = Integer.toString(nextId++);
+				ids[rnd.nextInt(n)] = id;
+				legacyAdd(pool, vehicles, id, rnd.nextFloat(), rnd.nextFloat());
+			}
+		}
+		return new long[] { cold, System.nanoTime() - t0 };
+	}
+
+	private static void legacyAdd(Queue<float[]> pool,
+			Map<String, float[]> vehicles, String id, float x, float y) {
+		float[] bus = pool.poll();
+		pool.add(bus);
+		bus[0] = x;
+		bus[1] = y;
+		if (vehicles.containsValue(bus)) {
+			String key = null;
+			for (Entry<String, float[]> e : vehicles.entrySet()) {
+				if (e.getValue().equals(bus)) {
+					key = e.getKey();
+					break;
+				}
+			}
+			vehicles.remove(key);
+		}
+		vehicles.put(id, bus);
+	}
+}
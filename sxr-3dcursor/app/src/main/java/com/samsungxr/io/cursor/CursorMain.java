@@ -128,12 +128,8 @@ public class CursorMain extends SXRMain {
     private SXRContext sxrContext = null;
     private SXRScene mainScene;
 
-    // FPS variables
-    private int frames = 0;
-    private long startTimeMillis = 0;
-    private final long interval = 100;
-
     private CursorManager cursorManager;
+    private FrameMetrics frameMetrics;
     private final List<TextView> textViewList;
     private final List<TextView> circleTextViewList;
     private final TextView resetTextView;
@@ -208,6 +204,7 @@ public class CursorMain extends SXRMain {
     @Override
     public void onInit(SXRContext sxrContext) {
         this.sxrContext = sxrContext;
+        frameMetrics = FrameMetrics.attach(sxrContext);
         mainScene = sxrContext.getMainScene();
         meshMap = new HashMap<String, SXRMesh>();
         materialMap = new HashMap<String, SXRMaterial>();
@@ -558,20 +555,6 @@ public class CursorMain extends SXRMain {
         }
     };
 
-    @Override
-    public void onStep() {
-        // tick(); uncomment for FPS
-    }
-
-    private void tick() {
-        ++frames;
-        if (System.currentTimeMillis() - startTimeMillis >= interval) {
-            Log.d(TAG, "FPS : " + frames / (interval / 1000.0f));
-            frames = 0;
-            startTimeMillis = System.currentTimeMillis();
-        }
-    }
-
     // The assets for the Cubemap are taken from the Samsung Developers website:
     // http://www.samsung.com/us/samsungdeveloperconnection/developer-resources/
     // gear-vr/apps-and-games/exercise-2-creating-the-splash-scene.html
@@ -634,6 +617,9 @@ public class CursorMain extends SXRMain {
     }
 
     void close() {
+        if (frameMetrics != null) {
+            frameMetrics.detach();
+        }
         if (cursorManager != null) {
             cursorManager.close();
         }
@@ -201,6 +201,11 @@ public class PetContext {
         mMixedReality.registerSharedObject(object, type, repeat);
     }
 
+    public int registerSharedObject(SXRNode object, @ArPetObjectType String type,
+                                    int instance, boolean repeat) {
+        return mMixedReality.registerSharedObject(object, type, instance, repeat);
+    }
+
     public void registerSharedObject(SXRNode object, @ArPetObjectType String type) {
         mMixedReality.registerSharedObject(object, type, true);
     }
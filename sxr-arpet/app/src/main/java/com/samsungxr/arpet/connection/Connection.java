@@ -25,5 +25,10 @@ public interface Connection {
 
     void write(@NonNull Message message, WriteSuccessCallback successCallback, WriteErrorCallback errorCallback);
 
+    /**
+     * @return Statistics of the messages sent through this connection.
+     */
+    ConnectionStats getStats();
+
     void close();
 }
@@ -47,7 +47,7 @@ public interface ConnectionManager {
      * Send message to all connected devices.
      *
      * @param message  A message to send.
-     * @param callback Returns total of messages sent successful.
+     * @param callback Returns total of messages sent successful and lost.
      */
     void sendMessage(Message message, @NonNull SendMessageCallback callback);
 
@@ -65,6 +65,13 @@ public interface ConnectionManager {
      */
     int getTotalConnected();
 
+    /**
+     * Get the outbound traffic statistics of each connection.
+     *
+     * @return A list of statistics, one per connected device.
+     */
+    List<ConnectionStats> getConnectionStats();
+
     /**
      * Get current manager state.
      *
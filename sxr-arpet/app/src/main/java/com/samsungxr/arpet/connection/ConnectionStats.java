@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Snapshot of the outbound traffic of a connection.
+ */
+public class ConnectionStats {
+
+    private final Device mDevice;
+    private final int mQueueDepth;
+    private final long mBytesSent;
+    private final long mBytesPerSecond;
+    private final int mMessagesSent;
+    private final int mDroppedCount;
+    private final int mSupersededCount;
+
+    public ConnectionStats(Device device, int queueDepth, long bytesSent, long bytesPerSecond,
+                           int messagesSent, int droppedCount, int supersededCount) {
+        mDevice = device;
+        mQueueDepth = queueDepth;
+        mBytesSent = bytesSent;
+        mBytesPerSecond = bytesPerSecond;
+        mMessagesSent = messagesSent;
+        mDroppedCount = droppedCount;
+        mSupersededCount = supersededCount;
+    }
+
+    public Device getDevice() {
+        return mDevice;
+    }
+
+    /**
+     * @return Total of messages waiting to be sent.
+     */
+    public int getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    public long getBytesSent() {
+        return mBytesSent;
+    }
+
+    /**
+     * @return Bytes sent per second measured in the last second.
+     */
+    public long getBytesPerSecond() {
+        return mBytesPerSecond;
+    }
+
+    public int getMessagesSent() {
+        return mMessagesSent;
+    }
+
+    /**
+     * @return Total of messages dropped because the queue was full.
+     */
+    public int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * @return Total of messages replaced by a newer message with the same key.
+     */
+    public int getSupersededCount() {
+        return mSupersededCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ConnectionStats{" +
+                "device=" + mDevice +
+                ", queueDepth=" + mQueueDepth +
+                ", bytesSent=" + mBytesSent +
+                ", bytesPerSecond=" + mBytesPerSecond +
+                ", messagesSent=" + mMessagesSent +
+                ", dropped=" + mDroppedCount +
+                ", superseded=" + mSupersededCount +
+                '}';
+    }
+}
@@ -19,5 +19,11 @@ package com.samsungxr.arpet.connection;
 
 @FunctionalInterface
 public interface SendMessageCallback {
-    void onResult(int totalSent);
+    /**
+     * @param totalSent Number of connections the message was written to.
+     * @param totalLost Number of connections the message was dropped for or failed to be
+     *                  written to. A message superseded by a newer one isn't lost, the newer
+     *                  one carries it and reports its own result.
+     */
+    void onResult(int totalSent, int totalLost);
 }
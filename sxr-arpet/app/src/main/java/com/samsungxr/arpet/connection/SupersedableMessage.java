@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection;
+
+import java.io.Serializable;
+
+/**
+ * A message that replaces older queued messages with the same key, so only the
+ * latest state is sent when the link can't keep up.
+ */
+public interface SupersedableMessage<Data extends Serializable> extends Message<Data> {
+
+    /**
+     * @return Key of the state carried by this message or null to never supersede.
+     */
+    Object getSupersedeKey();
+
+    /**
+     * Combine this message with an older queued one having the same key.
+     *
+     * @param older The message being replaced.
+     * @return The message to send instead of both.
+     */
+    Message supersede(Message older);
+}
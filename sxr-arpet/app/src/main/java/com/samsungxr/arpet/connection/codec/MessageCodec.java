@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.codec;
+
+import com.samsungxr.arpet.connection.Message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes and decodes the payload of a {@link Message} frame.
+ * <br/>Each frame written by {@link MessageFramer} carries the id of the codec
+ * used to encode it, so both peers must register the same codecs.
+ */
+public interface MessageCodec {
+
+    /**
+     * Unique identifier of this codec written in every frame header.
+     *
+     * @return A value in range [0, {@link MessageFramer#MAX_CODECS}).
+     */
+    byte getId();
+
+    /**
+     * Check if this codec is able to encode the given message.
+     *
+     * @param message A message to send.
+     * @return True if {@link #encode(Message, DataOutputStream)} supports the message.
+     */
+    boolean canEncode(Message message);
+
+    /**
+     * Write the message payload.
+     *
+     * @param message A message accepted by {@link #canEncode(Message)}.
+     * @param out     The frame payload stream.
+     */
+    void encode(Message message, DataOutputStream out) throws IOException;
+
+    /**
+     * Read a message payload previously written by {@link #encode(Message, DataOutputStream)}.
+     *
+     * @param in The frame payload stream.
+     * @return The decoded message.
+     */
+    Message decode(DataInputStream in) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.codec;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.samsungxr.arpet.connection.Message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length-prefixed framing for messages exchanged through a socket.
+ * <br/>Each frame is written as:
+ * <pre>
+ *     int  payload length
+ *     byte codec id
+ *     byte[payload length] payload
+ * </pre>
+ * The first registered codec able to encode a message is used to write it.
+ * {@link SerializableMessageCodec} is always registered as fallback.
+ * <br/>The write and read sides keep their own reusable buffers, so one thread
+ * may write while another one reads.
+ */
+public class MessageFramer {
+
+    private static final String TAG = MessageFramer.class.getSimpleName();
+
+    public static final int MAX_CODECS = 128;
+    public static final int MAX_FRAME_LENGTH = 4 * 1024 * 1024;
+
+    private final List<MessageCodec> mEncoders = new ArrayList<>();
+    private final MessageCodec[] mDecoders = new MessageCodec[MAX_CODECS];
+
+    private final ByteArrayOutputStream mPayload = new ByteArrayOutputStream(256);
+    private final DataOutputStream mPayloadOut = new DataOutputStream(mPayload);
+
+    private final FrameInputStream mFrame = new FrameInputStream(256);
+    private final DataInputStream mFrameIn = new DataInputStream(mFrame);
+
+    public MessageFramer(@NonNull MessageCodec... codecs) {
+        for (MessageCodec codec : codecs) {
+            register(codec);
+        }
+        if (mDecoders[SerializableMessageCodec.ID] == null) {
+            register(new SerializableMessageCodec());
+        }
+    }
+
+    private void register(MessageCodec codec) {
+        int id = codec.getId();
+        if (id < 0 || id >= MAX_CODECS) {
+            throw new IllegalArgumentException("Invalid codec id " + id);
+        }
+        if (mDecoders[id] != null) {
+            throw new IllegalArgumentException("Duplicated codec id " + id);
+        }
+        mDecoders[id] = codec;
+        mEncoders.add(codec);
+    }
+
+    /**
+     * Encode and write the message as a single frame.
+     *
+     * @param out     Stream to write to. The caller is responsible for flushing it, so
+     *                several frames can be sent in a single write to the socket.
+     * @param message A message to send.
+     * @return Total of bytes written, including the frame header.
+     */
+    public synchronized int writeFrame(@NonNull DataOutputStream out, @NonNull Message message)
+            throws IOException {
+
+        MessageCodec codec = findEncoder(message);
+        mPayload.reset();
+        codec.encode(message, mPayloadOut);
+        mPayloadOut.flush();
+
+        int length = mPayload.size();
+        out.writeInt(length);
+        out.writeByte(codec.getId());
+        mPayload.writeTo(out);
+
+        return length + 5;
+    }
+
+    /**
+     * Read and decode the next frame. This method must be called from a single thread.
+     *
+     * @param in Stream to read from.
+     * @return The message read or null if the frame was encoded by an unknown codec.
+     */
+    public Message readFrame(@NonNull DataInputStream in) throws IOException, ClassNotFoundException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        int id = in.readByte();
+
+        byte[] buffer = mFrame.obtain(length);
+        in.readFully(buffer, 0, length);
+
+        MessageCodec codec = id >= 0 ? mDecoders[id] : null;
+        if (codec == null) {
+            Log.w(TAG, "Frame discarded. No codec registered with id " + id);
+            return null;
+        }
+
+        return codec.decode(mFrameIn);
+    }
+
+    private MessageCodec findEncoder(Message message) {
+        for (MessageCodec codec : mEncoders) {
+            if (codec.canEncode(message)) {
+                return codec;
+            }
+        }
+        return mDecoders[SerializableMessageCodec.ID];
+    }
+
+    private static class FrameInputStream extends ByteArrayInputStream {
+
+        FrameInputStream(int size) {
+            super(new byte[size]);
+            count = 0;
+        }
+
+        byte[] obtain(int length) {
+            if (buf.length < length) {
+                buf = new byte[Math.max(length, buf.length * 2)];
+            }
+            pos = 0;
+            mark = 0;
+            count = length;
+            return buf;
+        }
+    }
+}
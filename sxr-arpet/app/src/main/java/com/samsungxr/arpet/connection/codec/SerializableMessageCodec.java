@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.codec;
+
+import com.samsungxr.arpet.connection.Message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Fallback codec based on Java serialization. It accepts any message.
+ */
+public final class SerializableMessageCodec implements MessageCodec {
+
+    public static final byte ID = 0;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean canEncode(Message message) {
+        return true;
+    }
+
+    @Override
+    public void encode(Message message, DataOutputStream out) throws IOException {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
+        objectOutputStream.writeObject(message);
+        objectOutputStream.flush();
+    }
+
+    @Override
+    public Message decode(DataInputStream in) throws IOException, ClassNotFoundException {
+        return (Message) new ObjectInputStream(in).readObject();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.exception;
+
+/**
+ * Thrown to the error callback of a message removed from an outbound queue before being sent.
+ */
+public class MessageDroppedException extends ConnectionException {
+
+    public static final int REASON_QUEUE_FULL = 0;
+    public static final int REASON_SUPERSEDED = 1;
+    public static final int REASON_CONNECTION_CLOSED = 2;
+
+    private final int mReason;
+
+    public MessageDroppedException(int reason, String message) {
+        super(message);
+        mReason = reason;
+    }
+
+    public int getReason() {
+        return mReason;
+    }
+}
@@ -22,14 +22,19 @@ import android.util.Log;
 
 import com.samsungxr.arpet.connection.Connection;
 import com.samsungxr.arpet.connection.ConnectionManager;
+import com.samsungxr.arpet.connection.ConnectionStats;
 import com.samsungxr.arpet.connection.Device;
 import com.samsungxr.arpet.connection.ManagerState;
 import com.samsungxr.arpet.connection.Message;
 import com.samsungxr.arpet.connection.OnConnectionListener;
 import com.samsungxr.arpet.connection.OnMessageListener;
 import com.samsungxr.arpet.connection.SendMessageCallback;
+import com.samsungxr.arpet.connection.WriteErrorCallback;
 import com.samsungxr.arpet.connection.WriteSuccessCallback;
+import com.samsungxr.arpet.connection.codec.MessageCodec;
+import com.samsungxr.arpet.connection.codec.MessageFramer;
 import com.samsungxr.arpet.connection.exception.ConnectionException;
+import com.samsungxr.arpet.connection.exception.MessageDroppedException;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -46,6 +51,7 @@ public abstract class BaseSocketConnectionManager implements ConnectionManager,
     private IncomingSocketConnectionThread mIncomingSocketConnection;
     private int mTotalConnectionsDesired, mTotalConnectionsFailed;
     private List<OutgoingSocketConnectionThread> mOutgoingSocketConnections;
+    private MessageCodec[] mMessageCodecs = new MessageCodec[0];
 
     @ConnectionMode
     private int mConnectionMode;
@@ -105,22 +111,54 @@ public abstract class BaseSocketConnectionManager implements ConnectionManager,
         }
     }
 
+    /**
+     * Queue the message to all connected devices without blocking the caller. The callback
+     * is called once every connection has sent or dropped the message.
+     */
     @Override
     public synchronized void sendMessage(Message message, @NonNull SendMessageCallback callback) {
 
-        if (!stateIs(ManagerState.CONNECTED)) {
+        if (mOngoingConnections.isEmpty()) {
             Log.d(TAG, "Manager is not connected");
-            callback.onResult(0);
+            callback.onResult(0, 0);
+            return;
         }
 
+        AtomicInteger pending = new AtomicInteger(mOngoingConnections.size());
         AtomicInteger totalSent = new AtomicInteger();
-        WriteSuccessCallback writeCallback = totalSent::incrementAndGet;
+        AtomicInteger totalLost = new AtomicInteger();
+        WriteSuccessCallback writeCallback = () -> {
+            totalSent.incrementAndGet();
+            if (pending.decrementAndGet() == 0) {
+                callback.onResult(totalSent.get(), totalLost.get());
+            }
+        };
+        WriteErrorCallback errorCallback = error -> {
+            if (!isSuperseded(error)) {
+                totalLost.incrementAndGet();
+            }
+            if (pending.decrementAndGet() == 0) {
+                callback.onResult(totalSent.get(), totalLost.get());
+            }
+        };
 
         for (Connection connection : mOngoingConnections) {
-            connection.write(message, writeCallback, null);
+            connection.write(message, writeCallback, errorCallback);
         }
+    }
 
-        callback.onResult(totalSent.get());
+    private static boolean isSuperseded(Throwable error) {
+        return error instanceof MessageDroppedException && ((MessageDroppedException) error)
+                .getReason() == MessageDroppedException.REASON_SUPERSEDED;
+    }
+
+    @Override
+    public synchronized List<ConnectionStats> getConnectionStats() {
+        List<ConnectionStats> stats = new ArrayList<>(mOngoingConnections.size());
+        for (Connection connection : mOngoingConnections) {
+            stats.add(connection.getStats());
+        }
+        return stats;
     }
 
     @Override
@@ -188,6 +226,16 @@ public abstract class BaseSocketConnectionManager implements ConnectionManager,
         }
     }
 
+    /**
+     * Set the codecs used to encode messages of connections established from now on.
+     * Messages not supported by any of them are sent through Java serialization.
+     *
+     * @param codecs Codecs in order of preference.
+     */
+    public synchronized void setMessageCodecs(@NonNull MessageCodec... codecs) {
+        mMessageCodecs = codecs;
+    }
+
     protected abstract SocketConnectionThreadFactory getSocketConnectionThreadFactory();
 
     // CONNECTION LISTENER METHODS
@@ -195,7 +243,9 @@ public abstract class BaseSocketConnectionManager implements ConnectionManager,
     @Override
     public synchronized void onConnectionEstablished(Connection connection) {
         mOngoingConnections.add(connection);
-        ((OngoingSocketConnectionThread) connection).start();
+        OngoingSocketConnectionThread connectionThread = (OngoingSocketConnectionThread) connection;
+        connectionThread.setMessageFramer(new MessageFramer(mMessageCodecs));
+        connectionThread.start();
         if (checkOutgoingConnectionThreadsFinished()) {
             setState(ManagerState.CONNECTED);
             mConnectionMode = ConnectionMode.CLIENT;
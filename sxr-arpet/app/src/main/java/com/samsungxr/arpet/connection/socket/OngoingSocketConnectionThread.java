@@ -20,28 +20,45 @@ package com.samsungxr.arpet.connection.socket;
 import android.support.annotation.NonNull;
 
 import com.samsungxr.arpet.connection.Connection;
+import com.samsungxr.arpet.connection.ConnectionStats;
 import com.samsungxr.arpet.connection.Device;
 import com.samsungxr.arpet.connection.Message;
 import com.samsungxr.arpet.connection.OnConnectionListener;
 import com.samsungxr.arpet.connection.OnMessageListener;
 import com.samsungxr.arpet.connection.WriteErrorCallback;
 import com.samsungxr.arpet.connection.WriteSuccessCallback;
+import com.samsungxr.arpet.connection.codec.MessageFramer;
 import com.samsungxr.arpet.connection.exception.ClosedConnectionException;
 import com.samsungxr.arpet.connection.exception.ConnectionException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class OngoingSocketConnectionThread extends SocketConnectionThread implements Connection {
 
+    // Max messages written to the stream before flush it
+    private static final int MAX_BATCH_SIZE = 32;
+    private static final long RATE_WINDOW_MS = 1000;
+
     private Socket mSocket;
-    private InputStream mInStream;
-    private OutputStream mOutStream;
+    private DataInputStream mInStream;
+    private DataOutputStream mOutStream;
+    private MessageFramer mFramer = new MessageFramer();
     private OnMessageListener mMessageListener;
     private OnConnectionListener mOnConnectionListener;
+    private final OutboundMessageQueue mOutboundQueue = new OutboundMessageQueue();
+    private final Thread mWriterThread = new Thread(this::writeMessages, "arpet-socket-writer");
+
+    private long mBytesSent;
+    private int mMessagesSent;
+    private long mRateWindowStart;
+    private long mRateWindowBytes;
+    private long mBytesPerSecond;
 
     public OngoingSocketConnectionThread(
             @NonNull Socket socket,
@@ -53,8 +70,8 @@ public class OngoingSocketConnectionThread extends SocketConnectionThread implem
         mOnConnectionListener = listener;
 
         try {
-            mInStream = socket.getInputStream();
-            mOutStream = socket.getOutputStream();
+            mInStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            mOutStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
         } catch (IOException e) {
             mOnConnectionListener.onConnectionFailure(
                     new ConnectionException("Error opening connection to remote " +
@@ -62,6 +79,21 @@ public class OngoingSocketConnectionThread extends SocketConnectionThread implem
         }
     }
 
+    /**
+     * Set the framer used to encode and decode messages. Must be called before start the thread.
+     *
+     * @param framer Framer configured with the codecs shared by both peers.
+     */
+    public void setMessageFramer(@NonNull MessageFramer framer) {
+        mFramer = framer;
+    }
+
+    @Override
+    public synchronized void start() {
+        super.start();
+        mWriterThread.start();
+    }
+
     @Override
     public void run() {
 
@@ -81,35 +113,81 @@ public class OngoingSocketConnectionThread extends SocketConnectionThread implem
         }
     }
 
+    /**
+     * Queue the message to be sent by the writer thread. Callbacks are called from that thread
+     * after the message is flushed to the socket, or when the message is dropped.
+     */
     @Override
     public void write(@NonNull Message message, WriteSuccessCallback successCallback, WriteErrorCallback errorCallback) {
-        try {
-            ObjectOutputStream objectOutputStream = new ObjectOutputStream(mOutStream);
-            objectOutputStream.writeObject(message);
-            objectOutputStream.flush();
-            if (successCallback != null) {
-                successCallback.onSuccess();
+        mOutboundQueue.offer(message, successCallback, errorCallback);
+    }
+
+    private void writeMessages() {
+        List<OutboundMessageQueue.Entry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+        while (true) {
+            try {
+                if (!mOutboundQueue.take(batch, MAX_BATCH_SIZE)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                break;
             }
-        } catch (Exception e) {
-            if (!mSocket.isConnected()) {
-                ClosedConnectionException exc = new ClosedConnectionException("Connection closed", e);
-                if (errorCallback != null) {
-                    errorCallback.onError(exc);
+
+            try {
+                int bytes = 0;
+                for (OutboundMessageQueue.Entry entry : batch) {
+                    bytes += mFramer.writeFrame(mOutStream, entry.message);
+                }
+                mOutStream.flush();
+                onBatchSent(batch.size(), bytes);
+                for (OutboundMessageQueue.Entry entry : batch) {
+                    entry.onSuccess();
                 }
-                mOnConnectionListener.onConnectionLost(this, exc);
-            } else {
-                if (errorCallback != null) {
-                    errorCallback.onError(e);
+            } catch (Exception e) {
+                if (!mSocket.isConnected()) {
+                    ClosedConnectionException exc = new ClosedConnectionException("Connection closed", e);
+                    for (OutboundMessageQueue.Entry entry : batch) {
+                        entry.onError(exc);
+                    }
+                    mOutboundQueue.close();
+                    mOnConnectionListener.onConnectionLost(this, exc);
+                    break;
+                } else {
+                    for (OutboundMessageQueue.Entry entry : batch) {
+                        entry.onError(e);
+                    }
                 }
             }
+            batch.clear();
         }
     }
 
+    private synchronized void onBatchSent(int messages, int bytes) {
+        long now = System.currentTimeMillis();
+        mBytesSent += bytes;
+        mMessagesSent += messages;
+        if (now - mRateWindowStart >= RATE_WINDOW_MS) {
+            mBytesPerSecond = mRateWindowBytes * 1000 / Math.max(RATE_WINDOW_MS, now - mRateWindowStart);
+            mRateWindowStart = now;
+            mRateWindowBytes = 0;
+        }
+        mRateWindowBytes += bytes;
+    }
+
+    @Override
+    public synchronized ConnectionStats getStats() {
+        return new ConnectionStats(getRemoteDevice(), mOutboundQueue.size(), mBytesSent,
+                mBytesPerSecond, mMessagesSent, mOutboundQueue.getDroppedCount(),
+                mOutboundQueue.getSupersededCount());
+    }
+
     private Message readMessage() throws IOException, ClassNotFoundException {
-        return (Message) new ObjectInputStream(mInStream).readObject();
+        return mFramer.readFrame(mInStream);
     }
 
     private void handleIOException(IOException e) {
+        mOutboundQueue.close();
         if (!mSocket.isConnected()) {
             mOnConnectionListener.onConnectionLost(this, new ClosedConnectionException("Connection closed", e));
         } else {
@@ -124,6 +202,7 @@ public class OngoingSocketConnectionThread extends SocketConnectionThread implem
 
     @Override
     public void close() {
+        mOutboundQueue.close();
         try {
             mSocket.close();
         } catch (IOException e) {
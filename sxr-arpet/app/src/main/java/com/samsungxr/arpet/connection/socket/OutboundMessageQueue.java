@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.SupersedableMessage;
+import com.samsungxr.arpet.connection.WriteErrorCallback;
+import com.samsungxr.arpet.connection.WriteSuccessCallback;
+import com.samsungxr.arpet.connection.exception.MessageDroppedException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded queue of messages waiting to be written to a connection.
+ * <br/>A {@link SupersedableMessage} replaces the queued message with the same key and
+ * is moved to the end of the queue. Callbacks of dropped messages are called with a
+ * {@link MessageDroppedException}, always outside the queue lock.
+ */
+public class OutboundMessageQueue {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int mCapacity;
+    private final ArrayDeque<Entry> mEntries;
+    private boolean mClosed;
+    private int mDroppedCount;
+    private int mSupersededCount;
+
+    public OutboundMessageQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OutboundMessageQueue(int capacity) {
+        mCapacity = capacity;
+        mEntries = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Add a message to the queue.
+     *
+     * @return False if the message was dropped.
+     */
+    public boolean offer(@NonNull Message message,
+                         WriteSuccessCallback successCallback,
+                         WriteErrorCallback errorCallback) {
+
+        Entry superseded = null;
+        MessageDroppedException dropped = null;
+
+        synchronized (this) {
+            if (mClosed) {
+                dropped = new MessageDroppedException(
+                        MessageDroppedException.REASON_CONNECTION_CLOSED, "Connection closed");
+            } else {
+                superseded = removeSuperseded(message);
+                if (superseded != null) {
+                    message = ((SupersedableMessage) message).supersede(superseded.message);
+                    mSupersededCount++;
+                }
+                if (mEntries.size() >= mCapacity) {
+                    mDroppedCount++;
+                    dropped = new MessageDroppedException(
+                            MessageDroppedException.REASON_QUEUE_FULL, "Outbound queue is full");
+                } else {
+                    mEntries.addLast(new Entry(message, successCallback, errorCallback));
+                    notifyAll();
+                }
+            }
+        }
+
+        if (superseded != null) {
+            superseded.onError(new MessageDroppedException(
+                    MessageDroppedException.REASON_SUPERSEDED, "Superseded by " + message));
+        }
+        if (dropped != null) {
+            if (errorCallback != null) {
+                errorCallback.onError(dropped);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private Entry removeSuperseded(Message message) {
+        if (!(message instanceof SupersedableMessage)) {
+            return null;
+        }
+        Object key = ((SupersedableMessage) message).getSupersedeKey();
+        if (key == null) {
+            return null;
+        }
+        Iterator<Entry> iterator = mEntries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.message instanceof SupersedableMessage
+                    && key.equals(((SupersedableMessage) entry.message).getSupersedeKey())) {
+                iterator.remove();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait for messages and move them to the given batch.
+     *
+     * @param batch    List to add the messages to.
+     * @param maxCount Maximum number of messages to move.
+     * @return False when the queue is closed.
+     */
+    public synchronized boolean take(@NonNull List<Entry> batch, int maxCount)
+            throws InterruptedException {
+
+        while (mEntries.isEmpty() && !mClosed) {
+            wait();
+        }
+        if (mClosed) {
+            return false;
+        }
+        while (!mEntries.isEmpty() && maxCount-- > 0) {
+            batch.add(mEntries.pollFirst());
+        }
+        return true;
+    }
+
+    /**
+     * Close the queue. Pending messages are dropped.
+     */
+    public void close() {
+        List<Entry> pending;
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            pending = new ArrayList<>(mEntries);
+            mEntries.clear();
+            notifyAll();
+        }
+        for (Entry entry : pending) {
+            entry.onError(new MessageDroppedException(
+                    MessageDroppedException.REASON_CONNECTION_CLOSED, "Connection closed"));
+        }
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    public synchronized int getSupersededCount() {
+        return mSupersededCount;
+    }
+
+    public static final class Entry {
+
+        final Message message;
+        private final WriteSuccessCallback mSuccessCallback;
+        private final WriteErrorCallback mErrorCallback;
+
+        Entry(Message message, WriteSuccessCallback successCallback, WriteErrorCallback errorCallback) {
+            this.message = message;
+            mSuccessCallback = successCallback;
+            mErrorCallback = errorCallback;
+        }
+
+        void onSuccess() {
+            if (mSuccessCallback != null) {
+                mSuccessCallback.onSuccess();
+            }
+        }
+
+        void onError(Throwable error) {
+            if (mErrorCallback != null) {
+                mErrorCallback.onError(error);
+            }
+        }
+    }
+}
@@ -36,6 +36,11 @@ public class BTMessage<Data extends Serializable> implements Message<Data> {
         mData = data;
     }
 
+    protected BTMessage(int id, Data data) {
+        mId = id;
+        mData = data;
+    }
+
     private static int incrementId() {
         synchronized (BTMessage.class) {
             return ++sId;
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket.tcp;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.Connection;
+import com.samsungxr.arpet.connection.Device;
+import com.samsungxr.arpet.connection.OnConnectionListener;
+import com.samsungxr.arpet.connection.OnMessageListener;
+import com.samsungxr.arpet.connection.socket.BaseSocketConnectionManager;
+import com.samsungxr.arpet.connection.socket.IncomingSocketConnectionThread;
+import com.samsungxr.arpet.connection.socket.OutgoingSocketConnectionThread;
+import com.samsungxr.arpet.connection.socket.ServerSocket;
+import com.samsungxr.arpet.connection.socket.SocketConnectionThreadFactory;
+
+import java.io.IOException;
+
+/**
+ * Connection manager over TCP sockets. It doesn't depend on any device hardware, so
+ * the sharing stack can run over loopback or a local network.
+ * <br/>Guests connect to a {@link TCPDevice} with the host address and the port returned
+ * by {@link #getListeningPort()}.
+ */
+public class TCPConnectionManager extends BaseSocketConnectionManager {
+
+    private final int mPort;
+    private volatile int mListeningPort = -1;
+    private TCPSocketConnectionThreadFactory mSocketConnectionThreadFactory =
+            new TCPSocketConnectionThreadFactory();
+
+    /**
+     * @param port Port to listen to connections or 0 to use any free port.
+     */
+    public TCPConnectionManager(int port) {
+        mPort = port;
+    }
+
+    /**
+     * @return Port bound by the last connection listener started or -1 if none.
+     */
+    public int getListeningPort() {
+        return mListeningPort;
+    }
+
+    @Override
+    protected SocketConnectionThreadFactory getSocketConnectionThreadFactory() {
+        return mSocketConnectionThreadFactory;
+    }
+
+    private class TCPSocketConnectionThreadFactory implements SocketConnectionThreadFactory {
+
+        @Override
+        public IncomingSocketConnectionThread createIncomingSocketConnectionThread(
+                @NonNull OnMessageListener messageListener,
+                @NonNull OnConnectionListener connectionListener) {
+
+            return new TCPIncomingSocketConnectionThread(
+                    messageListener,
+                    connectionListener
+            );
+        }
+
+        @Override
+        public OutgoingSocketConnectionThread createOutgoingSocketConnectionThread(
+                @NonNull Device device,
+                @NonNull OnMessageListener messageListener,
+                @NonNull OnConnectionListener connectionListener) {
+
+            return new TCPOutgoingSocketConnectionThread(
+                    (TCPDevice) device,
+                    messageListener,
+                    connectionListener);
+        }
+    }
+
+    // Inner class because the server socket is opened from the super constructor,
+    // before the fields of a subclass could hold the port
+    private class TCPIncomingSocketConnectionThread extends IncomingSocketConnectionThread<TCPSocket> {
+
+        private OnMessageListener mMessageListener;
+
+        TCPIncomingSocketConnectionThread(
+                @NonNull OnMessageListener messageListener,
+                @NonNull OnConnectionListener connectionListener) {
+
+            super(connectionListener);
+            mMessageListener = messageListener;
+        }
+
+        @Override
+        protected ServerSocket<TCPSocket> getServerSocket() throws IOException {
+            TCPServerSocket serverSocket = new TCPServerSocket(mPort);
+            mListeningPort = serverSocket.getLocalPort();
+            return serverSocket;
+        }
+
+        @Override
+        protected Connection createConnection(TCPSocket socket) {
+            return new TCPOngoingSocketConnectionThread(socket, mMessageListener, mOnConnectionListener);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket.tcp;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.BaseDevice;
+import com.samsungxr.arpet.connection.DeviceType;
+
+public class TCPDevice extends BaseDevice {
+
+    private final String mHost;
+    private final int mPort;
+
+    public TCPDevice(@NonNull String host, int port) {
+        mHost = host;
+        mPort = port;
+    }
+
+    public String getHost() {
+        return mHost;
+    }
+
+    public int getPort() {
+        return mPort;
+    }
+
+    @Override
+    public String getName() {
+        return mHost;
+    }
+
+    @Override
+    public String getAddress() {
+        return mHost + ":" + mPort;
+    }
+
+    @Override
+    public int getType() {
+        return DeviceType.UNKNOWN;
+    }
+
+    @Override
+    public String toString() {
+        return "TCPDevice{" +
+                "host='" + mHost + '\'' +
+                ", port=" + mPort +
+                "} " + super.toString();
+    }
+
+    TCPSocket createSocket() {
+        return new TCPSocket(this);
+    }
+}
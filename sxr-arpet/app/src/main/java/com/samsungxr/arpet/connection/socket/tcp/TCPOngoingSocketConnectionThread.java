@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket.tcp;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.OnConnectionListener;
+import com.samsungxr.arpet.connection.OnMessageListener;
+import com.samsungxr.arpet.connection.socket.OngoingSocketConnectionThread;
+
+public class TCPOngoingSocketConnectionThread extends OngoingSocketConnectionThread {
+
+    TCPOngoingSocketConnectionThread(
+            @NonNull TCPSocket socket,
+            @NonNull OnMessageListener messageListener,
+            @NonNull OnConnectionListener connectionListener) {
+
+        super(socket, messageListener, connectionListener);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket.tcp;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.Connection;
+import com.samsungxr.arpet.connection.Device;
+import com.samsungxr.arpet.connection.OnConnectionListener;
+import com.samsungxr.arpet.connection.OnMessageListener;
+import com.samsungxr.arpet.connection.socket.OutgoingSocketConnectionThread;
+
+public class TCPOutgoingSocketConnectionThread extends OutgoingSocketConnectionThread<TCPSocket> {
+
+    private OnMessageListener mMessageListener;
+
+    TCPOutgoingSocketConnectionThread(
+            @NonNull TCPDevice device,
+            @NonNull OnMessageListener messageListener,
+            @NonNull OnConnectionListener connectionListener) {
+
+        super(device, connectionListener);
+        this.mMessageListener = messageListener;
+    }
+
+    @Override
+    protected TCPSocket createSocket(Device device) {
+        return ((TCPDevice) device).createSocket();
+    }
+
+    @Override
+    protected Connection createConnection(TCPSocket socket) {
+        return new TCPOngoingSocketConnectionThread(socket, mMessageListener, mOnConnectionListener);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket.tcp;
+
+import com.samsungxr.arpet.connection.socket.ServerSocket;
+
+import java.io.IOException;
+
+public class TCPServerSocket implements ServerSocket<TCPSocket> {
+
+    private java.net.ServerSocket mServerSocket;
+
+    /**
+     * @param port Port to listen to or 0 to use any free port.
+     */
+    TCPServerSocket(int port) throws IOException {
+        this.mServerSocket = new java.net.ServerSocket(port);
+    }
+
+    public int getLocalPort() {
+        return mServerSocket.getLocalPort();
+    }
+
+    @Override
+    public TCPSocket accept() throws IOException {
+        return new TCPSocket(mServerSocket.accept());
+    }
+
+    @Override
+    public void close() throws IOException {
+        mServerSocket.close();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.connection.socket.tcp;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.Device;
+import com.samsungxr.arpet.connection.socket.Socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+public class TCPSocket implements Socket {
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private java.net.Socket mSocket;
+    private TCPDevice mDevice;
+
+    TCPSocket(@NonNull TCPDevice device) {
+        this.mSocket = new java.net.Socket();
+        this.mDevice = device;
+    }
+
+    TCPSocket(@NonNull java.net.Socket socket) throws IOException {
+        this.mSocket = socket;
+        this.mDevice = new TCPDevice(socket.getInetAddress().getHostAddress(), socket.getPort());
+        // Messages are already batched by the connection before flush
+        socket.setTcpNoDelay(true);
+    }
+
+    @Override
+    public void connect() throws IOException {
+        mSocket.connect(new InetSocketAddress(mDevice.getHost(), mDevice.getPort()), CONNECT_TIMEOUT_MS);
+        mSocket.setTcpNoDelay(true);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return mSocket.getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return mSocket.getOutputStream();
+    }
+
+    @Override
+    public Device getRemoteDevice() {
+        return mDevice;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return mSocket.isConnected() && !mSocket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mSocket.close();
+    }
+}
@@ -20,10 +20,16 @@ package com.samsungxr.arpet.manager.connection;
 import android.support.annotation.NonNull;
 
 import com.samsungxr.arpet.PetContext;
+import com.samsungxr.arpet.connection.ConnectionStats;
+import com.samsungxr.arpet.connection.Device;
 import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.OnMessageListener;
 import com.samsungxr.arpet.connection.SendMessageCallback;
+import com.samsungxr.arpet.connection.codec.MessageCodec;
 import com.samsungxr.arpet.connection.socket.ConnectionMode;
 
+import java.util.List;
+
 public interface IPetConnectionManager {
 
     // Connection status
@@ -127,7 +133,41 @@ public interface IPetConnectionManager {
 
     int getTotalConnected();
 
+    /**
+     * @return Devices currently connected.
+     */
+    List<Device> getConnectedDevices();
+
+    /**
+     * Queue the message to all connected devices. The callback is called from the
+     * connection thread once the message was sent or dropped by every connection.
+     *
+     * @param message  A message to send.
+     * @param callback Returns total of devices the message was sent to and lost for.
+     */
     void sendMessage(Message message, @NonNull SendMessageCallback callback);
 
+    /**
+     * @return Outbound traffic statistics of each connection.
+     */
+    List<ConnectionStats> getConnectionStats();
+
+    /**
+     * Set the codecs used to encode messages. Both host and guests must set the same codecs
+     * before to connect.
+     *
+     * @param codecs Codecs in order of preference.
+     */
+    void setMessageCodecs(@NonNull MessageCodec... codecs);
+
+    /**
+     * Set the listener of the messages received from remote devices. It is called from the
+     * connection thread. Without a listener the messages are posted through EventBus as
+     * {@link #EVENT_MESSAGE_RECEIVED} events.
+     *
+     * @param listener Listener of the messages received or null to post them.
+     */
+    void setOnMessageReceivedListener(OnMessageListener listener);
+
     PetContext getContext();
 }
@@ -25,8 +25,10 @@ import android.util.Log;
 
 import com.samsungxr.arpet.PetContext;
 import com.samsungxr.arpet.connection.Connection;
+import com.samsungxr.arpet.connection.Device;
 import com.samsungxr.arpet.connection.ManagerState;
 import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.OnMessageListener;
 import com.samsungxr.arpet.connection.SendMessageCallback;
 import com.samsungxr.arpet.connection.exception.ConnectionException;
 import com.samsungxr.arpet.connection.socket.bluetooth.BTConnectionManager;
@@ -42,6 +44,7 @@ import org.greenrobot.eventbus.Subscribe;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.List;
 
 public final class PetConnectionManager extends BTConnectionManager implements IPetConnectionManager {
 
@@ -55,6 +58,7 @@ public final class PetConnectionManager extends BTConnectionManager implements I
     private OnEnableDiscoverableCallback mEnableVisibilityCallback;
     private DeviceVisibilityMonitor mDeviceVisibilityMonitor;
     private boolean mDisconnectSilently;
+    private volatile OnMessageListener mMessageReceivedListener;
 
     private static volatile PetConnectionManager sInstance;
 
@@ -144,6 +148,12 @@ public final class PetConnectionManager extends BTConnectionManager implements I
         return super.getTotalConnected();
     }
 
+    @Override
+    public List<Device> getConnectedDevices() {
+        checkInitialization();
+        return super.getConnectedDevices();
+    }
+
     @Override
     public void sendMessage(Message message, @NonNull SendMessageCallback callback) {
         checkInitialization();
@@ -191,8 +201,20 @@ public final class PetConnectionManager extends BTConnectionManager implements I
      * @param message Message form remote device.
      */
     private void onMessageReceived(Message message) {
-        Log.d(TAG, "onMessageReceived: " + message);
-        notifyManagerEvent(EVENT_MESSAGE_RECEIVED, message);
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "onMessageReceived: " + message);
+        }
+        OnMessageListener listener = mMessageReceivedListener;
+        if (listener != null) {
+            listener.onMessageReceived(message);
+        } else {
+            notifyManagerEvent(EVENT_MESSAGE_RECEIVED, message);
+        }
+    }
+
+    @Override
+    public void setOnMessageReceivedListener(OnMessageListener listener) {
+        mMessageReceivedListener = listener;
     }
 
     @Override
@@ -20,15 +20,19 @@ package com.samsungxr.arpet.service;
 import android.support.annotation.NonNull;
 import android.support.annotation.StringDef;
 
+import com.samsungxr.arpet.connection.SendMessageCallback;
 import com.samsungxr.arpet.manager.cloud.anchor.CloudAnchor;
 import com.samsungxr.arpet.service.data.BallCommand;
 import com.samsungxr.arpet.service.data.PetActionCommand;
 import com.samsungxr.arpet.service.data.RequestStatus;
 import com.samsungxr.arpet.service.data.ViewCommand;
+import com.samsungxr.arpet.service.event.ReceivedMessage;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
 import com.samsungxr.arpet.service.share.SharedObjectPose;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.Executor;
 
 public interface IMessageService {
 
@@ -38,6 +42,7 @@ public interface IMessageService {
     String MESSAGE_TYPE_PET_ACTION_COMMAND = "MESSAGE_TYPE_PET_ACTION_COMMAND";
     String MESSAGE_TYPE_UPDATE_POSES = "MESSAGE_TYPE_UPDATE_POSES";
     String MESSAGE_TYPE_REQUEST_STATUS = "MESSAGE_TYPE_REQUEST_STATUS";
+    String MESSAGE_TYPE_UPDATE_POSE_DELTAS = "MESSAGE_TYPE_UPDATE_POSE_DELTAS";
 
 
     @Retention(RetentionPolicy.SOURCE)
@@ -47,7 +52,8 @@ public interface IMessageService {
             MESSAGE_TYPE_BALL_COMMAND,
             MESSAGE_TYPE_PET_ACTION_COMMAND,
             MESSAGE_TYPE_UPDATE_POSES,
-            MESSAGE_TYPE_REQUEST_STATUS
+            MESSAGE_TYPE_REQUEST_STATUS,
+            MESSAGE_TYPE_UPDATE_POSE_DELTAS
     })
     @interface MessageType {
     }
@@ -62,5 +68,30 @@ public interface IMessageService {
 
     void updatePoses(@NonNull SharedObjectPose[] poses);
 
+    /**
+     * Send the pose deltas to all guests. A frame not sent yet is merged with the next one.
+     *
+     * @param frame    Poses to send.
+     * @param callback Returns total of guests the frame was delivered to and lost for.
+     */
+    void updatePoseDeltas(@NonNull PoseDeltaFrame frame, @NonNull SendMessageCallback callback);
+
     void sendRequestStatus(RequestStatus status);
+
+    /**
+     * Add a handler of received messages. Messages of a class without handlers are
+     * posted through EventBus, except pose updates, which are dropped.
+     *
+     * @param messageClass Class of message to handle.
+     * @param handler      The handler.
+     * @param executor     Executor to run the handler, like {@code petContext::runOnPetThread}
+     *                     or {@code sxrContext::runOnGlThread}. If null the handler runs inline
+     *                     on the thread that received the message.
+     */
+    <M extends ReceivedMessage> void addMessageHandler(
+            @NonNull Class<M> messageClass,
+            @NonNull MessageHandler<? super M> handler,
+            Executor executor);
+
+    void removeMessageHandler(@NonNull MessageHandler<?> handler);
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.samsungxr.arpet.service.event.ReceivedMessage;
+import com.samsungxr.arpet.util.EventBusUtils;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Routes received requests to the handlers of its message type.
+ * <br/>Each message type is bound once to a factory that wraps the request data, so no
+ * reflection is done per message. Messages of a type without handlers are posted through
+ * EventBus to reach the subscribers of the message class, unless the type was registered
+ * to be delivered to its handlers only.
+ */
+final class MessageDispatcher {
+
+    private static final String TAG = MessageDispatcher.class.getSimpleName();
+
+    private static final Executor INLINE_EXECUTOR = Runnable::run;
+
+    @FunctionalInterface
+    interface MessageFactory<D extends Serializable, M extends ReceivedMessage> {
+        M create(D data);
+    }
+
+    private final Map<String, Route<?, ?>> mRoutesByType = new HashMap<>();
+    private final Map<Class<?>, Route<?, ?>> mRoutesByClass = new HashMap<>();
+
+    /**
+     * Bind a message type to the message created when a request of this type is received.
+     * Must be called before the messages start to be received.
+     */
+    <D extends Serializable, M extends ReceivedMessage> void register(
+            @IMessageService.MessageType String type,
+            @NonNull Class<M> messageClass,
+            @NonNull MessageFactory<D, M> factory) {
+        register(type, messageClass, factory, true);
+    }
+
+    /**
+     * @param post False to drop the messages received while the type has no handler, rather
+     *             than post them through EventBus.
+     */
+    <D extends Serializable, M extends ReceivedMessage> void register(
+            @IMessageService.MessageType String type,
+            @NonNull Class<M> messageClass,
+            @NonNull MessageFactory<D, M> factory,
+            boolean post) {
+
+        Route<D, M> route = new Route<>(factory, post);
+        mRoutesByType.put(type, route);
+        mRoutesByClass.put(messageClass, route);
+    }
+
+    @SuppressWarnings("unchecked")
+    <M extends ReceivedMessage> void addHandler(
+            @NonNull Class<M> messageClass,
+            @NonNull MessageHandler<? super M> handler,
+            Executor executor) {
+
+        Route<?, M> route = (Route<?, M>) mRoutesByClass.get(messageClass);
+        if (route == null) {
+            throw new IllegalArgumentException("Unknown message class " + messageClass.getName());
+        }
+        route.handlers.add(new Subscription<>(handler, executor != null ? executor : INLINE_EXECUTOR));
+    }
+
+    void removeHandler(@NonNull MessageHandler<?> handler) {
+        for (Route<?, ?> route : mRoutesByType.values()) {
+            for (Subscription<?> subscription : route.handlers) {
+                if (subscription.handler == handler) {
+                    route.handlers.remove(subscription);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return False if there is no message bound to the request type.
+     */
+    @SuppressWarnings("unchecked")
+    boolean dispatch(@NonNull RequestMessage request) {
+        Route route = mRoutesByType.get(request.getActionName());
+        if (route == null) {
+            return false;
+        }
+        List<Subscription> handlers = route.handlers;
+        if (handlers.isEmpty() && !route.post) {
+            return true;
+        }
+
+        ReceivedMessage message;
+        try {
+            message = route.factory.create(request.getData());
+        } catch (ClassCastException e) {
+            Log.e(TAG, "Unexpected data for received message " + request, e);
+            return false;
+        }
+        message.setRequestStatus(request.getStatus());
+
+        if (handlers.isEmpty()) {
+            EventBusUtils.post(message);
+        } else {
+            for (Subscription subscription : handlers) {
+                subscription.deliver(message);
+            }
+        }
+        return true;
+    }
+
+    private static final class Route<D extends Serializable, M extends ReceivedMessage> {
+
+        final MessageFactory<D, M> factory;
+        final boolean post;
+        final List<Subscription<M>> handlers = new CopyOnWriteArrayList<>();
+
+        Route(MessageFactory<D, M> factory, boolean post) {
+            this.factory = factory;
+            this.post = post;
+        }
+    }
+
+    private static final class Subscription<M extends ReceivedMessage> {
+
+        final MessageHandler<? super M> handler;
+        final Executor executor;
+
+        Subscription(MessageHandler<? super M> handler, Executor executor) {
+            this.handler = handler;
+            this.executor = executor;
+        }
+
+        void deliver(M message) {
+            if (executor == INLINE_EXECUTOR) {
+                handler.handleMessage(message);
+            } else {
+                executor.execute(() -> handler.handleMessage(message));
+            }
+        }
+    }
+}
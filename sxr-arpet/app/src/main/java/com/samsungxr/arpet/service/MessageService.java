@@ -20,10 +20,10 @@ package com.samsungxr.arpet.service;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
+import com.samsungxr.arpet.connection.SendMessageCallback;
 import com.samsungxr.arpet.manager.cloud.anchor.CloudAnchor;
 import com.samsungxr.arpet.manager.connection.IPetConnectionManager;
 import com.samsungxr.arpet.manager.connection.PetConnectionManager;
-import com.samsungxr.arpet.manager.connection.event.MessageReceivedEvent;
 import com.samsungxr.arpet.service.data.BallCommand;
 import com.samsungxr.arpet.service.data.PetActionCommand;
 import com.samsungxr.arpet.service.data.RequestStatus;
@@ -31,18 +31,16 @@ import com.samsungxr.arpet.service.data.ViewCommand;
 import com.samsungxr.arpet.service.event.BallCommandReceivedMessage;
 import com.samsungxr.arpet.service.event.PetActionCommandReceivedMessage;
 import com.samsungxr.arpet.service.event.PetAnchorReceivedMessage;
+import com.samsungxr.arpet.service.event.PoseDeltasReceivedMessage;
 import com.samsungxr.arpet.service.event.ReceivedMessage;
 import com.samsungxr.arpet.service.event.RequestStatusReceivedMessage;
 import com.samsungxr.arpet.service.event.UpdatePosesReceivedMessage;
 import com.samsungxr.arpet.service.event.ViewCommandReceivedMessage;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
 import com.samsungxr.arpet.service.share.SharedObjectPose;
-import com.samsungxr.arpet.util.EventBusUtils;
-import org.greenrobot.eventbus.Subscribe;
 
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.Executor;
 
 public final class MessageService implements IMessageService {
 
@@ -50,24 +48,33 @@ public final class MessageService implements IMessageService {
 
     private IPetConnectionManager mConnectionManager;
 
-    private static Map<String, Class> mReceivedMessageTypes = new HashMap<>();
-
-    static {
-        mReceivedMessageTypes.put(MESSAGE_TYPE_PET_ANCHOR, PetAnchorReceivedMessage.class);
-        mReceivedMessageTypes.put(MESSAGE_TYPE_VIEW_COMMAND, ViewCommandReceivedMessage.class);
-        mReceivedMessageTypes.put(MESSAGE_TYPE_BALL_COMMAND, BallCommandReceivedMessage.class);
-        mReceivedMessageTypes.put(MESSAGE_TYPE_PET_ACTION_COMMAND, PetActionCommandReceivedMessage.class);
-        mReceivedMessageTypes.put(MESSAGE_TYPE_UPDATE_POSES, UpdatePosesReceivedMessage.class);
-        mReceivedMessageTypes.put(MESSAGE_TYPE_REQUEST_STATUS, RequestStatusReceivedMessage.class);
-    }
+    private final MessageDispatcher mDispatcher = new MessageDispatcher();
 
     private static class InstanceHolder {
         private static final IMessageService INSTANCE = new MessageService();
     }
 
     private MessageService() {
-        EventBusUtils.register(this);
         this.mConnectionManager = PetConnectionManager.getInstance();
+        this.mConnectionManager.setMessageCodecs(new RequestMessageCodec());
+        this.mConnectionManager.setOnMessageReceivedListener(
+                message -> handleRequestMessage((RequestMessage) message));
+
+        mDispatcher.register(MESSAGE_TYPE_PET_ANCHOR,
+                PetAnchorReceivedMessage.class, PetAnchorReceivedMessage::new);
+        mDispatcher.register(MESSAGE_TYPE_VIEW_COMMAND,
+                ViewCommandReceivedMessage.class, ViewCommandReceivedMessage::new);
+        mDispatcher.register(MESSAGE_TYPE_BALL_COMMAND,
+                BallCommandReceivedMessage.class, BallCommandReceivedMessage::new);
+        mDispatcher.register(MESSAGE_TYPE_PET_ACTION_COMMAND,
+                PetActionCommandReceivedMessage.class, PetActionCommandReceivedMessage::new);
+        // Pose updates only go to the handlers of the shared mixed reality, never through EventBus
+        mDispatcher.register(MESSAGE_TYPE_UPDATE_POSES,
+                UpdatePosesReceivedMessage.class, UpdatePosesReceivedMessage::new, false);
+        mDispatcher.register(MESSAGE_TYPE_REQUEST_STATUS,
+                RequestStatusReceivedMessage.class, RequestStatusReceivedMessage::new);
+        mDispatcher.register(MESSAGE_TYPE_UPDATE_POSE_DELTAS,
+                PoseDeltasReceivedMessage.class, PoseDeltasReceivedMessage::new, false);
     }
 
     public static IMessageService getInstance() {
@@ -101,6 +108,12 @@ public final class MessageService implements IMessageService {
         sendRequest(new RequestMessage<>(MESSAGE_TYPE_UPDATE_POSES, poses));
     }
 
+    @Override
+    public void updatePoseDeltas(@NonNull PoseDeltaFrame frame, @NonNull SendMessageCallback callback) {
+        mConnectionManager.sendMessage(
+                new RequestMessage<>(MESSAGE_TYPE_UPDATE_POSE_DELTAS, frame), callback);
+    }
+
     @Override
     public void sendRequestStatus(@NonNull RequestStatus status) {
         sendRequest(new RequestMessage<>(MESSAGE_TYPE_REQUEST_STATUS, status));
@@ -108,29 +121,33 @@ public final class MessageService implements IMessageService {
 
     private int sendRequest(RequestMessage request) {
         int id = request.getId();
-        mConnectionManager.sendMessage(request,
-                totalSent -> logForRequest(request, "Request sent: " + request));
+        mConnectionManager.sendMessage(request, (totalSent, totalLost) -> {
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                logForRequest(request, "Request sent: " + request);
+            }
+        });
         return id;
     }
 
-    @Subscribe
-    public void handleConnectionEvent(MessageReceivedEvent event) {
-        handleRequestMessage((RequestMessage) event.getData());
-    }
-
-    @SuppressWarnings("unchecked")
     private void handleRequestMessage(RequestMessage request) {
-        try {
-            Class messageType = mReceivedMessageTypes.get(request.getActionName());
-            Class dataType = request.getData().getClass();
-            ReceivedMessage message = (ReceivedMessage) messageType.getConstructor(dataType).newInstance(request.getData());
-            message.setRequestStatus(request.getStatus());
-            EventBusUtils.post(message);
-        } catch (NoSuchMethodException | IllegalAccessException | InstantiationException | InvocationTargetException e) {
-            Log.e(TAG, "Error instantiating class for received message " + request, e);
+        if (!mDispatcher.dispatch(request)) {
+            Log.e(TAG, "No message bound to received request " + request);
         }
     }
 
+    @Override
+    public <M extends ReceivedMessage> void addMessageHandler(
+            @NonNull Class<M> messageClass,
+            @NonNull MessageHandler<? super M> handler,
+            Executor executor) {
+        mDispatcher.addHandler(messageClass, handler, executor);
+    }
+
+    @Override
+    public void removeMessageHandler(@NonNull MessageHandler<?> handler) {
+        mDispatcher.removeHandler(handler);
+    }
+
     private void logForRequest(RequestMessage message, CharSequence text) {
         Log.d(TAG, String.format(Locale.getDefault(), "Request(%d): %s", message.getId(), text));
     }
@@ -19,12 +19,16 @@ package com.samsungxr.arpet.service;
 
 import android.support.annotation.NonNull;
 
+import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.SupersedableMessage;
 import com.samsungxr.arpet.connection.socket.bluetooth.BTMessage;
 import com.samsungxr.arpet.service.data.RequestStatus;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
 
 import java.io.Serializable;
 
-public class RequestMessage<Data extends Serializable> extends BTMessage<Data> {
+public class RequestMessage<Data extends Serializable> extends BTMessage<Data>
+        implements SupersedableMessage<Data> {
 
     private String mActionName;
     private RequestStatus mStatus;
@@ -34,6 +38,11 @@ public class RequestMessage<Data extends Serializable> extends BTMessage<Data> {
         this.mActionName = mActionName;
     }
 
+    RequestMessage(int id, @IMessageService.MessageType String mActionName, Data data) {
+        super(id, data);
+        this.mActionName = mActionName;
+    }
+
     @IMessageService.MessageType
     public String getActionName() {
         return mActionName;
@@ -47,6 +56,29 @@ public class RequestMessage<Data extends Serializable> extends BTMessage<Data> {
         this.mStatus = mStatus;
     }
 
+    /**
+     * Pose updates not sent yet are replaced by newer ones. Other requests are always sent.
+     */
+    @Override
+    public Object getSupersedeKey() {
+        if (IMessageService.MESSAGE_TYPE_UPDATE_POSES.equals(mActionName)
+                || IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS.equals(mActionName)) {
+            return mActionName;
+        }
+        return null;
+    }
+
+    @Override
+    public Message supersede(Message older) {
+        if (IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS.equals(mActionName)) {
+            // Deltas are relative to the previous frame, so they can't be simply discarded
+            PoseDeltaFrame merged = PoseDeltaFrame.merge(
+                    (PoseDeltaFrame) older.getData(), (PoseDeltaFrame) getData());
+            return new RequestMessage<>(getId(), mActionName, merged);
+        }
+        return this;
+    }
+
     @NonNull
     @Override
     public String toString() {
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service;
+
+import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.codec.MessageCodec;
+import com.samsungxr.arpet.constant.ArPetObjectType;
+import com.samsungxr.arpet.manager.cloud.anchor.CloudAnchor;
+import com.samsungxr.arpet.service.data.BallCommand;
+import com.samsungxr.arpet.service.data.PetActionCommand;
+import com.samsungxr.arpet.service.data.RequestStatus;
+import com.samsungxr.arpet.service.data.ViewCommand;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
+import com.samsungxr.arpet.service.share.SharedObjectPose;
+
+import org.joml.Vector3f;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_BALL_COMMAND;
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND;
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_PET_ANCHOR;
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_REQUEST_STATUS;
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS;
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_UPDATE_POSES;
+import static com.samsungxr.arpet.service.IMessageService.MESSAGE_TYPE_VIEW_COMMAND;
+
+/**
+ * Hand-written binary codec for {@link RequestMessage}.
+ * <br/>String constants are written as their index in a fixed table, so host and guest
+ * must run the same version of this class. Requests carrying an error in its
+ * {@link RequestStatus} or without an action are left to the serialization fallback.
+ */
+public final class RequestMessageCodec implements MessageCodec {
+
+    public static final byte ID = 1;
+
+    private static final int FLAG_HAS_STATUS = 1;
+    private static final int UNKNOWN_CONSTANT = -1;
+    private static final int NULL_CONSTANT = -2;
+
+    private static final String[] ACTIONS = {
+            MESSAGE_TYPE_PET_ANCHOR,
+            MESSAGE_TYPE_VIEW_COMMAND,
+            MESSAGE_TYPE_BALL_COMMAND,
+            MESSAGE_TYPE_PET_ACTION_COMMAND,
+            MESSAGE_TYPE_UPDATE_POSES,
+            MESSAGE_TYPE_REQUEST_STATUS,
+            MESSAGE_TYPE_UPDATE_POSE_DELTAS
+    };
+
+    private static final String[] OBJECT_TYPES = {
+            ArPetObjectType.PET,
+            ArPetObjectType.BED,
+            ArPetObjectType.BOWL,
+            ArPetObjectType.HYDRANT,
+            ArPetObjectType.CAMERA,
+            ArPetObjectType.PLANE,
+            ArPetObjectType.PLAYER
+    };
+
+    private static final String[] STATUSES = {
+            RequestStatus.STATUS_UNDEFINED,
+            RequestStatus.STATUS_OK,
+            RequestStatus.STATUS_ERROR
+    };
+
+    private static final String[] BALL_COMMANDS = {
+            BallCommand.THROW,
+            BallCommand.ENABLE
+    };
+
+    private static final String[] VIEW_COMMANDS = {
+            ViewCommand.SHOW_VIEW_LOOKING_AT_TARGET
+    };
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean canEncode(Message message) {
+        if (!(message instanceof RequestMessage)) {
+            return false;
+        }
+        RequestMessage request = (RequestMessage) message;
+        if (request.getActionName() == null) {
+            return false;
+        }
+        if (request.getStatus() != null && request.getStatus().getError() != null) {
+            return false;
+        }
+        Serializable data = request.getData();
+        switch (request.getActionName()) {
+            case MESSAGE_TYPE_PET_ANCHOR:
+                return data instanceof CloudAnchor;
+            case MESSAGE_TYPE_VIEW_COMMAND:
+                return data instanceof ViewCommand;
+            case MESSAGE_TYPE_BALL_COMMAND:
+                return data instanceof BallCommand;
+            case MESSAGE_TYPE_PET_ACTION_COMMAND:
+                return data instanceof PetActionCommand;
+            case MESSAGE_TYPE_UPDATE_POSES:
+                return data instanceof SharedObjectPose[];
+            case MESSAGE_TYPE_REQUEST_STATUS:
+                return data instanceof RequestStatus
+                        && ((RequestStatus) data).getError() == null;
+            case MESSAGE_TYPE_UPDATE_POSE_DELTAS:
+                return data instanceof PoseDeltaFrame;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void encode(Message message, DataOutputStream out) throws IOException {
+        RequestMessage request = (RequestMessage) message;
+        String action = request.getActionName();
+
+        out.writeInt(request.getId());
+        writeConstant(out, ACTIONS, action);
+        out.writeByte(request.getStatus() != null ? FLAG_HAS_STATUS : 0);
+        if (request.getStatus() != null) {
+            writeStatus(out, request.getStatus());
+        }
+
+        switch (action) {
+            case MESSAGE_TYPE_PET_ANCHOR:
+                writeAnchor(out, (CloudAnchor) request.getData());
+                break;
+            case MESSAGE_TYPE_VIEW_COMMAND:
+                writeConstant(out, VIEW_COMMANDS, ((ViewCommand) request.getData()).getType());
+                break;
+            case MESSAGE_TYPE_BALL_COMMAND:
+                writeBallCommand(out, (BallCommand) request.getData());
+                break;
+            case MESSAGE_TYPE_PET_ACTION_COMMAND:
+                out.writeInt(((PetActionCommand) request.getData()).getType());
+                break;
+            case MESSAGE_TYPE_UPDATE_POSES:
+                writePoses(out, (SharedObjectPose[]) request.getData());
+                break;
+            case MESSAGE_TYPE_REQUEST_STATUS:
+                writeStatus(out, (RequestStatus) request.getData());
+                break;
+            case MESSAGE_TYPE_UPDATE_POSE_DELTAS:
+                writePoseDeltas(out, (PoseDeltaFrame) request.getData());
+                break;
+        }
+    }
+
+    @Override
+    public Message decode(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        String action = readConstant(in, ACTIONS);
+        if (action == null) {
+            throw new IOException("Missing action");
+        }
+        RequestStatus status = (in.readByte() & FLAG_HAS_STATUS) != 0 ? readStatus(in) : null;
+
+        Serializable data;
+        switch (action) {
+            case MESSAGE_TYPE_PET_ANCHOR:
+                data = readAnchor(in);
+                break;
+            case MESSAGE_TYPE_VIEW_COMMAND:
+                data = new ViewCommand(readConstant(in, VIEW_COMMANDS));
+                break;
+            case MESSAGE_TYPE_BALL_COMMAND:
+                data = readBallCommand(in);
+                break;
+            case MESSAGE_TYPE_PET_ACTION_COMMAND:
+                data = new PetActionCommand(in.readInt());
+                break;
+            case MESSAGE_TYPE_UPDATE_POSES:
+                data = readPoses(in);
+                break;
+            case MESSAGE_TYPE_REQUEST_STATUS:
+                data = readStatus(in);
+                break;
+            case MESSAGE_TYPE_UPDATE_POSE_DELTAS:
+                data = readPoseDeltas(in);
+                break;
+            default:
+                throw new IOException("Unsupported action " + action);
+        }
+
+        RequestMessage<Serializable> request = new RequestMessage<>(id, action, data);
+        request.setStatus(status);
+        return request;
+    }
+
+    private static void writeStatus(DataOutputStream out, RequestStatus status) throws IOException {
+        out.writeInt(status.getRequestId());
+        writeConstant(out, STATUSES, status.getStatus());
+    }
+
+    private static RequestStatus readStatus(DataInputStream in) throws IOException {
+        RequestStatus status = new RequestStatus(in.readInt());
+        status.setStatus(readConstant(in, STATUSES));
+        return status;
+    }
+
+    private static void writeAnchor(DataOutputStream out, CloudAnchor anchor) throws IOException {
+        String cloudAnchorId = anchor.getCloudAnchorId();
+        out.writeBoolean(cloudAnchorId != null);
+        if (cloudAnchorId != null) {
+            out.writeUTF(cloudAnchorId);
+        }
+        writeConstant(out, OBJECT_TYPES, anchor.getObjectType());
+    }
+
+    private static CloudAnchor readAnchor(DataInputStream in) throws IOException {
+        String cloudAnchorId = in.readBoolean() ? in.readUTF() : null;
+        return new CloudAnchor(cloudAnchorId, readConstant(in, OBJECT_TYPES));
+    }
+
+    private static void writeBallCommand(DataOutputStream out, BallCommand command) throws IOException {
+        Vector3f force = command.getForceVector();
+        writeConstant(out, BALL_COMMANDS, command.getType());
+        out.writeFloat(force.x);
+        out.writeFloat(force.y);
+        out.writeFloat(force.z);
+    }
+
+    private static BallCommand readBallCommand(DataInputStream in) throws IOException {
+        BallCommand command = new BallCommand(readConstant(in, BALL_COMMANDS));
+        command.getForceVector().set(in.readFloat(), in.readFloat(), in.readFloat());
+        return command;
+    }
+
+    private static void writePoses(DataOutputStream out, SharedObjectPose[] poses) throws IOException {
+        out.writeShort(poses.length);
+        for (SharedObjectPose pose : poses) {
+            writeVarInt(out, pose.getObjectId());
+            float[] matrix = pose.getModelMatrix();
+            for (int i = 0; i < 16; i++) {
+                out.writeFloat(matrix[i]);
+            }
+        }
+    }
+
+    private static SharedObjectPose[] readPoses(DataInputStream in) throws IOException {
+        SharedObjectPose[] poses = new SharedObjectPose[in.readUnsignedShort()];
+        for (int i = 0; i < poses.length; i++) {
+            int objectId = readVarInt(in);
+            float[] matrix = new float[16];
+            for (int j = 0; j < 16; j++) {
+                matrix[j] = in.readFloat();
+            }
+            poses[i] = new SharedObjectPose(objectId, matrix);
+        }
+        return poses;
+    }
+
+    private static void writePoseDeltas(DataOutputStream out, PoseDeltaFrame frame) throws IOException {
+        out.writeLong(frame.getTimestamp());
+        out.writeShort(frame.size());
+        for (int i = 0; i < frame.size(); i++) {
+            int flags = frame.getFlags(i);
+            writeVarInt(out, frame.getObjectId(i));
+            out.writeByte(flags);
+            if ((flags & PoseDeltaFrame.FLAG_POSITION) != 0) {
+                for (int axis = 0; axis < 3; axis++) {
+                    writeVarInt(out, frame.getPosition(i, axis));
+                }
+            }
+            if ((flags & PoseDeltaFrame.FLAG_ROTATION) != 0) {
+                out.writeInt(frame.getRotation(i));
+            }
+            if ((flags & PoseDeltaFrame.FLAG_SCALE) != 0) {
+                for (int axis = 0; axis < 3; axis++) {
+                    writeVarInt(out, frame.getScale(i, axis));
+                }
+            }
+        }
+    }
+
+    private static PoseDeltaFrame readPoseDeltas(DataInputStream in) throws IOException {
+        long timestamp = in.readLong();
+        int size = in.readUnsignedShort();
+        PoseDeltaFrame frame = new PoseDeltaFrame(timestamp, size);
+        int[] position = new int[3];
+        int[] scale = new int[3];
+        for (int i = 0; i < size; i++) {
+            int objectId = readVarInt(in);
+            int flags = in.readByte();
+            int rotation = 0;
+            if ((flags & PoseDeltaFrame.FLAG_POSITION) != 0) {
+                for (int axis = 0; axis < 3; axis++) {
+                    position[axis] = readVarInt(in);
+                }
+            }
+            if ((flags & PoseDeltaFrame.FLAG_ROTATION) != 0) {
+                rotation = in.readInt();
+            }
+            if ((flags & PoseDeltaFrame.FLAG_SCALE) != 0) {
+                for (int axis = 0; axis < 3; axis++) {
+                    scale[axis] = readVarInt(in);
+                }
+            }
+            frame.add(objectId, flags, position, rotation, scale);
+        }
+        return frame;
+    }
+
+    /**
+     * Write a zigzag encoded variable length int, so small deltas and ids take one or two bytes.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            out.writeByte((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.writeByte(zigzag);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int zigzag = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Malformed variable length int");
+    }
+
+    private static void writeConstant(DataOutputStream out, String[] table, String value)
+            throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_CONSTANT);
+            return;
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].equals(value)) {
+                out.writeByte(i);
+                return;
+            }
+        }
+        out.writeByte(UNKNOWN_CONSTANT);
+        out.writeUTF(value);
+    }
+
+    private static String readConstant(DataInputStream in, String[] table) throws IOException {
+        int index = in.readByte();
+        if (index == NULL_CONSTANT) {
+            return null;
+        }
+        if (index == UNKNOWN_CONSTANT) {
+            return in.readUTF();
+        }
+        if (index < 0 || index >= table.length) {
+            throw new IOException("Invalid constant index " + index);
+        }
+        return table[index];
+    }
+}
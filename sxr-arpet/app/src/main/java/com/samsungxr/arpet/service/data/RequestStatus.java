@@ -60,6 +60,10 @@ public class RequestStatus implements Serializable {
         this.status = status;
     }
 
+    public Throwable getError() {
+        return error;
+    }
+
     public void setError(Throwable error) {
         this.error = error;
     }
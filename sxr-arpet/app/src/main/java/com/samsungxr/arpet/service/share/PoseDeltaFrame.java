@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import java.io.Serializable;
+
+/**
+ * A batch of quantized poses of shared objects.
+ * <br/>Entries flagged with {@link #FLAG_ABSOLUTE} carry the whole pose. Other entries only
+ * carry the changed components, with positions and scales as differences from the last
+ * values sent. Rotations are always smallest-three packed quaternions.
+ */
+public class PoseDeltaFrame implements Serializable {
+
+    public static final int FLAG_POSITION = 1;
+    public static final int FLAG_ROTATION = 1 << 1;
+    public static final int FLAG_SCALE = 1 << 2;
+    public static final int FLAG_ABSOLUTE = 1 << 3;
+    public static final int FLAG_KEYFRAME = FLAG_ABSOLUTE | FLAG_POSITION | FLAG_ROTATION | FLAG_SCALE;
+
+    private final long mTimestamp;
+    private int mCount;
+    private int[] mObjectIds;
+    private byte[] mFlags;
+    private int[] mPositions;
+    private int[] mRotations;
+    private int[] mScales;
+
+    /**
+     * @param timestamp Host time the poses were taken, in milliseconds.
+     * @param capacity  Maximum number of poses in this frame.
+     */
+    public PoseDeltaFrame(long timestamp, int capacity) {
+        mTimestamp = timestamp;
+        mObjectIds = new int[capacity];
+        mFlags = new byte[capacity];
+        mPositions = new int[capacity * 3];
+        mRotations = new int[capacity];
+        mScales = new int[capacity * 3];
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Add an object pose. Values not indicated in flags are ignored.
+     *
+     * @param objectId Id of the shared object, see {@link SharedObjectId}.
+     * @param flags    {@link #FLAG_KEYFRAME} or a combination of {@link #FLAG_POSITION},
+     *                 {@link #FLAG_ROTATION} and {@link #FLAG_SCALE}.
+     * @param position Three quantized position values.
+     * @param rotation Packed rotation.
+     * @param scale    Three quantized scale values.
+     */
+    public void add(int objectId, int flags, int[] position, int rotation, int[] scale) {
+        int i = mCount++;
+        mObjectIds[i] = objectId;
+        mFlags[i] = (byte) flags;
+        System.arraycopy(position, 0, mPositions, i * 3, 3);
+        mRotations[i] = rotation;
+        System.arraycopy(scale, 0, mScales, i * 3, 3);
+    }
+
+    /**
+     * Combine two consecutive frames into a single frame with the same effect of
+     * applying both in sequence.
+     *
+     * @param older Frame sent first.
+     * @param newer Frame sent after older.
+     * @return A new frame with the timestamp of the newer.
+     */
+    public static PoseDeltaFrame merge(PoseDeltaFrame older, PoseDeltaFrame newer) {
+        PoseDeltaFrame merged = new PoseDeltaFrame(newer.mTimestamp, older.mCount + newer.mCount);
+        for (int i = 0; i < older.mCount; i++) {
+            merged.copy(older, i);
+        }
+
+        for (int i = 0; i < newer.mCount; i++) {
+            int index = merged.indexOf(newer.mObjectIds[i]);
+            int flags = newer.mFlags[i];
+            if (index < 0 || (flags & FLAG_ABSOLUTE) != 0) {
+                if (index < 0) {
+                    merged.copy(newer, i);
+                } else {
+                    merged.set(index, newer, i);
+                }
+                continue;
+            }
+
+            int mergedFlags = merged.mFlags[index];
+            if ((flags & FLAG_POSITION) != 0) {
+                accumulate(merged.mPositions, newer.mPositions, index, i,
+                        (mergedFlags & FLAG_POSITION) != 0);
+            }
+            if ((flags & FLAG_SCALE) != 0) {
+                accumulate(merged.mScales, newer.mScales, index, i,
+                        (mergedFlags & FLAG_SCALE) != 0);
+            }
+            if ((flags & FLAG_ROTATION) != 0) {
+                merged.mRotations[index] = newer.mRotations[i];
+            }
+            merged.mFlags[index] = (byte) (mergedFlags | flags);
+        }
+
+        return merged;
+    }
+
+    private int indexOf(int objectId) {
+        for (int i = 0; i < mCount; i++) {
+            if (mObjectIds[i] == objectId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void copy(PoseDeltaFrame from, int index) {
+        set(mCount++, from, index);
+    }
+
+    private void set(int to, PoseDeltaFrame from, int index) {
+        mObjectIds[to] = from.mObjectIds[index];
+        mFlags[to] = from.mFlags[index];
+        System.arraycopy(from.mPositions, index * 3, mPositions, to * 3, 3);
+        mRotations[to] = from.mRotations[index];
+        System.arraycopy(from.mScales, index * 3, mScales, to * 3, 3);
+    }
+
+    private static void accumulate(int[] to, int[] from, int toIndex, int fromIndex, boolean add) {
+        for (int axis = 0; axis < 3; axis++) {
+            to[toIndex * 3 + axis] = (add ? to[toIndex * 3 + axis] : 0) + from[fromIndex * 3 + axis];
+        }
+    }
+
+    public int getObjectId(int index) {
+        return mObjectIds[index];
+    }
+
+    public int getFlags(int index) {
+        return mFlags[index];
+    }
+
+    public int getPosition(int index, int axis) {
+        return mPositions[index * 3 + axis];
+    }
+
+    public int getRotation(int index) {
+        return mRotations[index];
+    }
+
+    public int getScale(int index, int axis) {
+        return mScales[index * 3 + axis];
+    }
+
+    @Override
+    public String toString() {
+        return "PoseDeltaFrame{" +
+                "timestamp=" + mTimestamp +
+                ", size=" + mCount +
+                '}';
+    }
+}
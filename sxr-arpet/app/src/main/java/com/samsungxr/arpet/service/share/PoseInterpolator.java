@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+/**
+ * Maps host timestamps to the guest clock and keeps the metrics of the
+ * guest pose interpolation.
+ * <br/>Poses are rendered with a delay of two send intervals behind the newest host time,
+ * so there is usually a snapshot on each side of the rendered time.
+ */
+public final class PoseInterpolator {
+
+    static final long MAX_EXTRAPOLATION_MS = 250;
+
+    private static final long MIN_DELAY_MS = 50;
+    private static final long MAX_DELAY_MS = 500;
+    private static final float INTERVAL_SMOOTHING = 0.1f;
+    private static final float OFFSET_RELAXATION = 0.01f;
+
+    private boolean mSynchronized;
+    // Uptime differences grow large, so a float would lose the relaxation steps
+    private double mClockOffset;
+    private float mAverageInterval = MIN_DELAY_MS / 2f;
+    private long mLastHostTime;
+    private long mLastRenderTime = Long.MIN_VALUE;
+
+    private volatile int mBufferDepth;
+    private volatile int mLatePacketCount;
+    private volatile long mExtrapolationTime;
+    private volatile long mTotalExtrapolationTime;
+
+    void reset() {
+        mSynchronized = false;
+        mAverageInterval = MIN_DELAY_MS / 2f;
+        mLastRenderTime = Long.MIN_VALUE;
+        mBufferDepth = 0;
+        mLatePacketCount = 0;
+        mExtrapolationTime = 0;
+        mTotalExtrapolationTime = 0;
+    }
+
+    /**
+     * Called for each received pose frame.
+     *
+     * @param hostTime  Host time of the frame.
+     * @param localTime Guest time the frame was received.
+     */
+    void onFrameReceived(long hostTime, long localTime) {
+        double offset = localTime - hostTime;
+        if (!mSynchronized) {
+            mClockOffset = offset;
+            mLastHostTime = hostTime;
+            mSynchronized = true;
+            return;
+        }
+
+        // The smallest offset is the frame with the shortest transport delay. The estimate
+        // relaxes slowly toward larger offsets to follow clock drift.
+        if (offset < mClockOffset) {
+            mClockOffset = offset;
+        } else {
+            mClockOffset += (offset - mClockOffset) * OFFSET_RELAXATION;
+        }
+
+        if (hostTime > mLastHostTime) {
+            mAverageInterval += (hostTime - mLastHostTime - mAverageInterval) * INTERVAL_SMOOTHING;
+            mLastHostTime = hostTime;
+        }
+    }
+
+    /**
+     * Called for each snapshot added to a jitter buffer.
+     *
+     * @param hostTime Host time of the snapshot.
+     * @param accepted False if the snapshot arrived out of order.
+     */
+    void onSnapshot(long hostTime, boolean accepted) {
+        if (!accepted || hostTime < mLastRenderTime) {
+            mLatePacketCount++;
+        }
+    }
+
+    long getRenderTime(long localTime) {
+        long renderTime = localTime - (long) mClockOffset - getInterpolationDelay();
+        mLastRenderTime = renderTime;
+        return renderTime;
+    }
+
+    void onFrameRendered(int bufferDepth, long extrapolationTime, long frameTime) {
+        mBufferDepth = bufferDepth;
+        mExtrapolationTime = extrapolationTime;
+        if (extrapolationTime > 0) {
+            mTotalExtrapolationTime += frameTime;
+        }
+    }
+
+    /**
+     * @return Delay in milliseconds between the newest host time and the rendered time.
+     */
+    public long getInterpolationDelay() {
+        return Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, (long) (mAverageInterval * 2)));
+    }
+
+    /**
+     * @return The deepest jitter buffer in the last rendered frame.
+     */
+    public int getBufferDepth() {
+        return mBufferDepth;
+    }
+
+    /**
+     * @return Total of snapshots received out of order or after its time was rendered.
+     */
+    public int getLatePacketCount() {
+        return mLatePacketCount;
+    }
+
+    /**
+     * @return Milliseconds extrapolated past the newest snapshot in the last rendered frame.
+     */
+    public long getExtrapolationTime() {
+        return mExtrapolationTime;
+    }
+
+    /**
+     * @return Total of milliseconds rendered with extrapolated poses.
+     */
+    public long getTotalExtrapolationTime() {
+        return mTotalExtrapolationTime;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+/**
+ * Pose snapshots of a shared object ordered by host time.
+ * <br/>The buffer is sampled at a time slightly behind the newest snapshot, so the pose can be
+ * interpolated between the two snapshots around it. When the sample time passes the newest
+ * snapshot the motion is linearly extrapolated for a bounded time. If no newer snapshot comes
+ * within the interval between the last two, the object is taken as stopped and the newest
+ * snapshot is used, since only changed objects are sent.
+ */
+final class PoseJitterBuffer {
+
+    private static final int CAPACITY = 16;
+
+    private final long[] mTimes = new long[CAPACITY];
+    private final float[] mPositions = new float[CAPACITY * 3];
+    private final float[] mScales = new float[CAPACITY * 3];
+    private final Quaternionf[] mRotations = new Quaternionf[CAPACITY];
+    private int mFirst;
+    private int mSize;
+
+    private final Vector3f mTmpVector = new Vector3f();
+    private final Quaternionf mTmpRotation = new Quaternionf();
+
+    PoseJitterBuffer() {
+        for (int i = 0; i < CAPACITY; i++) {
+            mRotations[i] = new Quaternionf();
+        }
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void clear() {
+        mFirst = 0;
+        mSize = 0;
+    }
+
+    /**
+     * Add a snapshot. The oldest one is discarded when the buffer is full.
+     *
+     * @param time Host time of the snapshot.
+     * @param pose Pose relative to the shared anchor.
+     * @return False if the snapshot is not newer than the last one added, then it is discarded.
+     */
+    boolean push(long time, Matrix4f pose) {
+        if (mSize > 0 && time <= mTimes[index(mSize - 1)]) {
+            return false;
+        }
+        if (mSize == CAPACITY) {
+            dropOldest();
+        }
+
+        int i = index(mSize++);
+        mTimes[i] = time;
+        pose.getTranslation(mTmpVector);
+        mPositions[i * 3] = mTmpVector.x;
+        mPositions[i * 3 + 1] = mTmpVector.y;
+        mPositions[i * 3 + 2] = mTmpVector.z;
+        pose.getScale(mTmpVector);
+        mScales[i * 3] = mTmpVector.x;
+        mScales[i * 3 + 1] = mTmpVector.y;
+        mScales[i * 3 + 2] = mTmpVector.z;
+        pose.getNormalizedRotation(mRotations[i]);
+        return true;
+    }
+
+    /**
+     * Compute the pose at the given host time.
+     *
+     * @param time             Host time to sample.
+     * @param maxExtrapolation Maximum time in milliseconds to extrapolate past the newest snapshot.
+     * @param out              The sampled pose.
+     * @return Milliseconds extrapolated past the newest snapshot, 0 if the pose was interpolated
+     * or the newest snapshot is used because it went stale, or -1 if the buffer is empty.
+     */
+    long sample(long time, long maxExtrapolation, Matrix4f out) {
+        // Keep the two snapshots around the sample time, or the last two ones to extrapolate
+        while (mSize > 2 && mTimes[index(1)] <= time) {
+            dropOldest();
+        }
+
+        if (mSize == 0) {
+            return -1;
+        }
+
+        int a = index(0);
+        if (mSize == 1 || time <= mTimes[a]) {
+            set(a, out);
+            return mSize == 1 ? Math.min(Math.max(0, time - mTimes[a]), maxExtrapolation) : 0;
+        }
+
+        int b = index(1);
+        long extrapolation = Math.max(0, time - mTimes[b]);
+        if (extrapolation > Math.min(mTimes[b] - mTimes[a], maxExtrapolation)) {
+            // Stale, rather than holding an overshot pose
+            set(b, out);
+            return 0;
+        }
+        float t = (float) (time - mTimes[a]) / (mTimes[b] - mTimes[a]);
+
+        mRotations[a].slerp(mRotations[b], t, mTmpRotation);
+        out.translationRotateScale(
+                lerp(mPositions, a * 3, b * 3, t),
+                lerp(mPositions, a * 3 + 1, b * 3 + 1, t),
+                lerp(mPositions, a * 3 + 2, b * 3 + 2, t),
+                mTmpRotation.x, mTmpRotation.y, mTmpRotation.z, mTmpRotation.w,
+                lerp(mScales, a * 3, b * 3, t),
+                lerp(mScales, a * 3 + 1, b * 3 + 1, t),
+                lerp(mScales, a * 3 + 2, b * 3 + 2, t));
+        return extrapolation;
+    }
+
+    private void set(int i, Matrix4f out) {
+        Quaternionf rotation = mRotations[i];
+        out.translationRotateScale(
+                mPositions[i * 3], mPositions[i * 3 + 1], mPositions[i * 3 + 2],
+                rotation.x, rotation.y, rotation.z, rotation.w,
+                mScales[i * 3], mScales[i * 3 + 1], mScales[i * 3 + 2]);
+    }
+
+    private static float lerp(float[] values, int a, int b, float t) {
+        return values[a] + (values[b] - values[a]) * t;
+    }
+
+    private void dropOldest() {
+        mFirst = (mFirst + 1) % CAPACITY;
+        mSize--;
+    }
+
+    private int index(int i) {
+        return (mFirst + i) % CAPACITY;
+    }
+}
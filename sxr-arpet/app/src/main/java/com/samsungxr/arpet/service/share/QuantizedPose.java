@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+/**
+ * Quantized translation, rotation and scale of a shared object relative to the shared anchor.
+ * <br/>Positions are stored in steps of {@link #POSITION_PRECISION}, scales in steps of
+ * {@link #SCALE_PRECISION} and the rotation as a smallest-three packed quaternion.
+ */
+final class QuantizedPose {
+
+    static final float POSITION_PRECISION = 0.1f;
+    static final float SCALE_PRECISION = 0.001f;
+
+    private static final int ROTATION_BITS = 10;
+    private static final int ROTATION_MAX = (1 << ROTATION_BITS) - 1;
+    private static final float ROTATION_RANGE = (float) (1.0 / Math.sqrt(2.0));
+
+    final int[] position = new int[3];
+    final int[] scale = new int[3];
+    int rotation;
+    boolean valid;
+
+    // Dequantized rotation, kept to compare rotations without unpacking them
+    final Quaternionf orientation = new Quaternionf();
+
+    void set(QuantizedPose other) {
+        System.arraycopy(other.position, 0, position, 0, 3);
+        System.arraycopy(other.scale, 0, scale, 0, 3);
+        rotation = other.rotation;
+        orientation.set(other.orientation);
+        valid = other.valid;
+    }
+
+    /**
+     * Quantize the given matrix.
+     *
+     * @param matrix Matrix to quantize.
+     * @param tmp    Scratch vector.
+     */
+    void fromMatrix(Matrix4f matrix, Vector3f tmp) {
+        matrix.getTranslation(tmp);
+        position[0] = Math.round(tmp.x / POSITION_PRECISION);
+        position[1] = Math.round(tmp.y / POSITION_PRECISION);
+        position[2] = Math.round(tmp.z / POSITION_PRECISION);
+
+        matrix.getScale(tmp);
+        scale[0] = Math.round(tmp.x / SCALE_PRECISION);
+        scale[1] = Math.round(tmp.y / SCALE_PRECISION);
+        scale[2] = Math.round(tmp.z / SCALE_PRECISION);
+
+        matrix.getNormalizedRotation(orientation);
+        setRotation(packRotation(orientation));
+        valid = true;
+    }
+
+    void setRotation(int packedRotation) {
+        rotation = packedRotation;
+        unpackRotation(packedRotation, orientation);
+    }
+
+    void toMatrix(Matrix4f out) {
+        out.translationRotateScale(
+                position[0] * POSITION_PRECISION,
+                position[1] * POSITION_PRECISION,
+                position[2] * POSITION_PRECISION,
+                orientation.x, orientation.y, orientation.z, orientation.w,
+                scale[0] * SCALE_PRECISION,
+                scale[1] * SCALE_PRECISION,
+                scale[2] * SCALE_PRECISION);
+    }
+
+    /**
+     * Pack an unit quaternion in 32 bits: the index of the largest component in the two
+     * highest bits followed by the other three components quantized to 10 bits each.
+     */
+    static int packRotation(Quaternionf q) {
+        int largest = 0;
+        float max = Math.abs(q.x);
+        for (int i = 1; i < 4; i++) {
+            float abs = Math.abs(component(q, i));
+            if (abs > max) {
+                max = abs;
+                largest = i;
+            }
+        }
+
+        // q and -q are the same rotation, so the largest component is always positive
+        float sign = component(q, largest) < 0 ? -1 : 1;
+        int packed = largest << (3 * ROTATION_BITS);
+        int shift = 2 * ROTATION_BITS;
+        for (int i = 0; i < 4; i++) {
+            if (i != largest) {
+                float value = component(q, i) * sign / ROTATION_RANGE;
+                int quantized = Math.round((value * 0.5f + 0.5f) * ROTATION_MAX);
+                packed |= Math.max(0, Math.min(ROTATION_MAX, quantized)) << shift;
+                shift -= ROTATION_BITS;
+            }
+        }
+        return packed;
+    }
+
+    static void unpackRotation(int packed, Quaternionf out) {
+        int largest = packed >>> (3 * ROTATION_BITS);
+        float a = unpackComponent(packed >>> (2 * ROTATION_BITS));
+        float b = unpackComponent(packed >>> ROTATION_BITS);
+        float c = unpackComponent(packed);
+        float d = (float) Math.sqrt(Math.max(0f, 1f - a * a - b * b - c * c));
+        switch (largest) {
+            case 0:
+                out.set(d, a, b, c);
+                break;
+            case 1:
+                out.set(a, d, b, c);
+                break;
+            case 2:
+                out.set(a, b, d, c);
+                break;
+            default:
+                out.set(a, b, c, d);
+                break;
+        }
+        out.normalize();
+    }
+
+    private static float unpackComponent(int bits) {
+        int quantized = bits & ROTATION_MAX;
+        return ((float) quantized / ROTATION_MAX * 2f - 1f) * ROTATION_RANGE;
+    }
+
+    private static float component(Quaternionf q, int index) {
+        switch (index) {
+            case 0:
+                return q.x;
+            case 1:
+                return q.y;
+            case 2:
+                return q.z;
+            default:
+                return q.w;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+/**
+ * Adapts the interval between pose updates to the link throughput.
+ * <br/>Messages are queued while the link is busy, so the time from queueing an update to
+ * its delivery is used to measure it: when the delivery takes more than half the current
+ * interval, or the update was dropped, the interval is doubled. Otherwise it is halved back
+ * to the initial interval and then decreased step by step down to the minimum interval.
+ * <br/>Results are reported from the connection writer thread. Updates sent to no peer or
+ * superseded by a newer one say nothing about the link and must not be reported.
+ */
+class SendRateController {
+
+    static final long MIN_INTERVAL_MS = 16;
+    static final long MAX_INTERVAL_MS = 500;
+    static final long INITIAL_INTERVAL_MS = 33;
+
+    private static final long DECREASE_STEP_MS = 2;
+    private static final float BUSY_RATIO = 0.5f;
+
+    private long mIntervalMs = INITIAL_INTERVAL_MS;
+
+    synchronized long getIntervalMs() {
+        return mIntervalMs;
+    }
+
+    /**
+     * @param deliveryTimeMs Time from queueing the update to its delivery.
+     * @param delivered      False if the update was dropped.
+     */
+    synchronized void onSent(long deliveryTimeMs, boolean delivered) {
+        if (!delivered || deliveryTimeMs > mIntervalMs * BUSY_RATIO) {
+            mIntervalMs = Math.min(MAX_INTERVAL_MS, mIntervalMs * 2);
+        } else if (mIntervalMs > INITIAL_INTERVAL_MS) {
+            mIntervalMs = Math.max(INITIAL_INTERVAL_MS, mIntervalMs / 2);
+        } else {
+            mIntervalMs = Math.max(MIN_INTERVAL_MS, mIntervalMs - DECREASE_STEP_MS);
+        }
+    }
+
+    synchronized void reset() {
+        mIntervalMs = INITIAL_INTERVAL_MS;
+    }
+}
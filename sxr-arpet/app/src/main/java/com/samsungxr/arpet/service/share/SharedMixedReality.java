@@ -2,12 +2,15 @@ package com.samsungxr.arpet.service.share;
 
 import android.graphics.Bitmap;
 import android.opengl.Matrix;
+import android.os.SystemClock;
 import android.util.Log;
 import android.media.Image;
 
+import com.samsungxr.SXRDrawFrameListener;
 import com.samsungxr.SXREventReceiver;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRPicker;
+import com.samsungxr.SXRTransform;
 import com.samsungxr.mixedreality.IMixedReality;
 import com.samsungxr.mixedreality.SXRAnchor;
 import com.samsungxr.mixedreality.SXRHitResult;
@@ -18,22 +21,26 @@ import com.samsungxr.mixedreality.SXRPlane;
 
 import com.samsungxr.arpet.PetContext;
 import com.samsungxr.arpet.constant.ArPetObjectType;
+import com.samsungxr.arpet.connection.Device;
 import com.samsungxr.arpet.constant.PetConstants;
+import com.samsungxr.arpet.manager.connection.PetConnectionManager;
 import com.samsungxr.arpet.service.IMessageService;
+import com.samsungxr.arpet.service.MessageHandler;
 import com.samsungxr.arpet.service.MessageService;
+import com.samsungxr.arpet.service.event.PoseDeltasReceivedMessage;
 import com.samsungxr.arpet.service.event.UpdatePosesReceivedMessage;
-import com.samsungxr.arpet.util.EventBusUtils;
 import com.samsungxr.mixedreality.SXRPointCloud;
 
 import com.google.ar.core.exceptions.NotYetAvailableException;
 
-import org.greenrobot.eventbus.Subscribe;
 import org.joml.Matrix4f;
+import org.joml.Vector3f;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class SharedMixedReality implements IMixedReality {
 
@@ -43,9 +50,25 @@ public class SharedMixedReality implements IMixedReality {
     public static final int HOST = 1;
     public static final int GUEST = 2;
 
+    /**
+     * Send the whole model matrix of every shared object at a fixed rate.
+     */
+    public static final int POSE_SYNC_FULL = 0;
+
+    /**
+     * Send quantized poses of changed objects only, at a rate adapted to the link throughput.
+     */
+    public static final int POSE_SYNC_DELTA = 1;
+
+    private static final long KEYFRAME_INTERVAL_MS = 2000;
+    // Minimum changes to send a pose component
+    private static final int POSITION_THRESHOLD = Math.round(0.5f / QuantizedPose.POSITION_PRECISION);
+    private static final int SCALE_THRESHOLD = Math.round(0.005f / QuantizedPose.SCALE_PRECISION);
+    private static final float ROTATION_THRESHOLD_COS = (float) Math.cos(Math.toRadians(0.5) / 2);
+
     private final IMixedReality mMixedReality;
     private final PetContext mPetContext;
-    private final List<SharedSceneObject> mSharedSceneObjects;
+    private final SharedObjectRegistry mSharedSceneObjects;
     private final IMessageService mMessageService;
     private SXREventReceiver mListeners;
 
@@ -53,12 +76,31 @@ public class SharedMixedReality implements IMixedReality {
     private int mMode = PetConstants.SHARE_MODE_NONE;
     private SXRAnchor mSharedAnchor = null;
     private SXRNode mSharedAnchorObject = null;
-    private float[] mSpaceMatrix = new float[16];
+    private final float[] mSpaceMatrix = new float[16];
+
+    private int mPoseSyncMode = POSE_SYNC_DELTA;
+    private final SendRateController mSendRate = new SendRateController();
+    private final QuantizedPose mCurrentPose = new QuantizedPose();
+    private final Matrix4f mPoseMatrix = new Matrix4f();
+    private final Vector3f mPoseVector = new Vector3f();
+    private final float[] mPoseArray = new float[16];
+    private final Matrix4f mAnchorMatrix = new Matrix4f();
+    private final float[] mAnchorArray = new float[16];
+    private final float[] mPoseResult = new float[16];
+    private final int[] mPoseDelta = new int[3];
+    private final int[] mScaleDelta = new int[3];
+    private long mLastKeyframeTime;
+    private final Set<Device> mLastPeers = new HashSet<>();
+    // All guests share the baseline of the deltas, so a frame lost for any of them
+    // is fixed by a keyframe to everyone
+    private volatile boolean mPoseDeltasLost;
+    private final PoseInterpolator mPoseInterpolator = new PoseInterpolator();
+    private boolean mGuestInterpolating;
 
     public SharedMixedReality(PetContext petContext) {
         mMixedReality = new SXRMixedReality(petContext.getMainScene(), true);
         mPetContext = petContext;
-        mSharedSceneObjects = new ArrayList<>();
+        mSharedSceneObjects = new SharedObjectRegistry();
         mMessageService = MessageService.getInstance();
         Matrix.setIdentityM(mSpaceMatrix, 0);
         mSharedAnchorObject = new SXRNode(petContext.getSXRContext());
@@ -98,12 +140,14 @@ public class SharedMixedReality implements IMixedReality {
             return;
         }
 
-        EventBusUtils.register(this);
+        mMessageService.addMessageHandler(UpdatePosesReceivedMessage.class, mPosesHandler, null);
+        mMessageService.addMessageHandler(PoseDeltasReceivedMessage.class, mPoseDeltasHandler, null);
 
         mSharedAnchor = sharedAnchor;
         mSharedAnchorObject.attachComponent(mSharedAnchor);
 
         mMode = mode;
+        resetPoseSync();
 
         if (mode == PetConstants.SHARE_MODE_HOST) {
             mPetContext.runOnPetThread(mSharingLoop);
@@ -113,7 +157,8 @@ public class SharedMixedReality implements IMixedReality {
     }
 
     public void stopSharing() {
-        EventBusUtils.unregister(this);
+        mMessageService.removeMessageHandler(mPosesHandler);
+        mMessageService.removeMessageHandler(mPoseDeltasHandler);
         mSharedAnchorObject.detachComponent(SXRAnchor.getComponentType());
         if (mMode == PetConstants.SHARE_MODE_GUEST) {
             stopGuest();
@@ -125,10 +170,48 @@ public class SharedMixedReality implements IMixedReality {
         return mSharedAnchor;
     }
 
+    /**
+     * Set how the host sends the poses of shared objects. Guests handle both modes.
+     *
+     * @param mode {@link #POSE_SYNC_FULL} or {@link #POSE_SYNC_DELTA}
+     */
+    public void setPoseSyncMode(int mode) {
+        mPoseSyncMode = mode;
+    }
+
+    public int getPoseSyncMode() {
+        return mPoseSyncMode;
+    }
+
+    /**
+     * Interpolation of received poses in guest mode. Use it to query buffer depth,
+     * late packets and extrapolation time.
+     */
+    public PoseInterpolator getPoseInterpolator() {
+        return mPoseInterpolator;
+    }
+
+    private synchronized void resetPoseSync() {
+        mSendRate.reset();
+        mLastKeyframeTime = 0;
+        mLastPeers.clear();
+        mPoseDeltasLost = false;
+        for (int i = 0; i < mSharedSceneObjects.size(); i++) {
+            SharedSceneObject shared = mSharedSceneObjects.get(i);
+            shared.sentPose.valid = false;
+            shared.moving = false;
+            shared.receivedPose.valid = false;
+            shared.jitterBuffer.clear();
+        }
+        mPoseInterpolator.reset();
+    }
+
     private synchronized void startGuest() {
-        for (SharedSceneObject shared : mSharedSceneObjects) {
-            initAsGuest(shared);
+        for (int i = 0; i < mSharedSceneObjects.size(); i++) {
+            initAsGuest(mSharedSceneObjects.get(i));
         }
+        mGuestInterpolating = true;
+        mPetContext.getSXRContext().registerDrawFrameListener(mGuestPoseUpdater);
     }
 
     private synchronized void initAsGuest(SharedSceneObject shared) {
@@ -140,10 +223,11 @@ public class SharedMixedReality implements IMixedReality {
     }
 
     private synchronized void stopGuest() {
-        Iterator<SharedSceneObject> iterator = mSharedSceneObjects.iterator();
-        SharedSceneObject shared;
-        while (iterator.hasNext()) {
-            shared = iterator.next();
+        mGuestInterpolating = false;
+        mPetContext.getSXRContext().unregisterDrawFrameListener(mGuestPoseUpdater);
+
+        for (int i = 0; i < mSharedSceneObjects.size(); i++) {
+            SharedSceneObject shared = mSharedSceneObjects.get(i);
             if (shared.parent != null) {
                 shared.object.getTransform().setModelMatrix(shared.localMtx);
                 mPetContext.getMainScene().removeNode(shared.object);
@@ -153,31 +237,49 @@ public class SharedMixedReality implements IMixedReality {
         mPetContext.getPlaneHandler().resetPlanes();
     }
 
-    public synchronized void registerSharedObject(SXRNode object, @ArPetObjectType String type,
-                                                  boolean repeat) {
-        for (SharedSceneObject shared : mSharedSceneObjects) {
-            if (shared.object == object) {
+    public void registerSharedObject(SXRNode object, @ArPetObjectType String type,
+                                     boolean repeat) {
+        registerSharedObject(object, type, 0, repeat);
+    }
+
+    /**
+     * Register an object to be shared. Use different instance numbers to share many objects
+     * of the same type. Host and guests must register an object with the same type and instance.
+     *
+     * @param object   Object to share.
+     * @param type     Object type.
+     * @param instance Instance number in range [0, {@link SharedObjectId#MAX_INSTANCES}).
+     * @param repeat   False to update the object just once in guest mode.
+     * @return The id of the shared object.
+     */
+    public synchronized int registerSharedObject(SXRNode object, @ArPetObjectType String type,
+                                                 int instance, boolean repeat) {
+        int id = SharedObjectId.of(type, instance);
+        SharedSceneObject shared = mSharedSceneObjects.findByNode(object);
+        if (shared != null) {
+            if (shared.id == id) {
                 shared.repeat = repeat;
-                return;
+                return id;
             }
+            mSharedSceneObjects.remove(shared);
         }
 
-        SharedSceneObject newShared = new SharedSceneObject(type, object);
+        SharedSceneObject newShared = new SharedSceneObject(id, object);
         newShared.repeat = repeat;
         if (mMode == PetConstants.SHARE_MODE_GUEST) {
             initAsGuest(newShared);
         }
-        mSharedSceneObjects.add(newShared);
+        SharedSceneObject replaced = mSharedSceneObjects.add(newShared);
+        if (replaced != null) {
+            Log.w(TAG, "Shared object replaced: " + replaced);
+        }
+        return id;
     }
 
     public synchronized void unregisterSharedObject(SXRNode object) {
-        Iterator<SharedSceneObject> iterator = mSharedSceneObjects.iterator();
-        SharedSceneObject shared;
-        while (iterator.hasNext()) {
-            shared = iterator.next();
-            if (shared.object == object) {
-                iterator.remove();
-            }
+        SharedSceneObject shared = mSharedSceneObjects.findByNode(object);
+        if (shared != null) {
+            mSharedSceneObjects.remove(shared);
         }
     }
     @Override
@@ -279,84 +381,262 @@ public class SharedMixedReality implements IMixedReality {
     }
 
     private synchronized void sendSharedSceneObjects() {
-        Matrix.invertM(mSpaceMatrix, 0,
-                mSharedAnchor.getTransform().getModelMatrix(), 0);
+        Matrix.invertM(mSpaceMatrix, 0, readAnchorMatrix(mAnchorArray), 0);
 
-        List<SharedObjectPose> poses = new ArrayList<>();
+        SharedObjectPose[] poses = new SharedObjectPose[mSharedSceneObjects.size()];
 
-        for (SharedSceneObject shared : mSharedSceneObjects) {
+        for (int i = 0; i < poses.length; i++) {
+            SharedSceneObject shared = mSharedSceneObjects.get(i);
             float[] result = new float[16];
             Matrix.multiplyMM(result, 0, mSpaceMatrix, 0,
                     shared.object.getTransform().getModelMatrix(), 0);
-            poses.add(new SharedObjectPose(shared.type, result));
+            poses[i] = new SharedObjectPose(shared.id, result);
         }
 
-        mMessageService.updatePoses(poses.toArray(new SharedObjectPose[0]));
+        mMessageService.updatePoses(poses);
     }
 
-    private synchronized void onUpdatePosesReceived(SharedObjectPose[] poses) {
-        mSpaceMatrix = mSharedAnchor.getTransform().getModelMatrix();
+    private synchronized void sendPoseDeltas() {
+        Matrix.invertM(mSpaceMatrix, 0, readAnchorMatrix(mAnchorArray), 0);
 
-        for (SharedObjectPose pose : poses) {
-            for (SharedSceneObject shared : mSharedSceneObjects) {
-                if (shared.type.equals(pose.getObjectType())) {
-                    float[] result = new float[16];
-                    Matrix.multiplyMM(result, 0, mSpaceMatrix, 0, pose.getModelMatrix(), 0);
-                    shared.object.getTransform().setModelMatrix(result);
-
-                    if (!shared.repeat) {
-                        mSharedSceneObjects.remove(shared);
-                    }
-                    break;
+        long now = SystemClock.uptimeMillis();
+        List<Device> peers = PetConnectionManager.getInstance().getConnectedDevices();
+        // A guest may leave and another join between two updates, so peers are compared by id
+        boolean joined = !mLastPeers.containsAll(peers);
+        if (joined || peers.size() != mLastPeers.size()) {
+            mLastPeers.clear();
+            mLastPeers.addAll(peers);
+        }
+        // Periodic keyframe and also a keyframe as soon as a new guest joins or
+        // a guest missed some deltas
+        boolean keyframe = now - mLastKeyframeTime >= KEYFRAME_INTERVAL_MS
+                || joined || mPoseDeltasLost;
+        if (keyframe) {
+            mLastKeyframeTime = now;
+            mPoseDeltasLost = false;
+        }
+
+        PoseDeltaFrame frame = new PoseDeltaFrame(now, mSharedSceneObjects.size());
+
+        for (int i = 0; i < mSharedSceneObjects.size(); i++) {
+            SharedSceneObject shared = mSharedSceneObjects.get(i);
+            Matrix.multiplyMM(mPoseArray, 0, mSpaceMatrix, 0,
+                    shared.object.getTransform().getModelMatrix(), 0);
+            mPoseMatrix.set(mPoseArray);
+            mCurrentPose.fromMatrix(mPoseMatrix, mPoseVector);
+
+            QuantizedPose sent = shared.sentPose;
+            if (keyframe || !sent.valid) {
+                frame.add(shared.id, PoseDeltaFrame.FLAG_KEYFRAME,
+                        mCurrentPose.position, mCurrentPose.rotation, mCurrentPose.scale);
+                sent.set(mCurrentPose);
+                shared.moving = false;
+                continue;
+            }
+
+            int flags = 0;
+            if (exceedsThreshold(sent.position, mCurrentPose.position, POSITION_THRESHOLD)) {
+                flags |= PoseDeltaFrame.FLAG_POSITION;
+                for (int axis = 0; axis < 3; axis++) {
+                    mPoseDelta[axis] = mCurrentPose.position[axis] - sent.position[axis];
+                    sent.position[axis] = mCurrentPose.position[axis];
                 }
             }
+            if (Math.abs(sent.orientation.dot(mCurrentPose.orientation)) < ROTATION_THRESHOLD_COS) {
+                flags |= PoseDeltaFrame.FLAG_ROTATION;
+                sent.setRotation(mCurrentPose.rotation);
+            }
+            if (exceedsThreshold(sent.scale, mCurrentPose.scale, SCALE_THRESHOLD)) {
+                flags |= PoseDeltaFrame.FLAG_SCALE;
+                for (int axis = 0; axis < 3; axis++) {
+                    mScaleDelta[axis] = mCurrentPose.scale[axis] - sent.scale[axis];
+                    sent.scale[axis] = mCurrentPose.scale[axis];
+                }
+            }
+            if (flags != 0) {
+                frame.add(shared.id, flags, mPoseDelta, sent.rotation, mScaleDelta);
+                shared.moving = true;
+            } else if (shared.moving) {
+                // Resend the last pose once it stops, so guests stop extrapolating its motion
+                frame.add(shared.id, PoseDeltaFrame.FLAG_KEYFRAME,
+                        sent.position, sent.rotation, sent.scale);
+                shared.moving = false;
+            }
+        }
+
+        if (frame.size() > 0) {
+            mMessageService.updatePoseDeltas(frame, (totalSent, totalLost) -> {
+                if (totalLost > 0) {
+                    mPoseDeltasLost = true;
+                }
+                // Nothing to measure without peers or when a newer frame carries this one
+                if (totalSent + totalLost > 0) {
+                    mSendRate.onSent(SystemClock.uptimeMillis() - now, totalSent > 0);
+                }
+            });
         }
     }
 
-    private Runnable mSharingLoop = new Runnable() {
+    private static boolean exceedsThreshold(int[] last, int[] current, int threshold) {
+        for (int i = 0; i < 3; i++) {
+            if (Math.abs(current[i] - last[i]) >= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        final int LOOP_TIME = 500;
+    private synchronized void onPoseDeltasReceived(PoseDeltaFrame frame) {
+        readAnchorMatrix(mSpaceMatrix);
+        mPoseInterpolator.onFrameReceived(frame.getTimestamp(), SystemClock.uptimeMillis());
 
-        @Override
-        public void run() {
-            if (mMode != PetConstants.SHARE_MODE_NONE) {
-                sendSharedSceneObjects();
-                mPetContext.runDelayedOnPetThread(this, LOOP_TIME);
+        for (int i = 0; i < frame.size(); i++) {
+            SharedSceneObject shared = mSharedSceneObjects.findById(frame.getObjectId(i));
+            if (shared == null) {
+                continue;
+            }
+
+            QuantizedPose received = shared.receivedPose;
+            int flags = frame.getFlags(i);
+            if ((flags & PoseDeltaFrame.FLAG_ABSOLUTE) != 0) {
+                for (int axis = 0; axis < 3; axis++) {
+                    received.position[axis] = frame.getPosition(i, axis);
+                    received.scale[axis] = frame.getScale(i, axis);
+                }
+                received.setRotation(frame.getRotation(i));
+                received.valid = true;
+            } else if (!received.valid) {
+                // Joined after the last keyframe, so there is nothing to apply the deltas to
+                continue;
+            } else {
+                if ((flags & PoseDeltaFrame.FLAG_POSITION) != 0) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        received.position[axis] += frame.getPosition(i, axis);
+                    }
+                }
+                if ((flags & PoseDeltaFrame.FLAG_ROTATION) != 0) {
+                    received.setRotation(frame.getRotation(i));
+                }
+                if ((flags & PoseDeltaFrame.FLAG_SCALE) != 0) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        received.scale[axis] += frame.getScale(i, axis);
+                    }
+                }
+            }
+
+            received.toMatrix(mPoseMatrix);
+            if (shared.repeat) {
+                mPoseInterpolator.onSnapshot(frame.getTimestamp(),
+                        shared.jitterBuffer.push(frame.getTimestamp(), mPoseMatrix));
+            } else {
+                // Objects shared only once are placed right away
+                setGuestPose(shared, mPoseMatrix);
+                mSharedSceneObjects.remove(shared);
             }
         }
-    };
+    }
+
+    private synchronized void updateGuestPoses(float frameTime) {
+        if (!mGuestInterpolating) {
+            return;
+        }
+
+        long renderTime = mPoseInterpolator.getRenderTime(SystemClock.uptimeMillis());
+        readAnchorMatrix(mSpaceMatrix);
+        int bufferDepth = 0;
+        long extrapolationTime = 0;
+
+        for (int i = 0; i < mSharedSceneObjects.size(); i++) {
+            SharedSceneObject shared = mSharedSceneObjects.get(i);
+            bufferDepth = Math.max(bufferDepth, shared.jitterBuffer.size());
+            long extrapolated = shared.jitterBuffer.sample(renderTime,
+                    PoseInterpolator.MAX_EXTRAPOLATION_MS, mPoseMatrix);
+            if (extrapolated >= 0) {
+                extrapolationTime = Math.max(extrapolationTime, extrapolated);
+                setGuestPose(shared, mPoseMatrix);
+            }
+        }
+
+        mPoseInterpolator.onFrameRendered(bufferDepth, extrapolationTime, (long) (frameTime * 1000));
+    }
+
+    /**
+     * Read the model matrix of the shared anchor without the new array that
+     * {@link SXRTransform#getModelMatrix()} returns on every call. The anchor node has no
+     * parent, so its model matrix is its local transform.
+     *
+     * @param out Receives the matrix in column-major order.
+     * @return {@code out}
+     */
+    private float[] readAnchorMatrix(float[] out) {
+        SXRTransform transform = mSharedAnchorObject.getTransform();
+        mAnchorMatrix.translationRotateScale(
+                transform.getPositionX(), transform.getPositionY(), transform.getPositionZ(),
+                transform.getRotationX(), transform.getRotationY(), transform.getRotationZ(),
+                transform.getRotationW(),
+                transform.getScaleX(), transform.getScaleY(), transform.getScaleZ());
+        return mAnchorMatrix.get(out);
+    }
 
-    private static class SharedSceneObject {
+    private void setGuestPose(SharedSceneObject shared, Matrix4f pose) {
+        pose.get(mPoseArray);
+        Matrix.multiplyMM(mPoseResult, 0, mSpaceMatrix, 0, mPoseArray, 0);
+        shared.object.getTransform().setModelMatrix(mPoseResult);
+    }
 
-        @ArPetObjectType
-        String type;
+    private synchronized void onUpdatePosesReceived(SharedObjectPose[] poses) {
+        readAnchorMatrix(mSpaceMatrix);
+        // Full poses carry no host time, the receiving time is used instead
+        long now = SystemClock.uptimeMillis();
+        mPoseInterpolator.onFrameReceived(now, now);
 
-        // Shared object
-        SXRNode object;
-        // Parent of shared object.
-        SXRNode parent;
-        // Local matrix to be used in guest mode after the share experience has been finished
-        Matrix4f localMtx;
+        for (SharedObjectPose pose : poses) {
+            SharedSceneObject shared = mSharedSceneObjects.findById(pose.getObjectId());
+            if (shared == null) {
+                continue;
+            }
 
-        boolean repeat;
+            mPoseMatrix.set(pose.getModelMatrix());
+            if (shared.repeat) {
+                mPoseInterpolator.onSnapshot(now, shared.jitterBuffer.push(now, mPoseMatrix));
+            } else {
+                setGuestPose(shared, mPoseMatrix);
+                mSharedSceneObjects.remove(shared);
+            }
+        }
+    }
 
-        SharedSceneObject(String type, SXRNode object) {
-            this.type = type;
-            this.object = object;
-            this.repeat = true;
-            this.localMtx = object.getTransform().getLocalModelMatrix4f();
+    private SXRDrawFrameListener mGuestPoseUpdater = new SXRDrawFrameListener() {
+
+        @Override
+        public void onDrawFrame(float frameTime) {
+            updateGuestPoses(frameTime);
         }
+    };
+
+    private Runnable mSharingLoop = new Runnable() {
+
+        final int LOOP_TIME = 500;
 
         @Override
-        public String toString() {
-            return "SharedSceneObject{" +
-                    ", type='" + type + '\'' +
-                    '}';
+        public void run() {
+            if (mMode != PetConstants.SHARE_MODE_NONE) {
+                if (mPoseSyncMode == POSE_SYNC_DELTA) {
+                    sendPoseDeltas();
+                    mPetContext.runDelayedOnPetThread(this, mSendRate.getIntervalMs());
+                } else {
+                    sendSharedSceneObjects();
+                    mPetContext.runDelayedOnPetThread(this, LOOP_TIME);
+                }
+            }
         }
-    }
+    };
 
-    @Subscribe
-    public void handleReceivedMessage(UpdatePosesReceivedMessage message) {
-        onUpdatePosesReceived(message.getSharedObjectPoses());
-    }
+    // Poses are handled inline on the connection thread, the guest poses are then
+    // sampled on the GL thread
+    private final MessageHandler<UpdatePosesReceivedMessage> mPosesHandler =
+            message -> onUpdatePosesReceived(message.getSharedObjectPoses());
+
+    private final MessageHandler<PoseDeltasReceivedMessage> mPoseDeltasHandler =
+            message -> onPoseDeltasReceived(message.getPoseDeltaFrame());
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import com.samsungxr.arpet.constant.ArPetObjectType;
+
+/**
+ * Compact ids of shared objects.
+ * <br/>An id packs the object type in its lowest four bits and an instance number in the
+ * others, so the same object gets the same id on host and guests as long as both register
+ * it with the same type and instance. First instances of each type get ids below 16.
+ */
+public final class SharedObjectId {
+
+    public static final int MAX_INSTANCES = 1 << 12;
+
+    private static final int TYPE_BITS = 4;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private static final String[] TYPES = {
+            ArPetObjectType.PET,
+            ArPetObjectType.BED,
+            ArPetObjectType.BOWL,
+            ArPetObjectType.HYDRANT,
+            ArPetObjectType.CAMERA,
+            ArPetObjectType.PLANE,
+            ArPetObjectType.PLAYER
+    };
+
+    private SharedObjectId() {
+    }
+
+    public static int of(@ArPetObjectType String type, int instance) {
+        if (instance < 0 || instance >= MAX_INSTANCES) {
+            throw new IllegalArgumentException("Invalid instance " + instance + " of " + type);
+        }
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return (instance << TYPE_BITS) | i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown object type " + type);
+    }
+
+    @ArPetObjectType
+    public static String typeOf(int id) {
+        return TYPES[id & TYPE_MASK];
+    }
+
+    public static int instanceOf(int id) {
+        return id >>> TYPE_BITS;
+    }
+}
@@ -26,15 +26,15 @@ import java.util.Arrays;
 
 public class SharedObjectPose implements Serializable {
 
-    @ArPetObjectType
-    private String objectType;
+    private int objectId;
     private float[] modelMatrix;
 
-    public SharedObjectPose(
-            @NonNull @ArPetObjectType String objectType,
-            @NonNull float[] modelMatrix) {
-
-        this.objectType = objectType;
+    /**
+     * @param objectId    Id of the shared object, see {@link SharedObjectId}.
+     * @param modelMatrix Model matrix relative to the shared anchor.
+     */
+    public SharedObjectPose(int objectId, @NonNull float[] modelMatrix) {
+        this.objectId = objectId;
         this.modelMatrix = modelMatrix;
     }
 
@@ -42,15 +42,20 @@ public class SharedObjectPose implements Serializable {
         return modelMatrix;
     }
 
+    public int getObjectId() {
+        return objectId;
+    }
+
     @ArPetObjectType
     public String getObjectType() {
-        return objectType;
+        return SharedObjectId.typeOf(objectId);
     }
 
     @Override
     public String toString() {
         return "SharedObjectPose{" +
-                "objectType='" + objectType + '\'' +
+                "objectId=" + objectId +
+                ", objectType='" + getObjectType() + '\'' +
                 ", modelMatrix=" + Arrays.toString(modelMatrix) +
                 '}';
     }
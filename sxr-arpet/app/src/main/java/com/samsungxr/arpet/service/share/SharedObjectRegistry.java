@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import com.samsungxr.SXRNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared objects indexed by id and by node.
+ * <br/>Lookups, additions and removals take constant time. Objects are kept in a dense list
+ * to be iterated by index; removing an object moves the last one to its position.
+ */
+final class SharedObjectRegistry {
+
+    private final List<SharedSceneObject> mObjects = new ArrayList<>();
+    private final Map<SXRNode, SharedSceneObject> mByNode = new IdentityHashMap<>();
+    private SharedSceneObject[] mById = new SharedSceneObject[32];
+
+    int size() {
+        return mObjects.size();
+    }
+
+    SharedSceneObject get(int index) {
+        return mObjects.get(index);
+    }
+
+    SharedSceneObject findById(int id) {
+        return id >= 0 && id < mById.length ? mById[id] : null;
+    }
+
+    SharedSceneObject findByNode(SXRNode node) {
+        return mByNode.get(node);
+    }
+
+    /**
+     * Add an object. An object previously registered with the same id is removed.
+     *
+     * @param shared Object to add.
+     * @return The object removed or null.
+     */
+    SharedSceneObject add(SharedSceneObject shared) {
+        SharedSceneObject replaced = findById(shared.id);
+        if (replaced != null) {
+            remove(replaced);
+        }
+
+        if (shared.id >= mById.length) {
+            int length = mById.length;
+            while (length <= shared.id) {
+                length *= 2;
+            }
+            SharedSceneObject[] byId = new SharedSceneObject[length];
+            System.arraycopy(mById, 0, byId, 0, mById.length);
+            mById = byId;
+        }
+
+        shared.index = mObjects.size();
+        mObjects.add(shared);
+        mById[shared.id] = shared;
+        mByNode.put(shared.object, shared);
+        return replaced;
+    }
+
+    void remove(SharedSceneObject shared) {
+        if (shared.index < 0 || mObjects.get(shared.index) != shared) {
+            return;
+        }
+
+        SharedSceneObject last = mObjects.remove(mObjects.size() - 1);
+        if (last != shared) {
+            mObjects.set(shared.index, last);
+            last.index = shared.index;
+        }
+        shared.index = -1;
+        mById[shared.id] = null;
+        mByNode.remove(shared.object);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import com.samsungxr.SXRNode;
+import com.samsungxr.arpet.constant.ArPetObjectType;
+
+import org.joml.Matrix4f;
+
+final class SharedSceneObject {
+
+    final int id;
+
+    @ArPetObjectType
+    final String type;
+
+    // Shared object
+    final SXRNode object;
+    // Parent of shared object.
+    SXRNode parent;
+    // Local matrix to be used in guest mode after the share experience has been finished
+    Matrix4f localMtx;
+
+    boolean repeat;
+
+    // Position in the registry list
+    int index = -1;
+
+    // Last pose sent in host mode and last pose received in guest mode
+    final QuantizedPose sentPose = new QuantizedPose();
+    final QuantizedPose receivedPose = new QuantizedPose();
+    // A change was sent in the last frame in host mode
+    boolean moving;
+    // Poses received in guest mode waiting to be interpolated
+    final PoseJitterBuffer jitterBuffer = new PoseJitterBuffer();
+
+    SharedSceneObject(int id, SXRNode object) {
+        this(id, object, object.getTransform().getLocalModelMatrix4f());
+    }
+
+    /**
+     * @param localMtx Local matrix of the object, read from its transform by the other
+     *                 constructor. Taken here so objects can be made without a rendering context.
+     */
+    SharedSceneObject(int id, SXRNode object, Matrix4f localMtx) {
+        this.id = id;
+        this.type = SharedObjectId.typeOf(id);
+        this.object = object;
+        this.repeat = true;
+        this.localMtx = localMtx;
+    }
+
+    @Override
+    public String toString() {
+        return "SharedSceneObject{" +
+                "id=" + id +
+                ", type='" + type + '\'' +
+                '}';
+    }
+}
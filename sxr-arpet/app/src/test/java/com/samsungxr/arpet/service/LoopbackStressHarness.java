@@ -0,0 +1,285 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service;
+
+import android.support.annotation.NonNull;
+
+import com.samsungxr.arpet.connection.ConnectionStats;
+import com.samsungxr.arpet.connection.ManagerState;
+import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.socket.tcp.TCPConnectionManager;
+import com.samsungxr.arpet.connection.socket.tcp.TCPDevice;
+import com.samsungxr.arpet.constant.ArPetObjectType;
+import com.samsungxr.arpet.movement.PetActions;
+import com.samsungxr.arpet.service.data.PetActionCommand;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
+import com.samsungxr.arpet.service.share.SharedObjectId;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one host and N guests over loopback TCP and measures the end-to-end latency and
+ * throughput of the requests sent by {@link MessageService}: pose delta frames mixed with
+ * pet action commands, encoded by {@link RequestMessageCodec}.
+ * <br/>It doesn't need Bluetooth or a rendering context, so it can be run from a plain JVM
+ * through {@link #main(String[])}.
+ */
+public final class LoopbackStressHarness {
+
+    private static final String LOOPBACK = "127.0.0.1";
+    private static final long CONNECT_TIMEOUT_MS = 10000;
+    private static final long DRAIN_TIMEOUT_MS = 10000;
+    // One in each COMMAND_RATIO messages is a command, the others are pose updates
+    private static final int COMMAND_RATIO = 4;
+
+    private final int mTotalGuests;
+    private final int mTotalMessages;
+    private final int mObjectsPerFrame;
+    private final long mSendIntervalMs;
+
+    private final ConcurrentHashMap<Integer, Long> mSendTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger mTotalReceived = new AtomicInteger();
+    private long[] mLatencies;
+
+    /**
+     * @param totalGuests     Number of guests connected to the host.
+     * @param totalMessages   Number of messages sent by the host.
+     * @param objectsPerFrame Number of object poses in each pose frame.
+     * @param sendIntervalMs  Time between messages or 0 to send as fast as possible.
+     */
+    public LoopbackStressHarness(int totalGuests, int totalMessages, int objectsPerFrame,
+                                 long sendIntervalMs) {
+        mTotalGuests = totalGuests;
+        mTotalMessages = totalMessages;
+        mObjectsPerFrame = Math.min(objectsPerFrame, SharedObjectId.MAX_INSTANCES);
+        mSendIntervalMs = sendIntervalMs;
+    }
+
+    public Report run() throws InterruptedException, TimeoutException {
+        mSendTimes.clear();
+        mTotalReceived.set(0);
+        mLatencies = new long[mTotalMessages * mTotalGuests];
+
+        TCPConnectionManager host = new TCPConnectionManager(0);
+        TCPConnectionManager[] guests = new TCPConnectionManager[mTotalGuests];
+
+        try {
+            host.setMessageCodecs(new RequestMessageCodec());
+            host.startConnectionListener(message -> { });
+            waitFor(() -> host.getListeningPort() > 0, CONNECT_TIMEOUT_MS, "host listening");
+            TCPDevice hostDevice = new TCPDevice(LOOPBACK, host.getListeningPort());
+
+            for (int i = 0; i < mTotalGuests; i++) {
+                guests[i] = new TCPConnectionManager(0);
+                guests[i].setMessageCodecs(new RequestMessageCodec());
+                guests[i].connectToDevices(this::onMessageReceived, hostDevice);
+            }
+            waitFor(() -> host.getTotalConnected() == mTotalGuests && allConnected(guests),
+                    CONNECT_TIMEOUT_MS, "guests connected");
+
+            AtomicInteger totalDelivered = new AtomicInteger();
+            AtomicInteger totalReported = new AtomicInteger();
+            long start = System.nanoTime();
+
+            for (int i = 0; i < mTotalMessages; i++) {
+                RequestMessage<? extends Serializable> request = createRequest(i);
+                mSendTimes.put(request.getId(), System.nanoTime());
+                host.sendMessage(request, (totalSent, totalLost) -> {
+                    totalDelivered.addAndGet(totalSent);
+                    totalReported.incrementAndGet();
+                });
+                if (mSendIntervalMs > 0) {
+                    Thread.sleep(mSendIntervalMs);
+                }
+            }
+
+            // Superseded messages are reported as not delivered, so wait all reports
+            // then the guests to read everything the host has written
+            waitFor(() -> totalReported.get() == mTotalMessages
+                            && mTotalReceived.get() >= totalDelivered.get(),
+                    DRAIN_TIMEOUT_MS, "messages delivered");
+            long elapsedNanos = System.nanoTime() - start;
+
+            return createReport(elapsedNanos, host);
+
+        } finally {
+            for (TCPConnectionManager guest : guests) {
+                if (guest != null) {
+                    guest.disconnect();
+                }
+            }
+            host.stopConnectionListener();
+            host.disconnect();
+        }
+    }
+
+    private RequestMessage<? extends Serializable> createRequest(int index) {
+        if (index % COMMAND_RATIO == COMMAND_RATIO - 1) {
+            return new RequestMessage<>(IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND,
+                    new PetActionCommand(PetActions.IDLE.ID));
+        }
+
+        PoseDeltaFrame frame = new PoseDeltaFrame(System.currentTimeMillis(), mObjectsPerFrame);
+        int[] position = {index, index, index};
+        int[] scale = {1000, 1000, 1000};
+        for (int i = 0; i < mObjectsPerFrame; i++) {
+            frame.add(SharedObjectId.of(ArPetObjectType.PET, i),
+                    PoseDeltaFrame.FLAG_KEYFRAME, position, 0, scale);
+        }
+        return new RequestMessage<>(IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS, frame);
+    }
+
+    private void onMessageReceived(Message message) {
+        long now = System.nanoTime();
+        Long sendTime = mSendTimes.get(message.getId());
+        if (sendTime != null) {
+            int index = mTotalReceived.getAndIncrement();
+            if (index < mLatencies.length) {
+                mLatencies[index] = now - sendTime;
+            }
+        }
+    }
+
+    private Report createReport(long elapsedNanos, TCPConnectionManager host) {
+        int totalReceived = Math.min(mTotalReceived.get(), mLatencies.length);
+        long[] latencies = Arrays.copyOf(mLatencies, totalReceived);
+        Arrays.sort(latencies);
+
+        long bytesSent = 0;
+        int superseded = 0, dropped = 0;
+        for (ConnectionStats stats : host.getConnectionStats()) {
+            bytesSent += stats.getBytesSent();
+            superseded += stats.getSupersededCount();
+            dropped += stats.getDroppedCount();
+        }
+
+        return new Report(mTotalGuests, mTotalMessages, totalReceived, superseded, dropped,
+                elapsedNanos, bytesSent, latencies);
+    }
+
+    private static boolean allConnected(TCPConnectionManager[] managers) {
+        for (TCPConnectionManager manager : managers) {
+            if (manager.getState() != ManagerState.CONNECTED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    private static void waitFor(Condition condition, long timeoutMs, String what)
+            throws InterruptedException, TimeoutException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.isMet()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new TimeoutException("Timeout waiting for " + what);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    public static final class Report {
+
+        private final int mTotalGuests;
+        private final int mTotalSent;
+        private final int mTotalReceived;
+        private final int mTotalSuperseded;
+        private final int mTotalDropped;
+        private final long mElapsedNanos;
+        private final long mBytesSent;
+        private final long[] mLatencies;
+
+        Report(int totalGuests, int totalSent, int totalReceived, int totalSuperseded,
+               int totalDropped, long elapsedNanos, long bytesSent, long[] sortedLatencies) {
+            mTotalGuests = totalGuests;
+            mTotalSent = totalSent;
+            mTotalReceived = totalReceived;
+            mTotalSuperseded = totalSuperseded;
+            mTotalDropped = totalDropped;
+            mElapsedNanos = elapsedNanos;
+            mBytesSent = bytesSent;
+            mLatencies = sortedLatencies;
+        }
+
+        public int getTotalReceived() {
+            return mTotalReceived;
+        }
+
+        public int getTotalSuperseded() {
+            return mTotalSuperseded;
+        }
+
+        public int getTotalDropped() {
+            return mTotalDropped;
+        }
+
+        /**
+         * @return Messages received per second, summed over all guests.
+         */
+        public float getMessagesPerSecond() {
+            return mTotalReceived * 1e9f / Math.max(1, mElapsedNanos);
+        }
+
+        public float getBytesPerSecond() {
+            return mBytesSent * 1e9f / Math.max(1, mElapsedNanos);
+        }
+
+        /**
+         * @param percentile Value from 0 to 100.
+         * @return Latency in milliseconds or 0 if no message was received.
+         */
+        public float getLatencyMs(float percentile) {
+            if (mLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * mLatencies.length) - 1;
+            return mLatencies[Math.max(0, Math.min(index, mLatencies.length - 1))] / 1e6f;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "guests=%d sent=%d received=%d superseded=%d dropped=%d "
+                            + "msg/s=%.1f bytes/s=%.0f latency(ms) p50=%.2f p90=%.2f p99=%.2f max=%.2f",
+                    mTotalGuests, mTotalSent, mTotalReceived, mTotalSuperseded, mTotalDropped,
+                    getMessagesPerSecond(), getBytesPerSecond(),
+                    getLatencyMs(50), getLatencyMs(90), getLatencyMs(99), getLatencyMs(100));
+        }
+    }
+
+    /**
+     * Arguments: [guests] [messages] [objects per frame] [send interval ms]
+     */
+    public static void main(String[] args) throws Exception {
+        int guests = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int objects = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        long interval = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        System.out.println(new LoopbackStressHarness(guests, messages, objects, interval).run());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service;
+
+import com.samsungxr.arpet.connection.Message;
+import com.samsungxr.arpet.connection.codec.MessageFramer;
+import com.samsungxr.arpet.constant.ArPetObjectType;
+import com.samsungxr.arpet.movement.PetActions;
+import com.samsungxr.arpet.service.data.BallCommand;
+import com.samsungxr.arpet.service.data.PetActionCommand;
+import com.samsungxr.arpet.service.data.RequestStatus;
+import com.samsungxr.arpet.service.data.ViewCommand;
+import com.samsungxr.arpet.service.share.SharedObjectId;
+import com.samsungxr.arpet.service.share.SharedObjectPose;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * Compares the Java serialization path the socket threads used before, a new object
+ * stream for every message, with {@link MessageFramer} and {@link RequestMessageCodec}.
+ * <br/>For each kind of request it reports the bytes per message, the encode and decode
+ * time per message in memory, and the messages per second through a loopback socket.
+ * It doesn't need Bluetooth or a rendering context, so it can be run from a plain JVM
+ * through {@link #main(String[])}.
+ */
+public final class MessageCodecBenchmark {
+
+    private static final int WARMUP_MESSAGES = 20000;
+    private static final int POSES_PER_MESSAGE = 8;
+
+    private interface Path {
+        void write(DataOutputStream out, Message message) throws IOException;
+
+        Message read(DataInputStream in) throws IOException, ClassNotFoundException;
+    }
+
+    private static final class SerializationPath implements Path {
+
+        @Override
+        public void write(DataOutputStream out, Message message) throws IOException {
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
+            objectOutputStream.writeObject(message);
+            objectOutputStream.flush();
+        }
+
+        @Override
+        public Message read(DataInputStream in) throws IOException, ClassNotFoundException {
+            return (Message) new ObjectInputStream(in).readObject();
+        }
+    }
+
+    private static final class FramedPath implements Path {
+
+        private final MessageFramer mWriteFramer = new MessageFramer(new RequestMessageCodec());
+        private final MessageFramer mReadFramer = new MessageFramer(new RequestMessageCodec());
+
+        @Override
+        public void write(DataOutputStream out, Message message) throws IOException {
+            mWriteFramer.writeFrame(out, message);
+        }
+
+        @Override
+        public Message read(DataInputStream in) throws IOException, ClassNotFoundException {
+            return mReadFramer.readFrame(in);
+        }
+    }
+
+    private static final class Result {
+        float bytesPerMessage;
+        float encodeNanos;
+        float decodeNanos;
+        float socketMessagesPerSecond;
+    }
+
+    private final int mTotalMessages;
+
+    /**
+     * @param totalMessages Number of messages of each kind measured on each path.
+     */
+    public MessageCodecBenchmark(int totalMessages) {
+        mTotalMessages = totalMessages;
+    }
+
+    public String run() throws Exception {
+        StringBuilder report = new StringBuilder(
+                "message,serialization_bytes,codec_bytes,serialization_encode_ns,codec_encode_ns,"
+                        + "serialization_decode_ns,codec_decode_ns,serialization_socket_msg_s,"
+                        + "codec_socket_msg_s");
+
+        String[] names = {"poses", "ball", "pet_action", "view", "status"};
+        RequestMessage[] messages = {
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_UPDATE_POSES, createPoses()),
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_BALL_COMMAND, createBallCommand()),
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND,
+                        new PetActionCommand(PetActions.IDLE.ID)),
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_VIEW_COMMAND,
+                        new ViewCommand(ViewCommand.SHOW_VIEW_LOOKING_AT_TARGET)),
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_REQUEST_STATUS, createStatus())
+        };
+
+        for (RequestMessage message : messages) {
+            measure(new SerializationPath(), message, WARMUP_MESSAGES);
+            measure(new FramedPath(), message, WARMUP_MESSAGES);
+        }
+
+        for (int i = 0; i < messages.length; i++) {
+            Result serialization = measure(new SerializationPath(), messages[i], mTotalMessages);
+            Result codec = measure(new FramedPath(), messages[i], mTotalMessages);
+            report.append(String.format(Locale.US, "\n%s,%.0f,%.0f,%.0f,%.0f,%.0f,%.0f,%.0f,%.0f",
+                    names[i], serialization.bytesPerMessage, codec.bytesPerMessage,
+                    serialization.encodeNanos, codec.encodeNanos,
+                    serialization.decodeNanos, codec.decodeNanos,
+                    serialization.socketMessagesPerSecond, codec.socketMessagesPerSecond));
+        }
+        return report.toString();
+    }
+
+    private Result measure(Path path, Message message, int totalMessages) throws Exception {
+        Result result = new Result();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024 * 1024);
+        DataOutputStream out = new DataOutputStream(buffer);
+        long start = System.nanoTime();
+        for (int i = 0; i < totalMessages; i++) {
+            path.write(out, message);
+        }
+        out.flush();
+        result.encodeNanos = (float) (System.nanoTime() - start) / totalMessages;
+        result.bytesPerMessage = (float) buffer.size() / totalMessages;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        start = System.nanoTime();
+        for (int i = 0; i < totalMessages; i++) {
+            check(path.read(in), message);
+        }
+        result.decodeNanos = (float) (System.nanoTime() - start) / totalMessages;
+
+        result.socketMessagesPerSecond = measureSocket(path, message, totalMessages);
+        return result;
+    }
+
+    /**
+     * Sends the messages through a loopback socket, one write and flush per message
+     * as the socket threads do when there is no backlog, and reads them on another thread.
+     */
+    private static float measureSocket(Path path, Message message, int totalMessages)
+            throws Exception {
+        try (java.net.ServerSocket server = new java.net.ServerSocket(0);
+             java.net.Socket writer = new java.net.Socket("127.0.0.1", server.getLocalPort());
+             java.net.Socket reader = server.accept()) {
+
+            writer.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    writer.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    reader.getInputStream()));
+
+            Exception[] readError = new Exception[1];
+            Thread readThread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < totalMessages; i++) {
+                        check(path.read(in), message);
+                    }
+                } catch (Exception e) {
+                    readError[0] = e;
+                }
+            });
+
+            long start = System.nanoTime();
+            readThread.start();
+            for (int i = 0; i < totalMessages; i++) {
+                path.write(out, message);
+                out.flush();
+            }
+            readThread.join();
+            long elapsed = System.nanoTime() - start;
+
+            if (readError[0] != null) {
+                throw readError[0];
+            }
+            return totalMessages * 1e9f / Math.max(1, elapsed);
+        }
+    }
+
+    private static void check(Message read, Message written) throws IOException {
+        if (read == null || read.getId() != written.getId()) {
+            throw new IOException("Decoded " + read + " instead of " + written);
+        }
+    }
+
+    private static SharedObjectPose[] createPoses() {
+        SharedObjectPose[] poses = new SharedObjectPose[POSES_PER_MESSAGE];
+        for (int i = 0; i < poses.length; i++) {
+            float[] matrix = new float[16];
+            matrix[0] = matrix[5] = matrix[10] = matrix[15] = 1;
+            matrix[12] = i * 0.1f;
+            matrix[13] = -0.5f;
+            matrix[14] = -1.5f + i * 0.01f;
+            poses[i] = new SharedObjectPose(SharedObjectId.of(ArPetObjectType.PET, i), matrix);
+        }
+        return poses;
+    }
+
+    private static BallCommand createBallCommand() {
+        BallCommand command = new BallCommand(BallCommand.THROW);
+        command.getForceVector().set(0.2f, 1.5f, -3f);
+        return command;
+    }
+
+    private static RequestStatus createStatus() {
+        RequestStatus status = new RequestStatus(42);
+        status.setStatus(RequestStatus.STATUS_OK);
+        return status;
+    }
+
+    /**
+     * Arguments: [messages of each kind]
+     */
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+
+        System.out.println(new MessageCodecBenchmark(messages).run());
+    }
+}
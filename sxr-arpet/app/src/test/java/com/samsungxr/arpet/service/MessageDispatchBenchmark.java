@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service;
+
+import com.samsungxr.arpet.constant.ArPetObjectType;
+import com.samsungxr.arpet.movement.PetActions;
+import com.samsungxr.arpet.service.data.PetActionCommand;
+import com.samsungxr.arpet.service.event.PetActionCommandReceivedMessage;
+import com.samsungxr.arpet.service.event.PoseDeltasReceivedMessage;
+import com.samsungxr.arpet.service.event.ReceivedMessage;
+import com.samsungxr.arpet.service.event.UpdatePosesReceivedMessage;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
+import com.samsungxr.arpet.service.share.SharedObjectId;
+import com.samsungxr.arpet.service.share.SharedObjectPose;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares the messages per second dispatched to a handler by the receiving path used before
+ * {@link MessageDispatcher} with the dispatcher.
+ * <br/>The old path built the debug log line of every message, logged or not, and created the
+ * received message by reflection. It then posted it through EventBus twice, once as a
+ * connection event and once as the received message; these posts are not measured, so its
+ * numbers are an upper bound. The dispatcher path has no log line, as Log.isLoggable is false
+ * unless debug logs are enabled, and delivers to an inline handler.
+ * <br/>The rounds are run after warm up rounds and the median is reported, like a JMH
+ * throughput benchmark. It doesn't need Bluetooth or a rendering context, so it can be run
+ * from a plain JVM through {@link #main(String[])}.
+ */
+public final class MessageDispatchBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int POSES_PER_MESSAGE = 8;
+
+    private interface Path {
+        void dispatch(RequestMessage request) throws Exception;
+    }
+
+    private static final class ReflectivePath implements Path {
+
+        private final Map<String, Class> mReceivedMessageTypes = new HashMap<>();
+        private final MessageHandler<ReceivedMessage> mHandler;
+        String logLine;
+
+        ReflectivePath(MessageHandler<ReceivedMessage> handler) {
+            mHandler = handler;
+            mReceivedMessageTypes.put(IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND,
+                    PetActionCommandReceivedMessage.class);
+            mReceivedMessageTypes.put(IMessageService.MESSAGE_TYPE_UPDATE_POSES,
+                    UpdatePosesReceivedMessage.class);
+            mReceivedMessageTypes.put(IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS,
+                    PoseDeltasReceivedMessage.class);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void dispatch(RequestMessage request) throws Exception {
+            logLine = "onMessageReceived: " + request;
+
+            Class messageType = mReceivedMessageTypes.get(request.getActionName());
+            Class dataType = request.getData().getClass();
+            ReceivedMessage message = (ReceivedMessage) messageType.getConstructor(dataType)
+                    .newInstance(request.getData());
+            message.setRequestStatus(request.getStatus());
+            mHandler.handleMessage(message);
+        }
+    }
+
+    private static final class DispatcherPath implements Path {
+
+        private final MessageDispatcher mDispatcher = new MessageDispatcher();
+
+        DispatcherPath(MessageHandler<ReceivedMessage> handler) {
+            mDispatcher.register(IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND,
+                    PetActionCommandReceivedMessage.class, PetActionCommandReceivedMessage::new);
+            mDispatcher.register(IMessageService.MESSAGE_TYPE_UPDATE_POSES,
+                    UpdatePosesReceivedMessage.class, UpdatePosesReceivedMessage::new, false);
+            mDispatcher.register(IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS,
+                    PoseDeltasReceivedMessage.class, PoseDeltasReceivedMessage::new, false);
+            mDispatcher.addHandler(PetActionCommandReceivedMessage.class, handler, null);
+            mDispatcher.addHandler(UpdatePosesReceivedMessage.class, handler, null);
+            mDispatcher.addHandler(PoseDeltasReceivedMessage.class, handler, null);
+        }
+
+        @Override
+        public void dispatch(RequestMessage request) {
+            mDispatcher.dispatch(request);
+        }
+    }
+
+    private final int mTotalMessages;
+    private int mTotalHandled;
+
+    /**
+     * @param totalMessages Number of messages dispatched in each round.
+     */
+    public MessageDispatchBenchmark(int totalMessages) {
+        mTotalMessages = totalMessages;
+    }
+
+    public String run() throws Exception {
+        StringBuilder report = new StringBuilder(
+                "message,reflective_msg_s,dispatcher_msg_s,speedup");
+
+        MessageHandler<ReceivedMessage> handler = message -> mTotalHandled++;
+        String[] names = {"pose_deltas", "poses", "pet_action"};
+        RequestMessage[] messages = {
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS,
+                        createPoseDeltas()),
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_UPDATE_POSES, createPoses()),
+                new RequestMessage<>(IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND,
+                        new PetActionCommand(PetActions.IDLE.ID))
+        };
+
+        for (int i = 0; i < messages.length; i++) {
+            float reflective = measure(new ReflectivePath(handler), messages[i]);
+            float dispatcher = measure(new DispatcherPath(handler), messages[i]);
+            report.append(String.format(Locale.US, "\n%s,%.0f,%.0f,%.1f",
+                    names[i], reflective, dispatcher, dispatcher / reflective));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @return The median of the messages per second of the measured rounds.
+     */
+    private float measure(Path path, RequestMessage message) throws Exception {
+        float[] rounds = new float[MEASURED_ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < MEASURED_ROUNDS; round++) {
+            mTotalHandled = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < mTotalMessages; i++) {
+                path.dispatch(message);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (mTotalHandled != mTotalMessages) {
+                throw new IllegalStateException("Handled " + mTotalHandled + " of "
+                        + mTotalMessages + " messages " + message);
+            }
+            if (round >= 0) {
+                rounds[round] = mTotalMessages * 1e9f / Math.max(1, elapsed);
+            }
+        }
+        Arrays.sort(rounds);
+        return rounds[MEASURED_ROUNDS / 2];
+    }
+
+    private static PoseDeltaFrame createPoseDeltas() {
+        PoseDeltaFrame frame = new PoseDeltaFrame(System.currentTimeMillis(), POSES_PER_MESSAGE);
+        int[] position = {10, -500, -1500};
+        int[] scale = {1000, 1000, 1000};
+        for (int i = 0; i < POSES_PER_MESSAGE; i++) {
+            frame.add(SharedObjectId.of(ArPetObjectType.PET, i),
+                    PoseDeltaFrame.FLAG_KEYFRAME, position, 0, scale);
+        }
+        return frame;
+    }
+
+    private static SharedObjectPose[] createPoses() {
+        SharedObjectPose[] poses = new SharedObjectPose[POSES_PER_MESSAGE];
+        for (int i = 0; i < poses.length; i++) {
+            float[] matrix = new float[16];
+            matrix[0] = matrix[5] = matrix[10] = matrix[15] = 1;
+            matrix[12] = i * 0.1f;
+            poses[i] = new SharedObjectPose(SharedObjectId.of(ArPetObjectType.PET, i), matrix);
+        }
+        return poses;
+    }
+
+    /**
+     * Arguments: [messages per round]
+     */
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        System.out.println(new MessageDispatchBenchmark(messages).run());
+    }
+}
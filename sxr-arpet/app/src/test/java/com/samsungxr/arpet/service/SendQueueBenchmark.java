@@ -0,0 +1,341 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service;
+
+import com.samsungxr.arpet.connection.Connection;
+import com.samsungxr.arpet.connection.ConnectionStats;
+import com.samsungxr.arpet.connection.Device;
+import com.samsungxr.arpet.connection.OnConnectionListener;
+import com.samsungxr.arpet.connection.codec.MessageFramer;
+import com.samsungxr.arpet.connection.exception.ConnectionException;
+import com.samsungxr.arpet.connection.exception.MessageDroppedException;
+import com.samsungxr.arpet.connection.socket.OngoingSocketConnectionThread;
+import com.samsungxr.arpet.connection.socket.Socket;
+import com.samsungxr.arpet.connection.socket.tcp.TCPDevice;
+import com.samsungxr.arpet.constant.ArPetObjectType;
+import com.samsungxr.arpet.movement.PetActions;
+import com.samsungxr.arpet.service.data.PetActionCommand;
+import com.samsungxr.arpet.service.share.PoseDeltaFrame;
+import com.samsungxr.arpet.service.share.SharedObjectId;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the same requests to a few peers, one of them slow to flush like a stalled Bluetooth
+ * link, through the synchronous path sendMessage used before, writing and flushing to every
+ * connection in turn on the caller's thread, and through {@link OngoingSocketConnectionThread}
+ * with its outbound queue.
+ * <br/>For each path it reports how long the caller is blocked by a send, how fast the other
+ * peers get the messages and what the slow peer gets, was superseded or dropped. The peers
+ * are in-memory streams, so it can be run from a plain JVM through {@link #main(String[])}.
+ */
+public final class SendQueueBenchmark {
+
+    private static final int TOTAL_PEERS = 4;
+    private static final long SLOW_FLUSH_MS = 20;
+    private static final long SEND_INTERVAL_MS = 10;
+    private static final long DRAIN_TIMEOUT_MS = 30000;
+    private static final int WARMUP_MESSAGES = 20;
+    // One in each COMMAND_RATIO messages is a command, the others are pose updates
+    private static final int COMMAND_RATIO = 4;
+    private static final int OBJECTS_PER_FRAME = 8;
+
+    private static final class Peer implements Socket {
+
+        final AtomicInteger delivered = new AtomicInteger();
+        final AtomicInteger superseded = new AtomicInteger();
+        final AtomicInteger dropped = new AtomicInteger();
+        volatile long lastDeliveryNanos;
+
+        private final Device mDevice;
+        private final long mFlushDelayMs;
+        private final CountDownLatch mClosed = new CountDownLatch(1);
+
+        private final OutputStream mOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+
+            @Override
+            public void flush() throws IOException {
+                sleep(mFlushDelayMs);
+            }
+        };
+
+        // Nothing is received, reading blocks until the peer is closed
+        private final InputStream mInputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                try {
+                    mClosed.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return -1;
+            }
+        };
+
+        Peer(int index, long flushDelayMs) {
+            mDevice = new TCPDevice("peer-" + index, 0);
+            mFlushDelayMs = flushDelayMs;
+        }
+
+        void onDelivered() {
+            delivered.incrementAndGet();
+            lastDeliveryNanos = System.nanoTime();
+        }
+
+        void onError(Throwable error) {
+            if (error instanceof MessageDroppedException && ((MessageDroppedException) error)
+                    .getReason() == MessageDroppedException.REASON_SUPERSEDED) {
+                superseded.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+
+        int reported() {
+            return delivered.get() + superseded.get() + dropped.get();
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return mInputStream;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return mOutputStream;
+        }
+
+        @Override
+        public Device getRemoteDevice() {
+            return mDevice;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return mClosed.getCount() > 0;
+        }
+
+        @Override
+        public void close() {
+            mClosed.countDown();
+        }
+    }
+
+    private interface Sender {
+        void send(RequestMessage<? extends Serializable> message) throws IOException;
+    }
+
+    private final int mTotalMessages;
+
+    /**
+     * @param totalMessages Number of messages sent on each path.
+     */
+    public SendQueueBenchmark(int totalMessages) {
+        mTotalMessages = totalMessages;
+    }
+
+    public String run() throws Exception {
+        // Load and compile both paths before measuring
+        SendQueueBenchmark warmup = new SendQueueBenchmark(WARMUP_MESSAGES);
+        warmup.runSynchronous();
+        warmup.runQueued();
+
+        return "path,caller_p50_us,caller_p99_us,caller_max_us,fast_peer_msg_s,"
+                + "slow_peer_delivered,slow_peer_superseded,slow_peer_dropped"
+                + runSynchronous() + runQueued();
+    }
+
+    private String runSynchronous() throws Exception {
+        Peer[] peers = createPeers();
+        DataOutputStream[] streams = new DataOutputStream[peers.length];
+        MessageFramer[] framers = new MessageFramer[peers.length];
+        for (int i = 0; i < peers.length; i++) {
+            streams[i] = new DataOutputStream(new BufferedOutputStream(peers[i].getOutputStream()));
+            framers[i] = new MessageFramer(new RequestMessageCodec());
+        }
+
+        long[] callerNanos = new long[mTotalMessages];
+        long start = send(callerNanos, message -> {
+            for (int i = 0; i < peers.length; i++) {
+                framers[i].writeFrame(streams[i], message);
+                streams[i].flush();
+                peers[i].onDelivered();
+            }
+        });
+        return report("synchronous", callerNanos, peers, start);
+    }
+
+    private String runQueued() throws Exception {
+        Peer[] peers = createPeers();
+        OngoingSocketConnectionThread[] connections = new OngoingSocketConnectionThread[peers.length];
+        OnConnectionListener listener = new OnConnectionListener() {
+            @Override
+            public void onConnectionEstablished(Connection connection) {
+            }
+
+            @Override
+            public void onConnectionFailure(ConnectionException failure) {
+            }
+
+            @Override
+            public void onConnectionLost(Connection connection, ConnectionException error) {
+            }
+        };
+        for (int i = 0; i < peers.length; i++) {
+            connections[i] = new OngoingSocketConnectionThread(peers[i], message -> { }, listener);
+            connections[i].setMessageFramer(new MessageFramer(new RequestMessageCodec()));
+            connections[i].start();
+        }
+
+        try {
+            long[] callerNanos = new long[mTotalMessages];
+            long start = send(callerNanos, message -> {
+                for (int i = 0; i < peers.length; i++) {
+                    Peer peer = peers[i];
+                    connections[i].write(message, peer::onDelivered, peer::onError);
+                }
+            });
+
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+            for (Peer peer : peers) {
+                while (peer.reported() < mTotalMessages) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw new TimeoutException("Timeout waiting for " + peer.getRemoteDevice());
+                    }
+                    Thread.sleep(5);
+                }
+            }
+            for (OngoingSocketConnectionThread connection : connections) {
+                ConnectionStats stats = connection.getStats();
+                if (stats.getQueueDepth() != 0) {
+                    throw new IllegalStateException("Messages left in queue: " + stats);
+                }
+            }
+            return report("queued", callerNanos, peers, start);
+
+        } finally {
+            for (OngoingSocketConnectionThread connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * @return Time the first message was sent.
+     */
+    private long send(long[] callerNanos, Sender sender) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < mTotalMessages; i++) {
+            RequestMessage<? extends Serializable> message = createRequest(i);
+            long sendStart = System.nanoTime();
+            sender.send(message);
+            callerNanos[i] = System.nanoTime() - sendStart;
+            sleep(SEND_INTERVAL_MS);
+        }
+        return start;
+    }
+
+    private String report(String path, long[] callerNanos, Peer[] peers, long start) {
+        long[] sorted = callerNanos.clone();
+        Arrays.sort(sorted);
+
+        // Peer 0 is the slow one
+        float fastMessagesPerSecond = 0;
+        for (int i = 1; i < peers.length; i++) {
+            fastMessagesPerSecond += peers[i].delivered.get() * 1e9f
+                    / Math.max(1, peers[i].lastDeliveryNanos - start);
+        }
+        fastMessagesPerSecond /= peers.length - 1;
+
+        return String.format(Locale.US, "\n%s,%.0f,%.0f,%.0f,%.1f,%d,%d,%d", path,
+                percentile(sorted, 50) / 1e3f, percentile(sorted, 99) / 1e3f,
+                sorted[sorted.length - 1] / 1e3f, fastMessagesPerSecond,
+                peers[0].delivered.get(), peers[0].superseded.get(), peers[0].dropped.get());
+    }
+
+    private static long percentile(long[] sorted, float percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static Peer[] createPeers() {
+        Peer[] peers = new Peer[TOTAL_PEERS];
+        for (int i = 0; i < peers.length; i++) {
+            peers[i] = new Peer(i, i == 0 ? SLOW_FLUSH_MS : 0);
+        }
+        return peers;
+    }
+
+    private static RequestMessage<? extends Serializable> createRequest(int index) {
+        if (index % COMMAND_RATIO == COMMAND_RATIO - 1) {
+            return new RequestMessage<>(IMessageService.MESSAGE_TYPE_PET_ACTION_COMMAND,
+                    new PetActionCommand(PetActions.IDLE.ID));
+        }
+
+        PoseDeltaFrame frame = new PoseDeltaFrame(System.currentTimeMillis(), OBJECTS_PER_FRAME);
+        int[] position = {index, index, index};
+        int[] scale = {1000, 1000, 1000};
+        for (int i = 0; i < OBJECTS_PER_FRAME; i++) {
+            frame.add(SharedObjectId.of(ArPetObjectType.PET, i),
+                    PoseDeltaFrame.FLAG_KEYFRAME, position, 0, scale);
+        }
+        return new RequestMessage<>(IMessageService.MESSAGE_TYPE_UPDATE_POSE_DELTAS, frame);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Arguments: [messages]
+     */
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        System.out.println(new SendQueueBenchmark(messages).run());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.arpet.service.share;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares how a guest matches the poses of an update message with its shared objects, the
+ * nested loop over a list comparing types that onUpdatePosesReceived did before against
+ * {@link SharedObjectRegistry#findById(int)}, from 10 to 1000 shared objects.
+ * <br/>Each message carries a pose for every object in a random order. The objects have no
+ * node, only their ids are looked up, so it can be run from a plain JVM through
+ * {@link #main(String[])}.
+ */
+public final class SharedObjectRegistryBenchmark {
+
+    private static final int[] OBJECT_COUNTS = {10, 30, 100, 300, 1000};
+    private static final int TOTAL_TYPES = 7;
+
+    private final long mTotalLookups;
+    private final Random mRandom = new Random(4);
+
+    /**
+     * @param totalLookups Number of poses matched for each object count on each path.
+     */
+    public SharedObjectRegistryBenchmark(long totalLookups) {
+        mTotalLookups = totalLookups;
+    }
+
+    public String run() {
+        StringBuilder report = new StringBuilder(
+                "objects,list_ns_per_message,registry_ns_per_message,speedup");
+
+        for (int count : OBJECT_COUNTS) {
+            List<SharedSceneObject> list = new ArrayList<>();
+            SharedObjectRegistry registry = new SharedObjectRegistry();
+            for (int i = 0; i < count; i++) {
+                SharedSceneObject shared = new SharedSceneObject(
+                        SharedObjectId.of(SharedObjectId.typeOf(i % TOTAL_TYPES), i / TOTAL_TYPES),
+                        null, null);
+                list.add(shared);
+                registry.add(shared);
+            }
+            SharedObjectPose[] poses = createPoses(list);
+            int messages = (int) Math.max(10, mTotalLookups / count);
+
+            // Warm up both paths before measuring
+            check(matchInList(list, poses, messages / 10 + 1), count, messages / 10 + 1);
+            check(matchInRegistry(registry, poses, messages / 10 + 1), count, messages / 10 + 1);
+
+            long start = System.nanoTime();
+            check(matchInList(list, poses, messages), count, messages);
+            float listNanos = (float) (System.nanoTime() - start) / messages;
+
+            start = System.nanoTime();
+            check(matchInRegistry(registry, poses, messages), count, messages);
+            float registryNanos = (float) (System.nanoTime() - start) / messages;
+
+            report.append(String.format(Locale.US, "\n%d,%.0f,%.0f,%.1f",
+                    count, listNanos, registryNanos, listNanos / registryNanos));
+        }
+        return report.toString();
+    }
+
+    /**
+     * The loop onUpdatePosesReceived used before the registry, also comparing the id, since
+     * the type alone can't tell apart many objects of one type.
+     */
+    private static long matchInList(List<SharedSceneObject> list, SharedObjectPose[] poses,
+                                    int messages) {
+        long matched = 0;
+        for (int m = 0; m < messages; m++) {
+            for (SharedObjectPose pose : poses) {
+                for (SharedSceneObject shared : list) {
+                    if (shared.type.equals(pose.getObjectType())
+                            && shared.id == pose.getObjectId()) {
+                        matched += shared.id;
+                        break;
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static long matchInRegistry(SharedObjectRegistry registry, SharedObjectPose[] poses,
+                                        int messages) {
+        long matched = 0;
+        for (int m = 0; m < messages; m++) {
+            for (SharedObjectPose pose : poses) {
+                SharedSceneObject shared = registry.findById(pose.getObjectId());
+                if (shared != null) {
+                    matched += shared.id;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private SharedObjectPose[] createPoses(List<SharedSceneObject> list) {
+        SharedObjectPose[] poses = new SharedObjectPose[list.size()];
+        for (int i = 0; i < poses.length; i++) {
+            poses[i] = new SharedObjectPose(list.get(i).id, new float[16]);
+        }
+        for (int i = poses.length - 1; i > 0; i--) {
+            int j = mRandom.nextInt(i + 1);
+            SharedObjectPose pose = poses[i];
+            poses[i] = poses[j];
+            poses[j] = pose;
+        }
+        return poses;
+    }
+
+    private static void check(long matched, int count, int messages) {
+        // Sum of the ids of all objects, once per message
+        long expected = 0;
+        for (int i = 0; i < count; i++) {
+            expected += SharedObjectId.of(SharedObjectId.typeOf(i % TOTAL_TYPES), i / TOTAL_TYPES);
+        }
+        if (matched != expected * messages) {
+            throw new IllegalStateException("Matched " + matched + " instead of "
+                    + expected * messages);
+        }
+    }
+
+    /**
+     * Arguments: [poses matched for each object count]
+     */
+    public static void main(String[] args) {
+        long lookups = args.length > 0 ? Long.parseLong(args[0]) : 2000000;
+
+        System.out.println(new SharedObjectRegistryBenchmark(lookups).run());
+    }
+}
@@ -2,7 +2,9 @@ package com.samsungxr.sxrcamera2renderscript;
 
 import android.graphics.SurfaceTexture;
 import android.hardware.camera2.CameraAccessException;
+import android.renderscript.RSRuntimeException;
 import android.renderscript.RenderScript;
+import android.util.Log;
 import android.util.Size;
 import android.view.Surface;
 
@@ -15,22 +17,26 @@ import com.samsungxr.SXRMaterial.SXRShaderType;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRScene;
 import com.samsungxr.SXRTexture;
+import com.samsungxr.SystemPropertyUtil;
 
 import java.util.Arrays;
 import java.util.List;
 
 public class Camera2RenderscriptManager extends SXRMain {
+	private static final String TAG = "Camera2Renderscript";
+	// set to true to use CpuFrameProcessor even where RenderScript works
+	private static final String CPU_PROCESSOR_PROPERTY = "debug.gearvrf.camera-cpu";
+
 	private SXRActivity mActivity;
 	private RenderScript mRS;
 	private SurfaceTexture mSurfaceTexture;
 	private SurfaceTexture mEffectTexture;
 	private Camera2Helper mCameraHelper;
-	private RenderscriptProcessor mProcessor;
+	private FrameProcessor mProcessor;
 	private Surface mSurfaceInterim;
 
 	public Camera2RenderscriptManager(SXRActivity activity) {
 		mActivity = activity;
-		mRS = RenderScript.create(mActivity);
 	}
 
 	@Override
@@ -78,7 +84,7 @@ public class Camera2RenderscriptManager extends SXRMain {
 			mEffectTexture.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
 			Surface effectSurface = new Surface(mEffectTexture);
 
-			mProcessor = new RenderscriptProcessor(mRS, previewSize.getWidth(), previewSize.getHeight());
+			mProcessor = createProcessor(previewSize.getWidth(), previewSize.getHeight());
 			mProcessor.setOutputSurface(effectSurface);
 			mSurfaceInterim = mProcessor.getInputSurface();
 
@@ -93,9 +99,25 @@ public class Camera2RenderscriptManager extends SXRMain {
 		closeSplashScreen();
 	}
 
+	private FrameProcessor createProcessor(int width, int height) {
+		if (!"true".equals(SystemPropertyUtil.getSystemPropertyString(CPU_PROCESSOR_PROPERTY))) {
+			try {
+				mRS = RenderScript.create(mActivity);
+				return new RenderscriptProcessor(mRS, width, height);
+			} catch (RSRuntimeException e) {
+				Log.w(TAG, "RenderScript is not available, processing frames on the CPU", e);
+			}
+		}
+		return new CpuFrameProcessor(width, height);
+	}
+
 	public void onPause() {
 		if (mCameraHelper != null) {
 			mCameraHelper.closeCamera();
 		}
+		if (mProcessor != null) {
+			mProcessor.release();
+			mProcessor = null;
+		}
 	}
 }
@@ -0,0 +1,133 @@
+package com.samsungxr.sxrcamera2renderscript;
+
+import android.graphics.ImageFormat;
+import android.graphics.PixelFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.media.ImageWriter;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Surface;
+
+/**
+ * Mono effect without RenderScript. Camera frames arrive in an ImageReader,
+ * are converted by {@link YuvMonoConverter} straight into the buffer
+ * dequeued from an ImageWriter on the output surface, and are sent on.
+ * <p>
+ * The conversion is chosen from the format of each frame rather than from
+ * the device model.
+ */
+public class CpuFrameProcessor implements FrameProcessor, ImageReader.OnImageAvailableListener
+{
+    private static final String TAG = "CpuFrameProcessor";
+    private static final int MAX_IMAGES = 3;
+
+    private final ImageReader mReader;
+    private final YuvMonoConverter mConverter;
+    private final HandlerThread mProcessingThread;
+    private final Handler mProcessingHandler;
+    private ImageWriter mWriter;
+    private int mUnsupportedFormat;
+
+    public CpuFrameProcessor(int width, int height)
+    {
+        mConverter = new YuvMonoConverter(width, height,
+                Runtime.getRuntime().availableProcessors());
+
+        mProcessingThread = new HandlerThread("EffectProcessor");
+        mProcessingThread.start();
+        mProcessingHandler = new Handler(mProcessingThread.getLooper());
+
+        mReader = ImageReader.newInstance(width, height, ImageFormat.YUV_420_888, MAX_IMAGES);
+        mReader.setOnImageAvailableListener(this, mProcessingHandler);
+    }
+
+    @Override
+    public Surface getInputSurface() {
+        return mReader.getSurface();
+    }
+
+    @Override
+    public void setOutputSurface(Surface output) {
+        mWriter = ImageWriter.newInstance(output, MAX_IMAGES);
+    }
+
+    @Override
+    public void release()
+    {
+        mReader.setOnImageAvailableListener(null, null);
+        // Called from the UI thread, so close everything on the processing thread
+        // once the frame it may be converting is done
+        mProcessingHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mReader.close();
+                if (mWriter != null) {
+                    mWriter.close();
+                }
+                mConverter.shutdown();
+            }
+        });
+        mProcessingThread.quitSafely();
+        try {
+            mProcessingThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onImageAvailable(ImageReader reader) {
+        // skip to the newest frame, like ProcessingTask does with ioReceive
+        Image input = reader.acquireLatestImage();
+        if (input == null) {
+            return;
+        }
+
+        try {
+            int format = input.getFormat();
+            if (mWriter == null || !isSupported(format)) {
+                return;
+            }
+
+            Image output = mWriter.dequeueInputImage();
+            if (output.getFormat() != PixelFormat.RGBA_8888) {
+                reportUnsupported(output.getFormat());
+                output.close();
+                return;
+            }
+            Image.Plane out = output.getPlanes()[0];
+            Image.Plane[] in = input.getPlanes();
+
+            if (format == ImageFormat.YUV_420_888) {
+                mConverter.convertYuv(in[0].getBuffer(), in[0].getRowStride(),
+                        in[1].getBuffer(), in[2].getBuffer(),
+                        in[1].getRowStride(), in[1].getPixelStride(),
+                        out.getBuffer(), out.getRowStride());
+            } else {
+                mConverter.convertRgba(in[0].getBuffer(), in[0].getRowStride(),
+                        out.getBuffer(), out.getRowStride());
+            }
+            output.setTimestamp(input.getTimestamp());
+            mWriter.queueInputImage(output);
+        } finally {
+            input.close();
+        }
+    }
+
+    private boolean isSupported(int format) {
+        if (format == ImageFormat.YUV_420_888 || format == PixelFormat.RGBA_8888) {
+            return true;
+        }
+        reportUnsupported(format);
+        return false;
+    }
+
+    private void reportUnsupported(int format) {
+        if (mUnsupportedFormat != format) {
+            mUnsupportedFormat = format;
+            Log.w(TAG, "Frames in format " + format + " are not processed");
+        }
+    }
+}
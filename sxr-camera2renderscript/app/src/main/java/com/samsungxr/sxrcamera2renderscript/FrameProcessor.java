@@ -0,0 +1,16 @@
+package com.samsungxr.sxrcamera2renderscript;
+
+import android.view.Surface;
+
+/**
+ * Applies the camera effect between a surface the camera renders into and
+ * a surface that is shown in the scene.
+ */
+public interface FrameProcessor
+{
+    Surface getInputSurface();
+
+    void setOutputSurface(Surface output);
+
+    void release();
+}
@@ -9,7 +9,7 @@ import android.renderscript.*;
 import android.util.Log;
 import android.view.Surface;
 
-public class RenderscriptProcessor 
+public class RenderscriptProcessor implements FrameProcessor
 {
     private Allocation mInputAllocation;
     private Allocation mInterAllocation;
@@ -68,6 +68,7 @@ public class RenderscriptProcessor
         mTask = new ProcessingTask(mInputAllocation, mNeedYuvConversion);
     }
     
+    @Override
     public void release()
     {
         mTask.release();
@@ -75,10 +76,12 @@ public class RenderscriptProcessor
         mProcessingThread.quit();
     }
     
+    @Override
     public Surface getInputSurface() {
         return mInputAllocation.getSurface();
     }
 
+    @Override
     public void setOutputSurface(Surface output) {
         mOutputAllocation.setSurface(output);
     }
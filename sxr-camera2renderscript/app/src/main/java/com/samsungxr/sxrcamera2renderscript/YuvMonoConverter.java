@@ -0,0 +1,213 @@
+package com.samsungxr.sxrcamera2renderscript;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * CPU version of ScriptIntrinsicYuvToRGB followed by mono.rs.
+ * <p>
+ * Converts YUV_420_888 planes, or already converted RGBA rows, into RGBA
+ * rows with the mono effect applied. The rows are split into bands that
+ * run on a fork-join pool. The band tasks are made once and reused for
+ * every frame, and the planes are read and written in place, so a frame
+ * allocates nothing.
+ * <p>
+ * Has no Android dependencies so it can be benchmarked off the device.
+ */
+public class YuvMonoConverter
+{
+    private static final int BANDS_PER_THREAD = 4;
+
+    private final int mWidth;
+    private final ForkJoinPool mPool;
+    private final Band[] mBands;
+    private boolean mMono = true;
+
+    // frame being converted
+    private boolean mFromYuv;
+    private ByteBuffer mY;
+    private ByteBuffer mU;
+    private ByteBuffer mV;
+    private int mYRowStride;
+    private int mUvRowStride;
+    private int mUvPixelStride;
+    private ByteBuffer mIn;
+    private int mInRowStride;
+    private ByteBuffer mOut;
+    private int mOutRowStride;
+
+    private class Band extends RecursiveAction
+    {
+        final int mFrom;
+        final int mTo;
+
+        Band(int from, int to)
+        {
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (mFromYuv) {
+                convertYuvRows(mFrom, mTo);
+            } else {
+                convertRgbaRows(mFrom, mTo);
+            }
+        }
+    }
+
+    public YuvMonoConverter(int width, int height, int threads)
+    {
+        mWidth = width;
+        mPool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+        int bands = Math.min(height, Math.max(1, threads * BANDS_PER_THREAD));
+        mBands = new Band[bands];
+        for (int i = 0; i < bands; i++) {
+            mBands[i] = new Band(height * i / bands, height * (i + 1) / bands);
+        }
+    }
+
+    /**
+     * Turns the mono effect on or off, the output is plain RGBA when off.
+     */
+    public void setMono(boolean mono)
+    {
+        mMono = mono;
+    }
+
+    public void convertYuv(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                           int uvRowStride, int uvPixelStride, ByteBuffer rgba, int rgbaRowStride)
+    {
+        mFromYuv = true;
+        mY = y;
+        mU = u;
+        mV = v;
+        mYRowStride = yRowStride;
+        mUvRowStride = uvRowStride;
+        mUvPixelStride = uvPixelStride;
+        run(rgba, rgbaRowStride);
+    }
+
+    public void convertRgba(ByteBuffer in, int inRowStride, ByteBuffer rgba, int rgbaRowStride)
+    {
+        mFromYuv = false;
+        mIn = in.order(ByteOrder.LITTLE_ENDIAN);
+        mInRowStride = inRowStride;
+        run(rgba, rgbaRowStride);
+    }
+
+    public void shutdown()
+    {
+        if (mPool != null) {
+            mPool.shutdown();
+        }
+    }
+
+    private void run(ByteBuffer rgba, int rgbaRowStride)
+    {
+        // pixels are written as ints, r in the lowest byte
+        mOut = rgba.order(ByteOrder.LITTLE_ENDIAN);
+        mOutRowStride = rgbaRowStride;
+
+        if (mPool == null) {
+            for (Band band : mBands) {
+                band.compute();
+            }
+        } else {
+            for (Band band : mBands) {
+                band.reinitialize();
+                mPool.execute(band);
+            }
+            for (Band band : mBands) {
+                band.join();
+            }
+        }
+        mY = mU = mV = mIn = mOut = null;
+    }
+
+    private void convertYuvRows(int from, int to)
+    {
+        final ByteBuffer y = mY;
+        final ByteBuffer u = mU;
+        final ByteBuffer v = mV;
+        final ByteBuffer out = mOut;
+        final int uvPixelStride = mUvPixelStride;
+        final boolean mono = mMono;
+
+        for (int row = from; row < to; row++) {
+            int yIndex = row * mYRowStride;
+            int uvIndex = (row >> 1) * mUvRowStride;
+            int outIndex = row * mOutRowStride;
+
+            for (int x = 0; x < mWidth; x += 2) {
+                // BT.601 video range, the same coefficients as the intrinsic
+                int d = (u.get(uvIndex) & 0xff) - 128;
+                int e = (v.get(uvIndex) & 0xff) - 128;
+                int rd = 409 * e + 128;
+                int gd = -100 * d - 208 * e + 128;
+                int bd = 516 * d + 128;
+                uvIndex += uvPixelStride;
+
+                int c = 298 * ((y.get(yIndex++) & 0xff) - 16);
+                out.putInt(outIndex, pack(c + rd, c + gd, c + bd, mono));
+                outIndex += 4;
+                if (x + 1 < mWidth) {
+                    c = 298 * ((y.get(yIndex++) & 0xff) - 16);
+                    out.putInt(outIndex, pack(c + rd, c + gd, c + bd, mono));
+                    outIndex += 4;
+                }
+            }
+        }
+    }
+
+    private void convertRgbaRows(int from, int to)
+    {
+        final ByteBuffer in = mIn;
+        final ByteBuffer out = mOut;
+        final boolean mono = mMono;
+
+        for (int row = from; row < to; row++) {
+            int inIndex = row * mInRowStride;
+            int outIndex = row * mOutRowStride;
+
+            for (int x = 0; x < mWidth; x++) {
+                int pixel = in.getInt(inIndex);
+                if (mono) {
+                    int m = luma(pixel & 0xff, (pixel >> 8) & 0xff, (pixel >> 16) & 0xff);
+                    pixel = 0xff000000 | (m << 16) | (m << 8) | m;
+                }
+                out.putInt(outIndex, pixel);
+                inIndex += 4;
+                outIndex += 4;
+            }
+        }
+    }
+
+    // r, g and b are scaled by 256
+    private static int pack(int r, int g, int b, boolean mono)
+    {
+        r = clamp(r >> 8);
+        g = clamp(g >> 8);
+        b = clamp(b >> 8);
+        if (mono) {
+            r = g = b = luma(r, g, b);
+        }
+        return 0xff000000 | (b << 16) | (g << 8) | r;
+    }
+
+    // the weights of gMonoMult in mono.rs, scaled by 256
+    private static int luma(int r, int g, int b)
+    {
+        return (77 * r + 150 * g + 29 * b + 128) >> 8;
+    }
+
+    private static int clamp(int value)
+    {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
@@ -0,0 +1,68 @@
+package com.samsungxr.sxrcamera2renderscript;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Feeds synthetic 1080p YUV_420_888 frames, laid out like a semi-planar
+ * camera image, through {@link YuvMonoConverter} and prints the frames per
+ * second for each thread count. Run with plain java, it has no Android
+ * dependencies.
+ */
+public class YuvMonoConverterBenchmark
+{
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int WARMUP_FRAMES = 60;
+    private static final int FRAMES = 300;
+
+    public static void main(String[] args)
+    {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Random random = new Random(42);
+
+        // the chroma planes of an NV21-style image share one buffer
+        ByteBuffer y = ByteBuffer.allocateDirect(WIDTH * HEIGHT);
+        ByteBuffer uv = ByteBuffer.allocateDirect(WIDTH * HEIGHT / 2);
+        ByteBuffer rgba = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        fill(y, random);
+        fill(uv, random);
+        ByteBuffer u = uv.duplicate();
+        uv.position(1);
+        ByteBuffer v = uv.slice();
+
+        System.out.println("threads,fps,ms_per_frame");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            run(threads, y, u, v, rgba);
+        }
+        if (Integer.bitCount(cores) != 1) {
+            run(cores, y, u, v, rgba);
+        }
+    }
+
+    private static void run(int threads, ByteBuffer y, ByteBuffer u, ByteBuffer v, ByteBuffer rgba)
+    {
+        YuvMonoConverter converter = new YuvMonoConverter(WIDTH, HEIGHT, threads);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            converter.convertYuv(y, WIDTH, u, v, WIDTH, 2, rgba, WIDTH * 4);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            converter.convertYuv(y, WIDTH, u, v, WIDTH, 2, rgba, WIDTH * 4);
+        }
+        double ms = (System.nanoTime() - start) / 1e6 / FRAMES;
+        converter.shutdown();
+
+        System.out.println(threads + "," + String.format("%.1f", 1000 / ms) + ","
+                + String.format("%.2f", ms));
+    }
+
+    private static void fill(ByteBuffer buffer, Random random)
+    {
+        byte[] bytes = new byte[buffer.capacity()];
+        random.nextBytes(bytes);
+        buffer.put(bytes);
+        buffer.clear();
+    }
+}
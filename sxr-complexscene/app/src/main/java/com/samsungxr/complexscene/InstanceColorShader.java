@@ -0,0 +1,59 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.complexscene;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRShaderTemplate;
+
+/**
+ * Flat color shader for {@link InstancedMeshNode}. Every vertex carries the
+ * index of its copy in {@code a_instance}, which selects that copy's
+ * offset, scale and color from the uniform arrays.
+ */
+public class InstanceColorShader extends SXRShaderTemplate {
+    public static final String OFFSET_KEY = "u_offset";
+    public static final String SCALE_KEY = "u_scale";
+    public static final String COLOR_KEY = "u_color";
+
+    private static final String N = Integer.toString(InstancedMeshNode.MAX_INSTANCES_PER_DRAW);
+
+    private static final String VERTEX_SHADER = "in vec3 a_position;\n"
+            + "in float a_instance;\n"
+            + "uniform mat4 u_mvp;\n"
+            + "uniform vec4 u_offset[" + N + "];\n"
+            + "uniform vec4 u_scale[" + N + "];\n"
+            + "uniform vec4 u_color[" + N + "];\n"
+            + "out vec4 v_color;\n"
+            + "void main() {\n"
+            + "  int i = int(a_instance);\n"
+            + "  v_color = u_color[i];\n"
+            + "  gl_Position = u_mvp * vec4(a_position * u_scale[i].xyz + u_offset[i].xyz, 1.0);\n"
+            + "}\n";
+
+    private static final String FRAGMENT_SHADER = "precision mediump float;\n"
+            + "in vec4 v_color;\n"
+            + "out vec4 fragColor;\n"
+            + "void main() {\n"
+            + "  fragColor = v_color;\n"
+            + "}\n";
+
+    public InstanceColorShader(SXRContext sxrContext) {
+        super("float4 u_offset[" + N + "]; float4 u_scale[" + N + "]; float4 u_color[" + N + "]",
+                "", "float3 a_position float a_instance", GLSLESVersion.V300);
+        setSegment("FragmentTemplate", FRAGMENT_SHADER);
+        setSegment("VertexTemplate", VERTEX_SHADER);
+    }
+}
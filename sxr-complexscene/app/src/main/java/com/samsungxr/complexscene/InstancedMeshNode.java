@@ -0,0 +1,154 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.complexscene;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRMaterial;
+import com.samsungxr.SXRMesh;
+import com.samsungxr.SXRNode;
+import com.samsungxr.SXRShaderId;
+
+/**
+ * Draws many copies of one mesh with a handful of draw calls instead of a
+ * scene object per copy.
+ * <p>
+ * The source mesh is repeated {@link #getInstancesPerDraw()} times in a
+ * single shared mesh whose vertices are tagged with their copy index. Each
+ * child node draws that mesh once for a block of instances, reading their
+ * offset, scale and color from uniform arrays in its material. Unused slots
+ * in the last block have a zero scale and collapse to nothing.
+ * <p>
+ * All the copies share the local bounds of the source mesh, so frustum
+ * culling has to be off for the scene holding this node.
+ */
+public class InstancedMeshNode extends SXRNode {
+    public static final int MAX_INSTANCES_PER_DRAW = 32;
+    private static final int MAX_VERTICES_PER_DRAW = 65535;
+
+    private final int mInstanceCount;
+    private final int mInstancesPerDraw;
+    private final SXRMaterial[] mMaterials;
+    private final float[][] mOffsets;
+    private final float[][] mScales;
+    private final float[][] mColors;
+    private final boolean[] mDirty;
+
+    public InstancedMeshNode(SXRContext sxrContext, SXRMesh mesh, int instanceCount) {
+        super(sxrContext);
+        mInstanceCount = instanceCount;
+
+        float[] positions = mesh.getVertices();
+        char[] indices = mesh.getIndices();
+        int vertexCount = positions.length / 3;
+        mInstancesPerDraw = Math.max(1,
+                Math.min(MAX_INSTANCES_PER_DRAW, MAX_VERTICES_PER_DRAW / vertexCount));
+
+        SXRMesh instancedMesh = makeInstancedMesh(sxrContext, positions, indices);
+        SXRShaderId shaderId = new SXRShaderId(InstanceColorShader.class);
+        int draws = (instanceCount + mInstancesPerDraw - 1) / mInstancesPerDraw;
+
+        mMaterials = new SXRMaterial[draws];
+        mOffsets = new float[draws][MAX_INSTANCES_PER_DRAW * 4];
+        mScales = new float[draws][MAX_INSTANCES_PER_DRAW * 4];
+        mColors = new float[draws][MAX_INSTANCES_PER_DRAW * 4];
+        mDirty = new boolean[draws];
+
+        for (int d = 0; d < draws; ++d) {
+            mMaterials[d] = new SXRMaterial(sxrContext, shaderId);
+            mDirty[d] = true;
+
+            SXRNode block = new SXRNode(sxrContext, instancedMesh);
+            block.setName("instances" + d);
+            block.getRenderData().setMaterial(mMaterials[d]);
+            addChildObject(block);
+        }
+        update();
+    }
+
+    public int getInstanceCount() {
+        return mInstanceCount;
+    }
+
+    public int getInstancesPerDraw() {
+        return mInstancesPerDraw;
+    }
+
+    public int getDrawCount() {
+        return mMaterials.length;
+    }
+
+    public void setInstanceTransform(int instance, float x, float y, float z,
+                                     float scaleX, float scaleY, float scaleZ) {
+        int d = instance / mInstancesPerDraw;
+        int i = (instance % mInstancesPerDraw) * 4;
+
+        set(mOffsets[d], i, x, y, z, 1.0f);
+        set(mScales[d], i, scaleX, scaleY, scaleZ, 1.0f);
+        mDirty[d] = true;
+    }
+
+    public void setInstanceColor(int instance, float r, float g, float b) {
+        int d = instance / mInstancesPerDraw;
+
+        set(mColors[d], (instance % mInstancesPerDraw) * 4, r, g, b, 1.0f);
+        mDirty[d] = true;
+    }
+
+    /**
+     * Uploads the instances changed since the last call. Only the blocks
+     * holding those instances are sent again.
+     */
+    public void update() {
+        for (int d = 0; d < mMaterials.length; ++d) {
+            if (mDirty[d]) {
+                mMaterials[d].setFloatArray(InstanceColorShader.OFFSET_KEY, mOffsets[d]);
+                mMaterials[d].setFloatArray(InstanceColorShader.SCALE_KEY, mScales[d]);
+                mMaterials[d].setFloatArray(InstanceColorShader.COLOR_KEY, mColors[d]);
+                mDirty[d] = false;
+            }
+        }
+    }
+
+    private SXRMesh makeInstancedMesh(SXRContext sxrContext, float[] positions, char[] indices) {
+        int vertexCount = positions.length / 3;
+        float[] allPositions = new float[positions.length * mInstancesPerDraw];
+        float[] instanceIds = new float[vertexCount * mInstancesPerDraw];
+        char[] allIndices = new char[indices.length * mInstancesPerDraw];
+
+        for (int copy = 0; copy < mInstancesPerDraw; ++copy) {
+            System.arraycopy(positions, 0, allPositions, copy * positions.length, positions.length);
+            for (int v = 0; v < vertexCount; ++v) {
+                instanceIds[copy * vertexCount + v] = copy;
+            }
+            for (int i = 0; i < indices.length; ++i) {
+                allIndices[copy * indices.length + i] = (char) (indices[i] + copy * vertexCount);
+            }
+        }
+
+        SXRMesh mesh = new SXRMesh(sxrContext, "float3 a_position float a_instance");
+        mesh.setVertices(allPositions);
+        mesh.setFloatArray("a_instance", instanceIds);
+        mesh.setIndices(allIndices);
+        return mesh;
+    }
+
+    private static void set(float[] array, int i, float x, float y, float z, float w) {
+        array[i] = x;
+        array[i + 1] = y;
+        array[i + 2] = z;
+        array[i + 3] = w;
+    }
+}
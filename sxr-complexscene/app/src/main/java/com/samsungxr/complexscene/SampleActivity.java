@@ -16,6 +16,7 @@
 package com.samsungxr.complexscene;
 
 import android.os.Bundle;
+import android.view.MotionEvent;
 
 import com.samsungxr.SXRActivity;
 
@@ -30,4 +31,12 @@ public class SampleActivity extends SXRActivity {
         setMain(mMain, "sxr.xml");
     }
 
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_UP) {
+            mMain.toggleMode();
+        }
+        return super.onTouchEvent(event);
+    }
+
 }
\ No newline at end of file
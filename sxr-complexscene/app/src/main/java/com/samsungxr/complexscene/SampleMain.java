@@ -15,6 +15,10 @@
 
 package com.samsungxr.complexscene;
 
+import android.content.Intent;
+import android.os.Debug;
+import android.util.Log;
+
 import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRImportSettings;
@@ -30,7 +34,46 @@ import java.util.EnumSet;
 
 import static com.samsungxr.SXRImportSettings.NO_LIGHTING;
 
+/**
+ * Grid of bunnies used to size scenes. The grid is drawn either with a
+ * scene object per bunny or with an {@link InstancedMeshNode}, and the
+ * average frame interval and GL thread CPU time of the current mode are
+ * logged periodically. The interval is capped by vsync, the CPU time shows
+ * what each mode costs below that.
+ * <p>
+ * Configured with intent extras, for example:
+ * <pre>
+ * adb shell am start -n com.samsungxr.complexscene/.SampleActivity \
+ *     --ei grid_size 100 --es mode instanced
+ * </pre>
+ * Tapping the touchpad switches between the two modes.
+ */
 public class SampleMain extends SXRMain {
+    private static final String TAG = "ComplexScene";
+
+    static final String EXTRA_GRID_SIZE = "grid_size";
+    static final String EXTRA_MODE = "mode";
+    static final String MODE_NODES = "nodes";
+    static final String MODE_INSTANCED = "instanced";
+
+    private static final int MIN_GRID_SIZE = 17;
+    private static final int MAX_GRID_SIZE = 100;
+    private static final float GRID_EXTENT = 16.0f;
+    private static final int REPORT_FRAMES = 300;
+
+    private SXRScene mScene;
+    private SXRMesh mMesh;
+    private int mGridSize = MIN_GRID_SIZE;
+    private boolean mInstanced = false;
+    private SXRNode mNodesGrid;
+    private InstancedMeshNode mInstancedGrid;
+
+    private long mLastFrameNanos;
+    private long mFrameNanos;
+    private long mLastCpuNanos;
+    private long mCpuNanos;
+    private int mFrames;
+
     @Override
     public SplashMode getSplashMode() {
         return SplashMode.NONE;
@@ -38,10 +81,12 @@ public class SampleMain extends SXRMain {
 
     @Override
     public void onInit(SXRContext sxrContext) throws IOException {
+        readConfiguration(sxrContext.getActivity().getIntent());
+
         // set background color
         SXRScene scene = sxrContext.getMainScene();
         scene.setBackgroundColor(1, 1, 1, 1);
-        scene.setFrustumCulling(false);
+        mScene = scene;
 
         float NORMAL_CURSOR_SIZE = 0.4f;
         float CURSOR_Z_POSITION = -9.0f;
@@ -60,26 +105,136 @@ public class SampleMain extends SXRMain {
 
         try {
             EnumSet<SXRImportSettings> settings = SXRImportSettings.getRecommendedSettingsWith(EnumSet.of(NO_LIGHTING));
-            SXRMesh mesh = sxrContext.getAssetLoader().loadMesh(
+            mMesh = sxrContext.getAssetLoader().loadMesh(
                     new SXRAndroidResource(sxrContext, "bunny.obj"),
                     settings);
 
-            final int OBJECTS_CNT = 8;
-            for (int x=-OBJECTS_CNT; x<=OBJECTS_CNT; ++x) {
-                for (int y=-OBJECTS_CNT; y<=OBJECTS_CNT; ++y) {
-                    SXRNode sceneObject = getColorMesh(1.0f, mesh);
-                    sceneObject.setName("bunny"+x+""+y);
-                    sceneObject.getTransform().setPosition(1.0f*x, 1.0f*y, -7.5f);
-                    sceneObject.getTransform().setScale(0.5f, 0.5f, 1.0f);
-                    scene.addNode(sceneObject);
-                }
-            }
-
+            showGrid();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void onStep() {
+        long now = System.nanoTime();
+        long cpuNow = Debug.threadCpuTimeNanos();
+
+        if (mLastFrameNanos != 0) {
+            mFrameNanos += now - mLastFrameNanos;
+            mCpuNanos += cpuNow - mLastCpuNanos;
+            if (++mFrames == REPORT_FRAMES) {
+                Log.i(TAG, String.format("%s grid %dx%d, %d draws, %.2f ms/frame, %.2f ms cpu/frame",
+                        mInstanced ? MODE_INSTANCED : MODE_NODES, mGridSize, mGridSize,
+                        getDrawCount(), mFrameNanos / 1e6f / mFrames, mCpuNanos / 1e6f / mFrames));
+                mFrameNanos = 0;
+                mCpuNanos = 0;
+                mFrames = 0;
+            }
+        }
+        mLastFrameNanos = now;
+        mLastCpuNanos = cpuNow;
+    }
+
+    /**
+     * Switches between a scene object per bunny and the instanced grid.
+     */
+    public void toggleMode() {
+        getSXRContext().runOnGlThread(new Runnable() {
+            @Override
+            public void run() {
+                mInstanced = !mInstanced;
+                showGrid();
+            }
+        });
+    }
+
+    private void readConfiguration(Intent intent) {
+        if (intent != null) {
+            int gridSize = intent.getIntExtra(EXTRA_GRID_SIZE, MIN_GRID_SIZE);
+            mGridSize = Math.max(MIN_GRID_SIZE, Math.min(MAX_GRID_SIZE, gridSize));
+            mInstanced = MODE_INSTANCED.equals(intent.getStringExtra(EXTRA_MODE));
+        }
+    }
+
+    private void showGrid() {
+        if (mMesh == null) {
+            return;
+        }
+        if (mNodesGrid != null) {
+            mScene.removeNode(mNodesGrid);
+        }
+        if (mInstancedGrid != null) {
+            mScene.removeNode(mInstancedGrid);
+        }
+
+        if (mInstanced) {
+            if (mInstancedGrid == null) {
+                mInstancedGrid = makeInstancedGrid();
+            }
+            // the instanced blocks all report the bounds of a single bunny
+            mScene.setFrustumCulling(false);
+            mScene.addNode(mInstancedGrid);
+        } else {
+            if (mNodesGrid == null) {
+                mNodesGrid = makeNodesGrid();
+            }
+            mScene.setFrustumCulling(true);
+            mScene.addNode(mNodesGrid);
+        }
+
+        mLastFrameNanos = 0;
+        mFrameNanos = 0;
+        mCpuNanos = 0;
+        mFrames = 0;
+        Log.i(TAG, "Showing " + (mInstanced ? MODE_INSTANCED : MODE_NODES) + " grid of "
+                + mGridSize * mGridSize + " bunnies");
+    }
+
+    private int getDrawCount() {
+        return mInstanced ? mInstancedGrid.getDrawCount() : mGridSize * mGridSize;
+    }
+
+    private float getSpacing() {
+        return GRID_EXTENT / (mGridSize - 1);
+    }
+
+    private SXRNode makeNodesGrid() {
+        SXRNode grid = new SXRNode(getSXRContext());
+        float spacing = getSpacing();
+        float half = GRID_EXTENT / 2;
+
+        for (int x = 0; x < mGridSize; ++x) {
+            for (int y = 0; y < mGridSize; ++y) {
+                SXRNode sceneObject = getColorMesh(1.0f, mMesh);
+                sceneObject.setName("bunny" + x + "" + y);
+                sceneObject.getTransform().setPosition(spacing * x - half, spacing * y - half, -7.5f);
+                sceneObject.getTransform().setScale(0.5f * spacing, 0.5f * spacing, spacing);
+                grid.addChildObject(sceneObject);
+            }
+        }
+        return grid;
+    }
+
+    private InstancedMeshNode makeInstancedGrid() {
+        InstancedMeshNode grid = new InstancedMeshNode(getSXRContext(), mMesh,
+                mGridSize * mGridSize);
+        float spacing = getSpacing();
+        float half = GRID_EXTENT / 2;
+
+        for (int x = 0; x < mGridSize; ++x) {
+            for (int y = 0; y < mGridSize; ++y) {
+                int i = x * mGridSize + y;
+                grid.setInstanceTransform(i, spacing * x - half, spacing * y - half, -7.5f,
+                        0.5f * spacing, 0.5f * spacing, spacing);
+                grid.setInstanceColor(i, 1.0f, 0.0f, 1.0f);
+            }
+        }
+        grid.setName("instancedBunnies");
+        grid.update();
+        return grid;
+    }
+
     private SXRNode getColorMesh(float scale, SXRMesh mesh) {
         SXRMaterial material = new SXRMaterial(getSXRContext(), SXRMaterial.SXRShaderType.Color.ID);
         material.setColor(1.0f, 0.0f, 1.0f);
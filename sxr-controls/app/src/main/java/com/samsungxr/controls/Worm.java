@@ -17,17 +17,15 @@ package com.samsungxr.controls;
 
 import android.view.MotionEvent;
 
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import com.samsungxr.SXRCameraRig;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRNode;
 import com.samsungxr.animation.SXRAnimation;
 import com.samsungxr.animation.SXROnFinish;
 import com.samsungxr.animation.SXRPositionAnimation;
-import com.samsungxr.animation.SXRRotationByAxisAnimation;
-import com.samsungxr.animation.SXRRotationByAxisWithPivotAnimation;
 import com.samsungxr.animation.SXRScaleAnimation;
 import com.samsungxr.controls.anim.ScaleWorm;
+import com.samsungxr.controls.anim.WormMotionDriver;
 import com.samsungxr.controls.input.GamepadInput;
 import com.samsungxr.controls.input.TouchPadInput;
 import com.samsungxr.controls.model.Apple;
@@ -58,9 +56,9 @@ public class Worm extends SXRNode {
     private WormBasePart head, middle, end;
 
     public SXRNode wormParent;
-    private boolean isRotatingWorm = false;
 
-    private SXRAnimation wormParentAnimation;
+    private WormMotionDriver motionDriver;
+    private final float[] newPosition = new float[3];
 
     private MovementDirection wormDirection = MovementDirection.Up;
 
@@ -112,6 +110,9 @@ public class Worm extends SXRNode {
 
         wormParent.addChildObject(head);
 
+        motionDriver = new WormMotionDriver(getSXRContext(), wormParent.getTransform(),
+                head.getTransform());
+
         addChildObject(middle);
         addChildObject(end);
     }
@@ -220,18 +221,9 @@ public class Worm extends SXRNode {
     }
 
     public void rotateWorm(MovementDirection movementDirection) {
-        if (!isRotatingWorm) {
-            isRotatingWorm = true;
+        if (!motionDriver.isTurning()) {
             float angle = getRotatingAngle(movementDirection);
-            new SXRRotationByAxisAnimation(head, .1f, angle, 0, 1, 0).start(
-                    getSXRContext().getAnimationEngine()).setOnFinish(
-                    new SXROnFinish() {
-
-                        @Override
-                        public void finished(SXRAnimation arg0) {
-                            isRotatingWorm = false;
-                        }
-                    });
+            motionDriver.turn(.1f, angle);
         }
     }
 
@@ -250,17 +242,15 @@ public class Worm extends SXRNode {
     }
 
     public void moveAlongCameraVector(float duration, float movement) {
-        if (wormParentAnimation != null) {
-            getSXRContext().getAnimationEngine().stop(wormParentAnimation);
-        }
+        motionDriver.stopParent();
 
         SXRCameraRig cameraObject = getSXRContext().getMainScene().getMainCameraRig();
 
         float distance = (float) Util.distance(wormParent.getTransform(),
                 cameraObject.getTransform())
                 + movement;
-        float[] newPosition = Util.calculatePointBetweenTwoObjects(cameraObject.getTransform(),
-                wormParent.getTransform(), distance);
+        Util.calculatePointBetweenTwoObjects(cameraObject.getTransform(),
+                wormParent.getTransform(), distance, newPosition);
 
         if (movement < 0
                 && MathUtils.distance(cameraObject.getTransform(), newPosition) < Constants.MIN_WORM_MOVE_DISTANCE)
@@ -270,22 +260,13 @@ public class Worm extends SXRNode {
                 wormParent.getTransform()) > Constants.MAX_WORM_MOVE_DISTANCE)
             return;
 
-        wormParentAnimation = new SXRPositionAnimation(wormParent.getTransform(),
-                duration, newPosition[0] - wormParent.getTransform().getPositionX(),
-                0,
-                newPosition[2] - wormParent.getTransform().getPositionZ())
-                .start(getSXRContext().getAnimationEngine());
+        motionDriver.move(duration,
+                newPosition[0] - wormParent.getTransform().getPositionX(),
+                newPosition[2] - wormParent.getTransform().getPositionZ());
     }
 
     public void rotateAroundCamera(float duration, float degree) {
-        if (wormParentAnimation != null) {
-            getSXRContext().getAnimationEngine().stop(wormParentAnimation);
-        }
-
-        wormParentAnimation = new SXRRotationByAxisWithPivotAnimation(
-                wormParent.getTransform(), duration, degree, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0.0f)
-                .start(getSXRContext().getAnimationEngine());
-
+        motionDriver.orbit(duration, degree);
     }
 
     public void interactWithDPad() {
@@ -325,15 +306,19 @@ public class Worm extends SXRNode {
 
     public void checkWormEatingApple(SXRContext sxrContext) {
 
-        Vector3D wormPosition = new Vector3D(wormParent.getTransform().getPositionX(), head
-                .getParent()
-                .getTransform().getPositionY(), wormParent.getTransform().getPositionZ());
+        float wormX = wormParent.getTransform().getPositionX();
+        float wormY = head.getParent().getTransform().getPositionY();
+        float wormZ = wormParent.getTransform().getPositionZ();
 
-        for (Apple a : Apple.appleList) {
-            Vector3D applePosition = new Vector3D(a.getTransform().getPositionX(), a.getTransform()
-                    .getPositionY(), a.getTransform().getPositionZ());
+        // the grid only knows where apples are on the ground, y is checked here
+        int count = Apple.appleGrid.query(wormX, wormZ, DISTANCE_TO_EAT_APPLE);
+        for (int i = 0; i < count; i++) {
+            Apple a = Apple.appleGrid.getResult(i);
+            float dx = a.getTransform().getPositionX() - wormX;
+            float dy = a.getTransform().getPositionY() - wormY;
+            float dz = a.getTransform().getPositionZ() - wormZ;
 
-            if (Vector3D.distance(applePosition, wormPosition) < DISTANCE_TO_EAT_APPLE) {
+            if (dx * dx + dy * dy + dz * dz < DISTANCE_TO_EAT_APPLE * DISTANCE_TO_EAT_APPLE) {
 
                 a.resetPosition(sxrContext);
             }
@@ -0,0 +1,76 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.anim;
+
+import com.samsungxr.animation.SXRInterpolator;
+
+/**
+ * One reusable relative animation: an amount spread over a duration,
+ * linearly unless an interpolator is given. Each frame {@link #advance(float)} returns the part of
+ * the amount to apply since the last frame, the same way the relative
+ * SXRAnimations do, so a new {@link #start} can take over from wherever the
+ * previous one stopped.
+ */
+class MotionChannel {
+
+    private float mDuration;
+    private float mAmount;
+    private float mElapsed;
+    private float mApplied;
+    private boolean mActive;
+    private SXRInterpolator mInterpolator;
+
+    /**
+     * @param interpolator maps the elapsed part of the duration to the part
+     *                     of the amount applied, null for linear
+     */
+    void start(float duration, float amount, SXRInterpolator interpolator) {
+        mDuration = duration;
+        mAmount = amount;
+        mInterpolator = interpolator;
+        mElapsed = 0;
+        mApplied = 0;
+        mActive = true;
+    }
+
+    void stop() {
+        mActive = false;
+    }
+
+    boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * @return the amount to apply for this frame, 0 when not active
+     */
+    float advance(float frameTime) {
+        if (!mActive) {
+            return 0;
+        }
+
+        mElapsed += frameTime;
+        float ratio = mDuration > 0 ? Math.min(1, mElapsed / mDuration) : 1;
+        if (ratio >= 1) {
+            mActive = false;
+        }
+
+        float applied = mInterpolator != null ? mInterpolator.mapRatio(ratio) : ratio;
+        float step = mAmount * (applied - mApplied);
+        mApplied = applied;
+        return step;
+    }
+}
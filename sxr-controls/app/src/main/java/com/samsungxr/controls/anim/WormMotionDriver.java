@@ -0,0 +1,187 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.anim;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRDrawFrameListener;
+import com.samsungxr.SXRTransform;
+import com.samsungxr.animation.SXRInterpolator;
+
+/**
+ * Moves the worm without creating an animation per command.
+ * <p>
+ * The D-pad asks for a new motion on every frame it is held, which used to
+ * start a new SXRAnimation each time. The driver keeps one channel for
+ * orbiting the parent around the camera, one for moving it along the
+ * camera vector and one for turning the head. A new command restarts its
+ * channel from the current transform, and the channels are applied from
+ * {@link #onDrawFrame(float)}, so driving the worm allocates nothing.
+ * <p>
+ * Orbiting and moving both drive the parent and, like the single parent
+ * animation they replace, a new one stops the other. Each command can take
+ * one of the interpolators of the interpolators package, and is linear
+ * without one.
+ * <p>
+ * The driver registers itself on the first command, so worms that never
+ * move, like the menu previews, add no listener.
+ */
+public class WormMotionDriver implements SXRDrawFrameListener {
+
+    /**
+     * What the driver moves, on the device the worm's parent and head
+     * transforms.
+     */
+    interface Target {
+        /**
+         * Rotates the parent around the y axis through the origin.
+         */
+        void orbit(float degree);
+
+        void move(float x, float z);
+
+        /**
+         * Rotates the head around its y axis.
+         */
+        void turn(float degree);
+    }
+
+    private final SXRContext sxrContext;
+    private final Target target;
+
+    private final MotionChannel orbit = new MotionChannel();
+    private final MotionChannel move = new MotionChannel();
+    private final MotionChannel turn = new MotionChannel();
+    private float moveX;
+    private float moveZ;
+    private boolean registered;
+
+    public WormMotionDriver(SXRContext sxrContext, final SXRTransform parent, final SXRTransform head) {
+        this(sxrContext, new Target() {
+            @Override
+            public void orbit(float degree) {
+                parent.rotateByAxisWithPivot(degree, 0, 1, 0, 0, 0, 0);
+            }
+
+            @Override
+            public void move(float x, float z) {
+                parent.translate(x, 0, z);
+            }
+
+            @Override
+            public void turn(float degree) {
+                head.rotateByAxis(degree, 0, 1, 0);
+            }
+        });
+    }
+
+    /**
+     * @param sxrContext null when the caller calls {@link #onDrawFrame}
+     *                   itself instead of registering the driver
+     */
+    WormMotionDriver(SXRContext sxrContext, Target target) {
+        this.sxrContext = sxrContext;
+        this.target = target;
+    }
+
+    /**
+     * Rotates the parent around the y axis through the origin, where the
+     * camera is.
+     */
+    public void orbit(float duration, float degree) {
+        orbit(duration, degree, null);
+    }
+
+    /**
+     * @param interpolator null for linear
+     */
+    public void orbit(float duration, float degree, SXRInterpolator interpolator) {
+        move.stop();
+        orbit.start(duration, degree, interpolator);
+        register();
+    }
+
+    /**
+     * Moves the parent by x and z over the duration.
+     */
+    public void move(float duration, float x, float z) {
+        move(duration, x, z, null);
+    }
+
+    /**
+     * @param interpolator null for linear
+     */
+    public void move(float duration, float x, float z, SXRInterpolator interpolator) {
+        orbit.stop();
+        moveX = x;
+        moveZ = z;
+        move.start(duration, 1, interpolator);
+        register();
+    }
+
+    /**
+     * Stops orbiting or moving the parent.
+     */
+    public void stopParent() {
+        orbit.stop();
+        move.stop();
+    }
+
+    /**
+     * Turns the head around its y axis, unless it is still turning.
+     *
+     * @return false if a turn was already playing
+     */
+    public boolean turn(float duration, float degree) {
+        return turn(duration, degree, null);
+    }
+
+    /**
+     * @param interpolator null for linear
+     */
+    public boolean turn(float duration, float degree, SXRInterpolator interpolator) {
+        if (turn.isActive()) {
+            return false;
+        }
+        turn.start(duration, degree, interpolator);
+        register();
+        return true;
+    }
+
+    public boolean isTurning() {
+        return turn.isActive();
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime) {
+        if (orbit.isActive()) {
+            target.orbit(orbit.advance(frameTime));
+        }
+        if (move.isActive()) {
+            float step = move.advance(frameTime);
+            target.move(moveX * step, moveZ * step);
+        }
+        if (turn.isActive()) {
+            target.turn(turn.advance(frameTime));
+        }
+    }
+
+    private void register() {
+        if (!registered && sxrContext != null) {
+            registered = true;
+            sxrContext.registerDrawFrameListener(this);
+        }
+    }
+}
@@ -30,13 +30,13 @@ public abstract class ControlNode extends SXRNode {
 
     public ControlNode(SXRContext sxrContext) {
         super(sxrContext);
-        ControlNodeBehavior.interactiveObjects.add(this);
+        ControlNodeBehavior.register(this);
     }
 
 
     public ControlNode(SXRContext sxrContext, float f, float g, SXRTexture t) {
         super(sxrContext, f, g, t);
-        ControlNodeBehavior.interactiveObjects.add(this);
+        ControlNodeBehavior.register(this);
     }
 
     public void dispatchGainedFocus() {
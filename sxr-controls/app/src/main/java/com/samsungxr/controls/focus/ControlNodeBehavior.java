@@ -29,42 +29,44 @@ public class ControlNodeBehavior {
 
     public static ArrayList<ControlNode> interactiveObjects = new ArrayList<ControlNode>();
 
+    static final FocusIndex<ControlNode> focusIndex = new FocusIndex<ControlNode>();
+
+    private static final FocusIndex.Target<ControlNode> focusTarget = new FocusIndex.Target<ControlNode>() {
+        @Override
+        public void setFocus(ControlNode object, boolean focus) {
+            object.setFocus(focus);
+        }
+    };
+
+    static void register(ControlNode object) {
+        interactiveObjects.add(object);
+        focusIndex.register(object);
+    }
+
     public static void process(SXRContext context) {
 
         SXRPicker.SXRPickedObject[] pickedObjects = SXRPicker.pickObjects(context.getMainScene(), 0,0,0,0,0,-1);
-        ArrayList<ControlNode> needToDisableFocus = new ArrayList<ControlNode>();
-        for (ControlNode obj : interactiveObjects) {
-            obj.onStep();
-            needToDisableFocus.add(obj);
+        for (int i = 0; i < interactiveObjects.size(); ++i) {
+            interactiveObjects.get(i).onStep();
         }
 
         if (pickedObjects.length == 0) {
             ControlGazeController.disableInteractiveCursor();
-        } else {
-            for (SXRPicker.SXRPickedObject po : pickedObjects) {
-                for (ControlNode object : interactiveObjects) {
-                    if (po.getHitObject().equals(object)) {
-                        object.setFocus(true);
-                        needToDisableFocus.remove(object);
-                    }
-                }
-            }
         }
 
-        for (ControlNode obj : needToDisableFocus) {
-            obj.setFocus(false);
+        focusIndex.beginUpdate();
+        for (SXRPicker.SXRPickedObject po : pickedObjects) {
+            focusIndex.hit(po.getHitObject());
         }
+        focusIndex.endUpdate(focusTarget);
 
         processTap(context);
     }
 
     private static void processTap(SXRContext context) {
 
-        for (ControlNode object : interactiveObjects) {
-            if (object.hasFocus()) {
-
-                checkInput(object);
-            }
+        for (int i = 0; i < focusIndex.getFocusedCount(); ++i) {
+            checkInput(focusIndex.getFocused(i));
         }
     }
 
@@ -0,0 +1,169 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.focus;
+
+import java.util.Arrays;
+
+/**
+ * Decides which registered objects gain and lose focus each frame.
+ * <p>
+ * The objects hit this frame are collected into an identity set and
+ * compared with the set that had focus last frame, so the cost follows the
+ * number of hits instead of hits times registered objects. The sets are
+ * reused from frame to frame and only grow, so a frame allocates nothing
+ * once they are large enough.
+ */
+public class FocusIndex<T> {
+
+    public interface Target<T> {
+        void setFocus(T object, boolean focus);
+    }
+
+    private final IdentitySet mRegistered = new IdentitySet(64);
+    private IdentitySet mFocused = new IdentitySet(16);
+    private IdentitySet mHits = new IdentitySet(16);
+
+    public void register(T object) {
+        mRegistered.add(object);
+    }
+
+    public boolean isRegistered(Object object) {
+        return mRegistered.contains(object);
+    }
+
+    public void beginUpdate() {
+        mHits.clear();
+    }
+
+    /**
+     * Reports an object hit this frame, objects that were never registered
+     * are ignored.
+     */
+    public void hit(Object object) {
+        if (mRegistered.contains(object)) {
+            mHits.add(object);
+        }
+    }
+
+    /**
+     * Gives focus to the objects hit for the first time, in hit order, and
+     * takes it from the objects that are no longer hit.
+     */
+    @SuppressWarnings("unchecked")
+    public void endUpdate(Target<T> target) {
+        for (int i = 0; i < mHits.size(); ++i) {
+            Object object = mHits.get(i);
+            if (!mFocused.contains(object)) {
+                target.setFocus((T) object, true);
+            }
+        }
+        for (int i = 0; i < mFocused.size(); ++i) {
+            Object object = mFocused.get(i);
+            if (!mHits.contains(object)) {
+                target.setFocus((T) object, false);
+            }
+        }
+
+        IdentitySet focused = mHits;
+        mHits = mFocused;
+        mFocused = focused;
+    }
+
+    public int getFocusedCount() {
+        return mFocused.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getFocused(int index) {
+        return (T) mFocused.get(index);
+    }
+
+    /**
+     * Open addressing set compared by identity, with its members also kept
+     * in insertion order for iteration. There is no single remove, only
+     * clear.
+     */
+    private static final class IdentitySet {
+        private Object[] mTable;
+        private Object[] mItems;
+        private int mSize;
+
+        IdentitySet(int capacity) {
+            mTable = new Object[Integer.highestOneBit(Math.max(4, capacity) - 1) << 2];
+            mItems = new Object[mTable.length / 2];
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        Object get(int index) {
+            return mItems[index];
+        }
+
+        boolean contains(Object object) {
+            int mask = mTable.length - 1;
+            for (int i = hash(object) & mask; mTable[i] != null; i = (i + 1) & mask) {
+                if (mTable[i] == object) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean add(Object object) {
+            int mask = mTable.length - 1;
+            int i = hash(object) & mask;
+            for (; mTable[i] != null; i = (i + 1) & mask) {
+                if (mTable[i] == object) {
+                    return false;
+                }
+            }
+            if (mSize == mItems.length) {
+                grow();
+                return add(object);
+            }
+            mTable[i] = object;
+            mItems[mSize++] = object;
+            return true;
+        }
+
+        void clear() {
+            if (mSize > 0) {
+                Arrays.fill(mTable, null);
+                Arrays.fill(mItems, 0, mSize, null);
+                mSize = 0;
+            }
+        }
+
+        private void grow() {
+            Object[] items = mItems;
+            int size = mSize;
+
+            mTable = new Object[mTable.length * 2];
+            mItems = Arrays.copyOf(items, items.length * 2);
+            mSize = 0;
+            for (int i = 0; i < size; ++i) {
+                add(items[i]);
+            }
+        }
+
+        private static int hash(Object object) {
+            int h = System.identityHashCode(object);
+            return h ^ (h >>> 16);
+        }
+    }
+}
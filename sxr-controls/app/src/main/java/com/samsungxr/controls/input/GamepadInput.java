@@ -19,74 +19,79 @@ import android.view.InputDevice;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 
-import java.util.ArrayList;
-
+/**
+ * Gamepad state for the frame. Key and motion events arrive on the Android
+ * input thread and are written to an {@link InputSnapshot}, which
+ * {@link #process()} takes once per frame on the GL thread, so the getters
+ * read a state that does not change during the frame.
+ */
 public final class GamepadInput {
 
-    private static GamepadMap newGamepadMap = new GamepadMap();
+    private static GamepadMap gamepadMap = new GamepadMap();
 
-    private static GamepadMap oldGamepadMap = new GamepadMap();
+    private static InputSnapshot snapshot = new InputSnapshot(gamepadMap.getButtonCount(),
+            GamepadMap.AXIS_COUNT);
 
     public static void process() {
 
-        newGamepadMap.resetIntermadiateState();
-
-        for (Integer key : oldGamepadMap.buttonsKeyCode) {
-            Button oldButton = oldGamepadMap.buttons.get(key);
-            Button newButton = newGamepadMap.buttons.get(key);
-
-            updateIntermiteStates(newButton, oldButton);
-        }
-    }
-
-    private static void updateIntermiteStates(Button newButton, Button oldButton) {
+        snapshot.swap();
 
-        if (oldButton.pressed != newButton.pressed) {
-            newButton.down = newButton.pressed;
-            newButton.up = !newButton.pressed;
+        for (int i = 0; i < gamepadMap.buttons.length; ++i) {
+            Button button = gamepadMap.buttons[i];
+            button.pressed = snapshot.isPressed(i);
+            button.down = snapshot.isDown(i);
+            button.up = snapshot.isUp(i);
         }
-
-        oldButton.replicateValues(newButton);
     }
 
     public static void input(MotionEvent event) {
 
-        newGamepadMap.axisX = event.getAxisValue(MotionEvent.AXIS_X);
-        newGamepadMap.axisY = event.getAxisValue(MotionEvent.AXIS_Y);
-        newGamepadMap.axisHatX = event.getAxisValue(MotionEvent.AXIS_HAT_X);
-        newGamepadMap.axisHatY = event.getAxisValue(MotionEvent.AXIS_HAT_Y);
-        newGamepadMap.axisRX = event.getAxisValue(MotionEvent.AXIS_RX);
-        newGamepadMap.axisRY = event.getAxisValue(MotionEvent.AXIS_RY);
+        snapshot.setAxis(GamepadMap.AXIS_X, event.getAxisValue(MotionEvent.AXIS_X));
+        snapshot.setAxis(GamepadMap.AXIS_Y, event.getAxisValue(MotionEvent.AXIS_Y));
+        snapshot.setAxis(GamepadMap.AXIS_HAT_X, event.getAxisValue(MotionEvent.AXIS_HAT_X));
+        snapshot.setAxis(GamepadMap.AXIS_HAT_Y, event.getAxisValue(MotionEvent.AXIS_HAT_Y));
+        snapshot.setAxis(GamepadMap.AXIS_RX, event.getAxisValue(MotionEvent.AXIS_RX));
+        snapshot.setAxis(GamepadMap.AXIS_RY, event.getAxisValue(MotionEvent.AXIS_RY));
+        snapshot.publishAxes();
 
     }
 
     public static void input(KeyEvent event) {
 
+        int slot = gamepadMap.getSlot(event.getKeyCode());
+        if (slot < 0) {
+            return;
+        }
+
         if (event.getAction() == KeyEvent.ACTION_DOWN) {
-            newGamepadMap.buttons.get(event.getKeyCode()).pressed = true;
+            snapshot.press(slot);
 
         }
         if (event.getAction() == KeyEvent.ACTION_UP) {
-            newGamepadMap.buttons.get(event.getKeyCode()).pressed = false;
+            snapshot.release(slot);
 
         }
 
     }
 
     public static boolean getKeyDown(int key) {
-        return newGamepadMap.buttons.get(key).down;
+        Button button = getButton(key);
+        return button != null && button.down;
     }
 
     public static boolean getKeyUp(int key) {
-        return newGamepadMap.buttons.get(key).up;
+        Button button = getButton(key);
+        return button != null && button.up;
     }
 
     public static boolean getKey(int key) {
-        return newGamepadMap.buttons.get(key).pressed;
+        Button button = getButton(key);
+        return button != null && button.pressed;
     }
 
     public static Button getButton(int key) {
-        return newGamepadMap.buttons.get(key);
+        int slot = gamepadMap.getSlot(key);
+        return slot < 0 ? null : gamepadMap.buttons[slot];
     }
 
     // getCenteredAxis() and some other code are referenced from:
@@ -144,14 +149,15 @@ public final class GamepadInput {
         float ry = getCenteredAxis(event, mInputDevice, MotionEvent.AXIS_RY,
                 historyPos);
 
-        newGamepadMap.centeredAxisX = x;
-        newGamepadMap.centeredAxisY = y;
+        snapshot.setAxis(GamepadMap.CENTERED_AXIS_X, x);
+        snapshot.setAxis(GamepadMap.CENTERED_AXIS_Y, y);
 
-        newGamepadMap.centeredAxisHatX = hatx;
-        newGamepadMap.centeredAxisHatY = haty;
+        snapshot.setAxis(GamepadMap.CENTERED_AXIS_HAT_X, hatx);
+        snapshot.setAxis(GamepadMap.CENTERED_AXIS_HAT_Y, haty);
 
-        newGamepadMap.centeredAxisRX = rx;
-        newGamepadMap.centeredAxisRY = ry;
+        snapshot.setAxis(GamepadMap.CENTERED_AXIS_RX, rx);
+        snapshot.setAxis(GamepadMap.CENTERED_AXIS_RY, ry);
+        snapshot.publishAxes();
 
         return true;
     }
@@ -159,17 +165,17 @@ public final class GamepadInput {
     public static float getAxis(int axis) {
         switch (axis) {
             case MotionEvent.AXIS_X:
-                return newGamepadMap.axisX;
+                return snapshot.getAxis(GamepadMap.AXIS_X);
             case MotionEvent.AXIS_Y:
-                return newGamepadMap.axisY;
+                return snapshot.getAxis(GamepadMap.AXIS_Y);
             case MotionEvent.AXIS_HAT_X:
-                return newGamepadMap.axisHatX;
+                return snapshot.getAxis(GamepadMap.AXIS_HAT_X);
             case MotionEvent.AXIS_HAT_Y:
-                return newGamepadMap.axisHatY;
+                return snapshot.getAxis(GamepadMap.AXIS_HAT_Y);
             case MotionEvent.AXIS_RX:
-                return newGamepadMap.axisRX;
+                return snapshot.getAxis(GamepadMap.AXIS_RX);
             case MotionEvent.AXIS_RY:
-                return newGamepadMap.axisRY;
+                return snapshot.getAxis(GamepadMap.AXIS_RY);
             default:
                 return 0f;
         }
@@ -178,24 +184,24 @@ public final class GamepadInput {
     public static float getCenteredAxis(int axis) {
         switch (axis) {
             case MotionEvent.AXIS_X:
-                return newGamepadMap.centeredAxisX;
+                return snapshot.getAxis(GamepadMap.CENTERED_AXIS_X);
             case MotionEvent.AXIS_Y:
-                return newGamepadMap.centeredAxisY;
+                return snapshot.getAxis(GamepadMap.CENTERED_AXIS_Y);
             case MotionEvent.AXIS_HAT_X:
-                return newGamepadMap.centeredAxisHatX;
+                return snapshot.getAxis(GamepadMap.CENTERED_AXIS_HAT_X);
             case MotionEvent.AXIS_HAT_Y:
-                return newGamepadMap.centeredAxisHatY;
+                return snapshot.getAxis(GamepadMap.CENTERED_AXIS_HAT_Y);
             case MotionEvent.AXIS_RX:
-                return newGamepadMap.centeredAxisRX;
+                return snapshot.getAxis(GamepadMap.CENTERED_AXIS_RX);
             case MotionEvent.AXIS_RY:
-                return newGamepadMap.centeredAxisRY;
+                return snapshot.getAxis(GamepadMap.CENTERED_AXIS_RY);
             default:
                 return 0f;
         }
     }
 
-    public static ArrayList<Integer> getKeyCodeMap() {
-        return newGamepadMap.buttonsKeyCode;
+    public static int[] getKeyCodeMap() {
+        return gamepadMap.buttonsKeyCode.clone();
     }
 
 }
\ No newline at end of file
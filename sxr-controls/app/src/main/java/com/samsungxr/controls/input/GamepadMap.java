@@ -16,10 +16,9 @@ t use this file except in compliance with the License.
 
 package com.samsungxr.controls.input;
 
-import android.util.SparseArray;
 import android.view.KeyEvent;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 public class GamepadMap {
 
@@ -38,71 +37,69 @@ public class GamepadMap {
     public static final int KEYCODE_BUTTON_SELECT = KeyEvent.KEYCODE_BUTTON_SELECT;
     public static final int KEYCODE_BUTTON_START = KeyEvent.KEYCODE_BUTTON_START;
 
-    public float axisX;
-    public float axisY;
-    public float axisHatX;
-    public float axisHatY;
-    public float axisRX;
-    public float axisRY;
-
-    public float centeredAxisX;
-    public float centeredAxisY;
-    public float centeredAxisHatX;
-    public float centeredAxisHatY;
-    public float centeredAxisRX;
-    public float centeredAxisRY;
-
-    protected ArrayList<Integer> buttonsKeyCode;
-    public SparseArray<Button> buttons = new SparseArray<Button>();
+    // slots of the axes in the input snapshot
+    static final int AXIS_X = 0;
+    static final int AXIS_Y = 1;
+    static final int AXIS_HAT_X = 2;
+    static final int AXIS_HAT_Y = 3;
+    static final int AXIS_RX = 4;
+    static final int AXIS_RY = 5;
+    static final int CENTERED_AXIS_X = 6;
+    static final int CENTERED_AXIS_Y = 7;
+    static final int CENTERED_AXIS_HAT_X = 8;
+    static final int CENTERED_AXIS_HAT_Y = 9;
+    static final int CENTERED_AXIS_RX = 10;
+    static final int CENTERED_AXIS_RY = 11;
+    static final int AXIS_COUNT = 12;
+
+    protected final int[] buttonsKeyCode = {
+            KeyEvent.KEYCODE_BUTTON_L1,
+            KeyEvent.KEYCODE_BUTTON_R1,
+            KeyEvent.KEYCODE_BUTTON_X,
+            KeyEvent.KEYCODE_BUTTON_Y,
+            KeyEvent.KEYCODE_BUTTON_A,
+            KeyEvent.KEYCODE_BUTTON_B,
+
+            KeyEvent.KEYCODE_DPAD_LEFT,
+            KeyEvent.KEYCODE_DPAD_RIGHT,
+            KeyEvent.KEYCODE_DPAD_UP,
+            KeyEvent.KEYCODE_DPAD_DOWN,
+
+            KeyEvent.KEYCODE_BUTTON_SELECT,
+            KeyEvent.KEYCODE_BUTTON_START,
+
+            KeyEvent.KEYCODE_BACK
+    };
+
+    // button of each slot, as of the last frame
+    public final Button[] buttons = new Button[buttonsKeyCode.length];
+
+    // slot of each key code, -1 for the keys that are not mapped
+    private final int[] slots;
 
     public GamepadMap() {
-        super();
-        init();
-    }
-
-    public void init() {
-
-        populateKeys();
-
-        for (int i : buttonsKeyCode) {
-            buttons.append(i, new Button());
-
+        int maxKeyCode = 0;
+        for (int keyCode : buttonsKeyCode) {
+            maxKeyCode = Math.max(maxKeyCode, keyCode);
         }
+        slots = new int[maxKeyCode + 1];
+        Arrays.fill(slots, -1);
 
+        for (int i = 0; i < buttonsKeyCode.length; ++i) {
+            slots[buttonsKeyCode[i]] = i;
+            buttons[i] = new Button();
+        }
     }
 
-    private void populateKeys() {
-        buttonsKeyCode = new ArrayList<Integer>();
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_L1);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_R1);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_X);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_Y);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_A);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_B);
-
-        buttonsKeyCode.add(KeyEvent.KEYCODE_DPAD_LEFT);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_DPAD_RIGHT);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_DPAD_UP);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_DPAD_DOWN);
-
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_SELECT);
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BUTTON_START);
-
-        buttonsKeyCode.add(KeyEvent.KEYCODE_BACK);
-
+    /**
+     * @return the slot of the key code, or -1 if it is not mapped
+     */
+    public int getSlot(int keyCode) {
+        return keyCode >= 0 && keyCode < slots.length ? slots[keyCode] : -1;
     }
 
-    public void resetIntermadiateState() {
-
-        for (Integer key : buttonsKeyCode) {
-            Button button = buttons.get(key);
-            button.down = false;
-            button.up = false;
-        }
-
+    public int getButtonCount() {
+        return buttonsKeyCode.length;
     }
 
 }
-
-
-
@@ -0,0 +1,200 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.input;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Input state written by the Android input thread and read once per frame
+ * by the GL thread, without locks and without allocating.
+ * <p>
+ * Keys and one-shot events are numbered slots. Each slot is a single long
+ * holding whether the key is held and how many times it went down and up,
+ * updated with compare-and-set so any number of threads can write keys.
+ * {@link #swap()} reads every slot once and compares the counts with the
+ * last frame, so a key pressed and released between two frames still
+ * reports both edges.
+ * <p>
+ * Axes are written by one thread and published as a whole through a
+ * triple buffer, so a frame never sees the x of one event with the y of
+ * another.
+ * <p>
+ * Has no Android dependencies so it can be stress tested off the device.
+ */
+public final class InputSnapshot {
+
+    // slot layout: held bit, then 31 bit up and down counts that wrap
+    private static final long PRESSED = 1L;
+    private static final long COUNT_MASK = 0x7fffffffL;
+    private static final int UP_SHIFT = 1;
+    private static final int DOWN_SHIFT = 32;
+
+    private static final class Axes {
+        final float[] values;
+        boolean fresh;
+
+        Axes(int count) {
+            values = new float[count];
+        }
+    }
+
+    // written by the input threads
+    private final AtomicLongArray mKeys;
+    private final float[] mLatestAxes;
+    private Axes mBackAxes;
+    private final AtomicReference<Axes> mSharedAxes;
+
+    // used only by the frame thread
+    private final long[] mLastDowns;
+    private final long[] mLastUps;
+    private final boolean[] mPressed;
+    private final int[] mDowns;
+    private final int[] mUps;
+    private Axes mFrontAxes;
+
+    public InputSnapshot(int keyCount, int axisCount) {
+        mKeys = new AtomicLongArray(keyCount);
+        mLastDowns = new long[keyCount];
+        mLastUps = new long[keyCount];
+        mPressed = new boolean[keyCount];
+        mDowns = new int[keyCount];
+        mUps = new int[keyCount];
+
+        mLatestAxes = new float[axisCount];
+        mBackAxes = new Axes(axisCount);
+        mSharedAxes = new AtomicReference<Axes>(new Axes(axisCount));
+        mFrontAxes = new Axes(axisCount);
+    }
+
+    /**
+     * Marks a key as held. Repeats while it is already held are ignored.
+     */
+    public void press(int key) {
+        while (true) {
+            long state = mKeys.get(key);
+            if ((state & PRESSED) != 0) {
+                return;
+            }
+            if (mKeys.compareAndSet(key, state, increment(state, DOWN_SHIFT) | PRESSED)) {
+                return;
+            }
+        }
+    }
+
+    public void release(int key) {
+        while (true) {
+            long state = mKeys.get(key);
+            if ((state & PRESSED) == 0) {
+                return;
+            }
+            if (mKeys.compareAndSet(key, state, increment(state, UP_SHIFT) & ~PRESSED)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records an event with no held state, such as a tap. It reads as a
+     * down edge on the next frame.
+     */
+    public void pulse(int key) {
+        while (true) {
+            long state = mKeys.get(key);
+            if (mKeys.compareAndSet(key, state, increment(state, DOWN_SHIFT))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets an axis value, it is seen by the frame thread after the next
+     * {@link #publishAxes()}. Axes must all be written from one thread.
+     */
+    public void setAxis(int axis, float value) {
+        mLatestAxes[axis] = value;
+    }
+
+    public void publishAxes() {
+        Axes back = mBackAxes;
+        System.arraycopy(mLatestAxes, 0, back.values, 0, mLatestAxes.length);
+        back.fresh = true;
+        mBackAxes = mSharedAxes.getAndSet(back);
+    }
+
+    /**
+     * Takes the input written since the last call. Called once per frame by
+     * the thread that reads the state.
+     */
+    public void swap() {
+        for (int key = 0; key < mPressed.length; ++key) {
+            long state = mKeys.get(key);
+            long downs = (state >>> DOWN_SHIFT) & COUNT_MASK;
+            long ups = (state >>> UP_SHIFT) & COUNT_MASK;
+
+            mPressed[key] = (state & PRESSED) != 0;
+            mDowns[key] = (int) ((downs - mLastDowns[key]) & COUNT_MASK);
+            mUps[key] = (int) ((ups - mLastUps[key]) & COUNT_MASK);
+            mLastDowns[key] = downs;
+            mLastUps[key] = ups;
+        }
+
+        if (mSharedAxes.get().fresh) {
+            // whatever is taken is fresh, the writer only publishes fresh axes
+            mFrontAxes.fresh = false;
+            mFrontAxes = mSharedAxes.getAndSet(mFrontAxes);
+        }
+    }
+
+    public boolean isPressed(int key) {
+        return mPressed[key];
+    }
+
+    /**
+     * @return true if the key went down, or was pulsed, since the last frame
+     */
+    public boolean isDown(int key) {
+        return mDowns[key] != 0;
+    }
+
+    /**
+     * @return true if the key went up since the last frame
+     */
+    public boolean isUp(int key) {
+        return mUps[key] != 0;
+    }
+
+    /**
+     * @return how many times the key went down, or was pulsed, since the
+     * last frame
+     */
+    public int getDownCount(int key) {
+        return mDowns[key];
+    }
+
+    public int getUpCount(int key) {
+        return mUps[key];
+    }
+
+    public float getAxis(int axis) {
+        return mFrontAxes.values[axis];
+    }
+
+    private static long increment(long state, int shift) {
+        long count = ((state >>> shift) + 1) & COUNT_MASK;
+        return (state & ~(COUNT_MASK << shift)) | (count << shift);
+    }
+}
@@ -20,106 +20,88 @@ import android.view.MotionEvent;
 
 import com.samsungxr.io.SXRTouchPadGestureListener;
 
+/**
+ * Touch pad state for the frame. Touch and gesture events arrive on the
+ * Android input thread and are written to an {@link InputSnapshot}, which
+ * {@link #process()} takes once per frame on the GL thread. Taps, long
+ * presses and swipes are one-shot events that stay set for one frame.
+ */
 public class TouchPadInput {
 
-    private static TouchPadInputMap newTouchPadMap = new TouchPadInputMap();
-    private static TouchPadInputMap oldTouchPadMap = new TouchPadInputMap();
-
-    public static void process() {
-        newTouchPadMap.resetIntermadiateState();
-
-        Button oldButton = oldTouchPadMap.buttonState;
-        Button newButton = newTouchPadMap.buttonState;
-
-        updateIntermediateStates(newButton, oldButton);
-
-    }
-
-    public static TouchPadInputMap getCurrent() {
-
-        return newTouchPadMap;
-    }
-
-    private static void updateIntermediateStates(Button newButton, Button oldButton) {
-
-        if (oldButton.pressed != newButton.pressed) {
-            newButton.down = newButton.pressed;
-            newButton.up = !newButton.pressed;
-        }
-
-        updateSwipe();
+    private static final int PRESS = 0;
+    private static final int SINGLE_TAP = 1;
+    private static final int LONG_PRESS = 2;
+    private static final int SWIPE = 3; // first of one slot per action
 
-        updateLongPress();
+    private static final int AXIS_X = 0;
+    private static final int AXIS_Y = 1;
 
-        updateTap();
+    private static final SXRTouchPadGestureListener.Action[] actions = SXRTouchPadGestureListener.Action
+            .values();
 
-        oldButton.replicateValues(newButton);
-    }
+    private static TouchPadInputMap touchPadMap = new TouchPadInputMap();
 
-    private static void updateLongPress() {
-        if (newTouchPadMap.buttonState.longPressed == oldTouchPadMap.buttonState.longPressed) {
-            if (newTouchPadMap.buttonState.longPressed) {
+    private static InputSnapshot snapshot = new InputSnapshot(SWIPE + actions.length, 2);
 
-                newTouchPadMap.buttonState.longPressed = false;
+    public static void process() {
+        snapshot.swap();
+
+        TouchPress buttonState = touchPadMap.buttonState;
+        buttonState.pressed = snapshot.isPressed(PRESS);
+        buttonState.down = snapshot.isDown(PRESS);
+        buttonState.up = snapshot.isUp(PRESS);
+        buttonState.singleTaped = snapshot.isDown(SINGLE_TAP);
+        buttonState.longPressed = snapshot.isDown(LONG_PRESS);
+
+        touchPadMap.swipeDirection = SXRTouchPadGestureListener.Action.None;
+        for (SXRTouchPadGestureListener.Action action : actions) {
+            if (action != SXRTouchPadGestureListener.Action.None
+                    && snapshot.isDown(SWIPE + action.ordinal())) {
+                touchPadMap.swipeDirection = action;
+                break;
             }
-
         }
-        oldTouchPadMap.buttonState.longPressed = newTouchPadMap.buttonState.longPressed;
-    }
-
-    private static void updateTap() {
-        if (newTouchPadMap.buttonState.singleTaped == oldTouchPadMap.buttonState.singleTaped) {
-            if (newTouchPadMap.buttonState.singleTaped) {
-
-                newTouchPadMap.buttonState.singleTaped = false;
-            }
 
-        }
-        oldTouchPadMap.buttonState.singleTaped = newTouchPadMap.buttonState.singleTaped;
+        touchPadMap.axisX = snapshot.getAxis(AXIS_X);
+        touchPadMap.axisY = snapshot.getAxis(AXIS_Y);
     }
 
-    private static void updateSwipe() {
-        if (newTouchPadMap.swipeDirection == oldTouchPadMap.swipeDirection) {
-            if (newTouchPadMap.swipeDirection != SXRTouchPadGestureListener.Action.None) {
-
-                newTouchPadMap.swipeDirection = SXRTouchPadGestureListener.Action.None;
-            }
-
-        }
-        oldTouchPadMap.swipeDirection = newTouchPadMap.swipeDirection;
+    public static TouchPadInputMap getCurrent() {
 
+        return touchPadMap;
     }
 
     public static void input(MotionEvent event) {
 
         // https://github.com/Samsung/GearVRf/issues/231
-        newTouchPadMap.axisX = event.getAxisValue(MotionEvent.AXIS_X);
-        newTouchPadMap.axisY = event.getAxisValue(MotionEvent.AXIS_Y);
+        snapshot.setAxis(AXIS_X, event.getAxisValue(MotionEvent.AXIS_X));
+        snapshot.setAxis(AXIS_Y, event.getAxisValue(MotionEvent.AXIS_Y));
+        snapshot.publishAxes();
 
         if (event.getAction() == KeyEvent.ACTION_DOWN) {
-            newTouchPadMap.buttonState.pressed = true;
+            snapshot.press(PRESS);
 
         }
         if (event.getAction() == KeyEvent.ACTION_UP) {
-            newTouchPadMap.buttonState.pressed = false;
+            snapshot.release(PRESS);
 
         }
 
     }
 
     public static void onSwipe(SXRTouchPadGestureListener.Action action) {
-        newTouchPadMap.swipeDirection = action;
+        snapshot.pulse(SWIPE + action.ordinal());
 
     }
 
     public static void onSingleTap() {
-        newTouchPadMap.buttonState.singleTaped = true;
+        snapshot.pulse(SINGLE_TAP);
 
     }
 
     public static void onLongPress() {
-        newTouchPadMap.buttonState.longPressed = true;
+        snapshot.pulse(LONG_PRESS);
 
     }
 
-}
\ No newline at end of file
+}
@@ -24,10 +24,4 @@ public class TouchPadInputMap {
     public TouchPress buttonState = new TouchPress();
     public SXRTouchPadGestureListener.Action swipeDirection = SXRTouchPadGestureListener.Action.None;
 
-    public void resetIntermadiateState() {
-        buttonState.down = false;
-        buttonState.up = false;
-
-    }
-
 }
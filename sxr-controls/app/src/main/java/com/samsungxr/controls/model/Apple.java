@@ -46,6 +46,7 @@ import com.samsungxr.controls.interpolators.QuadOut;
 import com.samsungxr.controls.shaders.ColorSwapShader;
 import com.samsungxr.controls.util.Constants;
 import com.samsungxr.controls.util.RenderingOrder;
+import com.samsungxr.controls.util.SpatialGrid;
 import com.samsungxr.controls.util.Util;
 
 import java.util.ArrayList;
@@ -60,6 +61,9 @@ public class Apple extends SXRNode {
     private final static float MAX_APPLES_DISTANCE = 1.5f;
     private final static float CAMERA_DIRECTION_THREASHOLD = 0.75f;
     public static ArrayList<Apple> appleList = new ArrayList<Apple>();
+    // apples are kept further apart than a cell, so a cell holds one or two
+    public static SpatialGrid<Apple> appleGrid = new SpatialGrid<Apple>(MAX_APPLES_DISTANCE);
+    private int gridHandle = -1;
     public Star star;
     private WormShadow shadow;
 
@@ -111,6 +115,16 @@ public class Apple extends SXRNode {
 
     public static void addApple(Apple apple) {
         appleList.add(apple);
+        apple.updateGridPosition();
+    }
+
+    /**
+     * Puts the apple in {@link #appleGrid} where it is on the ground. Only x
+     * and z are kept, the drop animation changes y afterwards.
+     */
+    private void updateGridPosition() {
+        gridHandle = appleGrid.update(gridHandle, this, getTransform().getPositionX(),
+                getTransform().getPositionZ());
     }
 
     public static float[] getColor(SXRContext sxrContext) {
@@ -207,6 +221,7 @@ public class Apple extends SXRNode {
         star.playMoveAnimation(sxrContext, this);
         setApplePositionInsideFrustum(sxrContext);
         this.getTransform().setPositionY(Constants.APPLE_INICIAL_YPOS);
+        updateGridPosition();
         playAnimation(sxrContext);
 
     }
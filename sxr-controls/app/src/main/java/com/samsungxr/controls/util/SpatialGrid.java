@@ -0,0 +1,195 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.util;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the ground plane, hashing x and z into square cells so
+ * a query only visits the cells around a point instead of every item.
+ * <p>
+ * Items are kept in parallel primitive arrays and chained per hash bucket
+ * by index. An item is identified by the handle {@link #update} returns,
+ * which stays valid until it is removed. Queries write into a reused
+ * result buffer, so neither updates nor queries allocate once the arrays
+ * are large enough.
+ * <p>
+ * Has no Android dependencies so it can be benchmarked off the device.
+ */
+public class SpatialGrid<T> {
+
+    private static final int NONE = -1;
+
+    private final float cellSize;
+
+    // per handle
+    private Object[] items = new Object[16];
+    private float[] xs = new float[16];
+    private float[] zs = new float[16];
+    private int[] next = new int[16];
+    private int[] bucketOf = new int[16];
+    private int count;
+    private int freeList = NONE;
+
+    private int[] buckets = newBuckets(32);
+    private int size;
+
+    private Object[] results = new Object[16];
+    private int resultCount;
+
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds the item at x, z when handle is -1, or moves the item with that
+     * handle there.
+     *
+     * @return the handle of the item
+     */
+    public int update(int handle, T item, float x, float z) {
+        if (handle == NONE) {
+            handle = allocate();
+            ++size;
+        } else {
+            unlink(handle);
+        }
+
+        items[handle] = item;
+        xs[handle] = x;
+        zs[handle] = z;
+        link(handle, bucket(cell(x), cell(z)));
+        return handle;
+    }
+
+    public void remove(int handle) {
+        unlink(handle);
+        items[handle] = null;
+        next[handle] = freeList;
+        freeList = handle;
+        --size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the items within radius of x, z on the ground plane.
+     *
+     * @return how many were found, read them with {@link #getResult(int)}
+     */
+    public int query(float x, float z, float radius) {
+        int minX = cell(x - radius);
+        int maxX = cell(x + radius);
+        int minZ = cell(z - radius);
+        int maxZ = cell(z + radius);
+        float radiusSquared = radius * radius;
+
+        resultCount = 0;
+        for (int cx = minX; cx <= maxX; ++cx) {
+            for (int cz = minZ; cz <= maxZ; ++cz) {
+                int bucket = bucket(cx, cz);
+                for (int i = buckets[bucket]; i != NONE; i = next[i]) {
+                    float dx = xs[i] - x;
+                    float dz = zs[i] - z;
+                    // cells that share a bucket are skipped by the cell test
+                    if (dx * dx + dz * dz < radiusSquared && cell(xs[i]) == cx && cell(zs[i]) == cz) {
+                        addResult(items[i]);
+                    }
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getResult(int index) {
+        return (T) results[index];
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int bucket(int cx, int cz) {
+        int hash = cx * 73856093 ^ cz * 19349663;
+        return (hash ^ (hash >>> 16)) & (buckets.length - 1);
+    }
+
+    private void link(int handle, int bucket) {
+        bucketOf[handle] = bucket;
+        next[handle] = buckets[bucket];
+        buckets[bucket] = handle;
+    }
+
+    private void unlink(int handle) {
+        int bucket = bucketOf[handle];
+        if (buckets[bucket] == handle) {
+            buckets[bucket] = next[handle];
+            return;
+        }
+        for (int i = buckets[bucket]; i != NONE; i = next[i]) {
+            if (next[i] == handle) {
+                next[i] = next[handle];
+                return;
+            }
+        }
+    }
+
+    private int allocate() {
+        if (freeList != NONE) {
+            int handle = freeList;
+            freeList = next[handle];
+            return handle;
+        }
+        if (count == items.length) {
+            int capacity = count * 2;
+            items = Arrays.copyOf(items, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            next = Arrays.copyOf(next, capacity);
+            bucketOf = Arrays.copyOf(bucketOf, capacity);
+        }
+        if (count * 2 >= buckets.length) {
+            rehash(buckets.length * 2);
+        }
+        return count++;
+    }
+
+    // keeps the chains short as items are added
+    private void rehash(int bucketCount) {
+        buckets = newBuckets(bucketCount);
+        for (int i = 0; i < count; ++i) {
+            if (items[i] != null) {
+                link(i, bucket(cell(xs[i]), cell(zs[i])));
+            }
+        }
+    }
+
+    private void addResult(Object item) {
+        if (resultCount == results.length) {
+            results = Arrays.copyOf(results, resultCount * 2);
+        }
+        results[resultCount++] = item;
+    }
+
+    private static int[] newBuckets(int count) {
+        int[] buckets = new int[count];
+        Arrays.fill(buckets, NONE);
+        return buckets;
+    }
+}
@@ -73,7 +73,15 @@ public class Util {
 
     public static float[] calculatePointBetweenTwoObjects(SXRTransform transform,
             SXRTransform transform2, float distance) {
-        float[] point = new float[3];
+        return calculatePointBetweenTwoObjects(transform, transform2, distance, new float[3]);
+    }
+
+    /**
+     * Same as {@link #calculatePointBetweenTwoObjects(SXRTransform, SXRTransform, float)},
+     * writing into point so it can be called every frame.
+     */
+    public static float[] calculatePointBetweenTwoObjects(SXRTransform transform,
+            SXRTransform transform2, float distance, float[] point) {
         float ratio = distance / (float) distance(transform, transform2);
         point[0] = (1 - ratio) * transform.getPositionX() + (ratio)
                 * transform2.getPositionX();
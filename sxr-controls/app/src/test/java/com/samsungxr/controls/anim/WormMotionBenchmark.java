@@ -0,0 +1,154 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.anim;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Drives a {@link WormMotionDriver} headless for 10,000 frames of a held
+ * diagonal on the D-pad, with a swipe every second, and prints the time
+ * and the bytes allocated per frame once warmed up. Each frame issues the commands
+ * Worm.interactWithDPad and Worm.animateWormByTouchPad issue and then calls
+ * {@link WormMotionDriver#onDrawFrame(float)}, against a stub transform
+ * kept in plain floats in place of the worm's SXRTransforms.
+ * <p>
+ * It lives in the local JVM source set because it reads the allocation
+ * counter of HotSpot, which android.jar does not have. Run it with plain
+ * java and the SXR classes on the class path for the driver. What the
+ * driver does, and that a held D-pad allocates nothing, is checked by
+ * {@link WormMotionDriverTest}, this only measures.
+ */
+public class WormMotionBenchmark {
+    private static final int FRAMES = 10000;
+    private static final int BLOCK = 1000;
+    private static final int SWIPE_INTERVAL = 60;
+    private static final float FRAME_TIME = 1 / 60f;
+
+    // Worm.MovementDirection ordinals
+    private static final int UP = 0;
+    private static final int RIGHT = 1;
+
+    private static class StubTransform implements WormMotionDriver.Target {
+        float x = 0;
+        float z = -3;
+        float yaw;
+
+        @Override
+        public void orbit(float degree) {
+            double radians = Math.toRadians(degree);
+            float cos = (float) Math.cos(radians);
+            float sin = (float) Math.sin(radians);
+            float rotatedX = x * cos + z * sin;
+            z = z * cos - x * sin;
+            x = rotatedX;
+        }
+
+        @Override
+        public void move(float x, float z) {
+            this.x += x;
+            this.z += z;
+        }
+
+        @Override
+        public void turn(float degree) {
+            yaw += degree;
+        }
+    }
+
+    private static final StubTransform worm = new StubTransform();
+    private static final WormMotionDriver driver = new WormMotionDriver(null, worm);
+    private static int direction = UP;
+
+    public static void main(String[] args) {
+        long[] marks = new long[FRAMES / BLOCK + 1];
+
+        // what reading the counter costs, taken off every block
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        // the same frames once unmeasured, for class loading and the JIT
+        runFrames(null);
+        long start = System.nanoTime();
+        runFrames(marks);
+        long elapsed = System.nanoTime() - start;
+
+        StringBuilder blocks = new StringBuilder();
+        for (int i = 1; i < marks.length; ++i) {
+            long bytes = marks[i] - marks[i - 1] - overhead;
+            blocks.append(i == 1 ? "" : ", ").append(bytes);
+        }
+        System.out.println("bytes per " + BLOCK + " frames: " + blocks);
+        System.out.println(elapsed / FRAMES + " ns per frame, worm at " + worm.x + ", " + worm.z
+                + ", yaw " + worm.yaw);
+    }
+
+    private static void runFrames(long[] marks) {
+        if (marks != null) {
+            marks[0] = allocatedBytes();
+        }
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            if (frame % (2 * SWIPE_INTERVAL) == 0) {
+                // a forward swipe
+                driver.orbit(0.6f, -22.5f);
+                rotateWorm(RIGHT);
+            } else if (frame % SWIPE_INTERVAL == 0) {
+                // an up swipe
+                moveAlongCameraVector(0.6f, 0.75f);
+                rotateWorm(UP);
+            } else {
+                // right and up held together, the one pressed first flips
+                // every second so the head keeps turning
+                boolean rightFirst = frame / SWIPE_INTERVAL % 2 == 0;
+                driver.orbit(.1f, -5f);
+                rotateWorm(rightFirst ? RIGHT : UP);
+                moveAlongCameraVector(.1f, .225f);
+                rotateWorm(rightFirst ? UP : RIGHT);
+            }
+
+            driver.onDrawFrame(FRAME_TIME);
+
+            if (marks != null && (frame + 1) % BLOCK == 0) {
+                marks[(frame + 1) / BLOCK] = allocatedBytes();
+            }
+        }
+    }
+
+    // Worm.moveAlongCameraVector with the camera at the origin
+    private static void moveAlongCameraVector(float duration, float movement) {
+        driver.stopParent();
+        float distance = (float) Math.sqrt(worm.x * worm.x + worm.z * worm.z);
+        float scale = (distance + movement) / distance;
+        driver.move(duration, worm.x * scale - worm.x, worm.z * scale - worm.z);
+    }
+
+    // Worm.rotateWorm for the two directions held here
+    private static void rotateWorm(int movementDirection) {
+        if (!driver.isTurning()) {
+            int difference = movementDirection - direction;
+            direction = movementDirection;
+            driver.turn(.1f, difference == 1 ? -90 : difference == -1 ? 90 : 0);
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,198 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.anim;
+
+import com.samsungxr.controls.interpolators.QuadIn;
+import com.samsungxr.controls.interpolators.QuadOut;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WormMotionDriverTest {
+    private static final float FRAME_TIME = 1 / 60f;
+    private static final float DELTA = 1e-4f;
+
+    private static class StubTarget implements WormMotionDriver.Target {
+        float orbited;
+        float x;
+        float z;
+        float turned;
+        int moves;
+        int orbits;
+
+        @Override
+        public void orbit(float degree) {
+            orbited += degree;
+            ++orbits;
+        }
+
+        @Override
+        public void move(float x, float z) {
+            this.x += x;
+            this.z += z;
+            ++moves;
+        }
+
+        @Override
+        public void turn(float degree) {
+            turned += degree;
+        }
+    }
+
+    private final StubTarget target = new StubTarget();
+    private final WormMotionDriver driver = new WormMotionDriver(null, target);
+
+    @Test
+    public void movesLinearly() {
+        driver.move(.1f, 2, 4);
+        driver.onDrawFrame(.025f);
+        assertEquals(.5f, target.x, DELTA);
+        assertEquals(1f, target.z, DELTA);
+        driver.onDrawFrame(.025f);
+        assertEquals(1f, target.x, DELTA);
+
+        runFrames(20);
+        assertEquals(2f, target.x, DELTA);
+        assertEquals(4f, target.z, DELTA);
+    }
+
+    @Test
+    public void movesWithAnInterpolator() {
+        driver.move(.1f, 2, 4, QuadOut.getInstance());
+        driver.onDrawFrame(.025f);
+        // QuadOut maps a quarter of the duration to 7/16 of the way
+        assertEquals(.875f, target.x, DELTA);
+        assertEquals(1.75f, target.z, DELTA);
+
+        runFrames(20);
+        assertEquals(2f, target.x, DELTA);
+        assertEquals(4f, target.z, DELTA);
+    }
+
+    @Test
+    public void orbitsAndTurnsWithAnInterpolator() {
+        driver.orbit(.1f, 10, QuadIn.getInstance());
+        driver.turn(.1f, 90, QuadIn.getInstance());
+        driver.onDrawFrame(.05f);
+        assertEquals(2.5f, target.orbited, DELTA);
+        assertEquals(22.5f, target.turned, DELTA);
+
+        runFrames(10);
+        assertEquals(10f, target.orbited, DELTA);
+        assertEquals(90f, target.turned, DELTA);
+    }
+
+    @Test
+    public void orbitStopsMove() {
+        driver.move(1, 1, 0);
+        driver.onDrawFrame(.5f);
+        driver.orbit(1, 10);
+        runFrames(120);
+
+        assertEquals(.5f, target.x, DELTA);
+        assertEquals(10f, target.orbited, DELTA);
+    }
+
+    @Test
+    public void moveStopsOrbit() {
+        driver.orbit(1, 10);
+        driver.onDrawFrame(.5f);
+        driver.move(1, 1, 0);
+        runFrames(120);
+
+        assertEquals(5f, target.orbited, DELTA);
+        assertEquals(1f, target.x, DELTA);
+    }
+
+    @Test
+    public void stopParentStopsOrbitAndMove() {
+        driver.orbit(1, 10);
+        driver.stopParent();
+        driver.move(1, 1, 0);
+        driver.stopParent();
+        runFrames(120);
+
+        assertEquals(0, target.orbits);
+        assertEquals(0, target.moves);
+    }
+
+    @Test
+    public void restartedMoveTakesOverFromCurrentPosition() {
+        driver.move(1, 1, 0);
+        driver.onDrawFrame(.5f);
+        driver.move(1, 1, 0);
+        runFrames(120);
+
+        assertEquals(1.5f, target.x, DELTA);
+    }
+
+    @Test
+    public void turnIsIgnoredWhileTurning() {
+        assertTrue(driver.turn(.1f, 90));
+        assertTrue(driver.isTurning());
+        assertFalse(driver.turn(.1f, -90));
+        runFrames(10);
+
+        assertFalse(driver.isTurning());
+        assertEquals(90f, target.turned, DELTA);
+        assertTrue(driver.turn(.1f, -90));
+    }
+
+    @Test
+    public void heldDPadAllocatesNothing() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        org.junit.Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        // once unmeasured, for class loading and the JIT
+        holdDPad(2000);
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        holdDPad(2000);
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+        // any object made per frame would be at least 16 bytes a frame, the
+        // slack is for the odd allocation the JVM makes on the thread
+        assertTrue(bytes + " bytes allocated", bytes < 2000);
+        // the move cancels the orbit asked for in the same frame
+        assertEquals(0, target.orbits);
+        assertTrue(target.moves > 0);
+        assertTrue(target.turned != 0);
+    }
+
+    // what Worm.interactWithDPad asks for with two directions held
+    private void holdDPad(int frames) {
+        for (int frame = 0; frame < frames; ++frame) {
+            driver.orbit(.1f, -5f);
+            driver.turn(.1f, frame / 60 % 2 == 0 ? -90 : 90);
+            // Worm.moveAlongCameraVector
+            driver.stopParent();
+            driver.move(.1f, .01f, .02f);
+            driver.onDrawFrame(FRAME_TIME);
+        }
+    }
+
+    private void runFrames(int frames) {
+        for (int frame = 0; frame < frames; ++frame) {
+            driver.onDrawFrame(FRAME_TIME);
+        }
+    }
+}
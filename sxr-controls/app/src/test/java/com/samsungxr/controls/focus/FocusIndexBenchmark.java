@@ -0,0 +1,149 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.focus;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Runs the focus part of {@link ControlNodeBehavior#process} with thousands
+ * of synthetic nodes, once with the old nested loop and once with
+ * {@link FocusIndex}, and prints the time and bytes allocated per frame.
+ * It lives in the local JVM source set because it reads the allocation
+ * counter of HotSpot, which android.jar does not have. Run it with plain
+ * java against the test classes, it has no Android or SXR dependencies.
+ * That the index gives the same focus as the nested loop is checked by
+ * {@link FocusIndexTest}, this only measures.
+ * <p>
+ * Every frame a few consecutive nodes are hit and the window moves by one
+ * node, so each frame has one node gaining and one losing focus.
+ */
+public class FocusIndexBenchmark {
+    private static final int[] SIZES = { 1000, 5000, 20000 };
+    private static final int HITS = 4;
+    private static final int FRAMES = 2000;
+
+    private static class Node {
+        boolean focus;
+        int changes;
+
+        void setFocus(boolean state) {
+            if (focus != state) {
+                focus = state;
+                ++changes;
+            }
+        }
+    }
+
+    private static final FocusIndex.Target<Node> TARGET = new FocusIndex.Target<Node>() {
+        @Override
+        public void setFocus(Node object, boolean focus) {
+            object.setFocus(focus);
+        }
+    };
+
+    public static void main(String[] args) {
+        System.out.println("nodes,legacy_us_per_frame,legacy_bytes_per_frame,index_us_per_frame,index_bytes_per_frame");
+        for (int warmup = 0; warmup < 3; ++warmup) {
+            runLegacy(nodes(1000));
+            runIndex(nodes(1000));
+        }
+        for (int n : SIZES) {
+            long[] legacy = runLegacy(nodes(n));
+            long[] index = runIndex(nodes(n));
+            System.out.println(n + "," + legacy[0] / 1000.0 / FRAMES + "," + legacy[1] / FRAMES + ","
+                    + index[0] / 1000.0 / FRAMES + "," + index[1] / FRAMES);
+        }
+    }
+
+    private static ArrayList<Node> nodes(int n) {
+        ArrayList<Node> nodes = new ArrayList<Node>(n);
+        for (int i = 0; i < n; ++i) {
+            nodes.add(new Node());
+        }
+        return nodes;
+    }
+
+    private static Object[] picks(ArrayList<Node> nodes, int frame) {
+        Object[] picks = new Object[HITS];
+        for (int i = 0; i < HITS; ++i) {
+            picks[i] = nodes.get((frame + i) % nodes.size());
+        }
+        return picks;
+    }
+
+    private static long[] runLegacy(ArrayList<Node> nodes) {
+        Object[][] frames = pickFrames(nodes);
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (Object[] picked : frames) {
+            ArrayList<Node> needToDisableFocus = new ArrayList<Node>();
+            for (Node obj : nodes) {
+                needToDisableFocus.add(obj);
+            }
+            for (Object po : picked) {
+                for (Node object : nodes) {
+                    if (po.equals(object)) {
+                        object.setFocus(true);
+                        needToDisableFocus.remove(object);
+                    }
+                }
+            }
+            for (Node obj : needToDisableFocus) {
+                obj.setFocus(false);
+            }
+        }
+        return new long[] { System.nanoTime() - start, allocatedBytes() - bytes };
+    }
+
+    private static long[] runIndex(ArrayList<Node> nodes) {
+        Object[][] frames = pickFrames(nodes);
+        FocusIndex<Node> index = new FocusIndex<Node>();
+        for (int i = 0; i < nodes.size(); ++i) {
+            index.register(nodes.get(i));
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (Object[] picked : frames) {
+            index.beginUpdate();
+            for (Object po : picked) {
+                index.hit(po);
+            }
+            index.endUpdate(TARGET);
+        }
+        return new long[] { System.nanoTime() - start, allocatedBytes() - bytes };
+    }
+
+    // made up front so building the picks is not measured
+    private static Object[][] pickFrames(ArrayList<Node> nodes) {
+        Object[][] frames = new Object[FRAMES][];
+        for (int f = 0; f < FRAMES; ++f) {
+            frames[f] = picks(nodes, f);
+        }
+        return frames;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,158 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.focus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FocusIndexTest {
+
+    private static class Node {
+        boolean focus;
+        int changes;
+
+        void setFocus(boolean state) {
+            if (focus != state) {
+                focus = state;
+                ++changes;
+            }
+        }
+    }
+
+    private static final FocusIndex.Target<Node> TARGET = new FocusIndex.Target<Node>() {
+        @Override
+        public void setFocus(Node object, boolean focus) {
+            object.setFocus(focus);
+        }
+    };
+
+    @Test
+    public void matchesNestedLoop() {
+        ArrayList<Node> legacy = nodes(200);
+        ArrayList<Node> indexed = nodes(200);
+        FocusIndex<Node> index = register(indexed);
+
+        // more hits than the sets start with, so they grow on the way
+        for (int frame = 0; frame < 500; ++frame) {
+            int hits = 1 + frame % 40;
+            runLegacy(legacy, frame, hits);
+
+            index.beginUpdate();
+            for (int i = 0; i < hits; ++i) {
+                index.hit(indexed.get((frame + i) % indexed.size()));
+            }
+            index.endUpdate(TARGET);
+
+            for (int i = 0; i < legacy.size(); ++i) {
+                assertEquals("focus of node " + i + " in frame " + frame,
+                        legacy.get(i).focus, indexed.get(i).focus);
+                assertEquals("changes of node " + i + " in frame " + frame,
+                        legacy.get(i).changes, indexed.get(i).changes);
+            }
+            assertEquals(hits, index.getFocusedCount());
+        }
+    }
+
+    @Test
+    public void ignoresUnregisteredHits() {
+        ArrayList<Node> nodes = nodes(3);
+        FocusIndex<Node> index = register(nodes);
+        Node stranger = new Node();
+
+        index.beginUpdate();
+        index.hit(stranger);
+        index.hit(nodes.get(1));
+        index.endUpdate(TARGET);
+
+        assertFalse(index.isRegistered(stranger));
+        assertFalse(stranger.focus);
+        assertEquals(1, index.getFocusedCount());
+        assertSame(nodes.get(1), index.getFocused(0));
+    }
+
+    @Test
+    public void focusesRepeatedHitOnce() {
+        ArrayList<Node> nodes = nodes(2);
+        FocusIndex<Node> index = register(nodes);
+
+        for (int frame = 0; frame < 3; ++frame) {
+            index.beginUpdate();
+            index.hit(nodes.get(0));
+            index.hit(nodes.get(0));
+            index.endUpdate(TARGET);
+        }
+
+        assertTrue(nodes.get(0).focus);
+        assertEquals(1, nodes.get(0).changes);
+        assertEquals(1, index.getFocusedCount());
+    }
+
+    @Test
+    public void removesFocusWhenNothingIsHit() {
+        ArrayList<Node> nodes = nodes(2);
+        FocusIndex<Node> index = register(nodes);
+
+        index.beginUpdate();
+        index.hit(nodes.get(0));
+        index.hit(nodes.get(1));
+        index.endUpdate(TARGET);
+        index.beginUpdate();
+        index.endUpdate(TARGET);
+
+        assertFalse(nodes.get(0).focus);
+        assertFalse(nodes.get(1).focus);
+        assertEquals(0, index.getFocusedCount());
+    }
+
+    private static ArrayList<Node> nodes(int n) {
+        ArrayList<Node> nodes = new ArrayList<Node>(n);
+        for (int i = 0; i < n; ++i) {
+            nodes.add(new Node());
+        }
+        return nodes;
+    }
+
+    private static FocusIndex<Node> register(ArrayList<Node> nodes) {
+        FocusIndex<Node> index = new FocusIndex<Node>();
+        for (Node node : nodes) {
+            index.register(node);
+        }
+        return index;
+    }
+
+    // the loop ControlNodeBehavior.process used to run
+    private static void runLegacy(ArrayList<Node> nodes, int frame, int hits) {
+        ArrayList<Node> needToDisableFocus = new ArrayList<Node>(nodes);
+        for (int i = 0; i < hits; ++i) {
+            Object po = nodes.get((frame + i) % nodes.size());
+            for (Node object : nodes) {
+                if (po.equals(object)) {
+                    object.setFocus(true);
+                    needToDisableFocus.remove(object);
+                }
+            }
+        }
+        for (Node obj : needToDisableFocus) {
+            obj.setFocus(false);
+        }
+    }
+}
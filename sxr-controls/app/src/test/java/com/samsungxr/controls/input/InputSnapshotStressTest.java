@@ -0,0 +1,127 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.input;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Floods an {@link InputSnapshot} from several threads while a frame thread
+ * swaps it as fast as it can, and checks that no event is lost and no frame
+ * sees a torn state.
+ * <p>
+ * Each producer presses and releases keys of its own, and all of them pulse
+ * a shared key. One producer also publishes axes that all hold the same
+ * sequence number.
+ */
+public class InputSnapshotStressTest {
+    private static final int PRODUCERS = 4;
+    private static final int KEYS_PER_PRODUCER = 3;
+    private static final int EVENTS = 200000;
+    private static final int AXES = 6;
+
+    private static final int PULSE_KEY = PRODUCERS * KEYS_PER_PRODUCER;
+    private static final int KEY_COUNT = PULSE_KEY + 1;
+
+    @Test
+    public void keepsEveryEventAndNoTornFrame() {
+        final InputSnapshot snapshot = new InputSnapshot(KEY_COUNT, AXES);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(PRODUCERS + 1);
+
+        for (int p = 0; p < PRODUCERS; ++p) {
+            final int firstKey = p * KEYS_PER_PRODUCER;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    for (int i = 0; i < EVENTS; ++i) {
+                        int key = firstKey + i % KEYS_PER_PRODUCER;
+                        snapshot.press(key);
+                        // repeats while held must not count
+                        snapshot.press(key);
+                        snapshot.release(key);
+                        snapshot.pulse(PULSE_KEY);
+                    }
+                    done.countDown();
+                }
+            }, "Producer" + p).start();
+        }
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                await(start);
+                for (int i = 1; i <= EVENTS; ++i) {
+                    for (int axis = 0; axis < AXES; ++axis) {
+                        snapshot.setAxis(axis, i);
+                    }
+                    snapshot.publishAxes();
+                }
+                done.countDown();
+            }
+        }, "AxisProducer").start();
+
+        long[] downs = new long[KEY_COUNT];
+        long[] ups = new long[KEY_COUNT];
+        float lastAxis = 0;
+
+        start.countDown();
+        boolean finished = false;
+        while (!finished) {
+            // a frame after the producers are done picks up what is left
+            finished = done.getCount() == 0;
+            snapshot.swap();
+
+            for (int key = 0; key < PULSE_KEY; ++key) {
+                downs[key] += snapshot.getDownCount(key);
+                ups[key] += snapshot.getUpCount(key);
+                long held = downs[key] - ups[key];
+                assertEquals("key " + key + " held " + held + " times, pressed " + snapshot.isPressed(key),
+                        snapshot.isPressed(key) ? 1 : 0, held);
+            }
+            downs[PULSE_KEY] += snapshot.getDownCount(PULSE_KEY);
+
+            float axis = snapshot.getAxis(0);
+            for (int i = 1; i < AXES; ++i) {
+                assertEquals("torn axes", axis, snapshot.getAxis(i), 0);
+            }
+            assertTrue("axes went back from " + lastAxis + " to " + axis, axis >= lastAxis);
+            lastAxis = axis;
+        }
+
+        for (int key = 0; key < PULSE_KEY; ++key) {
+            long expected = EVENTS / KEYS_PER_PRODUCER
+                    + (key % KEYS_PER_PRODUCER < EVENTS % KEYS_PER_PRODUCER ? 1 : 0);
+            assertEquals("downs of key " + key, expected, downs[key]);
+            assertEquals("ups of key " + key, expected, ups[key]);
+        }
+        assertEquals("pulse key downs", (long) PRODUCERS * EVENTS, downs[PULSE_KEY]);
+        assertEquals("last axes", EVENTS, lastAxis, 0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.util;
+
+import java.util.Random;
+
+/**
+ * Times the worm-eats-apple lookup for 10 to 100,000 apples, once as the
+ * linear scan over every apple that Worm.checkWormEatingApple used to do
+ * and once through {@link SpatialGrid}, and prints nanoseconds per frame.
+ * Run with plain java, it has no Android or SXR dependencies and exits
+ * with status 1 if the two find different apples. The grid itself is
+ * checked by {@link SpatialGridTest}.
+ * <p>
+ * Apples are spread over a lattice 1.5 apart, the distance the game keeps
+ * between them, so the area grows with their number. Each frame one apple
+ * also respawns in a random lattice cell.
+ */
+public class SpatialGridBenchmark {
+    private static final int[] APPLE_COUNTS = { 10, 100, 1000, 10000, 100000 };
+    private static final float SPACING = 1.5f;
+    private static final float EAT_DISTANCE = 0.5f;
+    // fewer frames for more apples, or the linear scan takes minutes
+    private static final long FRAMES_TIMES_APPLES = 20000000;
+    private static final int MAX_FRAMES = 200000;
+
+    private static float[] appleX;
+    private static float[] appleZ;
+    private static int[] handles;
+    private static Integer[] ids;
+
+    public static void main(String[] args) {
+        System.out.println("apples,linear_ns_per_frame,grid_ns_per_frame,hits");
+        // the first pass warms up the JIT
+        run(1000, false);
+        for (int count : APPLE_COUNTS) {
+            run(count, true);
+        }
+    }
+
+    private static void run(int count, boolean print) {
+        Random random = new Random(count);
+        int side = (int) Math.ceil(Math.sqrt(count));
+        float size = side * SPACING;
+        int frames = (int) Math.min(MAX_FRAMES, FRAMES_TIMES_APPLES / count);
+        SpatialGrid<Integer> grid = new SpatialGrid<Integer>(SPACING);
+
+        appleX = new float[count];
+        appleZ = new float[count];
+        handles = new int[count];
+        ids = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            ids[i] = i;
+            handles[i] = grid.update(-1, ids[i], 0, 0);
+            place(grid, i, i % side, i / side, random);
+        }
+
+        // the same worm path and respawns for both
+        float[] wormX = new float[frames];
+        float[] wormZ = new float[frames];
+        int[] respawn = new int[frames];
+        for (int f = 0; f < frames; ++f) {
+            wormX[f] = random.nextFloat() * size;
+            wormZ[f] = random.nextFloat() * size;
+            respawn[f] = random.nextInt(count);
+        }
+        long seed = random.nextLong();
+
+        random.setSeed(seed);
+        int linearHits = 0;
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; ++f) {
+            for (int i = 0; i < count; ++i) {
+                float dx = appleX[i] - wormX[f];
+                float dz = appleZ[i] - wormZ[f];
+                if (dx * dx + dz * dz < EAT_DISTANCE * EAT_DISTANCE) {
+                    ++linearHits;
+                }
+            }
+            respawn(grid, respawn[f], side, random);
+        }
+        long linear = (System.nanoTime() - start) / frames;
+
+        // put the apples back where the linear pass found them
+        random.setSeed(count);
+        for (int i = 0; i < count; ++i) {
+            place(grid, i, i % side, i / side, random);
+        }
+        random.setSeed(seed);
+        int gridHits = 0;
+        start = System.nanoTime();
+        for (int f = 0; f < frames; ++f) {
+            gridHits += grid.query(wormX[f], wormZ[f], EAT_DISTANCE);
+            respawn(grid, respawn[f], side, random);
+        }
+        long indexed = (System.nanoTime() - start) / frames;
+
+        if (linearHits != gridHits) {
+            System.err.println("FAILED: linear scan found " + linearHits + " apples, grid found " + gridHits);
+            System.exit(1);
+        }
+        if (print) {
+            System.out.println(count + "," + linear + "," + indexed + "," + gridHits);
+        }
+    }
+
+    private static void respawn(SpatialGrid<Integer> grid, int apple, int side, Random random) {
+        place(grid, apple, random.nextInt(side), random.nextInt(side), random);
+    }
+
+    // somewhere in the middle third of a lattice cell
+    private static void place(SpatialGrid<Integer> grid, int apple, int column, int row, Random random) {
+        appleX[apple] = (column + 1 / 3f + random.nextFloat() / 3) * SPACING;
+        appleZ[apple] = (row + 1 / 3f + random.nextFloat() / 3) * SPACING;
+        handles[apple] = grid.update(handles[apple], ids[apple], appleX[apple], appleZ[apple]);
+    }
+}
@@ -0,0 +1,114 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.controls.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpatialGridTest {
+    private static final float CELL_SIZE = 1.5f;
+    private static final float RADIUS = 0.5f;
+
+    @Test
+    public void findsWhatLinearScanFinds() {
+        Random random = new Random(42);
+        int count = 2000;
+        float size = 60;
+        SpatialGrid<Integer> grid = new SpatialGrid<Integer>(CELL_SIZE);
+        float[] xs = new float[count];
+        float[] zs = new float[count];
+        int[] handles = new int[count];
+
+        // negative coordinates too, the cells must floor and not truncate
+        for (int i = 0; i < count; ++i) {
+            xs[i] = (random.nextFloat() - .5f) * size;
+            zs[i] = (random.nextFloat() - .5f) * size;
+            handles[i] = grid.update(-1, i, xs[i], zs[i]);
+        }
+        assertEquals(count, grid.size());
+
+        for (int frame = 0; frame < 2000; ++frame) {
+            float x = (random.nextFloat() - .5f) * size;
+            float z = (random.nextFloat() - .5f) * size;
+            assertEquals("frame " + frame, linearScan(xs, zs, x, z, RADIUS), query(grid, x, z, RADIUS));
+
+            // an apple respawns somewhere else
+            int moved = random.nextInt(count);
+            xs[moved] = (random.nextFloat() - .5f) * size;
+            zs[moved] = (random.nextFloat() - .5f) * size;
+            assertEquals(handles[moved], grid.update(handles[moved], moved, xs[moved], zs[moved]));
+        }
+    }
+
+    @Test
+    public void findsNeighborsAcrossCells() {
+        SpatialGrid<Integer> grid = new SpatialGrid<Integer>(CELL_SIZE);
+        grid.update(-1, 0, CELL_SIZE - .1f, 0);
+        grid.update(-1, 1, CELL_SIZE + .1f, 0);
+        grid.update(-1, 2, CELL_SIZE + 2, 0);
+
+        assertEquals(set(0, 1), query(grid, CELL_SIZE, 0, RADIUS));
+    }
+
+    @Test
+    public void reusesRemovedHandles() {
+        SpatialGrid<Integer> grid = new SpatialGrid<Integer>(CELL_SIZE);
+        int first = grid.update(-1, 0, 0, 0);
+        grid.update(-1, 1, 10, 10);
+        grid.remove(first);
+
+        assertEquals(1, grid.size());
+        assertEquals(set(), query(grid, 0, 0, RADIUS));
+        assertEquals(first, grid.update(-1, 2, 5, 5));
+        assertEquals(set(2), query(grid, 5, 5, RADIUS));
+        assertEquals(set(1), query(grid, 10, 10, RADIUS));
+    }
+
+    private static Set<Integer> query(SpatialGrid<Integer> grid, float x, float z, float radius) {
+        Set<Integer> found = new HashSet<Integer>();
+        int count = grid.query(x, z, radius);
+        for (int i = 0; i < count; ++i) {
+            found.add(grid.getResult(i));
+        }
+        assertEquals("duplicate results", count, found.size());
+        return found;
+    }
+
+    private static Set<Integer> linearScan(float[] xs, float[] zs, float x, float z, float radius) {
+        Set<Integer> found = new HashSet<Integer>();
+        for (int i = 0; i < xs.length; ++i) {
+            float dx = xs[i] - x;
+            float dz = zs[i] - z;
+            if (dx * dx + dz * dz < radius * radius) {
+                found.add(i);
+            }
+        }
+        return found;
+    }
+
+    private static Set<Integer> set(Integer... items) {
+        Set<Integer> set = new HashSet<Integer>();
+        for (Integer item : items) {
+            set.add(item);
+        }
+        return set;
+    }
+}
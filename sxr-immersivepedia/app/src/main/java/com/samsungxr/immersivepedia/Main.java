@@ -27,7 +27,8 @@ import com.samsungxr.immersivepedia.input.TouchPadInput;
 import com.samsungxr.immersivepedia.scene.DinosaurScene;
 import com.samsungxr.immersivepedia.scene.MenuScene;
 import com.samsungxr.immersivepedia.util.AudioClip;
-import com.samsungxr.immersivepedia.util.FPSCounter;
+import com.samsungxr.immersivepedia.util.ClickLatency;
+import com.samsungxr.immersivepedia.util.FrameMetrics;
 import com.samsungxr.io.SXRCursorController;
 import com.samsungxr.io.SXRInputManager;
 import com.samsungxr.io.SXRTouchPadGestureListener;
@@ -41,10 +42,12 @@ public class Main extends SXRMain {
     private static MediaPlayer mediaPlayer;
     private SXRCursorController mController;
     private PickHandler pickHandler;
+    private FrameMetrics frameMetrics;
 
     @Override
     public void onInit(final SXRContext sxrContext) throws Throwable {
         mGvrContext = sxrContext;
+        frameMetrics = FrameMetrics.attach(sxrContext);
 
         AudioClip.getInstance(sxrContext.getContext());
         mediaPlayer = MediaPlayer.create(sxrContext.getContext(),
@@ -87,7 +90,6 @@ public class Main extends SXRMain {
     @Override
     public void onStep() {
         TouchPadInput.process();
-        FPSCounter.tick();
 
         if (mGvrContext.getMainScene().equals(dinosaurScene)) {
             dinosaurScene.onStep();
@@ -97,14 +99,18 @@ public class Main extends SXRMain {
     @Override
     public void onSingleTapUp(MotionEvent event) {
         if (null != mGvrContext) {
+            ClickLatency.begin();
             FocusableController.clickProcess(mGvrContext, pickHandler);
+            ClickLatency.end();
         }
     }
 
     @Override
     public void onSwipe(SXRTouchPadGestureListener.Action action, float vx) {
         TouchPadInput.onSwipe(action);
+        ClickLatency.begin();
         FocusableController.swipeProcess(mGvrContext, pickHandler);
+        ClickLatency.end();
     }
 
     public static void clickOut() {
@@ -126,6 +132,12 @@ public class Main extends SXRMain {
         }
     }
 
+    public void close() {
+        if (null != frameMetrics) {
+            frameMetrics.detach();
+        }
+    }
+
     public void setMainScene(SXRScene newScene)
     {
         if (mController != null)
@@ -52,6 +52,7 @@ public class MainActivity extends SXRActivity {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        main.close();
         android.os.Process.killProcess(android.os.Process.myPid());
     }
 }
@@ -15,11 +15,9 @@
 
 package com.samsungxr.immersivepedia.focus;
 
-import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRNode;
 import com.samsungxr.immersivepedia.Main;
-import com.samsungxr.immersivepedia.R;
 import com.samsungxr.immersivepedia.input.TouchPadInput;
 
 public final class FocusableController {
@@ -31,7 +29,7 @@ public final class FocusableController {
             return false;
         }
         if (mPickHandler.PickedObject != null &&
-            isAVisibleObjectBeingSeen(context, mPickHandler.PickedObject))
+            isAVisibleObjectBeingSeen(mPickHandler.PickedObject))
         {
             FocusableNode object = (FocusableNode) mPickHandler.PickedObject;
             object.dispatchInGesture(TouchPadInput.getCurrent().swipeDirection);
@@ -47,7 +45,7 @@ public final class FocusableController {
             return false;
         }
 
-        if (mPickHandler.PickedObject == null || !isAVisibleObjectBeingSeen(context, mPickHandler.PickedObject)) {
+        if (mPickHandler.PickedObject == null || !isAVisibleObjectBeingSeen(mPickHandler.PickedObject)) {
             Main.clickOut();
         }
         else{
@@ -58,8 +56,8 @@ public final class FocusableController {
         return false;
     }
 
-    private static boolean isAVisibleObjectBeingSeen(SXRContext sxrContext, SXRNode object) {
-        return (isVisible(object) && !hasEmptyTexture(sxrContext, object));
+    private static boolean isAVisibleObjectBeingSeen(SXRNode object) {
+        return (isVisible(object) && isFocusable(object));
     }
 
     private static boolean isVisible(SXRNode object) {
@@ -67,10 +65,8 @@ public final class FocusableController {
                 && object.getRenderData().getMaterial().getOpacity() > 0;
     }
 
-    private static boolean hasEmptyTexture(SXRContext sxrContext, SXRNode object) {
-        return object.getRenderData().getMaterial().getMainTexture() != null
-                && object.getRenderData().getMaterial().getMainTexture()
-                .equals(sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, R.drawable.empty)));
+    private static boolean isFocusable(SXRNode object) {
+        return object instanceof FocusableNode && ((FocusableNode) object).isFocusable();
     }
 
 }
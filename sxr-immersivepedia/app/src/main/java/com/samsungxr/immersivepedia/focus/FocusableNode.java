@@ -26,6 +26,7 @@ import com.samsungxr.io.SXRTouchPadGestureListener.Action;
 public class FocusableNode extends SXRNode {
 
     private boolean focus = false;
+    private boolean focusable = true;
     public FocusListener focusListener = null;
     public String tag = null;
     public boolean showInteractiveCursor = true;
@@ -103,6 +104,18 @@ public class FocusableNode extends SXRNode {
         return focus;
     }
 
+    /**
+     * Whether clicks and swipes on this object are dispatched to it.
+     * When false, a click on it counts as a click outside.
+     */
+    public void setFocusable(boolean focusable) {
+        this.focusable = focusable;
+    }
+
+    public boolean isFocusable() {
+        return focusable;
+    }
+
     public void dispatchInGesture(Action swipeDirection) {
         if (this.onGestureListener != null) {
 
@@ -29,6 +29,7 @@ import com.samsungxr.immersivepedia.input.TouchPadInput;
 import com.samsungxr.immersivepedia.props.Totem;
 import com.samsungxr.immersivepedia.props.TotemEventListener;
 import com.samsungxr.immersivepedia.util.AudioClip;
+import com.samsungxr.immersivepedia.util.KnownTextures;
 import com.samsungxr.immersivepedia.util.RenderingOrderApplication;
 import com.samsungxr.io.SXRTouchPadGestureListener.Action;
 
@@ -181,7 +182,7 @@ public class Gallery extends FocusableNode implements PhotoEventListener, TotemE
     }
 
     public Gallery(SXRContext sxrContext) {
-        super(sxrContext, GALLERY_WIDTH, GALLERY_HEIGHT, sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, R.drawable.empty_clickable)));
+        super(sxrContext, GALLERY_WIDTH, GALLERY_HEIGHT, KnownTextures.get(sxrContext).getEmptyClickable());
         this.sxrContext = sxrContext;
         this.getRenderData().setRenderingOrder(RenderingOrderApplication.GALLERY);
         this.setName("gallery");
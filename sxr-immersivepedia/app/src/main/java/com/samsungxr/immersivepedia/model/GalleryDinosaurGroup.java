@@ -29,6 +29,7 @@ import com.samsungxr.immersivepedia.focus.OnGestureListener;
 import com.samsungxr.immersivepedia.gallery.Gallery;
 import com.samsungxr.immersivepedia.props.Totem;
 import com.samsungxr.immersivepedia.util.AudioClip;
+import com.samsungxr.immersivepedia.util.KnownTextures;
 
 import java.io.IOException;
 
@@ -64,7 +65,8 @@ public class GalleryDinosaurGroup extends SXRNode {
     private void createFocus() {
 
         focus = new FocusableNode(sxrContext, sxrContext.createQuad(15f, 9f),
-                sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, R.drawable.empty)));
+                KnownTextures.get(sxrContext).getEmpty());
+        focus.setFocusable(false);
         focus.getTransform().setPosition(0f, 3.5f, DinosaurFactory.APATOSAURUS_DISTANCE - 0.01f);
         focus.getTransform().rotateByAxis(-180.0f, 0f, 1f, 0f);
         focus.attachCollider(new SXRMeshCollider(getSXRContext(), false));
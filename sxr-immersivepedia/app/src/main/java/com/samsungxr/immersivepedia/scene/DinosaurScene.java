@@ -33,7 +33,6 @@ import com.samsungxr.immersivepedia.model.GalleryDinosaurGroup;
 import com.samsungxr.immersivepedia.model.RotateDinosaurGroup;
 import com.samsungxr.immersivepedia.model.TextDinosaurGroup;
 import com.samsungxr.immersivepedia.model.VideoDinosaurGroup;
-import com.samsungxr.immersivepedia.util.FPSCounter;
 
 import java.io.IOException;
 
@@ -100,7 +99,6 @@ public class DinosaurScene extends SXRScene {
     }
 
     public void onStep() {
-        FPSCounter.tick();
         if (this.videoDinosaur != null) {
             this.videoDinosaur.onStep();
         }
@@ -32,6 +32,7 @@ import com.samsungxr.immersivepedia.focus.FocusListener;
 import com.samsungxr.immersivepedia.focus.FocusableNode;
 import com.samsungxr.immersivepedia.shader.MenuImageShader;
 import com.samsungxr.immersivepedia.util.AudioClip;
+import com.samsungxr.immersivepedia.util.KnownTextures;
 import com.samsungxr.immersivepedia.util.RenderingOrderApplication;
 import com.samsungxr.nodes.SXRTextViewNode;
 
@@ -73,7 +74,7 @@ public class MenuItem extends FocusableNode {
         attachRenderData(new SXRRenderData(sxrContext));
         getRenderData().setMaterial(new SXRMaterial(sxrContext));
         getRenderData().setMesh(sxrContext.createQuad(WIDTH, HEIGHT));
-        SXRTexture texture = sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, R.drawable.empty_clickable));
+        SXRTexture texture = KnownTextures.get(sxrContext).getEmptyClickable();
         getRenderData().getMaterial().setMainTexture(texture);
 
         frontObj = createNode(frontIdleRes, frontHoverRes);
@@ -0,0 +1,46 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.immersivepedia.util;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Measures how long click and swipe dispatch takes, logging the median
+ * and worst case every {@link #SAMPLES} events.
+ */
+public class ClickLatency {
+    private static final int SAMPLES = 32;
+    private static final long[] samples = new long[SAMPLES];
+    private static int count = 0;
+    private static long startNanos;
+
+    public static void begin() {
+        startNanos = System.nanoTime();
+    }
+
+    public static void end() {
+        samples[count++] = System.nanoTime() - startNanos;
+        if (count == SAMPLES) {
+            Arrays.sort(samples);
+            Log.v("test", "Click dispatch us : p50 " + samples[SAMPLES / 2] / 1000
+                    + " max " + samples[SAMPLES - 1] / 1000);
+            count = 0;
+        }
+    }
+
+}
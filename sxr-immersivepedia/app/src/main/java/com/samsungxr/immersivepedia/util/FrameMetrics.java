@@ -0,0 +1,314 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.immersivepedia.util;
+
+import android.os.Debug;
+import android.util.Log;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRDrawFrameListener;
+import com.samsungxr.SystemPropertyUtil;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Frame timing and allocation metrics for a demo, shared by the demos
+ * that used to keep their own FPS counter so they report comparable
+ * numbers.
+ * <p>
+ * The GL thread writes each frame's interval and CPU time into a ring
+ * buffer without locking. A reporter thread periodically takes the frames
+ * written since the last report and logs fps, p50/p95/p99 frame times,
+ * hitches, GCs and the allocation rate. Setting the debug.gearvrf.metrics
+ * property to a value containing "csv" also appends every report to
+ * frame_metrics.csv in the app's external files dir. A value containing
+ * "http" serves the latest report on localhost:8085, which can be reached
+ * with adb forward. Call {@link #detach()} when the activity goes away.
+ */
+public class FrameMetrics implements SXRDrawFrameListener {
+    private static final String TAG = "FrameMetrics";
+    private static final String PROPERTY = "debug.gearvrf.metrics";
+    private static final String CSV_FILE = "frame_metrics.csv";
+    private static final String CSV_HEADER = "time_ms,frames,fps,p50_ms,p95_ms,p99_ms,max_ms,"
+            + "cpu_p50_ms,cpu_p99_ms,hitches,gc_count,alloc_mb_per_s";
+    private static final int HTTP_PORT = 8085;
+    private static final int CAPACITY = 1024; // power of two
+    private static final long REPORT_INTERVAL_MS = 10000;
+    private static final float HITCH_MS = 25.0f;
+
+    private static final String STAT_GC_COUNT = "art.gc.gc-count";
+    private static final String STAT_BYTES_ALLOCATED = "art.gc.bytes-allocated";
+
+    // written only by the GL thread, published through mWritten
+    private final long[] mIntervals = new long[CAPACITY];
+    private final long[] mCpuTimes = new long[CAPACITY];
+    private volatile long mWritten;
+    private long mLastFrameTime;
+    private long mLastCpuTime;
+
+    // used only by the reporter thread
+    private final long[] mSortedIntervals = new long[CAPACITY];
+    private final long[] mSortedCpuTimes = new long[CAPACITY];
+    private long mReported;
+    private long mLastReportTime;
+    private long mLastGcCount;
+    private long mLastBytesAllocated;
+    private File mCsvFile;
+
+    private volatile String mLatestReport = CSV_HEADER + "\n";
+
+    private SXRContext mContext;
+    private Thread mReporter;
+    private ServerSocket mServerSocket;
+
+    private FrameMetrics() {
+    }
+
+    /**
+     * Starts collecting metrics for the frames drawn by the context.
+     */
+    public static FrameMetrics attach(SXRContext sxrContext) {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.mContext = sxrContext;
+        String exports = SystemPropertyUtil.getSystemPropertyString(PROPERTY);
+
+        if (exports != null && exports.contains("csv")) {
+            metrics.mCsvFile = new File(sxrContext.getActivity().getExternalFilesDir(null), CSV_FILE);
+            Log.i(TAG, "Writing frame metrics to " + metrics.mCsvFile);
+        }
+        if (exports != null && exports.contains("http")) {
+            metrics.startHttpServer();
+        }
+        metrics.startReporter();
+        sxrContext.registerDrawFrameListener(metrics);
+        return metrics;
+    }
+
+    /**
+     * Stops collecting metrics, the reporter and the HTTP server.
+     */
+    public void detach() {
+        mContext.unregisterDrawFrameListener(this);
+        mReporter.interrupt();
+        if (mServerSocket != null) {
+            try {
+                mServerSocket.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing frame metrics server", e);
+            }
+        }
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime) {
+        long now = System.nanoTime();
+        long cpuTime = Debug.threadCpuTimeNanos();
+
+        if (mLastFrameTime != 0) {
+            int slot = (int) (mWritten & (CAPACITY - 1));
+            mIntervals[slot] = now - mLastFrameTime;
+            mCpuTimes[slot] = cpuTime - mLastCpuTime;
+            mWritten = mWritten + 1;
+        }
+        mLastFrameTime = now;
+        mLastCpuTime = cpuTime;
+    }
+
+    /**
+     * @return the last report as CSV with a header line
+     */
+    public String getLatestReport() {
+        return mLatestReport;
+    }
+
+    private void startReporter() {
+        mLastReportTime = System.nanoTime();
+        mLastGcCount = readStat(STAT_GC_COUNT);
+        mLastBytesAllocated = readStat(STAT_BYTES_ALLOCATED);
+
+        mReporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(REPORT_INTERVAL_MS);
+                        report();
+                    }
+                } catch (InterruptedException e) {
+                    Log.d(TAG, "Reporter stopped");
+                }
+            }
+        }, TAG);
+        mReporter.setDaemon(true);
+        mReporter.start();
+    }
+
+    private void report() {
+        long written = mWritten;
+        long drawn = written - mReported;
+        // frames older than the ring were overwritten before we got to them,
+        // and the oldest slot is the one the GL thread is storing into now
+        long first = Math.max(mReported, written - CAPACITY + 1);
+        int count = (int) (written - first);
+
+        for (int i = 0; i < count; ++i) {
+            int slot = (int) ((first + i) & (CAPACITY - 1));
+            mSortedIntervals[i] = mIntervals[slot];
+            mSortedCpuTimes[i] = mCpuTimes[slot];
+        }
+        // the writer may have lapped the copy, drop what it overwrote
+        int skipped = (int) Math.max(0, mWritten - CAPACITY + 1 - first);
+        mReported = written;
+
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - mLastReportTime);
+        long gcCount = readStat(STAT_GC_COUNT);
+        long bytesAllocated = readStat(STAT_BYTES_ALLOCATED);
+        int hitches = 0;
+
+        for (int i = skipped; i < count; ++i) {
+            if (mSortedIntervals[i] / 1e6f > HITCH_MS) {
+                ++hitches;
+            }
+        }
+        Arrays.sort(mSortedIntervals, skipped, count);
+        Arrays.sort(mSortedCpuTimes, skipped, count);
+
+        String line = String.format("%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%d,%d,%.2f",
+                System.currentTimeMillis(), drawn, drawn * 1e9f / elapsed,
+                percentile(mSortedIntervals, skipped, count, 50),
+                percentile(mSortedIntervals, skipped, count, 95),
+                percentile(mSortedIntervals, skipped, count, 99),
+                percentile(mSortedIntervals, skipped, count, 100),
+                percentile(mSortedCpuTimes, skipped, count, 50),
+                percentile(mSortedCpuTimes, skipped, count, 99),
+                hitches,
+                gcCount < 0 ? -1 : gcCount - mLastGcCount,
+                bytesAllocated < 0 ? -1 : (bytesAllocated - mLastBytesAllocated)
+                        / (1024f * 1024f) * 1e9f / elapsed);
+
+        mLastReportTime = now;
+        mLastGcCount = gcCount;
+        mLastBytesAllocated = bytesAllocated;
+        mLatestReport = CSV_HEADER + "\n" + line + "\n";
+
+        Log.i(TAG, CSV_HEADER);
+        Log.i(TAG, line);
+        if (mCsvFile != null) {
+            appendCsv(line);
+        }
+    }
+
+    private void appendCsv(String line) {
+        boolean header = !mCsvFile.exists();
+        FileWriter writer = null;
+
+        try {
+            writer = new FileWriter(mCsvFile, true);
+            if (header) {
+                writer.write(CSV_HEADER + "\n");
+            }
+            writer.write(line + "\n");
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing " + mCsvFile, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error closing " + mCsvFile, e);
+                }
+            }
+        }
+    }
+
+    private void startHttpServer() {
+        // bound here rather than on the server thread, so detach() always has it to close
+        final ServerSocket serverSocket;
+        try {
+            serverSocket = new ServerSocket(HTTP_PORT, 4, InetAddress.getByName("127.0.0.1"));
+        } catch (IOException e) {
+            Log.e(TAG, "Can't serve frame metrics on localhost:" + HTTP_PORT, e);
+            return;
+        }
+        mServerSocket = serverSocket;
+        Log.i(TAG, "Serving frame metrics on localhost:" + HTTP_PORT);
+
+        Thread server = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+                        try {
+                            byte[] body = mLatestReport.getBytes("UTF-8");
+                            OutputStream out = socket.getOutputStream();
+                            out.write(("HTTP/1.0 200 OK\r\nContent-Type: text/csv\r\nContent-Length: "
+                                    + body.length + "\r\n\r\n").getBytes("UTF-8"));
+                            out.write(body);
+                            out.flush();
+                        } finally {
+                            socket.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    if (serverSocket.isClosed()) {
+                        Log.d(TAG, "Frame metrics server stopped");
+                    } else {
+                        Log.e(TAG, "Frame metrics server stopped", e);
+                    }
+                } finally {
+                    try {
+                        serverSocket.close();
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error closing frame metrics server", e);
+                    }
+                }
+            }
+        }, TAG + "Http");
+        server.setDaemon(true);
+        server.start();
+    }
+
+    private static float percentile(long[] sorted, int from, int to, float percentile) {
+        int count = to - from;
+        if (count <= 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[from + Math.max(0, Math.min(index, count - 1))] / 1e6f;
+    }
+
+    private static long readStat(String name) {
+        // Runtime stats are available since Android M
+        String value = Debug.getRuntimeStat(name);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
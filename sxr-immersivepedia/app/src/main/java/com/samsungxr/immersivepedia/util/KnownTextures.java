@@ -0,0 +1,70 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.immersivepedia.util;
+
+import com.samsungxr.SXRAndroidResource;
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRTexture;
+import com.samsungxr.immersivepedia.R;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Textures used all over the app, loaded once per context so callers
+ * share the same instance and can compare them by identity.
+ */
+public final class KnownTextures {
+
+    private static final Map<SXRContext, KnownTextures> instances = new WeakHashMap<SXRContext, KnownTextures>();
+
+    private final SXRContext sxrContext;
+    private SXRTexture empty;
+    private SXRTexture emptyClickable;
+
+    private KnownTextures(SXRContext sxrContext) {
+        this.sxrContext = sxrContext;
+    }
+
+    public static KnownTextures get(SXRContext sxrContext) {
+        synchronized (instances) {
+            KnownTextures textures = instances.get(sxrContext);
+            if (textures == null) {
+                textures = new KnownTextures(sxrContext);
+                instances.put(sxrContext, textures);
+            }
+            return textures;
+        }
+    }
+
+    public synchronized SXRTexture getEmpty() {
+        if (empty == null) {
+            empty = load(R.drawable.empty);
+        }
+        return empty;
+    }
+
+    public synchronized SXRTexture getEmptyClickable() {
+        if (emptyClickable == null) {
+            emptyClickable = load(R.drawable.empty_clickable);
+        }
+        return emptyClickable;
+    }
+
+    private SXRTexture load(int resourceId) {
+        return sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, resourceId));
+    }
+}
@@ -27,6 +27,7 @@ import com.samsungxr.immersivepedia.R;
 import com.samsungxr.immersivepedia.focus.FocusListener;
 import com.samsungxr.immersivepedia.focus.FocusableNode;
 import com.samsungxr.immersivepedia.focus.OnClickListener;
+import com.samsungxr.immersivepedia.util.KnownTextures;
 import com.samsungxr.nodes.SXRVideoNode;
 import com.samsungxr.nodes.SXRVideoNode.SXRVideoType;
 
@@ -72,8 +73,7 @@ public class VideoComponent extends SXRNode {
 
     private void createButtonBoard() {
         buttonBoard = new ButtonBoard(sxrContext, 1.7f, .4f,
-                sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext.getActivity(),
-                        R.drawable.empty)), this);
+                KnownTextures.get(sxrContext).getEmpty(), this);
         buttonBoard.getTransform().setPosition(0f, 0f, video.getTransform().getPositionZ() + 0.1f);
         addChildObject(buttonBoard);
     }
@@ -82,8 +82,7 @@ public class VideoComponent extends SXRNode {
 
         mediaPlayer = MediaPlayer.create(sxrContext.getContext(), R.raw.dinos_videos_wip);
         video = new SXRVideoNode(sxrContext, WIDTH, HEIGHT, mediaPlayer, SXRVideoType.MONO);
-        focus = new FocusableNode(sxrContext, WIDTH, HEIGHT, sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext,
-                R.drawable.empty_clickable)));
+        focus = new FocusableNode(sxrContext, WIDTH, HEIGHT, KnownTextures.get(sxrContext).getEmptyClickable());
         focus.attachCollider(new SXRMeshCollider(sxrContext, false));
         focus.setName("video");
         focus.focusListener = new FocusListener() {
@@ -16,19 +16,17 @@
 package com.samsungxr.keyboard.keyboard.model;
 
 import android.graphics.Color;
-import android.graphics.Paint;
 
-import com.samsungxr.SXRAndroidResource;
-import com.samsungxr.SXRBitmapImage;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRMaterial;
 import com.samsungxr.SXRMesh;
 import com.samsungxr.SXRRenderData;
 import com.samsungxr.SXRNode;
-import com.samsungxr.SXRShaderId;
-import com.samsungxr.SXRTexture;
 import com.samsungxr.keyboard.model.KeyboardCharItem;
 import com.samsungxr.keyboard.shader.TransparentButtonShaderThreeStates;
+import com.samsungxr.keyboard.textField.Text;
+import com.samsungxr.keyboard.util.AssetCache;
+import com.samsungxr.keyboard.util.GlyphAtlas;
 import com.samsungxr.keyboard.util.SXRTextBitmapFactory;
 import com.samsungxr.keyboard.util.RenderingOrder;
 import com.samsungxr.keyboard.util.NodeNames;
@@ -65,7 +63,8 @@ public abstract class KeyboardItemBase extends SXRNode {
                 Util.convertPixelToVRFloatValue(styleItem.getSizeQuadWidth()),
                 Util.convertPixelToVRFloatValue(styleItem.getSizeQuadHeight()));
 
-        SXRMaterial mat = new SXRMaterial(getSXRContext(), new SXRShaderId(TransparentButtonShaderThreeStates.class));//dif.getShaderId());
+        SXRMaterial mat = new SXRMaterial(getSXRContext(), AssetCache.getInstance(getSXRContext())
+                .getShaderId(TransparentButtonShaderThreeStates.class));//dif.getShaderId());
         renderData.setMesh(mesh);
         renderData.setMaterial(mat);
 
@@ -79,15 +78,9 @@ public abstract class KeyboardItemBase extends SXRNode {
 
     public void configureTextures() {
 
-        getRenderData().getMaterial().setTexture(
-                TransparentButtonShaderThreeStates.TEXTURE_KEY,
-                getSXRContext().getAssetLoader().loadTexture(
-                        new SXRAndroidResource(getSXRContext(), styleItem.getTexture())));
-
-        getRenderData().getMaterial().setTexture(
-                TransparentButtonShaderThreeStates.TEXTURE_HOVER_KEY,
-                getSXRContext().getAssetLoader().loadTexture(
-                        new SXRAndroidResource(getSXRContext(), styleItem.getTextureHover())));
+        setCachedTexture(TransparentButtonShaderThreeStates.TEXTURE_KEY, styleItem.getTexture());
+        setCachedTexture(TransparentButtonShaderThreeStates.TEXTURE_HOVER_KEY,
+                styleItem.getTextureHover());
 
         getRenderData().getMaterial().setFloat(TransparentButtonShaderThreeStates.TEXTURE_SWITCH,
                 0.0f);
@@ -95,38 +88,51 @@ public abstract class KeyboardItemBase extends SXRNode {
 
     protected void setTextureFromResource(String shaderKey, int resource) {
 
-        getRenderData().getMaterial().setTexture(shaderKey,
-                getSXRContext().getAssetLoader().loadTexture(new SXRAndroidResource(getSXRContext(), resource)));
+        setCachedTexture(shaderKey, resource);
+        getRenderData().getMaterial().setVec4(
+                shaderKey + TransparentButtonShaderThreeStates.RECT_SUFFIX, 0, 0, 1, 1);
+    }
+
+    private void setCachedTexture(String shaderKey, int resource) {
+        AssetCache assetCache = AssetCache.getInstance(getSXRContext());
+        SXRMaterial material = getRenderData().getMaterial();
+
+        // the previous texture may be an atlas page, which release ignores
+        if (material.hasTexture(shaderKey)) {
+            assetCache.release(material.getTexture(shaderKey));
+        }
+        material.setTexture(shaderKey, assetCache.acquireTexture(resource));
     }
 
     public void setNomalTexture(String character, String ShaderKey) {
 
-        SXRBitmapImage bitmapNormal = new SXRBitmapImage(getSXRContext(),
-                SXRTextBitmapFactory.create(
-                        styleItem.getCharacterBackgroundWidth(),
-                        styleItem.getCharacterBackgroundHeight(), character, styleItem
-                                .getFontSize(), Paint.Align.CENTER,
-                        styleItem.getColorText(), Color.argb(0, 0, 0, 0), getSXRContext()
-                                .getContext().getApplicationContext()));
-
-        SXRTexture texture = new SXRTexture(getSXRContext());
-        texture.setImage(bitmapNormal);
-        getRenderData().getMaterial().setTexture(ShaderKey, texture);
+        Text text = new Text();
+        text.textSize = styleItem.getFontSize();
+        text.textColor = styleItem.getColorText();
+        text.backgroundColor = Color.argb(0, 0, 0, 0);
+        setGlyphTexture(character, text, ShaderKey);
     }
 
     public void setHoverTexture(String character, String ShaderKey) {
 
-        SXRBitmapImage bitmapHover = new SXRBitmapImage(getSXRContext(),
-                SXRTextBitmapFactory.create(
-                        styleItem.getCharacterBackgroundWidth(),
-                        styleItem.getCharacterBackgroundHeight(), character,
-                        styleItem.getFontSize(), Paint.Align.CENTER,
-                        styleItem.getHoverTextColor(), styleItem.getColorBackgroundTextHover(),
-                        getSXRContext().getContext().getApplicationContext()));
-
-        SXRTexture texture = new SXRTexture(getSXRContext());
-        texture.setImage(bitmapHover);
-        getRenderData().getMaterial().setTexture(ShaderKey, texture);
+        Text text = new Text();
+        text.textSize = styleItem.getFontSize();
+        text.textColor = styleItem.getHoverTextColor();
+        text.backgroundColor = styleItem.getColorBackgroundTextHover();
+        setGlyphTexture(character, text, ShaderKey);
+    }
+
+    private void setGlyphTexture(String character, Text text, String shaderKey) {
+
+        GlyphAtlas.Glyph glyph = GlyphAtlas.get(getSXRContext(),
+                (int) styleItem.getCharacterBackgroundWidth(),
+                (int) styleItem.getCharacterBackgroundHeight())
+                .getGlyph(character, text, SXRTextBitmapFactory.Painter.KEY);
+
+        SXRMaterial material = getRenderData().getMaterial();
+        material.setTexture(shaderKey, glyph.texture);
+        material.setVec4(shaderKey + TransparentButtonShaderThreeStates.RECT_SUFFIX,
+                glyph.u, glyph.v, glyph.width, glyph.height);
     }
 
     public KeyboardCharItem getKeyboardCharItem() {
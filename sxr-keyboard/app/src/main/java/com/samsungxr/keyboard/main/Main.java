@@ -16,6 +16,7 @@
 package com.samsungxr.keyboard.main;
 
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.MotionEvent;
 
 import com.samsungxr.SXRAndroidResource;
@@ -28,7 +29,6 @@ import com.samsungxr.SXRPicker;
 import com.samsungxr.SXRRenderData;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRMain;
-import com.samsungxr.SXRShaderId;
 import com.samsungxr.SXRSphereCollider;
 import com.samsungxr.SXRTexture;
 import com.samsungxr.SXRTransform;
@@ -54,6 +54,7 @@ import com.samsungxr.keyboard.speech.SoundWave;
 import com.samsungxr.keyboard.spinner.Spinner;
 import com.samsungxr.keyboard.spinner.SpinnerItemFactory;
 import com.samsungxr.keyboard.textField.TextField;
+import com.samsungxr.keyboard.util.AssetCache;
 import com.samsungxr.keyboard.util.Constants;
 import com.samsungxr.keyboard.util.InteractiveText;
 import com.samsungxr.keyboard.util.RenderingOrder;
@@ -69,6 +70,8 @@ import java.util.Vector;
 
 public class Main extends SXRMain implements KeyboardEventListener {
 
+    private static final String TAG = "KeyboardMain";
+
     private SXRContext mSXRContext;
     private boolean isFirstTime = true;
     private SphereStaticList flagListCostructor;
@@ -131,6 +134,7 @@ public class Main extends SXRMain implements KeyboardEventListener {
     @Override
     public void onInit(SXRContext sxrContext) {
 
+        long initStart = System.nanoTime();
         mSXRContext = sxrContext;
 
         SpinnerItemFactory.getInstance(sxrContext).init();
@@ -172,11 +176,13 @@ public class Main extends SXRMain implements KeyboardEventListener {
         configureKeyboardParent();
 
         flagListCostructor = new SphereStaticList(sxrContext);
+        AssetCache assetCache = AssetCache.getInstance(sxrContext);
 
         SXRCameraRig cameraObject = sxrContext.getMainScene()
                 .getMainCameraRig();
         for (SXRNode spherePack : flagListCostructor.listFlag) {
-            spherePack.getRenderData().setMaterial(new SXRMaterial(sxrContext, new SXRShaderId(SphereShader.class)));
+            spherePack.getRenderData().setMaterial(new SXRMaterial(sxrContext,
+                    assetCache.getShaderId(SphereShader.class)));
             rotateObject(spherePack, cameraObject.getTransform());
 
             double distance = Util.distance(spherePack, sxrContext
@@ -195,6 +201,9 @@ public class Main extends SXRMain implements KeyboardEventListener {
         sxrContext.getMainScene().getEventReceiver().addListener(mPickHandler);
         mPicker = new SXRPicker(sxrContext, sxrContext.getMainScene());
         createAndAttachAllEyePointee();
+
+        Log.d(TAG, "Scene created in " + (System.nanoTime() - initStart) / 1000000 + " ms, "
+                + assetCache);
     }
 
     public void createSpinnerInvisible() {
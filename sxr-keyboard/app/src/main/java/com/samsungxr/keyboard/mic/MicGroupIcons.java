@@ -15,11 +15,12 @@
 
 package com.samsungxr.keyboard.mic;
 
-import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRContext;
+import com.samsungxr.SXRMaterial;
 import com.samsungxr.SXRNode;
 import com.samsungxr.keyboard.R;
 import com.samsungxr.keyboard.mic.model.MicItem;
+import com.samsungxr.keyboard.util.AssetCache;
 import com.samsungxr.keyboard.util.RenderingOrder;
 import com.samsungxr.keyboard.util.NodeNames;
 
@@ -50,12 +51,11 @@ public class MicGroupIcons extends SXRNode {
 
                 @Override
                 public void run() {
-                    mIcon.getRenderData()
-                            .getMaterial()
-                            .setMainTexture(
-                                    MicGroupIcons.this.getSXRContext().getAssetLoader().loadTexture(
-                                            new SXRAndroidResource(MicGroupIcons.this
-                                                    .getSXRContext(), res)));
+                    AssetCache assetCache = AssetCache.getInstance(getSXRContext());
+                    SXRMaterial material = mIcon.getRenderData().getMaterial();
+
+                    assetCache.release(material.getMainTexture());
+                    material.setMainTexture(assetCache.acquireTexture(res));
                 }
 
             });
@@ -15,9 +15,9 @@
 
 package com.samsungxr.keyboard.mic.model;
 
-import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRNode;
+import com.samsungxr.keyboard.util.AssetCache;
 import com.samsungxr.keyboard.util.NodeNames;
 
 public class MicItem extends SXRNode {
@@ -27,8 +27,8 @@ public class MicItem extends SXRNode {
 
     public MicItem(SXRContext sxrContext, int gVRAndroidResourceTexture) {
 
-        super(sxrContext, HIGHT, WIDTH, sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext,
-                gVRAndroidResourceTexture)));
+        super(sxrContext, HIGHT, WIDTH, AssetCache.getInstance(sxrContext).acquireTexture(
+                gVRAndroidResourceTexture));
         setName(NodeNames.MIC_ITEM);
 
     }
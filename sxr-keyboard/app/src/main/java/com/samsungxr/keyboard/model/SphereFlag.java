@@ -19,13 +19,11 @@ import android.content.res.Resources;
 import android.content.res.TypedArray;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRCameraRig;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRMaterial;
 import com.samsungxr.SXRRenderData;
 import com.samsungxr.SXRNode;
-import com.samsungxr.SXRShaderId;
 import com.samsungxr.SXRTexture;
 import com.samsungxr.animation.SXRAnimation;
 import com.samsungxr.animation.SXROnFinish;
@@ -38,6 +36,7 @@ import com.samsungxr.keyboard.interpolator.InterpolatorExpoEaseInOut;
 import com.samsungxr.keyboard.interpolator.InterpolatorExpoEaseOut;
 import com.samsungxr.keyboard.shader.SXRShaderAnimation;
 import com.samsungxr.keyboard.shader.SphereShader;
+import com.samsungxr.keyboard.util.AssetCache;
 import com.samsungxr.keyboard.util.Constants;
 import com.samsungxr.keyboard.util.NodeNames;
 import com.samsungxr.keyboard.util.Util;
@@ -66,12 +65,16 @@ public class SphereFlag extends SXRNode {
 
     private boolean moveTogetherDashboard = false;
     private SXRContext sxrContext;
+    private AssetCache assetCache;
+    private SXRTexture checkTexture;
+    private SXRTexture errorTexture;
 
     public SphereFlag(SXRContext sxrContext, TypedArray sphere) {
         super(sxrContext);
         setName(NodeNames.SPHERE_FLAG);
 
         this.sxrContext = sxrContext;
+        this.assetCache = AssetCache.getInstance(sxrContext);
 
         initSphere(sphere);
 
@@ -127,19 +130,20 @@ public class SphereFlag extends SXRNode {
     }
 
     private SXRMaterial getMaterial() {
-        SXRMaterial material = new SXRMaterial(sxrContext, new SXRShaderId(SphereShader.class));
-        material.setTexture(SphereShader.TEXTURE_KEY,
-                sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, mTexture)));
+        checkTexture = assetCache.acquireTexture(mResultTexture);
+        errorTexture = assetCache.acquireTexture(R.drawable.error);
+
+        SXRMaterial material = new SXRMaterial(sxrContext,
+                assetCache.getShaderId(SphereShader.class));
+        material.setTexture(SphereShader.TEXTURE_KEY, assetCache.acquireTexture(mTexture));
         material.setFloat("blur", 0);
         material.setFloat(SphereShader.ANIM_TEXTURE, 0.0f);
-        material.setTexture(SphereShader.SECUNDARY_TEXTURE_KEY,
-                sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext, mResultTexture)));
+        material.setTexture(SphereShader.SECUNDARY_TEXTURE_KEY, checkTexture);
         material.setVec3(SphereShader.TRANSITION_COLOR, 1, 1, 1);
         material.setVec3(SphereShader.EYE_KEY, 0, 0, 0);
 
         // Light config
-        SXRTexture hdriTexture = sxrContext.getAssetLoader().loadTexture(new SXRAndroidResource(sxrContext,
-                R.drawable.hdri_reflex));
+        SXRTexture hdriTexture = assetCache.acquireTexture(R.drawable.hdri_reflex);
         material.setTexture(SphereShader.HDRI_TEXTURE_KEY, hdriTexture);
 
         return material;
@@ -147,8 +151,7 @@ public class SphereFlag extends SXRNode {
 
     private SXRRenderData getRenderData(SXRMaterial material) {
         SXRRenderData renderData = new SXRRenderData(sxrContext);
-        renderData.setMesh(sxrContext.getAssetLoader().loadMesh(new SXRAndroidResource(sxrContext,
-                R.raw.sphere_uv_flag)));
+        renderData.setMesh(assetCache.acquireMesh(R.raw.sphere_uv_flag));
         renderData.setMaterial(material);
         renderData.setRenderingOrder(100);
         renderData.setAlphaBlend(true);
@@ -322,18 +325,14 @@ public class SphereFlag extends SXRNode {
                     getRenderData().getMaterial().setVec3(SphereShader.TRANSITION_COLOR, 0.2f,
                             0.675f, 0.443f);
                     getRenderData().getMaterial().setTexture(
-                            SphereShader.SECUNDARY_TEXTURE_KEY,
-                            getSXRContext().getAssetLoader().loadTexture(
-                                    new SXRAndroidResource(getSXRContext(), R.drawable.check)));
+                            SphereShader.SECUNDARY_TEXTURE_KEY, checkTexture);
                 } else {
 
                     AudioClip.getInstance(getSXRContext().getContext()).playSound(
                             AudioClip.getWrongSoundID(), 1.0f, 1.0f);
                     getRenderData().getMaterial().setVec3(SphereShader.TRANSITION_COLOR, 1, 0, 0);
                     getRenderData().getMaterial().setTexture(
-                            SphereShader.SECUNDARY_TEXTURE_KEY,
-                            getSXRContext().getAssetLoader().loadTexture(
-                                    new SXRAndroidResource(getSXRContext(), R.drawable.error)));
+                            SphereShader.SECUNDARY_TEXTURE_KEY, errorTexture);
                 }
             }
         });
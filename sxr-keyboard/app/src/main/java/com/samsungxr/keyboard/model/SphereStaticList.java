@@ -19,11 +19,11 @@ import android.content.res.Resources;
 import android.content.res.TypedArray;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRNode;
 import com.samsungxr.keyboard.R;
 import com.samsungxr.keyboard.shader.SphereShader;
+import com.samsungxr.keyboard.util.AssetCache;
 import com.samsungxr.keyboard.util.NodeNames;
 
 import java.util.ArrayList;
@@ -84,6 +84,7 @@ public class SphereStaticList {
         listFlag = new ArrayList<SXRNode>();
         Resources res = sxrContext.getContext().getResources();
         TypedArray spheres = res.obtainTypedArray(array);
+        AssetCache assetCache = AssetCache.getInstance(sxrContext);
 
         for (int i = 0; i < spheres.length(); i++) {
             int type = spheres.getResourceId(i, -1);
@@ -91,9 +92,9 @@ public class SphereStaticList {
             SphereFlag objectSphere = new SphereFlag(sxrContext, sphere);
             Vector3D parentPosition = objectSphere.getInitialPositionVector();
 
-            SXRNode parent = new SXRNode(sxrContext, new SXRAndroidResource(
-                    sxrContext, R.raw.hit_area_half), new SXRAndroidResource(sxrContext,
-                    R.raw.empty));
+            SXRNode parent = new SXRNode(sxrContext,
+                    assetCache.acquireMesh(R.raw.hit_area_half),
+                    assetCache.acquireTexture(R.raw.empty));
             parent.setName(NodeNames.SPHERE_FLAG_PARENT);
             parent.getTransform().setPosition((float) parentPosition.getX(),
                     (float) parentPosition.getY(), (float) parentPosition.getZ());
@@ -33,9 +33,21 @@ public class TransparentButtonShaderThreeStates extends SXRShader {
     public static final String TEXTURE_TEXT_SPECIAL_KEY = "textSpecialTexture";
     public static final String TEXTURE_TEXT_HOVER_SPECIAL_KEY = "textHoverSpecialTexture";
 
+    /**
+     * Suffix of the float4 uniform (u, v, width, height) holding the part of
+     * a text texture to sample, so the text can come from a glyph atlas page.
+     */
+    public static final String RECT_SUFFIX = "Rect";
+
     public static final String TEXTURE_SWITCH = "textureSwitch";
     public static final String OPACITY = "u_opacity";
 
+    public static final String[] TEXT_KEYS = {
+            TEXTURE_TEXT_KEY, TEXTURE_TEXT_HOVER_KEY,
+            TEXTURE_TEXT_UPPER_KEY, TEXTURE_TEXT_HOVER_UPPER_KEY,
+            TEXTURE_TEXT_SPECIAL_KEY, TEXTURE_TEXT_HOVER_SPECIAL_KEY
+    };
+
     private static final String VERTEX_SHADER = "" //
             + "#extension GL_ARB_separate_shader_objects : enable\n"
             + "#extension GL_ARB_shading_language_420pack : enable\n"
@@ -74,27 +86,27 @@ public class TransparentButtonShaderThreeStates extends SXRShader {
             + "  vec4 color = texture(texture_t, coord);\n"
             + "  vec4 text = vec4(0.0, 0.0, 0.0, 1.0);\n"
             + " if(textureSwitch == 0.0){"
-            + "  text = texture("+ TEXTURE_TEXT_KEY + ", coord);\n"
+            + "  text = texture("+ TEXTURE_TEXT_KEY + ", "+ TEXTURE_TEXT_KEY + RECT_SUFFIX + ".xy + coord * "+ TEXTURE_TEXT_KEY + RECT_SUFFIX + ".zw);\n"
             + "  color = texture("+ TEXTURE_KEY + ", coord);\n"
             + " }"
             + " if(textureSwitch == 1.0){"
-            + "  text = texture("+ TEXTURE_TEXT_HOVER_KEY + ", coord);\n"
+            + "  text = texture("+ TEXTURE_TEXT_HOVER_KEY + ", "+ TEXTURE_TEXT_HOVER_KEY + RECT_SUFFIX + ".xy + coord * "+ TEXTURE_TEXT_HOVER_KEY + RECT_SUFFIX + ".zw);\n"
             + "  color = texture("+ TEXTURE_HOVER_KEY + ", coord);\n"
             + " }"
             + " if(textureSwitch == 2.0){"
-            + "  text = texture("+ TEXTURE_TEXT_UPPER_KEY + ", coord);\n"
+            + "  text = texture("+ TEXTURE_TEXT_UPPER_KEY + ", "+ TEXTURE_TEXT_UPPER_KEY + RECT_SUFFIX + ".xy + coord * "+ TEXTURE_TEXT_UPPER_KEY + RECT_SUFFIX + ".zw);\n"
             + "  color = texture(" + TEXTURE_KEY + ", coord);\n"
             + " }"
             + " if(textureSwitch == 3.0){"
-            + "  text = texture("+ TEXTURE_TEXT_HOVER_UPPER_KEY + ", coord);\n"
+            + "  text = texture("+ TEXTURE_TEXT_HOVER_UPPER_KEY + ", "+ TEXTURE_TEXT_HOVER_UPPER_KEY + RECT_SUFFIX + ".xy + coord * "+ TEXTURE_TEXT_HOVER_UPPER_KEY + RECT_SUFFIX + ".zw);\n"
             + "  color = texture("+ TEXTURE_HOVER_KEY + ", coord);\n"
             + " }"
             + " if(textureSwitch == 4.0){"
-            + "  text = texture("+ TEXTURE_TEXT_SPECIAL_KEY + ", coord);\n"
+            + "  text = texture("+ TEXTURE_TEXT_SPECIAL_KEY + ", "+ TEXTURE_TEXT_SPECIAL_KEY + RECT_SUFFIX + ".xy + coord * "+ TEXTURE_TEXT_SPECIAL_KEY + RECT_SUFFIX + ".zw);\n"
             + "  color = texture("+ TEXTURE_KEY + ", coord);\n"
             + " }"
             + " if(textureSwitch == 5.0){"
-            + "  text = texture("+ TEXTURE_TEXT_HOVER_SPECIAL_KEY + ", coord);\n"
+            + "  text = texture("+ TEXTURE_TEXT_HOVER_SPECIAL_KEY + ", "+ TEXTURE_TEXT_HOVER_SPECIAL_KEY + RECT_SUFFIX + ".xy + coord * "+ TEXTURE_TEXT_HOVER_SPECIAL_KEY + RECT_SUFFIX + ".zw);\n"
             + "  color = texture("+ TEXTURE_HOVER_KEY + ", coord);\n"
             + " }"
             + "  color = color + text;\n"
@@ -104,7 +116,9 @@ public class TransparentButtonShaderThreeStates extends SXRShader {
 
 
     public TransparentButtonShaderThreeStates(SXRContext sxrContext) {
-        super(" float u_opacity, float textureSwitch",
+        super(" float u_opacity, float textureSwitch, float4 textTextureRect, float4 textHoverTextureRect,"
+                + " float4 textUpperTextureRect, float4 textHoverUpperTextureRect,"
+                + " float4 textSpecialTextureRect, float4 textHoverSpecialTextureRect",
                 "sampler2D texture_t sampler2D textureHover sampler2D textTexture sampler2D textHoverTexture sampler2D textUpperTexture sampler2D textHoverUpperTexture sampler2D textSpecialTexture sampler2D textHoverSpecialTexture",
                 "float3 a_position, float2 a_texcoord", GLSLESVersion.VULKAN);
         setSegment("FragmentTemplate", FRAGMENT_SHADER);
@@ -115,6 +129,9 @@ public class TransparentButtonShaderThreeStates extends SXRShader {
     {
         material.setFloat("u_opacity", 1);
         material.setFloat("textureSwitch", 0);
+        for (String key : TEXT_KEYS) {
+            material.setVec4(key + RECT_SUFFIX, 0, 0, 1, 1);
+        }
     }
 
 }
@@ -17,11 +17,11 @@ package com.samsungxr.keyboard.speech;
 
 import android.graphics.Color;
 
-import com.samsungxr.SXRAndroidResource;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRNode;
 import com.samsungxr.keyboard.R;
 import com.samsungxr.keyboard.mic.RecognitionRmsChangeListener;
+import com.samsungxr.keyboard.util.AssetCache;
 import com.samsungxr.keyboard.util.Constants;
 import com.samsungxr.keyboard.util.RenderingOrder;
 import com.samsungxr.keyboard.util.NodeNames;
@@ -82,7 +82,7 @@ public class SoundWave extends SXRNode implements RecognitionRmsChangeListener {
                 context,
                 0.1f,
                 0.1f,
-                context.getAssetLoader().loadTexture(new SXRAndroidResource(context, R.drawable.soundwave_wave_block)));
+                AssetCache.getInstance(context).acquireTexture(R.drawable.soundwave_wave_block));
         box1.getRenderData().getMaterial().setColor(color);
         box1.getRenderData().getMaterial().setOpacity(1);
         box1.getRenderData().setRenderingOrder(RenderingOrder.KEYBOARD_SOUND_WAVE);
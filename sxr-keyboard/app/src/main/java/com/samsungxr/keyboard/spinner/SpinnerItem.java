@@ -15,17 +15,12 @@
 
 package com.samsungxr.keyboard.spinner;
 
-import com.samsungxr.SXRBitmapImage;
 import com.samsungxr.SXRContext;
-import com.samsungxr.SXRTexture;
 import com.samsungxr.keyboard.textField.Text;
 import com.samsungxr.keyboard.textField.TextFieldItem;
-import com.samsungxr.keyboard.util.SXRTextBitmapFactory;
 
 public class SpinnerItem extends TextFieldItem {
 
-    private boolean cacheTestOn = true;
-
     public SpinnerItem(SXRContext sxrContext, float sceneObjectWidth, float sceneObjectHeigth,
             int bitmapWidth, int bitmapHeigth, int position,
             Text text) {
@@ -36,23 +31,11 @@ public class SpinnerItem extends TextFieldItem {
 
     @Override
     public void updateText(SXRContext context) {
-        if (cacheTestOn) {
-
-            if (null != charItem) {
-                SXRBitmapImage tex = new SXRBitmapImage(context, SpinnerItemFactory.getInstance(
-                        getSXRContext()).getBitmap(charItem.getMode(),
-                        charItem.getPosition()));
-                SXRTexture texture = new SXRTexture(getSXRContext());
-                texture.setImage(tex);
-                getRenderData().getMaterial().setMainTexture(texture);
-            }
-
+        if (null != charItem) {
+            showGlyph(SpinnerItemFactory.getInstance(getSXRContext()).getGlyph(
+                    charItem.getMode(), charItem.getPosition()));
         } else {
-            SXRBitmapImage tex = new SXRBitmapImage(context, SXRTextBitmapFactory.create(
-                    context.getContext(), width, height, currentText, 0));
-            SXRTexture texture = new SXRTexture(getSXRContext());
-            texture.setImage(tex);
-            getRenderData().getMaterial().setMainTexture(texture);
+            super.updateText(context);
         }
     }
 
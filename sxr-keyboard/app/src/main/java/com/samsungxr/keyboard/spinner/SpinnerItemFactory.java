@@ -15,29 +15,40 @@
 
 package com.samsungxr.keyboard.spinner;
 
-import android.graphics.Bitmap;
 import android.graphics.Color;
 
 import com.samsungxr.SXRContext;
 import com.samsungxr.keyboard.keyboard.numeric.Keyboard;
 import com.samsungxr.keyboard.model.CharList;
 import com.samsungxr.keyboard.textField.Text;
-import com.samsungxr.keyboard.util.SXRTextBitmapFactory;
+import com.samsungxr.keyboard.util.GlyphAtlas;
+import com.samsungxr.keyboard.util.SXRTextBitmapFactory.Painter;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class SpinnerItemFactory {
 
+    private static final int BITMAP_WIDTH = 45;
+    private static final int BITMAP_HEIGHT = 72;
+
     private static SpinnerItemFactory instance;
-    private List<Bitmap> numericBitmapList = new ArrayList<Bitmap>();
-    private List<Bitmap> alphaLowerBitmapList = new ArrayList<Bitmap>();
-    private List<Bitmap> alphaUpperBitmapList = new ArrayList<Bitmap>();
-    private List<Bitmap> specialBitmapList = new ArrayList<Bitmap>();
+    private List<String> numericList = new ArrayList<String>();
+    private List<String> alphaLowerList = new ArrayList<String>();
+    private List<String> alphaUpperList = new ArrayList<String>();
+    private List<String> specialList = new ArrayList<String>();
     private SXRContext sxrContext;
+    private GlyphAtlas atlas;
+    private Text style;
 
     public SpinnerItemFactory(SXRContext sxrContext) {
         this.sxrContext = sxrContext;
+        this.atlas = GlyphAtlas.get(sxrContext, BITMAP_WIDTH, BITMAP_HEIGHT);
+
+        style = new Text();
+        style.textSize = 75;
+        // style.backgroundColor = Color.BLACK;
+        style.backgroundColor = Color.parseColor("#00204d");
     }
 
     public static synchronized SpinnerItemFactory getInstance(SXRContext sxrContext) {
@@ -49,72 +60,44 @@ public class SpinnerItemFactory {
         return instance;
     }
 
-    private Bitmap createSpinnerItem(String spinnerText) {
-
-        int bitmapWidth = 45;
-        int bitmapHeigth = 72;
-
-        Text text = new Text();
-        text.textSize = 75;
-        // text.backgroundColor = Color.BLACK;
-        text.backgroundColor = Color.parseColor("#00204d");
-        text.text = spinnerText;
-
-        return SXRTextBitmapFactory.create(sxrContext.getContext(), bitmapWidth, bitmapHeigth,
-                text, 0);
-    }
-
     public void init() {
 
-        for (int i = 0; i < CharList.getInstance(sxrContext)
-                .getList(Keyboard.SOFT_KEYBOARD_LOWERCASE).size(); i++) {
-            alphaLowerBitmapList
-                    .add(createSpinnerItem(CharList.getInstance(sxrContext)
-                            .getList(Keyboard.SOFT_KEYBOARD_LOWERCASE).get(i)));
-
-        }
+        CharList charList = CharList.getInstance(sxrContext);
 
-        for (int i = 0; i < CharList.getInstance(sxrContext)
-                .getList(Keyboard.SOFT_KEYBOARD_UPPERCASE).size(); i++) {
-            alphaUpperBitmapList.add(createSpinnerItem(CharList.getInstance(sxrContext)
-                    .getList(Keyboard.SOFT_KEYBOARD_UPPERCASE).get(i)
-                    .toUpperCase()));
-        }
+        alphaLowerList.addAll(charList.getList(Keyboard.SOFT_KEYBOARD_LOWERCASE));
 
-        for (int i = 0; i < CharList.getInstance(sxrContext).getList(Keyboard.NUMERIC_KEYBOARD)
-                .size(); i++) {
-            numericBitmapList.add(createSpinnerItem(CharList.getInstance(sxrContext)
-                    .getList(Keyboard.NUMERIC_KEYBOARD).get(i)));
+        for (String character : charList.getList(Keyboard.SOFT_KEYBOARD_UPPERCASE)) {
+            alphaUpperList.add(character.toUpperCase());
         }
 
-        for (int i = 0; i < CharList.getInstance(sxrContext)
-                .getList(Keyboard.SOFT_KEYBOARD_SPECIAL).size(); i++) {
-            specialBitmapList.add(createSpinnerItem(CharList.getInstance(sxrContext)
-                    .getList(Keyboard.SOFT_KEYBOARD_SPECIAL).get(i)));
-        }
+        numericList.addAll(charList.getList(Keyboard.NUMERIC_KEYBOARD));
+        specialList.addAll(charList.getList(Keyboard.SOFT_KEYBOARD_SPECIAL));
 
+        atlas.preload(alphaLowerList, style, Painter.FIELD);
+        atlas.preload(alphaUpperList, style, Painter.FIELD);
+        atlas.preload(numericList, style, Painter.FIELD);
+        atlas.preload(specialList, style, Painter.FIELD);
     }
 
-    public Bitmap getBitmap(int mode, int position) {
-        return getList(mode).get(position);
-
+    public GlyphAtlas.Glyph getGlyph(int mode, int position) {
+        return atlas.getGlyph(getList(mode).get(position), style, Painter.FIELD);
     }
 
-    public List<Bitmap> getList(int mode) {
-        List<Bitmap> list = null;
+    public List<String> getList(int mode) {
+        List<String> list = null;
 
         switch (mode) {
             case Keyboard.NUMERIC_KEYBOARD:
-                list = numericBitmapList;
+                list = numericList;
                 break;
             case Keyboard.SOFT_KEYBOARD_LOWERCASE:
-                list = alphaLowerBitmapList;
+                list = alphaLowerList;
                 break;
             case Keyboard.SOFT_KEYBOARD_SPECIAL:
-                list = specialBitmapList;
+                list = specialList;
                 break;
             case Keyboard.SOFT_KEYBOARD_UPPERCASE:
-                list = alphaUpperBitmapList;
+                list = alphaUpperList;
                 break;
         }
 
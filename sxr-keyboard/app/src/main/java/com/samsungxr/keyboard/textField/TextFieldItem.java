@@ -15,13 +15,13 @@
 
 package com.samsungxr.keyboard.textField;
 
-import com.samsungxr.SXRBitmapImage;
 import com.samsungxr.SXRContext;
+import com.samsungxr.SXRMesh;
 import com.samsungxr.SXRNode;
-import com.samsungxr.SXRTexture;
 import com.samsungxr.keyboard.model.CharItem;
-import com.samsungxr.keyboard.util.SXRTextBitmapFactory;
+import com.samsungxr.keyboard.util.GlyphAtlas;
 import com.samsungxr.keyboard.util.NodeNames;
+import com.samsungxr.keyboard.util.SXRTextBitmapFactory.Painter;
 
 public class TextFieldItem extends SXRNode {
 
@@ -30,6 +30,8 @@ public class TextFieldItem extends SXRNode {
     protected int height;
     protected CharItem charItem;
     private int position;
+    private float[] fullTexCoords;
+    private float[] texCoords;
 
     public TextFieldItem(SXRContext sxrContext, float sceneObjectWidth, float sceneObjectHeigth,
             int bitmapWidth, int bitmapHeigth, Text text,
@@ -49,11 +51,21 @@ public class TextFieldItem extends SXRNode {
     }
 
     public void updateText(SXRContext context) {
-        SXRBitmapImage tex = new SXRBitmapImage(context, SXRTextBitmapFactory.create(
-                context.getContext(), width, height, currentText, 0));
-        SXRTexture texture = new SXRTexture(getSXRContext());
-        texture.setImage(tex);
-        getRenderData().getMaterial().setMainTexture(texture);
+        showGlyph(GlyphAtlas.get(context, width, height).getGlyph(currentText.text, currentText,
+                Painter.FIELD));
+    }
+
+    /**
+     * Points the quad at an atlas cell instead of giving it its own texture.
+     */
+    protected void showGlyph(GlyphAtlas.Glyph glyph) {
+        SXRMesh mesh = getRenderData().getMesh();
+        if (fullTexCoords == null) {
+            fullTexCoords = mesh.getTexCoords();
+            texCoords = new float[fullTexCoords.length];
+        }
+        mesh.setTexCoords(glyph.mapTexCoords(fullTexCoords, texCoords));
+        getRenderData().getMaterial().setMainTexture(glyph.texture);
     }
 
     public void setTextAdditive(SXRContext context, String newText) {
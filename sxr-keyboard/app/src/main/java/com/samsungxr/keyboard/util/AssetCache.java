@@ -0,0 +1,208 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.keyboard.util;
+
+import com.samsungxr.SXRAndroidResource;
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRImage;
+import com.samsungxr.SXRImportSettings;
+import com.samsungxr.SXRIndexBuffer;
+import com.samsungxr.SXRMesh;
+import com.samsungxr.SXRShaderId;
+import com.samsungxr.SXRTexture;
+import com.samsungxr.SXRVertexBuffer;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Reference counted meshes and textures loaded from resources.
+ * <p>
+ * Every acquire with the same resource id and import settings returns the
+ * same instance, so objects built from the same assets (the sphere flags,
+ * their hit areas, the keys) share one GPU copy instead of each loading
+ * their own. An entry is dropped once every acquire has been matched by a
+ * release.
+ */
+public class AssetCache {
+
+    // position, normal and uv floats; only used to estimate mesh size
+    private static final int ESTIMATED_VERTEX_BYTES = 8 * 4;
+
+    private static AssetCache instance;
+
+    private final SXRContext sxrContext;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final Map<Object, Entry> entriesByAsset = new IdentityHashMap<Object, Entry>();
+    private final Map<Class<?>, SXRShaderId> shaderIds = new HashMap<Class<?>, SXRShaderId>();
+    private int hits;
+    private int misses;
+
+    private static class Entry {
+        final String key;
+        final Object asset;
+        int references;
+
+        Entry(String key, Object asset) {
+            this.key = key;
+            this.asset = asset;
+        }
+    }
+
+    private AssetCache(SXRContext sxrContext) {
+        this.sxrContext = sxrContext;
+    }
+
+    public static synchronized AssetCache getInstance(SXRContext sxrContext) {
+
+        if (instance == null) {
+            instance = new AssetCache(sxrContext);
+        }
+
+        return instance;
+    }
+
+    public SXRTexture acquireTexture(int resourceId) {
+        String key = "texture:" + resourceId;
+        Entry entry = lookup(key);
+
+        if (entry == null) {
+            entry = store(key, sxrContext.getAssetLoader().loadTexture(
+                    new SXRAndroidResource(sxrContext, resourceId)));
+        }
+
+        return (SXRTexture) entry.asset;
+    }
+
+    public SXRMesh acquireMesh(int resourceId) {
+        return acquireMesh(resourceId, SXRImportSettings.getRecommendedSettings());
+    }
+
+    public SXRMesh acquireMesh(int resourceId, EnumSet<SXRImportSettings> settings) {
+        String key = "mesh:" + resourceId + settings;
+        Entry entry = lookup(key);
+
+        if (entry == null) {
+            entry = store(key, sxrContext.getAssetLoader().loadMesh(
+                    new SXRAndroidResource(sxrContext, resourceId), settings));
+        }
+
+        return (SXRMesh) entry.asset;
+    }
+
+    /**
+     * Gives back one reference to a mesh or texture obtained from this cache.
+     * Assets the cache did not hand out are ignored.
+     */
+    public synchronized void release(Object asset) {
+        Entry entry = entriesByAsset.get(asset);
+
+        if (entry != null && --entry.references == 0) {
+            entries.remove(entry.key);
+            entriesByAsset.remove(asset);
+        }
+    }
+
+    /**
+     * One shader id per shader class, so every material built on that shader
+     * shares the same shader state and only its uniforms differ.
+     */
+    public synchronized SXRShaderId getShaderId(Class<?> shaderClass) {
+        SXRShaderId shaderId = shaderIds.get(shaderClass);
+
+        if (shaderId == null) {
+            shaderId = new SXRShaderId(shaderClass);
+            shaderIds.put(shaderClass, shaderId);
+        }
+
+        return shaderId;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Estimated GPU bytes held by the cached assets. Textures still loading
+     * in the background are not counted yet.
+     */
+    public synchronized long getEstimatedBytes() {
+        long bytes = 0;
+
+        for (Entry entry : entries.values()) {
+            if (entry.asset instanceof SXRTexture) {
+                SXRImage image = ((SXRTexture) entry.asset).getImage();
+                if (image != null) {
+                    bytes += (long) image.getWidth() * image.getHeight() * 4;
+                }
+            } else if (entry.asset instanceof SXRMesh) {
+                SXRMesh mesh = (SXRMesh) entry.asset;
+                SXRVertexBuffer vertices = mesh.getVertexBuffer();
+                SXRIndexBuffer indices = mesh.getIndexBuffer();
+                if (vertices != null) {
+                    bytes += (long) vertices.getVertexCount() * ESTIMATED_VERTEX_BYTES;
+                }
+                if (indices != null) {
+                    bytes += (long) indices.getIndexCount() * indices.getIndexSize();
+                }
+            }
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AssetCache entries=" + entries.size() + " hits=" + hits + " misses=" + misses
+                + " bytes~" + getEstimatedBytes();
+    }
+
+    private synchronized Entry lookup(String key) {
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            entry.references++;
+            hits++;
+        }
+
+        return entry;
+    }
+
+    private synchronized Entry store(String key, Object asset) {
+        Entry entry = entries.get(key);
+
+        // another thread loaded the same asset meanwhile, keep the first one
+        if (entry == null) {
+            entry = new Entry(key, asset);
+            entries.put(key, entry);
+            entriesByAsset.put(asset, entry);
+        }
+
+        entry.references++;
+        misses++;
+        return entry;
+    }
+}
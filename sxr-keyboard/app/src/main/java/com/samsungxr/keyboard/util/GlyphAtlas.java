@@ -0,0 +1,200 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.keyboard.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import com.samsungxr.SXRBitmapImage;
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRTexture;
+import com.samsungxr.keyboard.textField.Text;
+import com.samsungxr.keyboard.util.SXRTextBitmapFactory.Painter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text cells of one size rasterized once into shared texture pages.
+ * <p>
+ * Every distinct text, style and painter gets a cell in a grid page and is
+ * drawn only the first time it is asked for. Callers get back the page
+ * texture and the cell's UV rectangle, so keys, spinner cells and text
+ * field items showing the same character share one texture instead of
+ * each owning a bitmap.
+ */
+public class GlyphAtlas {
+
+    private static final int MAX_PAGE_SIZE = 1024;
+    private static final int MAX_CELLS_PER_SIDE = 16;
+    // transparent border around each cell so filtering does not pick up neighbors
+    private static final int PADDING = 1;
+
+    private static final Map<String, GlyphAtlas> atlases = new HashMap<String, GlyphAtlas>();
+
+    public static class Glyph {
+        public final SXRTexture texture;
+        public final float u;
+        public final float v;
+        public final float width;
+        public final float height;
+
+        Glyph(SXRTexture texture, float u, float v, float width, float height) {
+            this.texture = texture;
+            this.u = u;
+            this.v = v;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Maps texture coordinates covering the whole image onto this cell.
+         */
+        public float[] mapTexCoords(float[] fullTexCoords, float[] out) {
+            for (int i = 0; i < fullTexCoords.length; i += 2) {
+                out[i] = u + fullTexCoords[i] * width;
+                out[i + 1] = v + fullTexCoords[i + 1] * height;
+            }
+            return out;
+        }
+    }
+
+    private static class Page {
+        final Bitmap bitmap;
+        final Canvas canvas;
+        final SXRBitmapImage image;
+        final SXRTexture texture;
+        int used;
+        boolean dirty;
+
+        Page(SXRContext sxrContext, int width, int height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+            image = new SXRBitmapImage(sxrContext, bitmap);
+            texture = new SXRTexture(sxrContext);
+            texture.setImage(image);
+        }
+    }
+
+    private final SXRContext sxrContext;
+    private final Context context;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int columns;
+    private final int rows;
+    private final List<Page> pages = new ArrayList<Page>();
+    private final Map<String, Glyph> glyphs = new HashMap<String, Glyph>();
+
+    private GlyphAtlas(SXRContext sxrContext, int cellWidth, int cellHeight) {
+        this.sxrContext = sxrContext;
+        this.context = sxrContext.getContext().getApplicationContext();
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        int slotWidth = cellWidth + 2 * PADDING;
+        int slotHeight = cellHeight + 2 * PADDING;
+        columns = Math.max(1, Math.min(MAX_PAGE_SIZE / slotWidth, MAX_CELLS_PER_SIDE));
+        rows = Math.max(1, Math.min(MAX_PAGE_SIZE / slotHeight, MAX_CELLS_PER_SIDE));
+    }
+
+    /**
+     * @return the atlas for cells of the given size in pixels
+     */
+    public static GlyphAtlas get(SXRContext sxrContext, int cellWidth, int cellHeight) {
+        synchronized (atlases) {
+            String key = cellWidth + "x" + cellHeight;
+            GlyphAtlas atlas = atlases.get(key);
+            if (atlas == null) {
+                atlas = new GlyphAtlas(sxrContext, cellWidth, cellHeight);
+                atlases.put(key, atlas);
+            }
+            return atlas;
+        }
+    }
+
+    /**
+     * Returns the cell showing text in the given style, drawing it into a
+     * page first if needed.
+     */
+    public synchronized Glyph getGlyph(String text, Text style, Painter painter) {
+        Glyph glyph = lookup(text, style, painter);
+        flush();
+        return glyph;
+    }
+
+    /**
+     * Draws all the texts up front, uploading each touched page once.
+     */
+    public synchronized void preload(List<String> texts, Text style, Painter painter) {
+        for (String text : texts) {
+            lookup(text, style, painter);
+        }
+        flush();
+    }
+
+    private Glyph lookup(String text, Text style, Painter painter) {
+        String key = painter.name() + '|' + style.textSize + '|' + style.textColor + '|'
+                + style.backgroundColor + '|' + style.align + '|' + text;
+        Glyph glyph = glyphs.get(key);
+        if (glyph == null) {
+            glyph = draw(text, style, painter);
+            glyphs.put(key, glyph);
+        }
+        return glyph;
+    }
+
+    private Glyph draw(String text, Text style, Painter painter) {
+        Page page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (page == null || page.used == columns * rows) {
+            page = new Page(sxrContext, columns * (cellWidth + 2 * PADDING),
+                    rows * (cellHeight + 2 * PADDING));
+            pages.add(page);
+        }
+        int cell = page.used++;
+        int x = (cell % columns) * (cellWidth + 2 * PADDING) + PADDING;
+        int y = (cell / columns) * (cellHeight + 2 * PADDING) + PADDING;
+
+        Text cellText = new Text();
+        cellText.text = text;
+        cellText.textSize = style.textSize;
+        cellText.textColor = style.textColor;
+        cellText.backgroundColor = style.backgroundColor;
+        cellText.align = style.align;
+
+        page.canvas.save();
+        page.canvas.clipRect(x, y, x + cellWidth, y + cellHeight);
+        page.canvas.translate(x, y);
+        painter.paint(context, page.canvas, cellWidth, cellHeight, cellText);
+        page.canvas.restore();
+        page.dirty = true;
+
+        float pageWidth = page.bitmap.getWidth();
+        float pageHeight = page.bitmap.getHeight();
+        return new Glyph(page.texture, x / pageWidth, y / pageHeight,
+                cellWidth / pageWidth, cellHeight / pageHeight);
+    }
+
+    private void flush() {
+        for (Page page : pages) {
+            if (page.dirty) {
+                page.image.setBitmap(page.bitmap);
+                page.dirty = false;
+            }
+        }
+    }
+}
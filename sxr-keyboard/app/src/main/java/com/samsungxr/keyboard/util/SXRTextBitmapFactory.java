@@ -53,9 +53,67 @@ public class SXRTextBitmapFactory {
     public static boolean cacheOn = true;
     ArrayList<SXRTextBitmapFactory> cache = new ArrayList<>();
 
+    private static Typeface spinnerTypeface;
+
+    /**
+     * The ways text is drawn into a cell, shared by the one-off bitmaps
+     * below and the {@link GlyphAtlas} pages.
+     */
+    public enum Painter {
+
+        /** Keyboard keys: bold default font, centered near the baseline. */
+        KEY {
+            @Override
+            public void paint(Context context, Canvas canvas, float width, float height, Text text) {
+                Paint paint = new Paint();
+
+                paint.setTextSize(text.textSize);
+                paint.setTextAlign(text.align);
+                paint.setFakeBoldText(true);
+                paint.setColor(text.textColor);
+
+                canvas.drawColor(text.backgroundColor);
+                canvas.drawText(text.text, width / 2, height / 1.6f, paint);
+            }
+        },
+
+        /** Spinner and text field cells: condensed font, centered on its bounds. */
+        FIELD {
+            @Override
+            public void paint(Context context, Canvas canvas, float width, float height, Text text) {
+                Paint paint = new Paint();
+                paint.setTypeface(getSpinnerTypeface(context));
+                paint.setFlags(Paint.ANTI_ALIAS_FLAG);
+                paint.setStyle(Style.FILL);
+                paint.setTextSize(text.textSize);
+                paint.setFakeBoldText(true);
+                paint.setColor(text.textColor);
+                paint.setFilterBitmap(true);
+
+                Rect rectText = new Rect();
+                paint.getTextBounds(text.text, 0, text.text.length(), rectText);
+
+                canvas.drawColor(text.backgroundColor);
+
+                canvas.drawText(text.text, width / 2 - rectText.exactCenterX(),
+                        height / 2 - rectText.exactCenterY(), paint);
+            }
+        };
+
+        public abstract void paint(Context context, Canvas canvas, float width, float height, Text text);
+    }
+
     private SXRTextBitmapFactory() {
     }
 
+    private static synchronized Typeface getSpinnerTypeface(Context context) {
+        if (spinnerTypeface == null) {
+            spinnerTypeface = Typeface.createFromAsset(context.getAssets(),
+                    "fonts/futura-condensed-normal.ttf");
+        }
+        return spinnerTypeface;
+    }
+
     /**
      * Creates a Bitmap with texts.
      *
@@ -73,17 +131,13 @@ public class SXRTextBitmapFactory {
 
         Bitmap bitmap = Bitmap.createBitmap((int) width, (int) height, Bitmap.Config.ARGB_8888);
 
-        Canvas canvas = new Canvas(bitmap);
-
-        Paint paint = new Paint();
-
-        paint.setTextSize(textSize);
-        paint.setTextAlign(textAlign);
-        paint.setFakeBoldText(true);
-        paint.setColor(textColor);
-
-        canvas.drawColor(backgroundColor);
-        canvas.drawText(character, width / 2, height / 1.6f, paint);
+        Text text = new Text();
+        text.text = character;
+        text.textSize = textSize;
+        text.align = textAlign;
+        text.textColor = textColor;
+        text.backgroundColor = backgroundColor;
+        Painter.KEY.paint(context, new Canvas(bitmap), width, height, text);
 
         return bitmap;
     }
@@ -116,29 +170,9 @@ public class SXRTextBitmapFactory {
 
     public static Bitmap create(Context context, float width, float height, Text text, int test) { // spinner
 
-        Typeface myTypeface = Typeface.createFromAsset(context.getAssets(),
-                "fonts/futura-condensed-normal.ttf");
-
         Bitmap bitmap = Bitmap.createBitmap((int) width, (int) height, Bitmap.Config.ARGB_8888);
 
-        Canvas canvas = new Canvas(bitmap);
-
-        Paint paint = new Paint();
-        paint.setTypeface(myTypeface);
-        paint.setFlags(Paint.ANTI_ALIAS_FLAG);
-        paint.setStyle(Style.FILL);
-        paint.setTextSize(text.textSize);
-        paint.setFakeBoldText(true);
-        paint.setColor(text.textColor);
-        paint.setFilterBitmap(true);
-
-        Rect rectText = new Rect();
-        paint.getTextBounds(text.text, 0, text.text.length(), rectText);
-
-        canvas.drawColor(text.backgroundColor);
-
-        canvas.drawText(text.text, width / 2 - rectText.exactCenterX(),
-                height / 2 - rectText.exactCenterY(), paint);
+        Painter.FIELD.paint(context, new Canvas(bitmap), width, height, text);
 
         return bitmap;
     }
@@ -0,0 +1,72 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.samsungxr.performance;
+
+import com.samsungxr.SXRNode;
+import com.samsungxr.SXRTransform;
+
+import java.util.Arrays;
+
+/**
+ * Rotates all the bunnies from a single per frame update, instead of running one
+ * animation per bunny. Axes and speeds are kept in flat arrays indexed like the nodes.
+ */
+class BatchedRotationDriver {
+    private SXRTransform[] mTransforms = new SXRTransform[0];
+    private float[] mAxes = new float[0];
+    private float[] mDegreesPerSecond = new float[0];
+    private float[] mPivot = new float[3];
+    private int mCount;
+
+    BatchedRotationDriver(float pivotX, float pivotY, float pivotZ) {
+        mPivot[0] = pivotX;
+        mPivot[1] = pivotY;
+        mPivot[2] = pivotZ;
+    }
+
+    void add(SXRNode node, float x, float y, float z, float degreesPerSecond) {
+        if (mCount == mTransforms.length) {
+            int capacity = Math.max(16, mCount * 2);
+            mTransforms = Arrays.copyOf(mTransforms, capacity);
+            mAxes = Arrays.copyOf(mAxes, capacity * 3);
+            mDegreesPerSecond = Arrays.copyOf(mDegreesPerSecond, capacity);
+        }
+        mTransforms[mCount] = node.getTransform();
+        mAxes[mCount * 3] = x;
+        mAxes[mCount * 3 + 1] = y;
+        mAxes[mCount * 3 + 2] = z;
+        mDegreesPerSecond[mCount] = degreesPerSecond;
+        mCount++;
+    }
+
+    void removeLast() {
+        mTransforms[--mCount] = null;
+    }
+
+    void clear() {
+        Arrays.fill(mTransforms, 0, mCount, null);
+        mCount = 0;
+    }
+
+    void update(float seconds) {
+        final float px = mPivot[0], py = mPivot[1], pz = mPivot[2];
+        for (int i = 0; i < mCount; ++i) {
+            mTransforms[i].rotateByAxisWithPivot(mDegreesPerSecond[i] * seconds,
+                    mAxes[i * 3], mAxes[i * 3 + 1], mAxes[i * 3 + 2], px, py, pz);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.samsungxr.performance;
+
+import android.os.Debug;
+
+import java.util.Arrays;
+
+/**
+ * Collects the frame times of a benchmark step along with the GC activity of the process.
+ */
+class FrameTimeRecorder {
+    private static final String STAT_GC_COUNT = "art.gc.gc-count";
+    private static final String STAT_BYTES_ALLOCATED = "art.gc.bytes-allocated";
+
+    private long[] mFrameTimes;
+    private int mCount;
+    private long mStartTime;
+    private long mEndTime;
+    private long mStartGcCount;
+    private long mStartBytesAllocated;
+    private long mGcCount;
+    private long mBytesAllocated;
+
+    FrameTimeRecorder(int capacity) {
+        mFrameTimes = new long[capacity];
+    }
+
+    void start() {
+        mCount = 0;
+        mStartGcCount = readStat(STAT_GC_COUNT);
+        mStartBytesAllocated = readStat(STAT_BYTES_ALLOCATED);
+        mStartTime = System.nanoTime();
+    }
+
+    void addFrame(long frameTimeNanos) {
+        if (mCount == mFrameTimes.length) {
+            mFrameTimes = Arrays.copyOf(mFrameTimes, mCount * 2);
+        }
+        mFrameTimes[mCount++] = frameTimeNanos;
+    }
+
+    void stop() {
+        mEndTime = System.nanoTime();
+        mGcCount = readStat(STAT_GC_COUNT) - mStartGcCount;
+        mBytesAllocated = readStat(STAT_BYTES_ALLOCATED) - mStartBytesAllocated;
+        Arrays.sort(mFrameTimes, 0, mCount);
+    }
+
+    int getFrameCount() {
+        return mCount;
+    }
+
+    float getFramesPerSecond() {
+        return mCount * 1e9f / Math.max(1, mEndTime - mStartTime);
+    }
+
+    /**
+     * Must be called after {@link #stop()}.
+     *
+     * @param percentile Value from 0 to 100.
+     * @return The frame time in milliseconds.
+     */
+    float getFrameTimeMs(float percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * mCount) - 1;
+        return mFrameTimes[Math.max(0, Math.min(index, mCount - 1))] / 1e6f;
+    }
+
+    /**
+     * @return Number of garbage collections while recording or -1 if not available.
+     */
+    long getGcCount() {
+        return mStartGcCount < 0 ? -1 : mGcCount;
+    }
+
+    /**
+     * @return Megabytes allocated per second while recording or -1 if not available.
+     */
+    float getAllocationRate() {
+        if (mStartBytesAllocated < 0) {
+            return -1;
+        }
+        return mBytesAllocated / (1024f * 1024f) * 1e9f / Math.max(1, mEndTime - mStartTime);
+    }
+
+    private static long readStat(String name) {
+        // Runtime stats are available since Android M
+        String value = Debug.getRuntimeStat(name);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
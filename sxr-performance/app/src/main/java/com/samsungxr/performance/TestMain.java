@@ -13,8 +13,10 @@
  * limitations under the License.
  */
 
+
 package com.samsungxr.performance;
 
+import android.content.Intent;
 import android.util.Log;
 
 import com.samsungxr.SXRActivity;
@@ -23,42 +25,97 @@ import com.samsungxr.SXRCamera;
 import com.samsungxr.SXRCameraRig;
 import com.samsungxr.SXRContext;
 import com.samsungxr.SXRImportSettings;
+import com.samsungxr.SXRMesh;
 import com.samsungxr.SXRScene;
 import com.samsungxr.SXRNode;
 import com.samsungxr.SXRTexture;
 import com.samsungxr.ZipLoader;
 import com.samsungxr.SXRMain;
 
+import com.samsungxr.animation.SXRAnimation;
 import com.samsungxr.animation.SXRAnimationEngine;
 import com.samsungxr.animation.SXRRepeatMode;
 import com.samsungxr.animation.SXRRotationByAxisWithPivotAnimation;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
-import java.util.concurrent.Future;
 
 import static com.samsungxr.SXRImportSettings.NO_LIGHTING;
 
+/**
+ * Bunny stress benchmark. The number of bunnies is ramped through a list of steps, first
+ * with one animation per bunny and then with a single batched animation driver. For each
+ * step the frame times, GC count and allocation rate are appended to a CSV file in the
+ * external files directory of the app.
+ * <p>
+ * The benchmark is configured with intent extras, for example:
+ * <pre>
+ * adb shell am start -n com.samsungxr.performance/.TestActivity \
+ *     --es steps 20,100,1000,10000 --es animation batched --ei step_seconds 15
+ * </pre>
+ */
 public class TestMain extends SXRMain {
     private static final String TAG = "TestMain";
-    private static final int numberOfBunnies = 20;
     private static final String TEXTURE_FILE_NAME = "textures.zip";
+    private static final String REPORT_FILE_NAME = "bunny_benchmark.csv";
+
+    static final String EXTRA_STEPS = "steps";
+    static final String EXTRA_ANIMATION = "animation";
+    static final String EXTRA_STEP_SECONDS = "step_seconds";
+
+    private static final String ANIMATION_NODES = "nodes";
+    private static final String ANIMATION_BATCHED = "batched";
+
+    private static final int[] DEFAULT_STEPS = {20, 100, 500, 1000, 2500, 5000, 10000};
+    private static final int DEFAULT_STEP_SECONDS = 10;
+    private static final long WARMUP_NANOS = 2000000000L;
+    private static final float MAX_FRAME_SECONDS = 0.1f;
+    // Same seed for every step, so both animation modes render the same scene
+    private static final long SEED = 42;
+    private static final float PIVOT_Z = -10.0f;
 
     private SXRScene mMainScene = null;
 
     SXRAnimationEngine mAnimationEngine;
 
     private SXRActivity mActivity;
+    private SXRContext mContext;
+    private SXRMesh mMesh;
+    private List<SXRTexture> mTextures;
+    private SXRNode mBunnyRoot;
+    private Random mRandom = new Random(SEED);
+    private final List<SXRNode> mBunnies = new ArrayList<>();
+    private final List<SXRAnimation> mAnimations = new ArrayList<>();
+    private final BatchedRotationDriver mBatchedDriver = new BatchedRotationDriver(0.0f, 0.0f, PIVOT_Z);
+
+    private int[] mSteps;
+    private String[] mAnimationModes;
+    private long mStepNanos;
+    private int mStepIndex;
+    private int mModeIndex;
+    private long mStepStart;
+    private long mLastFrameTime;
+    private boolean mRecording;
+    private boolean mFinished;
+    private FrameTimeRecorder mRecorder;
+    private File mReportFile;
 
     TestMain(SXRActivity activity) {
         mActivity = activity;
+        readConfiguration(activity.getIntent());
     }
 
     @Override
     public void onInit(SXRContext sxrContext) {
 
+        mContext = sxrContext;
         mAnimationEngine = sxrContext.getAnimationEngine();
 
         mMainScene = sxrContext.getMainScene();
@@ -79,9 +136,11 @@ public class TestMain extends SXRMain {
         rightCamera.setBackgroundColorA(1.0f);
         mainCameraRig.getTransform().setPosition(0.0f, 0.0f, 0.0f);
 
+        mBunnyRoot = new SXRNode(sxrContext);
+        mainCameraRig.addChildObject(mBunnyRoot);
+
         try {
-            List<SXRTexture> textures;
-            textures = ZipLoader.load(sxrContext, TEXTURE_FILE_NAME, new ZipLoader
+            mTextures = ZipLoader.load(sxrContext, TEXTURE_FILE_NAME, new ZipLoader
                     .ZipEntryProcessor<SXRTexture>() {
 
                 @Override
@@ -90,58 +149,194 @@ public class TestMain extends SXRMain {
                 }
             });
 
-            int numTextures = textures.size();
-            for (int i = 0; i < numberOfBunnies; ++i) {
-
-                SXRNode bunny;
-                EnumSet<SXRImportSettings> settings = SXRImportSettings.getRecommendedSettingsWith(EnumSet.of(NO_LIGHTING));
-                // we assume that the mesh and the textures are valid
-                bunny = new SXRNode(sxrContext,
-                        sxrContext.getAssetLoader().loadMesh(new SXRAndroidResource(sxrContext,
-                                "bunny.obj"), settings), textures.get(i % numTextures));
-
-                Random random = new Random();
-
-                bunny.getTransform().setPosition(0.0f, 0.0f,
-                        random.nextFloat() * 3.0f + 2.0f);
-                bunny.getTransform().rotateByAxisWithPivot(
-                        random.nextFloat() * 360.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0.0f,
-                        0.0f);
-                bunny.getTransform().rotateByAxisWithPivot(
-                        random.nextFloat() * 360.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f,
-                        0.0f);
-                bunny.getTransform().rotateByAxisWithPivot(
-                        random.nextFloat() * 360.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f,
-                        0.0f);
-                bunny.getTransform().translate(0.0f, 0.0f, -10.0f);
-                mainCameraRig.addChildObject(bunny);
-
-                float x = random.nextFloat() - 0.5f;
-                float y = random.nextFloat() - 0.5f;
-                float z = random.nextFloat() - 0.5f;
-                float length = (float) Math.sqrt(x * x + y * y + z * z);
-                x /= length;
-                y /= length;
-                z /= length;
-
-                new SXRRotationByAxisWithPivotAnimation(bunny, //
-                        5.0f + random.nextFloat() * 25.0f, //
-                        360.0f, //
-                        x, y, z, //
-                        0.0f, 0.0f, -10.0f) //
-                        .setRepeatMode(SXRRepeatMode.REPEATED).setRepeatCount(-1) //
-                        .start(mAnimationEngine);
-            }
+            EnumSet<SXRImportSettings> settings = SXRImportSettings.getRecommendedSettingsWith(EnumSet.of(NO_LIGHTING));
+            // One mesh shared by all bunnies, we assume that the mesh and the textures are valid
+            mMesh = sxrContext.getAssetLoader().loadMesh(new SXRAndroidResource(sxrContext,
+                    "bunny.obj"), settings);
         } catch (IOException e) {
             e.printStackTrace();
             mActivity.finish();
             Log.e(TAG,
                     "Mesh or texture were not loaded. Stopping application!");
+            return;
         }
+
+        mRecorder = new FrameTimeRecorder((int) (mStepNanos / 1000000000L) * 120);
+        mReportFile = new File(mActivity.getExternalFilesDir(null), REPORT_FILE_NAME);
+        writeReportLine("animation,instances,frames,fps,p50_ms,p90_ms,p99_ms,max_ms,gc_count,alloc_mb_per_s", false);
+        Log.i(TAG, "Writing benchmark report to " + mReportFile);
+
+        startStep();
     }
 
     @Override
     public void onStep() {
+        if (mFinished || mMesh == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long frameTime = now - mLastFrameTime;
+        mLastFrameTime = now;
+
+        if (ANIMATION_BATCHED.equals(mAnimationModes[mModeIndex])) {
+            mBatchedDriver.update(Math.min(frameTime / 1e9f, MAX_FRAME_SECONDS));
+        }
+
+        long elapsed = now - mStepStart;
+        if (!mRecording) {
+            // Skip the frames right after changing the scene
+            if (elapsed >= WARMUP_NANOS) {
+                mRecorder.start();
+                mRecording = true;
+            }
+            return;
+        }
+
+        mRecorder.addFrame(frameTime);
+        if (elapsed >= WARMUP_NANOS + mStepNanos) {
+            mRecorder.stop();
+            reportStep();
+            nextStep();
+        }
+    }
+
+    private void readConfiguration(Intent intent) {
+        mSteps = DEFAULT_STEPS;
+        mAnimationModes = new String[]{ANIMATION_NODES, ANIMATION_BATCHED};
+        int stepSeconds = DEFAULT_STEP_SECONDS;
+
+        if (intent != null) {
+            String steps = intent.getStringExtra(EXTRA_STEPS);
+            if (steps != null) {
+                String[] values = steps.split(",");
+                mSteps = new int[values.length];
+                for (int i = 0; i < values.length; ++i) {
+                    mSteps[i] = Integer.parseInt(values[i].trim());
+                }
+            }
+            String animation = intent.getStringExtra(EXTRA_ANIMATION);
+            if (ANIMATION_NODES.equals(animation) || ANIMATION_BATCHED.equals(animation)) {
+                mAnimationModes = new String[]{animation};
+            }
+            stepSeconds = intent.getIntExtra(EXTRA_STEP_SECONDS, DEFAULT_STEP_SECONDS);
+        }
+        mStepNanos = stepSeconds * 1000000000L;
     }
 
+    private void startStep() {
+        int count = mSteps[mStepIndex];
+        String mode = mAnimationModes[mModeIndex];
+
+        while (mBunnies.size() > count) {
+            removeLastBunny();
+        }
+        while (mBunnies.size() < count) {
+            addBunny(ANIMATION_BATCHED.equals(mode));
+        }
+
+        mRecording = false;
+        mStepStart = System.nanoTime();
+        mLastFrameTime = mStepStart;
+    }
+
+    private void nextStep() {
+        if (++mStepIndex < mSteps.length) {
+            startStep();
+            return;
+        }
+
+        mStepIndex = 0;
+        clearBunnies();
+        if (++mModeIndex < mAnimationModes.length) {
+            startStep();
+        } else {
+            mFinished = true;
+            Log.i(TAG, "Benchmark finished, report saved to " + mReportFile);
+        }
+    }
+
+    private void addBunny(boolean batched) {
+        SXRNode bunny = new SXRNode(mContext, mMesh, mTextures.get(mBunnies.size() % mTextures.size()));
+
+        bunny.getTransform().setPosition(0.0f, 0.0f,
+                mRandom.nextFloat() * 3.0f + 2.0f);
+        bunny.getTransform().rotateByAxisWithPivot(
+                mRandom.nextFloat() * 360.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0.0f,
+                0.0f);
+        bunny.getTransform().rotateByAxisWithPivot(
+                mRandom.nextFloat() * 360.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f,
+                0.0f);
+        bunny.getTransform().rotateByAxisWithPivot(
+                mRandom.nextFloat() * 360.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f,
+                0.0f);
+        bunny.getTransform().translate(0.0f, 0.0f, PIVOT_Z);
+        mBunnyRoot.addChildObject(bunny);
+        mBunnies.add(bunny);
+
+        float x = mRandom.nextFloat() - 0.5f;
+        float y = mRandom.nextFloat() - 0.5f;
+        float z = mRandom.nextFloat() - 0.5f;
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        x /= length;
+        y /= length;
+        z /= length;
+        float duration = 5.0f + mRandom.nextFloat() * 25.0f;
+
+        if (batched) {
+            mBatchedDriver.add(bunny, x, y, z, 360.0f / duration);
+        } else {
+            mAnimations.add(new SXRRotationByAxisWithPivotAnimation(bunny, //
+                    duration, //
+                    360.0f, //
+                    x, y, z, //
+                    0.0f, 0.0f, PIVOT_Z) //
+                    .setRepeatMode(SXRRepeatMode.REPEATED).setRepeatCount(-1) //
+                    .start(mAnimationEngine));
+        }
+    }
+
+    private void removeLastBunny() {
+        int last = mBunnies.size() - 1;
+        if (ANIMATION_BATCHED.equals(mAnimationModes[mModeIndex])) {
+            mBatchedDriver.removeLast();
+        } else {
+            mAnimationEngine.stop(mAnimations.remove(last));
+        }
+        mBunnyRoot.removeChildObject(mBunnies.remove(last));
+    }
+
+    private void clearBunnies() {
+        for (SXRAnimation animation : mAnimations) {
+            mAnimationEngine.stop(animation);
+        }
+        mAnimations.clear();
+        mBatchedDriver.clear();
+        for (SXRNode bunny : mBunnies) {
+            mBunnyRoot.removeChildObject(bunny);
+        }
+        mBunnies.clear();
+        mRandom = new Random(SEED);
+    }
+
+    private void reportStep() {
+        String line = String.format(Locale.US, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%d,%.2f",
+                mAnimationModes[mModeIndex], mBunnies.size(), mRecorder.getFrameCount(),
+                mRecorder.getFramesPerSecond(), mRecorder.getFrameTimeMs(50),
+                mRecorder.getFrameTimeMs(90), mRecorder.getFrameTimeMs(99),
+                mRecorder.getFrameTimeMs(100), mRecorder.getGcCount(),
+                mRecorder.getAllocationRate());
+        Log.i(TAG, line);
+        writeReportLine(line, true);
+    }
+
+    private void writeReportLine(String line, boolean append) {
+        // The file is written after each step to keep the results of an interrupted run
+        try (Writer writer = new FileWriter(mReportFile, append)) {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing report " + mReportFile, e);
+        }
+    }
 }
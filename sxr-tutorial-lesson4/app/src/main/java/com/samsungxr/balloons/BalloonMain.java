@@ -59,6 +59,8 @@ public class BalloonMain extends SXRMain {
         }
     }
 
+    private static final int BACKGROUND_BALLOONS = 3000;
+
     private SXRScene mScene = null;
     private PickHandler mPickHandler;
     private ParticleEmitter mParticleSystem;
@@ -117,6 +119,7 @@ public class BalloonMain extends SXRMain {
         particleRoot.getTransform().setPosition(0, -3.0f, -3.0f);
         particleRoot.attachComponent(mParticleSystem);
         mScene.addNode(particleRoot);
+        mScene.addNode(makeBackgroundBalloons(context));
         /*
          * Respond to picking events
          */
@@ -143,6 +146,34 @@ public class BalloonMain extends SXRMain {
         return balloon;
     }
 
+    /*
+     * Fill the distance with balloons which cannot be popped.
+     * Each color is drawn by one emitter with a few shared meshes
+     * rather than a scene object per balloon.
+     */
+    SXRNode makeBackgroundBalloons(SXRContext context)
+    {
+        SXRNode root = new SXRNode(context);
+        root.setName("BackgroundBalloons");
+        root.getTransform().setRotationByAxis(-90.0f, 1, 0, 0);
+        root.getTransform().setPosition(0, -10.0f, 0);
+        for (SXRMaterial mtl : mMaterials)
+        {
+            SXRNode emitterRoot = new SXRNode(context);
+            BatchedParticleEmitter emitter = new BatchedParticleEmitter(context, mtl);
+
+            emitter.TotalParticles = BACKGROUND_BALLOONS / mMaterials.size();
+            emitter.MaxActiveParticles = emitter.TotalParticles;
+            emitter.EmissionRate = 100;
+            emitter.MaxDistance = 18.0f;
+            emitter.Velocity = new ParticleEmitter.Range<Float>(0.5f, 1.5f);
+            emitter.EmitterArea = new ParticleEmitter.Range<Vector2f>(new Vector2f(-15.0f, -15.0f), new Vector2f(15.0f, 15.0f));
+            emitterRoot.attachComponent(emitter);
+            root.addChildObject(emitterRoot);
+        }
+        return root;
+    }
+
     SXRNode makeEnvironment(SXRContext context)
     {
         SXRTexture tex = context.getAssetLoader().loadCubemapTexture(new SXRAndroidResource(context, R.raw.lycksele3));
@@ -0,0 +1,198 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr.balloons;
+
+import java.util.Arrays;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRMaterial;
+import com.samsungxr.SXRMesh;
+import com.samsungxr.SXRNode;
+import com.samsungxr.SXRRenderData;
+
+/**
+ * Particle emitter which draws all of its particles as small spheres
+ * in a few shared meshes instead of making a scene object for each one.
+ * The vertices are rewritten every frame, split across the same threads
+ * that move the particles.
+ * <p>
+ * The particles cannot be picked individually, use it for
+ * background effects with thousands of particles.
+ */
+public class BatchedParticleEmitter extends ParticleEmitter
+{
+    private static final int STACKS = 4;
+    private static final int SLICES = 6;
+    private static final int MAX_VERTICES_PER_MESH = 65535;
+
+    /**
+     * Radius of the sphere drawn for each particle
+     */
+    public float        Radius = 0.25f;
+
+    private SXRMaterial mMaterial;
+    private float[]     mSpherePos;
+    private int         mVertsPerParticle;
+    private int         mParticlesPerMesh;
+    private SXRMesh[]   mMeshes;
+    private float[][]   mVertices;
+    private int         mLastCount = 0;
+    private ParticleSimulator mSim;
+
+    private final ParticleSimulator.Kernel mWriteVertices = new ParticleSimulator.Kernel()
+    {
+        public void run(int from, int to)
+        {
+            final float[] sphere = mSpherePos;
+            final int n = sphere.length;
+
+            for (int i = from; i < to; ++i)
+            {
+                float[] verts = mVertices[i / mParticlesPerMesh];
+                int v = (i % mParticlesPerMesh) * n;
+                float x = mSim.PosX[i];
+                float y = mSim.PosY[i];
+                float z = mSim.PosZ[i];
+
+                for (int j = 0; j < n; j += 3)
+                {
+                    verts[v++] = sphere[j] + x;
+                    verts[v++] = sphere[j + 1] + y;
+                    verts[v++] = sphere[j + 2] + z;
+                }
+            }
+        }
+    };
+
+    public BatchedParticleEmitter(SXRContext ctx, SXRMaterial material)
+    {
+        super(ctx, null, null);
+        mMaterial = material;
+    }
+
+    @Override
+    protected void onEmitted(int id, float x, float y, float z) { }
+
+    @Override
+    protected void onExpired(int id) { }
+
+    @Override
+    protected void updateParticles(ParticleSimulator sim)
+    {
+        if (mMeshes == null)
+        {
+            makeMeshes(sim.getCapacity());
+        }
+        int count = sim.getCount();
+        int floatsPerParticle = mSpherePos.length;
+
+        mSim = sim;
+        sim.parallelFor(count, mWriteVertices);
+        /*
+         * Collapse the particles which died since the last frame
+         * so their triangles have no area.
+         */
+        for (int i = count; i < mLastCount; ++i)
+        {
+            float[] verts = mVertices[i / mParticlesPerMesh];
+            int v = (i % mParticlesPerMesh) * floatsPerParticle;
+            Arrays.fill(verts, v, v + floatsPerParticle, 0.0f);
+        }
+        int dirty = Math.max(count, mLastCount);
+        for (int m = 0; m * mParticlesPerMesh < dirty; ++m)
+        {
+            mMeshes[m].setVertices(mVertices[m]);
+        }
+        mLastCount = count;
+    }
+
+    private void makeMeshes(int capacity)
+    {
+        SXRContext ctx = getSXRContext();
+        float[] normals = new float[(STACKS + 1) * (SLICES + 1) * 3];
+        char[] sphereIndices = new char[STACKS * SLICES * 6];
+        int n = 0;
+
+        mSpherePos = new float[normals.length];
+        for (int st = 0; st <= STACKS; ++st)
+        {
+            double phi = Math.PI * st / STACKS;
+            for (int sl = 0; sl <= SLICES; ++sl)
+            {
+                double theta = 2 * Math.PI * sl / SLICES;
+                normals[n] = (float) (Math.sin(phi) * Math.cos(theta));
+                normals[n + 1] = (float) Math.cos(phi);
+                normals[n + 2] = (float) (Math.sin(phi) * Math.sin(theta));
+                mSpherePos[n] = normals[n] * Radius;
+                mSpherePos[n + 1] = normals[n + 1] * Radius;
+                mSpherePos[n + 2] = normals[n + 2] * Radius;
+                n += 3;
+            }
+        }
+        n = 0;
+        for (int st = 0; st < STACKS; ++st)
+        {
+            for (int sl = 0; sl < SLICES; ++sl)
+            {
+                char a = (char) (st * (SLICES + 1) + sl);
+                char b = (char) (a + SLICES + 1);
+                sphereIndices[n++] = a;
+                sphereIndices[n++] = b;
+                sphereIndices[n++] = (char) (a + 1);
+                sphereIndices[n++] = (char) (a + 1);
+                sphereIndices[n++] = b;
+                sphereIndices[n++] = (char) (b + 1);
+            }
+        }
+        mVertsPerParticle = normals.length / 3;
+        mParticlesPerMesh = Math.min(capacity, MAX_VERTICES_PER_MESH / mVertsPerParticle);
+
+        int numMeshes = (capacity + mParticlesPerMesh - 1) / mParticlesPerMesh;
+        mMeshes = new SXRMesh[numMeshes];
+        mVertices = new float[numMeshes][];
+        for (int m = 0; m < numMeshes; ++m)
+        {
+            int particles = Math.min(mParticlesPerMesh, capacity - m * mParticlesPerMesh);
+            float[] meshNormals = new float[particles * normals.length];
+            char[] indices = new char[particles * sphereIndices.length];
+
+            for (int p = 0; p < particles; ++p)
+            {
+                System.arraycopy(normals, 0, meshNormals, p * normals.length, normals.length);
+                for (int i = 0; i < sphereIndices.length; ++i)
+                {
+                    indices[p * sphereIndices.length + i] = (char) (sphereIndices[i] + p * mVertsPerParticle);
+                }
+            }
+            /*
+             * Every particle starts collapsed at the origin
+             * until it is emitted.
+             */
+            mVertices[m] = new float[meshNormals.length];
+            mMeshes[m] = new SXRMesh(ctx, "float3 a_position float3 a_normal");
+            mMeshes[m].setVertices(mVertices[m]);
+            mMeshes[m].setNormals(meshNormals);
+            mMeshes[m].setIndices(indices);
+
+            SXRNode batch = new SXRNode(ctx, mMeshes[m]);
+            SXRRenderData rdata = batch.getRenderData();
+            batch.setName("particles" + m);
+            rdata.setMaterial(mMaterial);
+            rdata.setAlphaBlend(true);
+            rdata.setRenderingOrder(SXRRenderData.SXRRenderingOrder.TRANSPARENT);
+            getOwnerObject().addChildObject(batch);
+        }
+    }
+}
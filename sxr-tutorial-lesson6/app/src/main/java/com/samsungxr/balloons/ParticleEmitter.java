@@ -14,8 +14,6 @@
  */
 package com.samsungxr.balloons;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.Random;
 import com.samsungxr.SXRBehavior;
 import com.samsungxr.SXRContext;
@@ -86,21 +84,25 @@ public class ParticleEmitter extends SXRBehavior
      * before it disappears
      */
     public  float     MaxDistance = 10.0f;
-    
-    private ArrayList<Particle> mFreeParticles;
-    private ArrayList<Particle> mActiveParticles;
+
+    /**
+     * Number of threads used to move the particles.
+     * Only takes effect before the first particle is emitted.
+     */
+    public  int       NumThreads = 1;
+
+    private Particle[]  mParticles;
+    private int[]       mExpired;
+    private ParticleSimulator mSimulator;
     private SXRScene    mScene;
     private Random      mRandom = new Random();
     private float       mLastEmitTime;
-    private int         mNumParticles = 0;
     private MakeParticle mMakeParticle;
     static private long TYPE_PARTICLE_EMITTER = newComponentType(ParticleEmitter.class);
 
     public ParticleEmitter(SXRContext ctx, SXRScene scene, MakeParticle newParticle)
     {
         super(ctx);
-        mFreeParticles = new ArrayList<Particle>();
-        mActiveParticles = new ArrayList<Particle>();
         mMakeParticle = newParticle;
         mScene = scene;
         mType = TYPE_PARTICLE_EMITTER;
@@ -114,14 +116,51 @@ public class ParticleEmitter extends SXRBehavior
         mLastEmitTime = 0;
     }
 
+    /**
+     * Stops the worker threads of the simulator when the emitter
+     * is removed. Particles still move if it is attached again,
+     * but on the calling thread only.
+     */
+    @Override
+    public void onDetach(SXRNode oldOwner)
+    {
+        super.onDetach(oldOwner);
+        synchronized (this)
+        {
+            if (mSimulator != null)
+            {
+                mSimulator.shutdown();
+            }
+        }
+    }
+
     public void stop(Particle particle)
     {
-        synchronized (mActiveParticles)
+        synchronized (this)
         {
             SXRNode owner = particle.getOwnerObject();
             owner.setEnable(false);
-            mActiveParticles.remove(particle);
-            mFreeParticles.add(particle);
+            getSimulator().kill(particle.Id);
+        }
+    }
+
+    /**
+     * Speed of a particle in units per second, 0 if it is not moving.
+     * Read it before {@link #stop(Particle)}, which frees its slot.
+     */
+    public float getVelocity(Particle particle)
+    {
+        synchronized (this)
+        {
+            ParticleSimulator sim = getSimulator();
+            int i = sim.indexOf(particle.Id);
+            if (i < 0)
+            {
+                return 0;
+            }
+            return (float) Math.sqrt(sim.VelX[i] * sim.VelX[i]
+                                     + sim.VelY[i] * sim.VelY[i]
+                                     + sim.VelZ[i] * sim.VelZ[i]);
         }
     }
 
@@ -133,41 +172,37 @@ public class ParticleEmitter extends SXRBehavior
         }
     }
 
-    protected void step(float elapsed)
+    protected ParticleSimulator getSimulator()
     {
-        float emitTime = 1 / EmissionRate;
-        mLastEmitTime += elapsed;
-        synchronized (mActiveParticles)
-        {
-            for (Iterator<Particle> iter = mActiveParticles.iterator(); iter.hasNext(); )
-            {
-                Particle particle = iter.next();
-                particle.move(elapsed);
-                if (particle.Distance > MaxDistance)
-                {
-                    iter.remove();
-                    mFreeParticles.add(particle);
-                    particle.getOwnerObject().setEnable(false);
-                }
-            }
-        }
-        if (mLastEmitTime >= emitTime)
+        if (mSimulator == null)
         {
-            emit();
-            mLastEmitTime = 0;
+            mSimulator = new ParticleSimulator(TotalParticles, NumThreads);
+            mParticles = new Particle[TotalParticles];
+            mExpired = new int[TotalParticles];
         }
+        return mSimulator;
     }
 
-    private Vector3f getNextDirection()
+    protected void step(float elapsed)
     {
-        Vector3f direction = new Vector3f(Direction.MaxVal);
-        if (Direction.isRange())
+        float emitTime = 1 / EmissionRate;
+        mLastEmitTime += elapsed;
+        synchronized (this)
         {
-            direction.sub(Direction.MinVal, direction);
-            direction.mul(mRandom.nextFloat());
-            direction.add(Direction.MinVal, direction);
+            ParticleSimulator sim = getSimulator();
+            int numExpired = sim.step(elapsed, mExpired);
+
+            for (int i = 0; i < numExpired; ++i)
+            {
+                onExpired(mExpired[i]);
+            }
+            updateParticles(sim);
+            while (mLastEmitTime >= emitTime)
+            {
+                emit();
+                mLastEmitTime -= emitTime;
+            }
         }
-        return direction;
     }
 
     private float getNextVelocity()
@@ -180,54 +215,91 @@ public class ParticleEmitter extends SXRBehavior
         return velocity;
     }
 
-    private Vector3f getNextPosition()
+    private static float lerp(float min, float max, float t)
     {
-        Vector3f v = new Vector3f(EmitterArea.MaxVal.x, EmitterArea.MaxVal.y, 0);
-        if (EmitterArea.isRange())
-        {
-            v.sub(EmitterArea.MinVal.x, EmitterArea.MinVal.y, 0);
-            v.mul(mRandom.nextFloat(), mRandom.nextFloat(), 0);
-            v.add(EmitterArea.MinVal.x, EmitterArea.MinVal.y, 0);
-        }
-        return v;
+        return min + (max - min) * t;
     }
 
     protected void emit()
     {
-        Particle particle = null;
-        SXRNode sceneObj = null;
-        Vector3f direction = getNextDirection();
+        ParticleSimulator sim = getSimulator();
+        if (sim.getCount() >= MaxActiveParticles)
+        {
+            return; // cannot emit any more
+        }
+        Vector3f dmin = Direction.MinVal;
+        Vector3f dmax = Direction.MaxVal;
+        float dx = dmax.x, dy = dmax.y, dz = dmax.z;
+        if (Direction.isRange())
+        {
+            float t = mRandom.nextFloat();
+            dx = lerp(dmin.x, dmax.x, t);
+            dy = lerp(dmin.y, dmax.y, t);
+            dz = lerp(dmin.z, dmax.z, t);
+        }
+        float x = EmitterArea.MaxVal.x;
+        float y = EmitterArea.MaxVal.y;
+        if (EmitterArea.isRange())
+        {
+            x = lerp(EmitterArea.MinVal.x, x, mRandom.nextFloat());
+            y = lerp(EmitterArea.MinVal.y, y, mRandom.nextFloat());
+        }
         float velocity = getNextVelocity();
+        float speed = velocity * (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        float lifetime = (speed > 0) ? MaxDistance / speed : Float.MAX_VALUE;
+        int id = sim.emit(x, y, 0, dx * velocity, dy * velocity, dz * velocity, lifetime);
 
-        if (mFreeParticles.size() > 0)
+        if (id >= 0)
         {
-            int last = mFreeParticles.size() - 1;
-            particle = mFreeParticles.get(last);
-            mFreeParticles.remove(last);
-            sceneObj = particle.getOwnerObject();
-            particle.Velocity = velocity;
-            particle.Direction = direction;
+            onEmitted(id, x, y, 0);
         }
-        else
+    }
+
+    /**
+     * Called when a particle starts moving. The default makes
+     * or reuses a scene object for it.
+     */
+    protected void onEmitted(int id, float x, float y, float z)
+    {
+        Particle particle = mParticles[id];
+        SXRNode sceneObj;
+
+        if (particle == null)
         {
-            if (mNumParticles >= TotalParticles)
-            {
-                return; // cannot create any more
-            }
-            if (mActiveParticles.size() >= MaxActiveParticles)
-            {
-                return; // cannot emit any more
-            }
             sceneObj = mMakeParticle.create(getSXRContext());
-            sceneObj.setName(sceneObj.getName() + Integer.valueOf(mNumParticles).toString());
-            ++mNumParticles;
-            particle = new Particle(getSXRContext(), velocity, direction);
+            sceneObj.setName(sceneObj.getName() + Integer.valueOf(id).toString());
+            particle = new Particle(getSXRContext(), id);
             sceneObj.attachComponent(particle);
             getOwnerObject().addChildObject(sceneObj);
       //      sceneObj.getRenderData().bindShader(mScene);
+            mParticles[id] = particle;
+        }
+        else
+        {
+            sceneObj = particle.getOwnerObject();
         }
-        particle.setPosition(getNextPosition());
-        mActiveParticles.add(particle);
+        sceneObj.getTransform().setPosition(x, y, z);
         sceneObj.setEnable(true);
     }
+
+    /**
+     * Called when a particle has gone past {@link #MaxDistance}.
+     */
+    protected void onExpired(int id)
+    {
+        mParticles[id].getOwnerObject().setEnable(false);
+    }
+
+    /**
+     * Called every frame after the particles have moved
+     * to show them in their new positions.
+     */
+    protected void updateParticles(ParticleSimulator sim)
+    {
+        for (int i = 0; i < sim.getCount(); ++i)
+        {
+            SXRNode owner = mParticles[sim.getId(i)].getOwnerObject();
+            owner.getTransform().setPosition(sim.PosX[i], sim.PosY[i], sim.PosZ[i]);
+        }
+    }
  }
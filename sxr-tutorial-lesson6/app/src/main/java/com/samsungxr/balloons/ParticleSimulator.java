@@ -0,0 +1,303 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samsungxr.balloons;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Moves particles along straight lines, keeping their state in
+ * parallel float arrays instead of one object per particle.
+ * <p>
+ * Live particles are packed into the first {@link #getCount()} entries.
+ * When a particle dies the last live one is moved into its place, so
+ * the packed index of a particle changes over time. Each particle also
+ * has a stable id in [0, capacity) which callers can use to keep their
+ * own per-particle data.
+ * <p>
+ * Nothing is allocated after construction. If more than one thread is
+ * requested, large batches are split across worker threads which wait
+ * on a barrier between frames.
+ */
+public class ParticleSimulator
+{
+    /**
+     * Work on the packed range [from, to).
+     */
+    public interface Kernel
+    {
+        void run(int from, int to);
+    }
+
+    /**
+     * Batches smaller than this are not worth waking the workers for.
+     */
+    public static final int PARALLEL_THRESHOLD = 2048;
+
+    final float[]   PosX;
+    final float[]   PosY;
+    final float[]   PosZ;
+    final float[]   VelX;
+    final float[]   VelY;
+    final float[]   VelZ;
+    final float[]   Age;
+    final float[]   Lifetime;
+
+    private final int[]     mIdAt;       // packed index -> id
+    private final int[]     mIndexOf;    // id -> packed index, -1 if free
+    private final int[]     mFreeIds;
+    private int             mNumFree;
+    private int             mCount = 0;
+    private float           mStepTime;
+
+    private final Worker[]      mWorkers;
+    private final CyclicBarrier mStart;
+    private final CyclicBarrier mDone;
+    private volatile Kernel     mKernel;
+    private volatile int        mRangeEnd;
+    private volatile boolean    mRunning = true;
+
+    private final Kernel mIntegrate = new Kernel()
+    {
+        public void run(int from, int to)
+        {
+            final float t = mStepTime;
+            for (int i = from; i < to; ++i)
+            {
+                PosX[i] += VelX[i] * t;
+                PosY[i] += VelY[i] * t;
+                PosZ[i] += VelZ[i] * t;
+                Age[i] += t;
+            }
+        }
+    };
+
+    public ParticleSimulator(int capacity, int numThreads)
+    {
+        PosX = new float[capacity];
+        PosY = new float[capacity];
+        PosZ = new float[capacity];
+        VelX = new float[capacity];
+        VelY = new float[capacity];
+        VelZ = new float[capacity];
+        Age = new float[capacity];
+        Lifetime = new float[capacity];
+        mIdAt = new int[capacity];
+        mIndexOf = new int[capacity];
+        mFreeIds = new int[capacity];
+        for (int i = 0; i < capacity; ++i)
+        {
+            mIndexOf[i] = -1;
+            mFreeIds[i] = capacity - 1 - i;
+        }
+        mNumFree = capacity;
+
+        int numWorkers = Math.max(0, numThreads - 1);
+        mWorkers = new Worker[numWorkers];
+        if (numWorkers > 0)
+        {
+            mStart = new CyclicBarrier(numWorkers + 1);
+            mDone = new CyclicBarrier(numWorkers + 1);
+            for (int i = 0; i < numWorkers; ++i)
+            {
+                mWorkers[i] = new Worker(i + 1, numWorkers + 1);
+                mWorkers[i].start();
+            }
+        }
+        else
+        {
+            mStart = mDone = null;
+        }
+    }
+
+    public int getCapacity() { return PosX.length; }
+
+    public int getCount() { return mCount; }
+
+    public int getId(int index) { return mIdAt[index]; }
+
+    /**
+     * @return packed index of the particle, -1 if it is not alive
+     */
+    public int indexOf(int id) { return mIndexOf[id]; }
+
+    /**
+     * Start a new particle.
+     * @return id of the particle, -1 if all of them are in use
+     */
+    public int emit(float x, float y, float z, float vx, float vy, float vz, float lifetime)
+    {
+        if (mNumFree == 0)
+        {
+            return -1;
+        }
+        int id = mFreeIds[--mNumFree];
+        int i = mCount++;
+        PosX[i] = x;
+        PosY[i] = y;
+        PosZ[i] = z;
+        VelX[i] = vx;
+        VelY[i] = vy;
+        VelZ[i] = vz;
+        Age[i] = 0;
+        Lifetime[i] = lifetime;
+        mIdAt[i] = id;
+        mIndexOf[id] = i;
+        return id;
+    }
+
+    /**
+     * Stop a particle before its lifetime is up.
+     */
+    public void kill(int id)
+    {
+        int i = mIndexOf[id];
+        if (i >= 0)
+        {
+            remove(i);
+        }
+    }
+
+    /**
+     * Advance all live particles and retire the ones which have
+     * outlived their lifetime.
+     * @param elapsed seconds since the last step
+     * @param expired receives the ids of retired particles, may be null
+     * @return number of ids written to expired
+     */
+    public int step(float elapsed, int[] expired)
+    {
+        mStepTime = elapsed;
+        parallelFor(mCount, mIntegrate);
+
+        int numExpired = 0;
+        for (int i = mCount - 1; i >= 0; --i)
+        {
+            if (Age[i] > Lifetime[i])
+            {
+                if (expired != null)
+                {
+                    expired[numExpired++] = mIdAt[i];
+                }
+                remove(i);
+            }
+        }
+        return numExpired;
+    }
+
+    /**
+     * Run the kernel over [0, n), split across the worker threads
+     * when n is large enough. Returns when all of it is done.
+     */
+    public void parallelFor(int n, Kernel kernel)
+    {
+        if ((mWorkers.length == 0) || !mRunning || (n < PARALLEL_THRESHOLD))
+        {
+            kernel.run(0, n);
+            return;
+        }
+        mKernel = kernel;
+        mRangeEnd = n;
+        await(mStart);
+        kernel.run(0, sliceEnd(0, n, mWorkers.length + 1));
+        await(mDone);
+        mKernel = null;
+    }
+
+    /**
+     * Stop the worker threads. The simulator may still be used
+     * afterwards but will run single threaded.
+     */
+    public void shutdown()
+    {
+        mRunning = false;
+        for (Worker w : mWorkers)
+        {
+            w.interrupt();
+        }
+    }
+
+    private void remove(int i)
+    {
+        int id = mIdAt[i];
+        int last = --mCount;
+        if (i != last)
+        {
+            PosX[i] = PosX[last];
+            PosY[i] = PosY[last];
+            PosZ[i] = PosZ[last];
+            VelX[i] = VelX[last];
+            VelY[i] = VelY[last];
+            VelZ[i] = VelZ[last];
+            Age[i] = Age[last];
+            Lifetime[i] = Lifetime[last];
+            mIdAt[i] = mIdAt[last];
+            mIndexOf[mIdAt[i]] = i;
+        }
+        mIndexOf[id] = -1;
+        mFreeIds[mNumFree++] = id;
+    }
+
+    private static int sliceEnd(int slice, int n, int numSlices)
+    {
+        return (int) ((long) n * (slice + 1) / numSlices);
+    }
+
+    private static void await(CyclicBarrier barrier)
+    {
+        try
+        {
+            barrier.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (BrokenBarrierException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private class Worker extends Thread
+    {
+        private final int mSlice;
+        private final int mNumSlices;
+
+        Worker(int slice, int numSlices)
+        {
+            super("ParticleSimulator-" + slice);
+            setDaemon(true);
+            mSlice = slice;
+            mNumSlices = numSlices;
+        }
+
+        public void run()
+        {
+            try
+            {
+                while (mRunning)
+                {
+                    mStart.await();
+                    int n = mRangeEnd;
+                    mKernel.run(sliceEnd(mSlice - 1, n, mNumSlices), sliceEnd(mSlice, n, mNumSlices));
+                    mDone.await();
+                }
+            }
+            catch (InterruptedException ex) { }
+            catch (BrokenBarrierException ex) { }
+        }
+    }
+}
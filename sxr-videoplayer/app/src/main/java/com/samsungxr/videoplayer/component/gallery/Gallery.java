@@ -43,8 +43,10 @@ import com.samsungxr.videoplayer.model.Video;
 import com.samsungxr.videoplayer.provider.asyntask.AlbumAsyncTask;
 import com.samsungxr.videoplayer.provider.asyntask.ExternalVideoAsyncTask;
 import com.samsungxr.videoplayer.provider.asyntask.GetDataCallback;
+import com.samsungxr.videoplayer.provider.asyntask.GetPagedDataCallback;
 import com.samsungxr.videoplayer.provider.asyntask.LocalVideoAsyncTask;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -53,12 +55,13 @@ public class Gallery extends FadeableObject implements OnItemsSelectionListener
     private static final String TAG = Gallery.class.getSimpleName();
     private RecyclerView mRecyclerView;
     private SXRViewNode mObjectViewGallery;
-    private List<GalleryItem> mItemList = new LinkedList<>();
+    private List<GalleryItem> mItemList = new ArrayList<>();
     private Breadcrumb mBreadcrumb;
     private OnGalleryEventListener mOnGalleryEventListener;
     private boolean mIsConnected = false;
     private CountdownTimer mCountdownTimer;
     private MessageText mMessageText;
+    private LocalVideoAsyncTask mLocalVideoTask;
 
     @SuppressLint("InflateParams")
     public Gallery(SXRContext sxrContext) {
@@ -158,14 +161,26 @@ public class Gallery extends FadeableObject implements OnItemsSelectionListener
 
     private void loadLocalVideos(String albumTitle) {
         setGridNumColumns(3);
-        new LocalVideoAsyncTask(albumTitle, new GetDataCallback<List<Video>>() {
+        mLocalVideoTask = new LocalVideoAsyncTask(albumTitle, new GetPagedDataCallback<Video>() {
+            @Override
+            public void onPageLoaded(List<Video> page) {
+                int start = mItemList.size();
+                mItemList.addAll(page);
+                mRecyclerView.getAdapter().notifyItemRangeInserted(start, page.size());
+            }
+
             @Override
             public void onResult(List<Video> data) {
-                mItemList.clear();
-                mItemList.addAll(data);
-                mRecyclerView.getAdapter().notifyDataSetChanged();
+                mLocalVideoTask = null;
+                // Same list when the videos shown were read from MediaStore or the index was up to date
+                if (!mItemList.equals(data)) {
+                    mItemList.clear();
+                    mItemList.addAll(data);
+                    mRecyclerView.getAdapter().notifyDataSetChanged();
+                }
             }
-        }).execute();
+        });
+        mLocalVideoTask.execute();
     }
 
     private void loadExternalVideos() {
@@ -249,6 +264,11 @@ public class Gallery extends FadeableObject implements OnItemsSelectionListener
     }
 
     private void setGridNumColumns(int numColumns) {
+        if (mLocalVideoTask != null) {
+            // Don't add pages of the previous album to the new content
+            mLocalVideoTask.cancel(false);
+            mLocalVideoTask = null;
+        }
         mItemList.clear();
         mRecyclerView.getAdapter().notifyDataSetChanged();
         ((GridLayoutManager) mRecyclerView.getLayoutManager()).setSpanCount(numColumns);
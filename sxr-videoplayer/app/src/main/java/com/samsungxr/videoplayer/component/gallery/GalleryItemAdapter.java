@@ -33,7 +33,7 @@ import com.samsungxr.videoplayer.model.Album;
 import com.samsungxr.videoplayer.model.GalleryItem;
 import com.samsungxr.videoplayer.model.HomeItem;
 import com.samsungxr.videoplayer.model.Video;
-import com.samsungxr.videoplayer.provider.asyntask.ThumbnailLoader;
+import com.samsungxr.videoplayer.provider.thumbnail.ThumbnailService;
 import com.samsungxr.videoplayer.util.TimeUtils;
 
 import java.util.List;
@@ -79,7 +79,7 @@ public class GalleryItemAdapter<T extends GalleryItem> extends RecyclerView.Adap
             Album album = (Album) item;
             AlbumViewHolder viewHolder = (AlbumViewHolder) holder;
             viewHolder.mTextView.setText(album.getTitle());
-            new ThumbnailLoader(viewHolder.mThumbnail).execute(album.getVideoForThumbnail().getId());
+            ThumbnailService.getInstance().load(album.getVideoForThumbnail().getId(), viewHolder.mThumbnail);
 
         } else if (item.getType() == GalleryItem.Type.TYPE_VIDEO) {
 
@@ -93,9 +93,10 @@ public class GalleryItemAdapter<T extends GalleryItem> extends RecyclerView.Adap
                 } else {
                     viewHolder.is360 = false;
                 }
-                new ThumbnailLoader(viewHolder.thumbnail).execute(video.getId());
+                ThumbnailService.getInstance().load(video.getId(), viewHolder.thumbnail);
             } else {
                 viewHolder.is360 = false;
+                ThumbnailService.getInstance().cancel(viewHolder.thumbnail);
                 viewHolder.thumbnail.setImageBitmap(video.getThumbnail());
             }
         } else {
@@ -103,6 +104,15 @@ public class GalleryItemAdapter<T extends GalleryItem> extends RecyclerView.Adap
         }
     }
 
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        if (holder instanceof VideoViewHolder) {
+            ThumbnailService.getInstance().cancel(((VideoViewHolder) holder).thumbnail);
+        } else if (holder instanceof AlbumViewHolder) {
+            ThumbnailService.getInstance().cancel(((AlbumViewHolder) holder).mThumbnail);
+        }
+    }
+
     @Override
     public int getItemCount() {
         return mItemList.size();
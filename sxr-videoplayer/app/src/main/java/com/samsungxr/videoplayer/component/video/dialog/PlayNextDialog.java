@@ -36,7 +36,7 @@ import com.samsungxr.videoplayer.component.FadeableObject;
 import com.samsungxr.videoplayer.component.video.player.Player;
 import com.samsungxr.videoplayer.focus.Focusable;
 import com.samsungxr.videoplayer.model.Video;
-import com.samsungxr.videoplayer.provider.asyntask.ThumbnailLoader;
+import com.samsungxr.videoplayer.provider.thumbnail.ThumbnailService;
 import com.samsungxr.videoplayer.util.TimeUtils;
 
 public class PlayNextDialog extends FadeableObject implements View.OnClickListener, Focusable, IViewEvents {
@@ -120,8 +120,9 @@ public class PlayNextDialog extends FadeableObject implements View.OnClickListen
                 mTitle.setText(video.getTitle());
                 mDuration.setText(TimeUtils.formatDurationFull(video.getDuration()));
                 if (video.getVideoType() == Video.VideoType.LOCAL) {
-                    new ThumbnailLoader(mThumbnail).execute(video.getId());
+                    ThumbnailService.getInstance().load(video.getId(), mThumbnail);
                 } else {
+                    ThumbnailService.getInstance().cancel(mThumbnail);
                     mThumbnail.setImageBitmap(video.getThumbnail());
                 }
             }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.asyntask;
+
+import java.util.List;
+
+/**
+ * Callback of a task that delivers its data in pages while loading it.
+ *
+ * @param <T> Type of items loaded.
+ */
+public interface GetPagedDataCallback<T> extends GetDataCallback<List<T>> {
+
+    /**
+     * Called for each page read, in order, before {@link #onResult(Object)} is called with
+     * all the items. The complete list may differ from the pages delivered when the
+     * pages were read from a cache.
+     *
+     * @param page Items to append to the ones previously delivered.
+     */
+    void onPageLoaded(List<T> page);
+}
@@ -27,19 +27,45 @@ import android.util.Log;
 import com.samsungxr.videoplayer.VideoPlayerApp;
 import com.samsungxr.videoplayer.model.Video;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import static android.provider.MediaStore.Video.Media;
 import static android.provider.MediaStore.Video.VideoColumns;
 
-public class LocalVideoAsyncTask extends AsyncTask<Void, Void, List<Video>> {
+/**
+ * Loads the local videos of an album.
+ * <br/>The videos are delivered in pages while read. If the album was already scanned, the
+ * saved index is delivered at once and then only the videos changed since then, or missing
+ * from the index, are read from MediaStore. Pages are delivered only to a
+ * {@link GetPagedDataCallback}.
+ */
+public class LocalVideoAsyncTask extends AsyncTask<Void, List<Video>, List<Video>> {
 
     private static final String TAG = LocalVideoAsyncTask.class.getSimpleName();
+    private static final int PAGE_SIZE = 48;
+    // Below the SQLite limit of 999 variables per statement
+    private static final int MAX_IDS_PER_QUERY = 500;
+    private static final String COLUMN_IS_360_VIDEO = "is_360_video";
+    private static final String SORT_ORDER = VideoColumns.TITLE + " ASC";
+
+    private static final String[] PROJECTION = new String[]{
+            VideoColumns._ID,
+            VideoColumns.TITLE,
+            VideoColumns.DATA,
+            VideoColumns.DURATION,
+            VideoColumns.WIDTH,
+            VideoColumns.HEIGHT,
+            VideoColumns.DATE_MODIFIED,
+            COLUMN_IS_360_VIDEO
+    };
 
     private GetDataCallback<List<Video>> mGetDataCallback;
     private String mAlbumTitleFilter;
+    private long mLastModified;
 
     public LocalVideoAsyncTask(String albumTitleFilter, @NonNull GetDataCallback<List<Video>> mGetDataCallback) {
         this.mAlbumTitleFilter = albumTitleFilter;
@@ -50,58 +76,177 @@ public class LocalVideoAsyncTask extends AsyncTask<Void, Void, List<Video>> {
         this.mAlbumTitleFilter = albumTitle;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     protected List<Video> doInBackground(Void... voids) {
-        return loadVideos();
+        Context context = VideoPlayerApp.getInstance().getApplicationContext();
+        LocalVideoIndex index = new LocalVideoIndex(context, mAlbumTitleFilter);
+
+        List<Video> indexed = index.read();
+        if (indexed != null) {
+            publishProgress(indexed);
+            return update(context, index, indexed);
+        }
+
+        mLastModified = 0;
+        List<Video> videos = query(context, null, null, true);
+        if (!isCancelled()) {
+            index.write(videos, mLastModified);
+        }
+        return videos;
     }
 
+    /**
+     * Load all videos of the album without using the index.
+     */
     public List<Video> loadVideos() {
-
         Context context = VideoPlayerApp.getInstance().getApplicationContext();
-        List<Video> videos = new LinkedList<>();
+        return query(context, null, null, false);
+    }
 
-        String[] projection = new String[]{
-                VideoColumns._ID,
-                VideoColumns.TITLE,
-                VideoColumns.DATA,
-                VideoColumns.DURATION,
-                VideoColumns.WIDTH,
-                VideoColumns.HEIGHT,
-                "is_360_video"
-        };
+    private List<Video> update(Context context, LocalVideoIndex index, List<Video> indexed) {
+        mLastModified = index.getLastModified();
 
-        String selection = mAlbumTitleFilter != null ? VideoColumns.BUCKET_DISPLAY_NAME + "=?" : null;
-        String[] selectionArgs = mAlbumTitleFilter != null ? new String[]{mAlbumTitleFilter} : null;
+        // Same second modifications may not be in the index, so read them again
+        List<Video> changed = query(context, VideoColumns.DATE_MODIFIED + ">=?",
+                new String[]{String.valueOf(index.getLastModified())}, false);
+        Set<Long> ids = queryIds(context);
+        if (isCancelled()) {
+            return indexed;
+        }
 
-        String sortOrder = VideoColumns.TITLE + " ASC";
+        // Copied or restored videos keep an older modification date, so read the videos
+        // missing from the index by id as well
+        Set<Long> unindexed = LocalVideoIndex.findUnindexed(indexed, changed, ids);
+        if (!unindexed.isEmpty()) {
+            changed.addAll(queryByIds(context, unindexed));
+            if (isCancelled()) {
+                return indexed;
+            }
+        }
+
+        List<Video> result = LocalVideoIndex.merge(indexed, changed, ids);
+        if (result == null) {
+            return indexed;
+        }
+
+        Log.d(TAG, "Index updated with " + changed.size() + " changed videos");
+        index.write(result, mLastModified);
+        return result;
+    }
+
+    private List<Video> queryByIds(Context context, Set<Long> ids) {
+        List<Video> videos = new ArrayList<>(ids.size());
+        List<Long> pending = new ArrayList<>(ids);
+        for (int start = 0; start < pending.size() && !isCancelled(); start += MAX_IDS_PER_QUERY) {
+            int end = Math.min(start + MAX_IDS_PER_QUERY, pending.size());
+            StringBuilder selection = new StringBuilder(VideoColumns._ID).append(" IN (");
+            String[] selectionArgs = new String[end - start];
+            for (int i = start; i < end; i++) {
+                selection.append(i > start ? ",?" : "?");
+                selectionArgs[i - start] = String.valueOf(pending.get(i));
+            }
+            selection.append(')');
+            videos.addAll(query(context, selection.toString(), selectionArgs, false));
+        }
+        return videos;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Video> query(Context context, String selection, String[] args,
+                              boolean paged) {
+
+        List<Video> videos = new ArrayList<>();
+        List<String> selectionArgs = new ArrayList<>();
+        String where = buildSelection(selection, args, selectionArgs);
 
         try (Cursor cursor = context.getContentResolver().query(
                 Media.EXTERNAL_CONTENT_URI,
-                projection, selection, selectionArgs, sortOrder)) {
+                PROJECTION, where, selectionArgs.toArray(new String[0]), SORT_ORDER)) {
 
             if (cursor != null && cursor.moveToFirst()) {
 
                 Log.d(TAG, "Result count = " + cursor.getCount());
 
                 VideoCursorWrapper cursorWrapper = new VideoCursorWrapper(cursor);
+                List<Video> page = new ArrayList<>(PAGE_SIZE);
 
                 do {
 
                     String videoTitle = cursorWrapper.getTitle();
-                    long videoId = cursorWrapper.getId();
-
-                    videos.add(new Video(videoId, videoTitle, cursorWrapper.getPath(),
+                    Video video = new Video(cursorWrapper.getId(), videoTitle, cursorWrapper.getPath(),
                             cursorWrapper.getDuration(), cursorWrapper.getIsRatio21(),
-                            cursorWrapper.getIs360Video(), cursorWrapper.has360onTitle(),
-                            Video.VideoType.LOCAL));
-
-                } while (cursor.moveToNext());
+                            cursorWrapper.getIs360Video(), has360onTitle(videoTitle),
+                            Video.VideoType.LOCAL);
+                    mLastModified = Math.max(mLastModified, cursorWrapper.getDateModified());
+                    videos.add(video);
+
+                    if (paged) {
+                        page.add(video);
+                        if (page.size() == PAGE_SIZE) {
+                            publishProgress(page);
+                            page = new ArrayList<>(PAGE_SIZE);
+                        }
+                    }
+
+                } while (!isCancelled() && cursor.moveToNext());
+
+                if (!page.isEmpty()) {
+                    publishProgress(page);
+                }
             }
         }
 
         return videos;
     }
 
+    private Set<Long> queryIds(Context context) {
+        Set<Long> ids = new HashSet<>();
+        List<String> selectionArgs = new ArrayList<>(1);
+        String where = buildSelection(null, null, selectionArgs);
+
+        try (Cursor cursor = context.getContentResolver().query(
+                Media.EXTERNAL_CONTENT_URI,
+                new String[]{VideoColumns._ID}, where,
+                selectionArgs.toArray(new String[0]), null)) {
+
+            if (cursor != null) {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getLong(0));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private String buildSelection(String selection, String[] args, List<String> selectionArgs) {
+        StringBuilder where = new StringBuilder();
+        if (mAlbumTitleFilter != null) {
+            where.append(VideoColumns.BUCKET_DISPLAY_NAME).append("=?");
+            selectionArgs.add(mAlbumTitleFilter);
+        }
+        if (selection != null) {
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            where.append(selection);
+            Collections.addAll(selectionArgs, args);
+        }
+        return where.length() > 0 ? where.toString() : null;
+    }
+
+    private static boolean has360onTitle(String title) {
+        return title != null && title.contains("360");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void onProgressUpdate(List<Video>... pages) {
+        if (!isCancelled() && mGetDataCallback instanceof GetPagedDataCallback) {
+            ((GetPagedDataCallback<Video>) mGetDataCallback).onPageLoaded(pages[0]);
+        }
+    }
+
     @Override
     protected void onPostExecute(List<Video> videos) {
         super.onPostExecute(videos);
@@ -112,48 +257,56 @@ public class LocalVideoAsyncTask extends AsyncTask<Void, Void, List<Video>> {
 
     private static class VideoCursorWrapper extends CursorWrapper {
 
+        // Column indices are resolved once for the whole cursor
+        private final int mIdColumn;
+        private final int mTitleColumn;
+        private final int mDataColumn;
+        private final int mDurationColumn;
+        private final int mWidthColumn;
+        private final int mHeightColumn;
+        private final int mDateModifiedColumn;
+        private final int mIs360VideoColumn;
+
         VideoCursorWrapper(Cursor cursor) {
             super(cursor);
+            mIdColumn = getColumnIndexOrThrow(VideoColumns._ID);
+            mTitleColumn = getColumnIndexOrThrow(VideoColumns.TITLE);
+            mDataColumn = getColumnIndexOrThrow(VideoColumns.DATA);
+            mDurationColumn = getColumnIndexOrThrow(VideoColumns.DURATION);
+            mWidthColumn = getColumnIndexOrThrow(VideoColumns.WIDTH);
+            mHeightColumn = getColumnIndexOrThrow(VideoColumns.HEIGHT);
+            mDateModifiedColumn = getColumnIndexOrThrow(VideoColumns.DATE_MODIFIED);
+            mIs360VideoColumn = getColumnIndexOrThrow(COLUMN_IS_360_VIDEO);
         }
 
         String getTitle() {
-            return getString(getColumnIndexOrThrow(VideoColumns.TITLE));
+            return getString(mTitleColumn);
         }
 
         String getPath() {
-            return getString(getColumnIndexOrThrow(VideoColumns.DATA));
+            return getString(mDataColumn);
         }
 
         long getId() {
-            return getLong(getColumnIndexOrThrow(VideoColumns._ID));
+            return getLong(mIdColumn);
         }
 
         long getDuration() {
-            return getLong(getColumnIndexOrThrow(VideoColumns.DURATION));
-        }
-
-        String getWidth() {
-            return getString(getColumnIndexOrThrow(VideoColumns.WIDTH));
+            return getLong(mDurationColumn);
         }
 
-        String getHeight() {
-            return getString(getColumnIndexOrThrow(VideoColumns.HEIGHT));
+        long getDateModified() {
+            return getLong(mDateModifiedColumn);
         }
 
         boolean getIsRatio21() {
-            String width = getWidth();
-            String height = getHeight();
-            if (width == null || height == null)
+            if (isNull(mWidthColumn) || isNull(mHeightColumn))
                 return false;
-            return Float.parseFloat(getWidth()) / Float.parseFloat(getHeight()) == 2;
+            return getFloat(mWidthColumn) / getFloat(mHeightColumn) == 2;
         }
 
         boolean getIs360Video() {
-            return getInt(getColumnIndexOrThrow("is_360_video")) == 1;
-        }
-
-        boolean has360onTitle() {
-            return Pattern.matches(".*360.*", getTitle());
+            return getInt(mIs360VideoColumn) == 1;
         }
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.asyntask;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.samsungxr.videoplayer.model.Video;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local videos found in the last scan of an album, saved to show the gallery at once
+ * on later launches.
+ */
+class LocalVideoIndex {
+
+    private static final String TAG = LocalVideoIndex.class.getSimpleName();
+    private static final String DIRECTORY = "video_index";
+    private static final int VERSION = 1;
+
+    private static final int FLAG_RATIO_21 = 1;
+    private static final int FLAG_360_TAG = 1 << 1;
+    private static final int FLAG_360_ON_TITLE = 1 << 2;
+
+    private final File mFile;
+    private final String mAlbumTitle;
+    private long mLastModified;
+
+    /**
+     * @param albumTitle Title of the album or null for all videos.
+     */
+    LocalVideoIndex(@NonNull Context context, String albumTitle) {
+        String name = albumTitle == null ? "all" : "album_" + Integer.toHexString(albumTitle.hashCode());
+        mFile = new File(new File(context.getCacheDir(), DIRECTORY), name);
+        mAlbumTitle = albumTitle != null ? albumTitle : "";
+    }
+
+    /**
+     * @return Greatest MediaStore modification date, in seconds, of the videos indexed.
+     */
+    long getLastModified() {
+        return mLastModified;
+    }
+
+    /**
+     * @return The videos indexed or null if there is no valid index.
+     */
+    List<Video> read() {
+        if (!mFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != VERSION || !mAlbumTitle.equals(in.readUTF())) {
+                return null;
+            }
+            mLastModified = in.readLong();
+            int count = in.readInt();
+            List<Video> videos = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                String title = in.readUTF();
+                String path = in.readUTF();
+                long duration = in.readLong();
+                int flags = in.readByte();
+                videos.add(new Video(id, title, path, duration,
+                        (flags & FLAG_RATIO_21) != 0,
+                        (flags & FLAG_360_TAG) != 0,
+                        (flags & FLAG_360_ON_TITLE) != 0,
+                        Video.VideoType.LOCAL));
+            }
+            return videos;
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding invalid index " + mFile, e);
+            mFile.delete();
+            return null;
+        }
+    }
+
+    void write(@NonNull List<Video> videos, long lastModified) {
+        File directory = mFile.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "Can't create directory " + directory);
+            return;
+        }
+
+        // Write to a temporary file so a killed process doesn't leave a truncated index
+        File temp = new File(directory, mFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(VERSION);
+            out.writeUTF(mAlbumTitle);
+            out.writeLong(lastModified);
+            out.writeInt(videos.size());
+            for (Video video : videos) {
+                out.writeLong(video.getId());
+                out.writeUTF(video.getTitle() != null ? video.getTitle() : "");
+                out.writeUTF(video.getPath() != null ? video.getPath() : "");
+                out.writeLong(video.getDuration());
+                out.writeByte((video.getIsRatio21() ? FLAG_RATIO_21 : 0)
+                        | (video.getIs360tag() ? FLAG_360_TAG : 0)
+                        | (video.getHas360onTitle() ? FLAG_360_ON_TITLE : 0));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Error writing index " + mFile, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(mFile)) {
+            temp.delete();
+            return;
+        }
+        mLastModified = lastModified;
+    }
+
+    /**
+     * @param indexed Videos read from the index.
+     * @param changed Videos already read again from MediaStore.
+     * @param ids Ids of all the videos of the album in MediaStore.
+     * @return Ids in MediaStore that are neither indexed nor read again.
+     */
+    static Set<Long> findUnindexed(@NonNull Collection<Video> indexed,
+                                   @NonNull Collection<Video> changed, @NonNull Set<Long> ids) {
+        Set<Long> unindexed = new HashSet<>(ids);
+        for (Video video : indexed) {
+            unindexed.remove(video.getId());
+        }
+        for (Video video : changed) {
+            unindexed.remove(video.getId());
+        }
+        return unindexed;
+    }
+
+    /**
+     * Apply the videos read again from MediaStore to the indexed ones.
+     *
+     * @param indexed Videos read from the index.
+     * @param changed Videos read again from MediaStore.
+     * @param ids Ids of all the videos of the album in MediaStore.
+     * @return The videos sorted by title or null if nothing changed.
+     */
+    static List<Video> merge(@NonNull List<Video> indexed, @NonNull List<Video> changed,
+                             @NonNull Set<Long> ids) {
+        Map<Long, Video> videos = new LinkedHashMap<>(indexed.size() + changed.size());
+        boolean modified = false;
+        for (Video video : indexed) {
+            if (ids.contains(video.getId())) {
+                videos.put(video.getId(), video);
+            } else {
+                modified = true;
+            }
+        }
+        for (Video video : changed) {
+            Video old = videos.put(video.getId(), video);
+            modified |= old == null || !isSameVideo(old, video);
+        }
+
+        if (!modified) {
+            return null;
+        }
+
+        List<Video> result = new ArrayList<>(videos.values());
+        Collections.sort(result, new Comparator<Video>() {
+            @Override
+            public int compare(Video a, Video b) {
+                return String.CASE_INSENSITIVE_ORDER.compare(
+                        String.valueOf(a.getTitle()), String.valueOf(b.getTitle()));
+            }
+        });
+        return result;
+    }
+
+    private static boolean isSameVideo(Video a, Video b) {
+        return a.getDuration() == b.getDuration()
+                && a.getIsRatio21() == b.getIsRatio21()
+                && a.getIs360tag() == b.getIs360tag()
+                && String.valueOf(a.getTitle()).equals(b.getTitle())
+                && String.valueOf(a.getPath()).equals(b.getPath());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.thumbnail;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Size-bounded directory of downscaled thumbnails, one JPEG file per video id.
+ * Least recently used files are removed when the size limit is exceeded.
+ * <br/>Methods must be called from the decode threads, never from the UI thread.
+ */
+class ThumbnailDiskCache {
+
+    private static final String TAG = ThumbnailDiskCache.class.getSimpleName();
+    private static final int JPEG_QUALITY = 85;
+
+    private final File mDirectory;
+    private final long mMaxSize;
+    private long mSize = -1;
+
+    ThumbnailDiskCache(@NonNull File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+    }
+
+    synchronized Bitmap get(long videoId) {
+        File file = getFile(videoId);
+        if (!file.exists()) {
+            return null;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap == null) {
+            file.delete();
+        } else {
+            // Keep the file access order for trimming
+            file.setLastModified(System.currentTimeMillis());
+        }
+        return bitmap;
+    }
+
+    synchronized void put(long videoId, @NonNull Bitmap bitmap) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Can't create directory " + mDirectory);
+            return;
+        }
+        File file = getFile(videoId);
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Error writing thumbnail " + file, e);
+            file.delete();
+            return;
+        }
+        if (mSize < 0) {
+            mSize = computeSize();
+        } else {
+            mSize += file.length();
+        }
+        if (mSize > mMaxSize) {
+            trim();
+        }
+    }
+
+    private void trim() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        // Trim to 90% so the next writes don't trim again
+        long target = mMaxSize * 9 / 10;
+        for (File file : files) {
+            if (mSize <= target) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mSize -= length;
+            }
+        }
+    }
+
+    private long computeSize() {
+        long size = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    private File getFile(long videoId) {
+        return new File(mDirectory, videoId + ".jpg");
+    }
+}
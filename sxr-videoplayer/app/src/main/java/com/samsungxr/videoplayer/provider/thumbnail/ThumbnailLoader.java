@@ -0,0 +1,272 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.thumbnail;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Request bookkeeping of {@link ThumbnailService}: a memory LRU cache bounded in bytes,
+ * coalescing of the requests for the same video and decoding of the newest requests first.
+ * <br/>Decoding, showing, the threads and the clock are supplied by the caller, so it has no
+ * Android dependencies and can be tested off the device. {@link #load} and {@link #cancel}
+ * must be called from the thread the main executor runs on.
+ *
+ * @param <T> Target the thumbnails are shown in.
+ * @param <B> Decoded thumbnail.
+ */
+final class ThumbnailLoader<T, B> {
+
+    interface Decoder<B> {
+        /**
+         * Called on a decode thread.
+         *
+         * @return The thumbnail, or null if it can't be decoded.
+         */
+        B decode(long videoId);
+
+        /**
+         * @return Size of the thumbnail in bytes.
+         */
+        int sizeOf(B bitmap);
+    }
+
+    interface Display<T, B> {
+        /**
+         * Show the thumbnail in the target, or clear the target if bitmap is null.
+         */
+        void show(T target, B bitmap);
+    }
+
+    interface Clock {
+        long uptimeMillis();
+    }
+
+    private final Decoder<B> mDecoder;
+    private final Display<T, B> mDisplay;
+    private final Executor mDecodeExecutor;
+    private final Executor mMainExecutor;
+    private final Clock mClock;
+    private final long mMaxCacheBytes;
+
+    // Access ordered, so the first entry is the least recently used
+    private final LinkedHashMap<Long, B> mMemoryCache = new LinkedHashMap<>(16, 0.75f, true);
+    private long mCacheBytes;
+    private final Map<Long, Request> mRequests = new HashMap<>();
+    private final Map<T, Long> mTargets = new WeakHashMap<>();
+
+    // Requests waiting for a decode thread, newest first. Guarded by itself.
+    private final Deque<Request> mPending = new ArrayDeque<>();
+
+    private int mHits;
+    private int mDecodes;
+    private int mCanceled;
+    private long mTotalLatency;
+    private long mMaxLatency;
+
+    private final Runnable mDecodeNext = new Runnable() {
+        @Override
+        public void run() {
+            final Request request;
+            synchronized (mPending) {
+                request = mPending.pollFirst();
+            }
+            if (request == null) {
+                // Canceled before a thread got to it
+                return;
+            }
+            B bitmap = null;
+            try {
+                bitmap = mDecoder.decode(request.videoId);
+            } finally {
+                // Always deliver, so the request doesn't stay in the pending ones
+                final B result = bitmap;
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(request, result);
+                    }
+                });
+            }
+        }
+    };
+
+    ThumbnailLoader(Decoder<B> decoder, Display<T, B> display, Executor decodeExecutor,
+                    Executor mainExecutor, Clock clock, long maxCacheBytes) {
+        mDecoder = decoder;
+        mDisplay = display;
+        mDecodeExecutor = decodeExecutor;
+        mMainExecutor = mainExecutor;
+        mClock = clock;
+        mMaxCacheBytes = maxCacheBytes;
+    }
+
+    /**
+     * Show the thumbnail of the video in the target. Any previous request for the
+     * same target is canceled.
+     */
+    void load(long videoId, T target) {
+        cancel(target);
+
+        B bitmap = mMemoryCache.get(videoId);
+        if (bitmap != null) {
+            ++mHits;
+            mDisplay.show(target, bitmap);
+            return;
+        }
+
+        // Don't show the image of the video previously bound to a recycled target
+        mDisplay.show(target, null);
+        mTargets.put(target, videoId);
+
+        Request request = mRequests.get(videoId);
+        if (request == null) {
+            request = new Request(videoId, mClock.uptimeMillis());
+            mRequests.put(videoId, request);
+            synchronized (mPending) {
+                mPending.addFirst(request);
+            }
+            // Each task decodes whichever request is the newest when it runs
+            mDecodeExecutor.execute(mDecodeNext);
+        }
+        request.targets.add(target);
+    }
+
+    /**
+     * Cancel the pending request for the target, if any. The decoding is canceled if no
+     * other target is waiting for the same thumbnail.
+     */
+    void cancel(T target) {
+        Long videoId = mTargets.remove(target);
+        if (videoId == null) {
+            return;
+        }
+        Request request = mRequests.get(videoId);
+        if (request != null) {
+            request.targets.remove(target);
+            if (request.targets.isEmpty()) {
+                mRequests.remove(videoId);
+                synchronized (mPending) {
+                    if (mPending.remove(request)) {
+                        ++mCanceled;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Release the thumbnails kept in memory.
+     */
+    void trimMemory() {
+        mMemoryCache.clear();
+        mCacheBytes = 0;
+    }
+
+    int getPendingCount() {
+        synchronized (mPending) {
+            return mPending.size();
+        }
+    }
+
+    long getCacheBytes() {
+        return mCacheBytes;
+    }
+
+    int getHitCount() {
+        return mHits;
+    }
+
+    int getDecodeCount() {
+        return mDecodes;
+    }
+
+    int getCanceledCount() {
+        return mCanceled;
+    }
+
+    /**
+     * @return Longest time from a request to its thumbnail being decoded, in milliseconds.
+     */
+    long getMaxLatency() {
+        return mMaxLatency;
+    }
+
+    String getStats() {
+        return String.format("hits %d, decodes %d, canceled %d, avg latency %.1f ms, "
+                        + "max latency %d ms, cached %d KB",
+                mHits, mDecodes, mCanceled, mDecodes > 0 ? (float) mTotalLatency / mDecodes : 0f,
+                mMaxLatency, mCacheBytes / 1024);
+    }
+
+    private void deliver(Request request, B bitmap) {
+        long latency = mClock.uptimeMillis() - request.requestTime;
+        ++mDecodes;
+        mTotalLatency += latency;
+        mMaxLatency = Math.max(mMaxLatency, latency);
+
+        if (mRequests.get(request.videoId) != request) {
+            // Canceled meanwhile
+            return;
+        }
+        mRequests.remove(request.videoId);
+        if (bitmap != null) {
+            putCached(request.videoId, bitmap);
+        }
+        for (T target : request.targets) {
+            mTargets.remove(target);
+            if (bitmap != null) {
+                mDisplay.show(target, bitmap);
+            }
+        }
+    }
+
+    private void putCached(long videoId, B bitmap) {
+        B previous = mMemoryCache.put(videoId, bitmap);
+        if (previous != null) {
+            mCacheBytes -= mDecoder.sizeOf(previous);
+        }
+        mCacheBytes += mDecoder.sizeOf(bitmap);
+
+        Iterator<B> eldest = mMemoryCache.values().iterator();
+        while (mCacheBytes > mMaxCacheBytes && eldest.hasNext()) {
+            mCacheBytes -= mDecoder.sizeOf(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private class Request {
+
+        final long videoId;
+        final long requestTime;
+        final List<T> targets = new ArrayList<>(1);
+
+        Request(long videoId, long requestTime) {
+            this.videoId = videoId;
+            this.requestTime = requestTime;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.thumbnail;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.widget.ImageView;
+
+import com.samsungxr.videoplayer.VideoPlayerApp;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads video thumbnails into image views.
+ * <br/>Thumbnails are kept in a memory LRU cache bounded in bytes and in a disk cache of
+ * downscaled images, so MediaStore is only asked once for each video. Requests for the same
+ * video are coalesced, and decoding runs in a small pool that serves the newest requests
+ * first, since those are the views on screen while scrolling. That bookkeeping is done by
+ * {@link ThumbnailLoader}, this class supplies the Android parts.
+ * <br/>All public methods must be called from the UI thread.
+ */
+public final class ThumbnailService {
+
+    private static final String TAG = ThumbnailService.class.getSimpleName();
+    private static final String CACHE_DIRECTORY = "thumbnails";
+    private static final long DISK_CACHE_SIZE = 32 * 1024 * 1024;
+    private static final int MAX_DECODE_THREADS = 2;
+    // Max width of thumbnails stored in the disk cache
+    private static final int THUMBNAIL_WIDTH = 320;
+
+    private final ContentResolver mContentResolver;
+    private final ThumbnailDiskCache mDiskCache;
+    private final ThumbnailLoader<ImageView, Bitmap> mLoader;
+
+    private static class InstanceHolder {
+        private static final ThumbnailService INSTANCE =
+                new ThumbnailService(VideoPlayerApp.getInstance().getApplicationContext());
+    }
+
+    public static ThumbnailService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private ThumbnailService(Context context) {
+        mContentResolver = context.getContentResolver();
+
+        mDiskCache = new ThumbnailDiskCache(
+                new File(context.getCacheDir(), CACHE_DIRECTORY), DISK_CACHE_SIZE);
+
+        ThreadPoolExecutor decodePool = new ThreadPoolExecutor(MAX_DECODE_THREADS,
+                MAX_DECODE_THREADS, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        decodePool.allowCoreThreadTimeOut(true);
+
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        Executor mainExecutor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                mainHandler.post(runnable);
+            }
+        };
+
+        mLoader = new ThumbnailLoader<>(new ThumbnailLoader.Decoder<Bitmap>() {
+            @Override
+            public Bitmap decode(long videoId) {
+                try {
+                    return ThumbnailService.this.decode(videoId);
+                } catch (RuntimeException | OutOfMemoryError e) {
+                    Log.w(TAG, "Can't decode the thumbnail of video " + videoId, e);
+                    return null;
+                }
+            }
+
+            @Override
+            public int sizeOf(Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        }, new ThumbnailLoader.Display<ImageView, Bitmap>() {
+            @Override
+            public void show(ImageView target, Bitmap bitmap) {
+                if (bitmap == null) {
+                    target.setImageDrawable(null);
+                } else {
+                    target.setImageBitmap(bitmap);
+                }
+            }
+        }, decodePool, mainExecutor, new ThumbnailLoader.Clock() {
+            @Override
+            public long uptimeMillis() {
+                return SystemClock.uptimeMillis();
+            }
+        }, Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * Show the thumbnail of the video in the image view. Any previous request for the
+     * same view is canceled.
+     *
+     * @param videoId MediaStore id of the video.
+     * @param target  View to show the thumbnail.
+     */
+    @MainThread
+    public void load(long videoId, @NonNull ImageView target) {
+        mLoader.load(videoId, target);
+    }
+
+    /**
+     * Cancel the pending request for the view, if any. The decoding is canceled if no
+     * other view is waiting for the same thumbnail.
+     */
+    @MainThread
+    public void cancel(@NonNull ImageView target) {
+        mLoader.cancel(target);
+    }
+
+    /**
+     * Release the thumbnails kept in memory.
+     */
+    @MainThread
+    public void trimMemory() {
+        Log.d(TAG, "Thumbnails " + mLoader.getStats());
+        mLoader.trimMemory();
+    }
+
+    private Bitmap decode(long videoId) {
+        Bitmap bitmap = mDiskCache.get(videoId);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        bitmap = MediaStore.Video.Thumbnails.getThumbnail(
+                mContentResolver,
+                videoId,
+                MediaStore.Video.Thumbnails.MINI_KIND,
+                null
+        );
+        if (bitmap == null) {
+            return null;
+        }
+
+        if (bitmap.getWidth() > THUMBNAIL_WIDTH) {
+            int height = bitmap.getHeight() * THUMBNAIL_WIDTH / bitmap.getWidth();
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, THUMBNAIL_WIDTH, height, true);
+            bitmap.recycle();
+            bitmap = scaled;
+        }
+        mDiskCache.put(videoId, bitmap);
+        return bitmap;
+    }
+}
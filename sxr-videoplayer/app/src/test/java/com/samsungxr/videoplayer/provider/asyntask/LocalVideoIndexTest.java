@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.asyntask;
+
+import com.samsungxr.videoplayer.model.Video;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LocalVideoIndexTest {
+
+    @Test
+    public void oldModificationDateInsertIsIndexed() {
+        List<Video> indexed = Arrays.asList(video(1, "a"), video(2, "c"));
+        // The copied video has an older modification date, so the date query misses it
+        List<Video> changed = Collections.emptyList();
+        Set<Long> ids = ids(1, 2, 3);
+
+        Set<Long> unindexed = LocalVideoIndex.findUnindexed(indexed, changed, ids);
+        assertEquals(ids(3), unindexed);
+
+        List<Video> merged = LocalVideoIndex.merge(indexed, Collections.singletonList(video(3, "b")), ids);
+        assertEquals(3, merged.size());
+        assertEquals(2, merged.get(2).getId());
+        assertEquals(3, merged.get(1).getId());
+    }
+
+    @Test
+    public void removedVideoIsDropped() {
+        List<Video> indexed = Arrays.asList(video(1, "a"), video(2, "b"));
+        Set<Long> ids = ids(2);
+
+        assertEquals(ids(), LocalVideoIndex.findUnindexed(indexed, Collections.<Video>emptyList(), ids));
+        List<Video> merged = LocalVideoIndex.merge(indexed, Collections.<Video>emptyList(), ids);
+        assertEquals(1, merged.size());
+        assertEquals(2, merged.get(0).getId());
+    }
+
+    @Test
+    public void unchangedIndexIsKept() {
+        List<Video> indexed = Arrays.asList(video(1, "a"), video(2, "b"));
+        Set<Long> ids = ids(1, 2);
+
+        assertEquals(ids(), LocalVideoIndex.findUnindexed(indexed, Collections.<Video>emptyList(), ids));
+        assertNull(LocalVideoIndex.merge(indexed, Collections.singletonList(video(2, "b")), ids));
+    }
+
+    private static Video video(long id, String title) {
+        return new Video(id, title, "/sdcard/" + title + ".mp4", 1000, false, false, false,
+                Video.VideoType.LOCAL);
+    }
+
+    private static Set<Long> ids(long... ids) {
+        Set<Long> set = new HashSet<>();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+}
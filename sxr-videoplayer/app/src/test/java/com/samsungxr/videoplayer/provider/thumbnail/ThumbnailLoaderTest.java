@@ -0,0 +1,346 @@
+/*
+ * Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.samsungxr.videoplayer.provider.thumbnail;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives {@link ThumbnailLoader} with a fake decoder, executors run by hand and a
+ * simulated clock, so the decode threads and the UI thread are stepped frame by frame.
+ */
+public class ThumbnailLoaderTest {
+
+    // A 320x180 ARGB thumbnail
+    private static final int BITMAP_BYTES = 320 * 180 * 4;
+    private static final long FRAME_MS = 16;
+
+    // The scroll: a 10k video library shown 12 at a time, flung at 3 videos a frame,
+    // with two decode threads that each decode one thumbnail a frame
+    private static final int LIBRARY = 10000;
+    private static final int VISIBLE = 12;
+    private static final int SCROLL_SPEED = 3;
+    private static final int DECODES_PER_FRAME = 2;
+    private static final int CACHED_BITMAPS = 64;
+
+    private final FakeDecoder decoder = new FakeDecoder();
+    private final ManualExecutor decodeThreads = new ManualExecutor();
+    private final ManualExecutor mainThread = new ManualExecutor();
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void coalescesRequestsForTheSameVideo() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(CACHED_BITMAPS);
+        FakeView a = new FakeView();
+        FakeView b = new FakeView();
+
+        loader.load(7, a);
+        loader.load(7, b);
+        decodeThreads.runAll();
+        mainThread.runAll();
+
+        assertEquals(1, decoder.decodes.size());
+        assertEquals(7, a.shown.videoId);
+        assertSame(a.shown, b.shown);
+    }
+
+    @Test
+    public void decodesTheNewestRequestFirst() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(CACHED_BITMAPS);
+
+        loader.load(1, new FakeView());
+        loader.load(2, new FakeView());
+        loader.load(3, new FakeView());
+        decodeThreads.runAll();
+
+        assertEquals(list(3L, 2L, 1L), decoder.decodes);
+    }
+
+    @Test
+    public void rebindingAViewCancelsItsRequest() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(CACHED_BITMAPS);
+        FakeView view = new FakeView();
+
+        loader.load(1, view);
+        loader.load(2, view);
+        decodeThreads.runAll();
+        mainThread.runAll();
+
+        assertEquals(list(2L), decoder.decodes);
+        assertEquals(2, view.shown.videoId);
+        assertEquals(1, loader.getCanceledCount());
+        assertEquals(0, loader.getPendingCount());
+    }
+
+    @Test
+    public void canceledDecodeInProgressIsNotShown() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(CACHED_BITMAPS);
+        FakeView view = new FakeView();
+
+        loader.load(1, view);
+        decodeThreads.runAll();
+        loader.cancel(view);
+        mainThread.runAll();
+
+        assertNull(view.shown);
+        assertEquals(0, loader.getCacheBytes());
+    }
+
+    @Test
+    public void failedDecodeIsRequestedAgain() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(CACHED_BITMAPS);
+        FakeView view = new FakeView();
+        decoder.failing.add(5L);
+
+        loader.load(5, view);
+        decodeThreads.runAll();
+        mainThread.runAll();
+        assertNull(view.shown);
+
+        decoder.failing.clear();
+        loader.load(5, view);
+        decodeThreads.runAll();
+        mainThread.runAll();
+        assertEquals(5, view.shown.videoId);
+        assertEquals(list(5L, 5L), decoder.decodes);
+    }
+
+    @Test
+    public void memoryCacheEvictsTheLeastRecentlyUsed() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(3);
+        FakeView view = new FakeView();
+
+        for (long id = 1; id <= 3; ++id) {
+            show(loader, id, view);
+        }
+        // 1 becomes the most recently used, so 2 is evicted by 4
+        show(loader, 1, view);
+        show(loader, 4, view);
+        assertEquals(3 * BITMAP_BYTES, loader.getCacheBytes());
+
+        int decodes = decoder.decodes.size();
+        show(loader, 1, view);
+        assertEquals(decodes, decoder.decodes.size());
+        show(loader, 2, view);
+        assertEquals(decodes + 1, decoder.decodes.size());
+        assertEquals(3 * BITMAP_BYTES, loader.getCacheBytes());
+    }
+
+    /**
+     * Flings through the whole library, then checks that the views at rest get their
+     * thumbnails within the frames two threads need to decode them, and that scrolling
+     * back one screen is served from memory.
+     */
+    @Test
+    public void scrollsTenThousandVideos() {
+        ThumbnailLoader<FakeView, FakeBitmap> loader = newLoader(CACHED_BITMAPS);
+        RecycledList list = new RecycledList(loader);
+        long start = System.nanoTime();
+        int frames = 0;
+        int maxPending = 0;
+
+        list.scrollTo(0);
+        while (list.first + VISIBLE < LIBRARY) {
+            list.scrollTo(Math.min(list.first + SCROLL_SPEED, LIBRARY - VISIBLE));
+            frame(loader, list);
+            maxPending = Math.max(maxPending, loader.getPendingCount());
+            ++frames;
+        }
+        int flingDecodes = decoder.decodes.size();
+
+        int restFrames = 0;
+        while (!list.allShown()) {
+            frame(loader, list);
+            ++restFrames;
+            assertTrue("views at rest still empty after " + restFrames + " frames",
+                    restFrames <= VISIBLE / DECODES_PER_FRAME + 1);
+        }
+
+        // One screen back and forth again, the screen left is still in memory
+        int restScreen = list.first;
+        list.scrollTo(restScreen - VISIBLE);
+        while (!list.allShown()) {
+            frame(loader, list);
+        }
+        int decodes = decoder.decodes.size();
+        int hits = loader.getHitCount();
+        list.scrollTo(restScreen);
+        assertTrue(list.allShown());
+        assertEquals(decodes, decoder.decodes.size());
+        assertEquals(hits + VISIBLE, loader.getHitCount());
+        long elapsed = System.nanoTime() - start;
+
+        // Cancellation keeps the work to the views on screen, not to the videos scrolled past
+        assertTrue("max pending " + maxPending, maxPending <= VISIBLE);
+        assertTrue("decodes " + flingDecodes, flingDecodes <= frames * DECODES_PER_FRAME);
+        assertTrue(loader.getCacheBytes() <= CACHED_BITMAPS * BITMAP_BYTES);
+
+        System.out.println("Scrolled " + LIBRARY + " videos in " + frames + " frames, "
+                + restFrames + " frames to fill the screen at rest, " + loader.getStats()
+                + ", " + elapsed / (frames + restFrames) + " ns per frame");
+    }
+
+    private ThumbnailLoader<FakeView, FakeBitmap> newLoader(int cachedBitmaps) {
+        return new ThumbnailLoader<>(decoder, new ThumbnailLoader.Display<FakeView, FakeBitmap>() {
+            @Override
+            public void show(FakeView target, FakeBitmap bitmap) {
+                target.shown = bitmap;
+            }
+        }, decodeThreads, mainThread, clock, (long) cachedBitmaps * BITMAP_BYTES);
+    }
+
+    private void show(ThumbnailLoader<FakeView, FakeBitmap> loader, long videoId, FakeView view) {
+        loader.load(videoId, view);
+        decodeThreads.runAll();
+        mainThread.runAll();
+        assertEquals(videoId, view.shown.videoId);
+    }
+
+    // What the decode threads and the UI thread get done in one frame
+    private void frame(ThumbnailLoader<FakeView, FakeBitmap> loader, RecycledList list) {
+        int target = decoder.decodes.size() + DECODES_PER_FRAME;
+        while (decoder.decodes.size() < target && decodeThreads.runNext()) {
+        }
+        clock.now += FRAME_MS;
+        mainThread.runAll();
+        list.checkNoStaleImages();
+    }
+
+    private static List<Long> list(Long... ids) {
+        List<Long> list = new ArrayList<>();
+        for (Long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    /**
+     * The views of a RecyclerView showing the library: the view of a video scrolled off
+     * one end is bound to the one coming in at the other.
+     */
+    private static class RecycledList {
+        final ThumbnailLoader<FakeView, FakeBitmap> loader;
+        final FakeView[] views = new FakeView[VISIBLE];
+        int first = -1;
+
+        RecycledList(ThumbnailLoader<FakeView, FakeBitmap> loader) {
+            this.loader = loader;
+            for (int i = 0; i < VISIBLE; ++i) {
+                views[i] = new FakeView();
+            }
+        }
+
+        void scrollTo(int newFirst) {
+            for (int position = newFirst; position < newFirst + VISIBLE; ++position) {
+                if (first < 0 || position < first || position >= first + VISIBLE) {
+                    FakeView view = views[position % VISIBLE];
+                    view.boundId = position;
+                    loader.load(position, view);
+                }
+            }
+            first = newFirst;
+        }
+
+        boolean allShown() {
+            for (FakeView view : views) {
+                if (view.shown == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void checkNoStaleImages() {
+            for (FakeView view : views) {
+                assertTrue(view.shown == null || view.shown.videoId == view.boundId);
+            }
+        }
+    }
+
+    private static class FakeView {
+        FakeBitmap shown;
+        long boundId = -1;
+    }
+
+    private static class FakeBitmap {
+        final long videoId;
+
+        FakeBitmap(long videoId) {
+            this.videoId = videoId;
+        }
+    }
+
+    private static class FakeDecoder implements ThumbnailLoader.Decoder<FakeBitmap> {
+        final List<Long> decodes = new ArrayList<>();
+        final Set<Long> failing = new HashSet<>();
+
+        @Override
+        public FakeBitmap decode(long videoId) {
+            decodes.add(videoId);
+            return failing.contains(videoId) ? null : new FakeBitmap(videoId);
+        }
+
+        @Override
+        public int sizeOf(FakeBitmap bitmap) {
+            return BITMAP_BYTES;
+        }
+    }
+
+    private static class FakeClock implements ThumbnailLoader.Clock {
+        long now;
+
+        @Override
+        public long uptimeMillis() {
+            return now;
+        }
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            tasks.addLast(runnable);
+        }
+
+        boolean runNext() {
+            Runnable task = tasks.pollFirst();
+            if (task == null) {
+                return false;
+            }
+            task.run();
+            return true;
+        }
+
+        void runAll() {
+            while (runNext()) {
+            }
+        }
+    }
+}
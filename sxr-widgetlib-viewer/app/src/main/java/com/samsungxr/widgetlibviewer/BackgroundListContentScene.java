@@ -5,7 +5,6 @@ import android.graphics.BitmapFactory;
 import android.graphics.PointF;
 
 import com.samsungxr.SXRContext;
-import com.samsungxr.widgetlib.adapter.Adapter;
 import com.samsungxr.widgetlib.log.Log;
 import com.samsungxr.widgetlib.main.MainScene;
 import com.samsungxr.widgetlib.main.WidgetLib;
@@ -51,6 +50,11 @@ public class BackgroundListContentScene extends BaseContentScene {
 
     @Override
     public void show() {
+        if (mAdapter != null && mAdapter.isLoadingCancelled()) {
+            // hidden before every thumbnail was loaded, so load them again
+            mLayoutScroller = null;
+            setContentWidget(createContent());
+        }
         super.show();
         mHorizontalPicker.show();
     }
@@ -59,6 +63,8 @@ public class BackgroundListContentScene extends BaseContentScene {
     public void hide() {
         super.hide();
         mHorizontalPicker.hide();
+        // don't keep decoding thumbnails for a hidden list
+        mAdapter.cancelLoading();
     }
 
     @Override
@@ -87,9 +93,9 @@ public class BackgroundListContentScene extends BaseContentScene {
         }
 
         @Override
-        public Bitmap get() {
+        public Bitmap get(BitmapFactory.Options options) {
             return BitmapFactory.decodeResource(mGvrContext.getContext()
-                    .getResources(), mThumbnailId);
+                    .getResources(), mThumbnailId, options);
         }
     }
 
@@ -105,7 +111,7 @@ public class BackgroundListContentScene extends BaseContentScene {
     }
 
     private PickerWidget setupHorizontalPicker() {
-        Adapter adapter = new BitmapAdapter(mGvrContext, getBackgroundList()) {
+        BitmapAdapter adapter = new BitmapAdapter(mGvrContext, getBackgroundList()) {
             @Override
             public float getUniformWidth() {
                 return widthQuad;
@@ -157,6 +163,7 @@ public class BackgroundListContentScene extends BaseContentScene {
         };
         horizontalPicker.addOnItemTouchListener(touchListener);
         horizontalPicker.hide();
+        mAdapter = adapter;
         return horizontalPicker;
     }
 
@@ -184,6 +191,7 @@ public class BackgroundListContentScene extends BaseContentScene {
 
     private LayoutScroller mLayoutScroller;
     private PickerWidget mHorizontalPicker;
+    private BitmapAdapter mAdapter;
     private ViewerMain.BackgroundWidget mBgWidget;
 
     private static final String TAG = tag(BackgroundListContentScene.class);
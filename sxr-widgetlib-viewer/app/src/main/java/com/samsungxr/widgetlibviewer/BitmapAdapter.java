@@ -1,6 +1,7 @@
 package com.samsungxr.widgetlibviewer;
 
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 
 import com.samsungxr.SXRContext;
 import com.samsungxr.widgetlib.adapter.BaseAdapter;
@@ -12,43 +13,66 @@ import com.samsungxr.widgetlib.widget.Widget;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.samsungxr.utility.Threads.spawn;
-
+/**
+ * Shows a list of thumbnails as quads. The thumbnails are decoded in the
+ * background by a {@link ThumbnailLoader}, sampled down to about the size
+ * of the quad, and each one is added to the adapter as soon as it and the
+ * ones before it are ready.
+ */
 public class BitmapAdapter extends BaseAdapter {
     protected float widthQuad = 4;
     protected float heightQuad = widthQuad / 2.f;
 
+    // texture pixels per quad unit the thumbnails are decoded for
+    private static final int THUMBNAIL_PIXELS_PER_UNIT = 64;
+    private static final int DECODE_THREADS = 2;
+    // decoded thumbnails waiting for the ones before them
+    private static final int DECODE_WINDOW = 4;
+
     public BitmapAdapter(SXRContext sxrContext,
                          final List<? extends BitmapGetter> items) {
         Log.d(TAG, "CTOR(): items: %d", items.size());
-        mBitmaps = new ArrayList<Bitmap>();
+        mItems = new ArrayList<BitmapGetter>(items);
+        mBitmaps = new Bitmap[mItems.size()];
+        mTextures = new SXRBitmapTexture[mItems.size()];
         mGvrContext = sxrContext;
-        final Runnable onBackgroundThread = new Runnable() {
-            @Override
-            public void run() {
-                getBitmaps(items);
-                notifyDataSetChanged();
-            }
-        };
-        spawn(onBackgroundThread);
+        mLoader = new ThumbnailLoader<Bitmap>(mSource,
+                (int) (widthQuad * THUMBNAIL_PIXELS_PER_UNIT),
+                (int) (heightQuad * THUMBNAIL_PIXELS_PER_UNIT),
+                DECODE_THREADS, DECODE_WINDOW, mListener);
+        mLoader.start();
+    }
+
+    /**
+     * Stops decoding the thumbnails that are not loaded yet.
+     */
+    public void cancelLoading() {
+        mLoader.cancel();
+    }
+
+    /**
+     * @return true if loading was cancelled before every thumbnail was loaded
+     */
+    public boolean isLoadingCancelled() {
+        return mLoader.isCancelled();
     }
 
     @Override
     public int getCount() {
-        final int size = mBitmaps.size();
+        final int size = mLoadedCount;
         Log.d(TAG, "getCount(): %d", size);
         return size;
     }
 
     @Override
-    public SXRBitmapTexture getItem(int position) {
-        SXRBitmapTexture texture = mTextures.get(position);
+    public synchronized SXRBitmapTexture getItem(int position) {
+        SXRBitmapTexture texture = mTextures[position];
         if (texture == null) {
-            final Bitmap bitmap = mBitmaps.get(position);
+            final Bitmap bitmap = mBitmaps[position];
             texture = new SXRBitmapTexture(mGvrContext, bitmap);
-            mTextures.set(position, texture);
+            mTextures[position] = texture;
 
-            mBitmaps.set(position, null);
+            mBitmaps[position] = null;
         }
         return texture;
     }
@@ -58,23 +82,56 @@ public class BitmapAdapter extends BaseAdapter {
         return position;
     }
 
-    private void getBitmaps(
-            final List<? extends BitmapGetter> backgroundsInfo) {
-        for (BitmapGetter item : backgroundsInfo) {
-            final Bitmap bitmap = item.get();
+    private final ThumbnailLoader.Source<Bitmap> mSource = new ThumbnailLoader.Source<Bitmap>() {
+        @Override
+        public int getCount() {
+            return mItems.size();
+        }
+
+        @Override
+        public boolean getSize(int index, int[] size) {
+            final BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            mItems.get(index).get(options);
+            size[0] = options.outWidth;
+            size[1] = options.outHeight;
+            return options.outWidth > 0 && options.outHeight > 0;
+        }
+
+        @Override
+        public Bitmap decode(int index, int sampleSize) {
+            final BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize;
+            return mItems.get(index).get(options);
+        }
+
+        @Override
+        public void release(Bitmap bitmap) {
+            bitmap.recycle();
+        }
+    };
+
+    private final ThumbnailLoader.Listener<Bitmap> mListener = new ThumbnailLoader.Listener<Bitmap>() {
+        @Override
+        public void onLoaded(int index, Bitmap bitmap) {
             if (null == bitmap) {
                 Log.e(TAG,
                         "no bitmap object retrieved from the bitmap getter; item"
-                                + item);
+                                + mItems.get(index));
             }
-            mBitmaps.add(bitmap);
-            mTextures.add(null); // Prep list for on-demand texture
-            // generation
+            synchronized (BitmapAdapter.this) {
+                mBitmaps[index] = bitmap;
+            }
+            mLoadedCount = index + 1;
+            notifyDataSetChanged();
         }
-    }
+    };
 
-    private final List<Bitmap> mBitmaps;
-    private final List<SXRBitmapTexture> mTextures = new ArrayList<SXRBitmapTexture>();
+    private final List<BitmapGetter> mItems;
+    private final Bitmap[] mBitmaps;
+    private final SXRBitmapTexture[] mTextures;
+    private volatile int mLoadedCount;
+    private final ThumbnailLoader<Bitmap> mLoader;
     private final SXRContext mGvrContext;
     private final String TAG = BitmapAdapter.class.getSimpleName();
 
@@ -95,7 +152,11 @@ public class BitmapAdapter extends BaseAdapter {
         return quadWidget;
     }
 
+    /**
+     * Decodes a thumbnail with the given options, which may ask for only its
+     * bounds or for it sampled down.
+     */
     public interface BitmapGetter {
-        Bitmap get();
+        Bitmap get(BitmapFactory.Options options);
     }
 }
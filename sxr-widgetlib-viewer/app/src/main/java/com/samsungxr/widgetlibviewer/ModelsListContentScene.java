@@ -74,9 +74,9 @@ public class ModelsListContentScene extends BaseContentScene {
         }
 
         @Override
-        public Bitmap get() {
+        public Bitmap get(BitmapFactory.Options options) {
             return BitmapFactory.decodeResource(mGvrContext.getContext()
-                    .getResources(), mThumbnailId);
+                    .getResources(), mThumbnailId, options);
         }
     }
 
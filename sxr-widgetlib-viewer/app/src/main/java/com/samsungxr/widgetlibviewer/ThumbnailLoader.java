@@ -0,0 +1,192 @@
+package com.samsungxr.widgetlibviewer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes a list of thumbnails on a small thread pool, each one sampled
+ * down to the size it is shown at, and hands them out in list order as
+ * soon as they and the ones before them are ready.
+ * <p>
+ * Only a window of items past the last one handed out is decoded at a
+ * time, so however long the list, at most that many decoded thumbnails
+ * wait in the loader. Has no Android dependencies so it can be tested off
+ * the device with a fake source.
+ */
+class ThumbnailLoader<B> {
+
+    interface Source<B> {
+        int getCount();
+
+        /**
+         * Reads the full size of an item without decoding it.
+         *
+         * @return false if the size could not be read
+         */
+        boolean getSize(int index, int[] size);
+
+        B decode(int index, int sampleSize);
+
+        /**
+         * Frees a decoded item that will not be handed out.
+         */
+        void release(B bitmap);
+    }
+
+    interface Listener<B> {
+        /**
+         * Called in index order on a loader thread, bitmap is null if the
+         * item could not be decoded.
+         */
+        void onLoaded(int index, B bitmap);
+    }
+
+    ThumbnailLoader(Source<B> source, int targetWidth, int targetHeight,
+                    int threads, int window, Listener<B> listener) {
+        mSource = source;
+        mTargetWidth = targetWidth;
+        mTargetHeight = targetHeight;
+        mWindow = window;
+        mListener = listener;
+        mCount = source.getCount();
+        mResults = new Object[mCount];
+        mDecoded = new boolean[mCount];
+        mExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger mThreadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ThumbnailLoader-" + mThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    synchronized void start() {
+        submitWindow();
+    }
+
+    /**
+     * Stops decoding, nothing is handed out after this returns. Does nothing
+     * once every item was handed out.
+     */
+    synchronized void cancel() {
+        if (mCancelled || mPublished == mCount) {
+            return;
+        }
+        mCancelled = true;
+        mExecutor.shutdownNow();
+        for (int i = mPublished; i < mCount; ++i) {
+            releaseResult(i);
+        }
+    }
+
+    /**
+     * @return true if cancelled before every item was handed out
+     */
+    synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * @return the largest power of two that keeps the decoded size at or
+     * above the target size, as BitmapFactory.Options.inSampleSize
+     */
+    static int computeSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return sampleSize;
+        }
+        while (width / (sampleSize * 2) >= targetWidth
+                && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private void decode(int index) {
+        if (isCancelled()) {
+            return;
+        }
+
+        int sampleSize = 1;
+        int[] size = new int[2];
+        if (mSource.getSize(index, size)) {
+            sampleSize = computeSampleSize(size[0], size[1], mTargetWidth, mTargetHeight);
+        }
+
+        B bitmap = null;
+        try {
+            bitmap = mSource.decode(index, sampleSize);
+        } finally {
+            onDecoded(index, bitmap);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void onDecoded(int index, B bitmap) {
+        if (mCancelled) {
+            if (bitmap != null) {
+                mSource.release(bitmap);
+            }
+            return;
+        }
+
+        mResults[index] = bitmap;
+        mDecoded[index] = true;
+        // the listener is called under the lock, so items go out in order
+        while (mPublished < mCount && mDecoded[mPublished]) {
+            B published = (B) mResults[mPublished];
+            mResults[mPublished] = null;
+            mListener.onLoaded(mPublished++, published);
+        }
+
+        if (mPublished == mCount) {
+            mExecutor.shutdown();
+        } else {
+            submitWindow();
+        }
+    }
+
+    private void submitWindow() {
+        while (!mCancelled && mSubmitted < mCount && mSubmitted < mPublished + mWindow) {
+            final int index = mSubmitted++;
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    decode(index);
+                }
+            });
+        }
+        if (mCount == 0) {
+            mExecutor.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void releaseResult(int index) {
+        B bitmap = (B) mResults[index];
+        mResults[index] = null;
+        if (bitmap != null) {
+            mSource.release(bitmap);
+        }
+    }
+
+    private final Source<B> mSource;
+    private final Listener<B> mListener;
+    private final int mTargetWidth;
+    private final int mTargetHeight;
+    private final int mWindow;
+    private final int mCount;
+    private final ExecutorService mExecutor;
+
+    // guarded by this
+    private final Object[] mResults;
+    private final boolean[] mDecoded;
+    private int mSubmitted;
+    private int mPublished;
+    private boolean mCancelled;
+}
@@ -0,0 +1,205 @@
+package com.samsungxr.widgetlibviewer;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads lists of fake thumbnails through {@link ThumbnailLoader}, with
+ * decodes that take a random time so they finish out of order, and checks
+ * that they are handed out in list order, that the decoded thumbnails
+ * waiting in the loader never take more than the window allows, that the
+ * sample size brings a 1000x500 thumbnail down to the quad size and that
+ * nothing is handed out or leaked after cancelling.
+ */
+public class ThumbnailLoaderTest {
+    private static final int ROUNDS = 100;
+    private static final int MAX_ITEMS = 40;
+    private static final int THREADS = 2;
+    private static final int WINDOW = 4;
+    // what BitmapAdapter asks for with a 4x2 quad
+    private static final int TARGET_WIDTH = 256;
+    private static final int TARGET_HEIGHT = 128;
+    private static final int BYTES_PER_PIXEL = 4;
+    // the largest size the source makes is 1000x500, sampled by 2
+    private static final long MAX_BYTES = 500 * 250 * BYTES_PER_PIXEL;
+
+    private final Random random = new Random(25);
+
+    @Test
+    public void samplesDownToTheTargetSize() {
+        assertEquals(2, ThumbnailLoader.computeSampleSize(1000, 500, TARGET_WIDTH, TARGET_HEIGHT));
+        assertEquals(8, ThumbnailLoader.computeSampleSize(2688, 1512, TARGET_WIDTH, TARGET_HEIGHT));
+        assertEquals(2, ThumbnailLoader.computeSampleSize(640, 320, TARGET_WIDTH, TARGET_HEIGHT));
+        assertEquals(1, ThumbnailLoader.computeSampleSize(200, 100, TARGET_WIDTH, TARGET_HEIGHT));
+    }
+
+    @Test
+    public void handsOutInOrderWithinTheWindow() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; ++round) {
+            int count = random.nextInt(MAX_ITEMS + 1);
+            Round loading = new Round(count);
+            loading.loader.start();
+
+            assertTrue("loading " + count + " timed out", loading.done.await(10, TimeUnit.SECONDS));
+            assertNull(loading.failure.get());
+            assertEquals(count, loading.published.get());
+            assertEquals(0, loading.source.released.get());
+            assertTrue("peak waiting bytes " + loading.source.peakBytes.get(),
+                    loading.source.peakBytes.get() <= WINDOW * MAX_BYTES);
+        }
+    }
+
+    @Test
+    public void handsOutNothingAndLeaksNothingAfterCancel() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; ++round) {
+            int count = 1 + random.nextInt(MAX_ITEMS);
+            Round loading = new Round(count);
+            loading.loader.start();
+
+            Thread.sleep(random.nextInt(3 * count / THREADS + 1));
+            loading.loader.cancel();
+            loading.cancelled.set(true);
+            // the decodes already running finish and are released
+            Thread.sleep(10);
+
+            assertNull(loading.failure.get());
+            assertEquals(loading.source.decoded.get(),
+                    loading.published.get() + loading.source.released.get());
+            assertEquals(loading.published.get() < count, loading.loader.isCancelled());
+            assertTrue("peak waiting bytes " + loading.source.peakBytes.get(),
+                    loading.source.peakBytes.get() <= WINDOW * MAX_BYTES);
+        }
+    }
+
+    @Test
+    public void cancelAfterLoadingEverythingDoesNothing() throws InterruptedException {
+        Round loading = new Round(8);
+        loading.loader.start();
+        assertTrue(loading.done.await(10, TimeUnit.SECONDS));
+
+        loading.loader.cancel();
+        assertFalse(loading.loader.isCancelled());
+        assertEquals(0, loading.source.released.get());
+    }
+
+    private class Round implements ThumbnailLoader.Listener<FakeBitmap> {
+        final FakeSource source;
+        final ThumbnailLoader<FakeBitmap> loader;
+        final AtomicInteger published = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Round(int count) {
+            source = new FakeSource(count);
+            loader = new ThumbnailLoader<FakeBitmap>(source, TARGET_WIDTH, TARGET_HEIGHT,
+                    THREADS, WINDOW, this);
+            if (count == 0) {
+                done.countDown();
+            }
+        }
+
+        // called on a loader thread, so failures are kept for the test thread
+        @Override
+        public void onLoaded(int index, FakeBitmap bitmap) {
+            if (cancelled.get()) {
+                fail("item " + index + " handed out after cancel");
+            } else if (index != published.get()) {
+                fail("item " + index + " handed out before " + published.get());
+            } else if (bitmap.index != index) {
+                fail("item " + index + " handed out as " + bitmap.index);
+            } else if (bitmap.sampleSize != ThumbnailLoader.computeSampleSize(
+                    source.widths[index], source.heights[index], TARGET_WIDTH, TARGET_HEIGHT)) {
+                fail("item " + index + " decoded with sample size " + bitmap.sampleSize);
+            }
+            source.waitingBytes.addAndGet(-bitmap.bytes);
+            if (published.incrementAndGet() == source.getCount()) {
+                done.countDown();
+            }
+        }
+
+        private void fail(String message) {
+            failure.compareAndSet(null, message);
+        }
+    }
+
+    private static class FakeBitmap {
+        final int index;
+        final int sampleSize;
+        final long bytes;
+
+        FakeBitmap(int index, int sampleSize, long bytes) {
+            this.index = index;
+            this.sampleSize = sampleSize;
+            this.bytes = bytes;
+        }
+    }
+
+    private class FakeSource implements ThumbnailLoader.Source<FakeBitmap> {
+        final int[] widths;
+        final int[] heights;
+        final int[] delays;
+        final AtomicInteger decoded = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+        final AtomicLong waitingBytes = new AtomicLong();
+        final AtomicLong peakBytes = new AtomicLong();
+
+        FakeSource(int count) {
+            widths = new int[count];
+            heights = new int[count];
+            delays = new int[count];
+            for (int i = 0; i < count; ++i) {
+                // the sizes of the thumbnails in res/raw
+                widths[i] = random.nextBoolean() ? 1000 : 640;
+                heights[i] = widths[i] / 2;
+                delays[i] = random.nextInt(4);
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return widths.length;
+        }
+
+        @Override
+        public boolean getSize(int index, int[] size) {
+            size[0] = widths[index];
+            size[1] = heights[index];
+            return true;
+        }
+
+        @Override
+        public FakeBitmap decode(int index, int sampleSize) {
+            try {
+                Thread.sleep(delays[index]);
+            } catch (InterruptedException e) {
+                // cancelled, decode anyway like BitmapFactory does
+            }
+            long bytes = (long) (widths[index] / sampleSize) * (heights[index] / sampleSize) * BYTES_PER_PIXEL;
+            long waiting = waitingBytes.addAndGet(bytes);
+            long peak;
+            while (waiting > (peak = peakBytes.get()) && !peakBytes.compareAndSet(peak, waiting)) {
+            }
+            decoded.incrementAndGet();
+            return new FakeBitmap(index, sampleSize, bytes);
+        }
+
+        @Override
+        public void release(FakeBitmap bitmap) {
+            waitingBytes.addAndGet(-bitmap.bytes);
+            released.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.samsungxr.x3ddemo;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.samsungxr.SXRContext;
+import com.samsungxr.SXRScreenshot3DCallback;
+import com.samsungxr.SXRScreenshotCallback;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Queues screenshot requests and writes the captured frames from a
+ * dedicated encoder thread.
+ * <p>
+ * The context only keeps one pending capture per eye, so requests are
+ * handed to it one at a time and the next one is issued when the previous
+ * frame arrives. Frames go to the encoder through a bounded queue, so the
+ * thread delivering them never waits on storage. A request made while
+ * either queue is full is dropped and counted instead of silently
+ * ignored.
+ */
+public class ScreenshotService
+{
+  private static final String TAG = ScreenshotService.class.getSimpleName();
+  private static final int REPORT_INTERVAL = 100;
+  private static final int JPEG_QUALITY = 90;
+
+  public static final int CENTER = 0;
+  public static final int LEFT = 1;
+  public static final int RIGHT = 2;
+  public static final int STEREO_3D = 3;
+
+  public enum Format
+  {
+    /** Pixels as they are in memory, the size is part of the file name */
+    RAW_RGBA,
+    /** Lossless, the slowest to encode */
+    PNG,
+    JPEG
+  }
+
+  private static class Request
+  {
+    final int mode;
+    final String filename;
+    final long requestTime;
+    Bitmap[] bitmaps;
+    long capturedTime;
+
+    Request(int mode, String filename)
+    {
+      this.mode = mode;
+      this.filename = filename;
+      this.requestTime = System.nanoTime();
+    }
+  }
+
+  private final SXRContext mContext;
+  private final File mDirectory;
+  private final Format mFormat;
+  private final int mCapacity;
+  private final ArrayDeque<Request> mRequests = new ArrayDeque<Request>();
+  private final BlockingQueue<Request> mEncodeQueue;
+  private final BlockingQueue<ByteBuffer> mBufferPool;
+  private final Thread mEncoder;
+  private Request mInFlight;
+
+  private int mRequested;
+  private int mWritten;
+  private int mDropped;
+  private long mCaptureNanos;
+  private long mTotalNanos;
+  private long mMaxTotalNanos;
+
+  public ScreenshotService(SXRContext context, File directory, Format format, int capacity)
+  {
+    mContext = context;
+    mDirectory = directory;
+    mFormat = format;
+    mCapacity = capacity;
+    mEncodeQueue = new ArrayBlockingQueue<Request>(capacity);
+    mBufferPool = new ArrayBlockingQueue<ByteBuffer>(capacity + 1);
+
+    mEncoder = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        encodeLoop();
+      }
+    }, "ScreenshotEncoder");
+    mEncoder.setDaemon(true);
+    mEncoder.start();
+  }
+
+  /**
+   * Asks for a capture of the center, left or right eye.
+   *
+   * @return false if the request was dropped because too many are pending
+   */
+  public boolean capture(int mode, String filename)
+  {
+    return enqueue(new Request(mode, filename));
+  }
+
+  /**
+   * Asks for a capture of the six faces around the camera.
+   *
+   * @return false if the request was dropped because too many are pending
+   */
+  public boolean capture3D(String filename)
+  {
+    return enqueue(new Request(STEREO_3D, filename));
+  }
+
+  public void shutdown()
+  {
+    mEncoder.interrupt();
+  }
+
+  public synchronized String getStats()
+  {
+    int captured = mWritten > 0 ? mWritten : 1;
+    return String.format("requested %d, written %d, dropped %d, "
+                    + "avg capture %.1f ms, avg total %.1f ms, max total %.1f ms",
+            mRequested, mWritten, mDropped, mCaptureNanos / 1e6f / captured,
+            mTotalNanos / 1e6f / captured, mMaxTotalNanos / 1e6f);
+  }
+
+  private synchronized boolean enqueue(Request request)
+  {
+    ++mRequested;
+    if (mRequests.size() >= mCapacity)
+    {
+      ++mDropped;
+      Log.w(TAG, "Dropped capture " + request.filename + ", " + mRequests.size() + " pending");
+      return false;
+    }
+    mRequests.add(request);
+    issueNext();
+    return true;
+  }
+
+  private void issueNext()
+  {
+    if (mInFlight != null || mRequests.isEmpty())
+    {
+      return;
+    }
+    mInFlight = mRequests.poll();
+    switch (mInFlight.mode)
+    {
+      case CENTER:
+        mContext.captureScreenCenter(mScreenshotCallback);
+        break;
+      case LEFT:
+        mContext.captureScreenLeft(mScreenshotCallback);
+        break;
+      case RIGHT:
+        mContext.captureScreenRight(mScreenshotCallback);
+        break;
+      case STEREO_3D:
+        mContext.captureScreen3D(mScreenshot3DCallback);
+        break;
+    }
+  }
+
+  private final SXRScreenshotCallback mScreenshotCallback = new SXRScreenshotCallback()
+  {
+    @Override
+    public void onScreenCaptured(Bitmap bitmap)
+    {
+      onCaptured(bitmap != null ? new Bitmap[] { bitmap } : new Bitmap[0]);
+    }
+  };
+
+  private final SXRScreenshot3DCallback mScreenshot3DCallback = new SXRScreenshot3DCallback()
+  {
+    @Override
+    public void onScreenCaptured(Bitmap[] bitmapArray)
+    {
+      onCaptured(bitmapArray != null ? bitmapArray : new Bitmap[0]);
+    }
+  };
+
+  // Runs on whatever thread delivers the frame, so it only hands it over.
+  private synchronized void onCaptured(Bitmap[] bitmaps)
+  {
+    Request request = mInFlight;
+    mInFlight = null;
+
+    if (request != null)
+    {
+      request.bitmaps = bitmaps;
+      request.capturedTime = System.nanoTime();
+      if (bitmaps.length == 0)
+      {
+        Log.e(TAG, "Returned Bitmap is null for " + request.filename);
+      }
+      else if (!mEncodeQueue.offer(request))
+      {
+        ++mDropped;
+        recycle(bitmaps);
+        Log.w(TAG, "Dropped capture " + request.filename + ", encoder is behind");
+      }
+    }
+    issueNext();
+  }
+
+  private void encodeLoop()
+  {
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+
+    try
+    {
+      while (true)
+      {
+        Request request = mEncodeQueue.take();
+
+        for (int i = 0; i < request.bitmaps.length; i++)
+        {
+          String name = request.bitmaps.length == 1 ? request.filename : request.filename + "_" + i;
+          try
+          {
+            write(request.bitmaps[i], name, encoded);
+          }
+          catch (IOException e)
+          {
+            Log.e(TAG, "Error writing capture " + name, e);
+          }
+        }
+        recycle(request.bitmaps);
+        onWritten(request);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Log.d(TAG, "Encoder stopped, " + getStats());
+    }
+  }
+
+  private void write(Bitmap bitmap, String name, ByteArrayOutputStream encoded) throws IOException
+  {
+    ByteBuffer pixels = null;
+    FileOutputStream outputStream = null;
+
+    try
+    {
+      switch (mFormat)
+      {
+        case RAW_RGBA:
+          pixels = obtainBuffer(bitmap.getByteCount());
+          bitmap.copyPixelsToBuffer(pixels);
+          outputStream = new FileOutputStream(new File(mDirectory,
+                  name + "_" + bitmap.getWidth() + "x" + bitmap.getHeight() + ".rgba"));
+          outputStream.write(pixels.array(), 0, pixels.position());
+          break;
+        case PNG:
+          encoded.reset();
+          bitmap.compress(Bitmap.CompressFormat.PNG, 100, encoded);
+          outputStream = new FileOutputStream(new File(mDirectory, name + ".png"));
+          encoded.writeTo(outputStream);
+          break;
+        case JPEG:
+          encoded.reset();
+          bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, encoded);
+          outputStream = new FileOutputStream(new File(mDirectory, name + ".jpg"));
+          encoded.writeTo(outputStream);
+          break;
+      }
+    }
+    finally
+    {
+      if (pixels != null)
+      {
+        mBufferPool.offer(pixels);
+      }
+      if (outputStream != null)
+      {
+        outputStream.close();
+      }
+    }
+  }
+
+  private ByteBuffer obtainBuffer(int size)
+  {
+    ByteBuffer buffer = mBufferPool.poll();
+    if (buffer == null || buffer.capacity() < size)
+    {
+      buffer = ByteBuffer.allocate(size);
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  private synchronized void onWritten(Request request)
+  {
+    long now = System.nanoTime();
+    long total = now - request.requestTime;
+
+    ++mWritten;
+    mCaptureNanos += request.capturedTime - request.requestTime;
+    mTotalNanos += total;
+    mMaxTotalNanos = Math.max(mMaxTotalNanos, total);
+    if (mWritten % REPORT_INTERVAL == 0)
+    {
+      Log.d(TAG, getStats());
+    }
+  }
+
+  private static void recycle(Bitmap[] bitmaps)
+  {
+    for (Bitmap bitmap : bitmaps)
+    {
+      if (bitmap != null)
+      {
+        bitmap.recycle();
+      }
+    }
+  }
+}
@@ -28,5 +28,11 @@ public class X3DparserActivity extends SXRActivity {
         super.onCreate(icicle);
         setMain(x3dParserScript, "sxr.xml");
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        x3dParserScript.close();
+    }
  
 }
@@ -15,7 +15,6 @@
 
 package com.samsungxr.x3ddemo;
 
-import android.graphics.Bitmap;
 import android.os.Environment;
 import android.util.Log;
 
@@ -24,15 +23,10 @@ import com.samsungxr.SXRLight;
 import com.samsungxr.SXRMain;
 import com.samsungxr.SXRScene;
 import com.samsungxr.SXRNode;
-import com.samsungxr.SXRScreenshot3DCallback;
-import com.samsungxr.SXRScreenshotCallback;
 import com.samsungxr.SXRShader;
 import com.samsungxr.SystemPropertyUtil;
-import com.samsungxr.utility.Threads;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
 
@@ -52,7 +46,11 @@ public class X3DparserScript extends SXRMain
 {
 
   private static final String TAG = X3DparserScript.class.getSimpleName();
+  private static final String CAPTURE_FORMAT_PROPERTY = "debug.gearvrf.x3d-capture";
+  private static final int MAX_PENDING_CAPTURES = 8;
   private SXRContext mSXRContext = null;
+  private ScreenshotService mScreenshots = null;
+  private FrameMetrics mFrameMetrics = null;
   SXRScene scene = null;
 
   public X3DparserScript(X3DparserActivity activity)
@@ -62,6 +60,10 @@ public class X3DparserScript extends SXRMain
   public void onInit(SXRContext sxrContext)
   {
     mSXRContext = sxrContext;
+    mFrameMetrics = FrameMetrics.attach(sxrContext);
+    mScreenshots = new ScreenshotService(sxrContext,
+            Environment.getExternalStorageDirectory(), getCaptureFormat(),
+            MAX_PENDING_CAPTURES);
 
     scene = sxrContext.getMainScene();
     scene.setBackgroundColor(0, 0, 0, 1);
@@ -108,168 +110,50 @@ public class X3DparserScript extends SXRMain
     mSXRContext.getInputManager().selectController();
   } // end onInit()
 
-  // @Override
-  public void onStep()
+  /**
+   * Queues a capture. The frame is written by the capture service's
+   * encoder thread, in the format chosen with the
+   * debug.gearvrf.x3d-capture property (raw, png or jpeg).
+   *
+   * @param mode 0 center eye, 1 left eye, 2 right eye
+   */
+  public void captureScreen(int mode, String filename)
   {
-    FPSCounter.tick();
+    mScreenshots.capture(mode, filename);
   }
 
-  private boolean lastScreenshotLeftFinished = true;
-  private boolean lastScreenshotRightFinished = true;
-  private boolean lastScreenshotCenterFinished = true;
-  private boolean lastScreenshot3DFinished = true;
-
-  // mode 0: center eye; mode 1: left eye; mode 2: right eye
-  public void captureScreen(final int mode, final String filename)
+  public void captureScreen3D(String filename)
   {
-    Threads.spawn(new Runnable()
-    {
-      public void run()
-      {
-
-        switch (mode)
-        {
-          case 0:
-            if (lastScreenshotCenterFinished)
-            {
-              mSXRContext
-                      .captureScreenCenter(newScreenshotCallback(filename, 0));
-              lastScreenshotCenterFinished = false;
-            }
-            break;
-          case 1:
-            if (lastScreenshotLeftFinished)
-            {
-              mSXRContext.captureScreenLeft(newScreenshotCallback(filename, 1));
-              lastScreenshotLeftFinished = false;
-            }
-            break;
-          case 2:
-            if (lastScreenshotRightFinished)
-            {
-              mSXRContext
-                      .captureScreenRight(newScreenshotCallback(filename, 2));
-              lastScreenshotRightFinished = false;
-            }
-            break;
-        }
-      }
-    });
+    mScreenshots.capture3D(filename);
   }
 
-  public void captureScreen3D(String filename)
+  /**
+   * Stops the frame metrics and the capture service's encoder thread,
+   * captures still pending are dropped.
+   */
+  public void close()
   {
-    if (lastScreenshot3DFinished)
+    if (mFrameMetrics != null)
     {
-      mSXRContext.captureScreen3D(newScreenshot3DCallback(filename));
-      lastScreenshot3DFinished = false;
+      mFrameMetrics.detach();
     }
-  }
-
-  private SXRScreenshotCallback newScreenshotCallback(final String filename,
-                                                      final int mode)
-  {
-    return new SXRScreenshotCallback()
+    if (mScreenshots != null)
     {
-
-      @Override
-      public void onScreenCaptured(Bitmap bitmap)
-      {
-        if (bitmap != null)
-        {
-          File file = new File(Environment.getExternalStorageDirectory(),
-                  filename + ".png");
-          FileOutputStream outputStream = null;
-          try
-          {
-            outputStream = new FileOutputStream(file);
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
-          }
-          catch (FileNotFoundException e)
-          {
-            e.printStackTrace();
-          }
-          finally
-          {
-            try
-            {
-              outputStream.close();
-            }
-            catch (IOException e)
-            {
-              e.printStackTrace();
-            }
-          }
-        }
-        else
-        {
-          Log.e("SampleActivity", "Returned Bitmap is null");
-        }
-
-        // enable next screenshot
-        switch (mode)
-        {
-          case 0:
-            lastScreenshotCenterFinished = true;
-            break;
-          case 1:
-            lastScreenshotLeftFinished = true;
-            break;
-          case 2:
-            lastScreenshotRightFinished = true;
-            break;
-        }
-      }
-    };
+      mScreenshots.shutdown();
+    }
   }
 
-  private SXRScreenshot3DCallback newScreenshot3DCallback(final String filename)
+  private static ScreenshotService.Format getCaptureFormat()
   {
-    return new SXRScreenshot3DCallback()
+    String format = SystemPropertyUtil.getSystemPropertyString(CAPTURE_FORMAT_PROPERTY);
+    if ("raw".equals(format))
     {
-
-      @Override
-      public void onScreenCaptured(Bitmap[] bitmapArray)
-      {
-        Log.d("SampleActivity", "Length of bitmapList: " + bitmapArray.length);
-        if (bitmapArray.length > 0)
-        {
-          for (int i = 0; i < bitmapArray.length; i++)
-          {
-            Bitmap bitmap = bitmapArray[i];
-            File file = new File(Environment.getExternalStorageDirectory(),
-                    filename + "_" + i + ".png");
-            FileOutputStream outputStream = null;
-            try
-            {
-              outputStream = new FileOutputStream(file);
-              bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
-            }
-            catch (FileNotFoundException e)
-            {
-              e.printStackTrace();
-            }
-            finally
-            {
-              try
-              {
-                outputStream.close();
-              }
-              catch (IOException e)
-              {
-                e.printStackTrace();
-              }
-            }
-          }
-        }
-        else
-        {
-          Log.e("SampleActivity", "Returned Bitmap List is empty");
-        }
-
-        // enable next screenshot
-        lastScreenshot3DFinished = true;
-      }
-    };
+      return ScreenshotService.Format.RAW_RGBA;
+    }
+    else if ("jpeg".equals(format))
+    {
+      return ScreenshotService.Format.JPEG;
+    }
+    return ScreenshotService.Format.PNG;
   }
-}
\ No newline at end of file
+}